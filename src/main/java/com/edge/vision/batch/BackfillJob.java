@@ -0,0 +1,604 @@
+package com.edge.vision.batch;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.io.AbstractResultWriter;
+import com.edge.vision.io.BinaryResultWriter;
+import com.edge.vision.io.CsvResultWriter;
+import com.edge.vision.io.JsonLinesResultWriter;
+import com.edge.vision.io.MeasurementRecord;
+import com.edge.vision.io.ResultWriter;
+import com.edge.vision.platform.OpenCVInitializer;
+import com.edge.vision.platform.ThreadingPolicy;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 可断点续跑的并行回填任务
+ *
+ * 模板重新标定后对历史图像库重新测量：遍历目录树，由分析器池并行分析，
+ * 结果增量写入输出文件，并按批写入 {@link Checkpoint}。进程崩溃或被终止后
+ * 用相同参数重新运行，会截断未提交的输出并跳过已完成的文件。
+ *
+ * 输出顺序:
+ * <ul>
+ *   <li>有序 - 按目录遍历顺序（每层按文件名排序）输出，单线程遍历，乱序完成的结果在内存中暂存</li>
+ *   <li>无序 - 按完成顺序输出，目录并行遍历，吞吐量最高</li>
+ * </ul>
+ * 每条结果对应的文件记录在检查点的 ok 行中（输出行号 + 相对路径）。
+ * 失败的文件记为 fail 行，默认之后的运行不再重试（损坏的图像不必每次重新读取）；
+ * 临时性错误（网络盘读取失败等）修复后用 {@link #setRetryFailed(boolean)}（命令行 --retry-failed）重新分析这些文件。
+ *
+ * 使用示例:
+ * <pre>
+ * BackfillProgress summary = new BackfillJob("template/needle.png", Paths.get("/archive"), Paths.get("out.jsonl"))
+ *     .setWorkers(8)
+ *     .setOrdered(false)
+ *     .setListener(p -> System.out.println(p))
+ *     .run();
+ * </pre>
+ * @author Coder建设
+ */
+public class BackfillJob {
+
+    /**
+     * 输出格式
+     */
+    public enum OutputFormat { JSONL, CSV, BINARY }
+
+    private static final String[] IMAGE_EXTENSIONS = { ".jpg", ".jpeg", ".png", ".bmp", ".tif", ".tiff" };
+
+    private final String templatePath;
+    private final Path root;
+    private final Path outputPath;
+    private Path checkpointPath;
+    private OutputFormat format = OutputFormat.JSONL;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private boolean ordered = false;
+    private boolean retryFailed = false;
+    private int commitEvery = 500;
+    private long commitIntervalMs = 2000;
+    private BackfillListener listener = p -> { };
+
+    /**
+     * 创建回填任务
+     *
+     * @param templatePath 模板路径
+     * @param root 图像根目录
+     * @param outputPath 结果输出文件
+     */
+    public BackfillJob(String templatePath, Path root, Path outputPath) {
+        this.templatePath = templatePath;
+        this.root = root;
+        this.outputPath = outputPath;
+        this.checkpointPath = outputPath.resolveSibling(outputPath.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * 设置检查点文件（默认为输出文件名加 .checkpoint）
+     */
+    public BackfillJob setCheckpoint(Path checkpointPath) {
+        this.checkpointPath = checkpointPath;
+        return this;
+    }
+
+    /**
+     * 设置输出格式（默认 JSONL）
+     */
+    public BackfillJob setFormat(OutputFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * 设置分析线程数（每个线程一个分析器）
+     */
+    public BackfillJob setWorkers(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("工作线程数必须大于0");
+        }
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * 设置是否按遍历顺序输出（默认无序）
+     */
+    public BackfillJob setOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * 设置是否重新分析之前运行中失败的文件（默认否，失败的文件视为已完成）
+     */
+    public BackfillJob setRetryFailed(boolean retryFailed) {
+        this.retryFailed = retryFailed;
+        return this;
+    }
+
+    /**
+     * 设置检查点提交频率：满足任一条件即提交
+     *
+     * @param results 每多少条结果提交一次
+     * @param interval 最长提交间隔
+     */
+    public BackfillJob setCommitInterval(int results, Duration interval) {
+        if (results <= 0) {
+            throw new IllegalArgumentException("提交条数必须大于0");
+        }
+        this.commitEvery = results;
+        this.commitIntervalMs = interval.toMillis();
+        return this;
+    }
+
+    /**
+     * 设置进度监听器（默认不做任何处理）
+     */
+    public BackfillJob setListener(BackfillListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 执行回填（阻塞直到全部完成）
+     *
+     * @return 最终进度
+     * @throws RuntimeException 如果输出或检查点写入失败
+     */
+    public BackfillProgress run() {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("图像目录不存在: " + root);
+        }
+
+        int capacity = workers * 4;
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(capacity);
+        // 限制在途任务数（含有序模式下等待输出的结果），结果写出时才归还
+        Semaphore inFlight = new Semaphore(capacity * 2);
+        long start = System.currentTimeMillis();
+
+        ExecutorService executor = ThreadingPolicy.builder()
+            .setName("backfill")
+            .setWorkerThreads(workers + 1)
+            .setThreadNamePrefix("backfill")
+            .build()
+            .newWorkerExecutor();
+
+        try (Checkpoint checkpoint = new Checkpoint(checkpointPath);
+             Output output = new Output(checkpoint, inFlight, start)) {
+
+            Walker walker = new Walker(checkpoint, queue, inFlight, output);
+            Future<?> walk = executor.submit(() -> {
+                try {
+                    walker.walk();
+                } finally {
+                    output.walkComplete = true;
+                    for (int i = 0; i < workers; i++) {
+                        walker.enqueue(Task.POISON);
+                    }
+                }
+                return null;
+            });
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    runWorker(queue, output);
+                    return null;
+                }));
+            }
+
+            try {
+                // 工作线程只有在遍历结束后才会正常退出，因此先等待工作线程以便尽早发现失败
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                walk.get();
+            } catch (ExecutionException e) {
+                output.aborted = true;
+                throw e;
+            }
+            return output.finish();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("回填失败: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("回填被中断", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runWorker(BlockingQueue<Task> queue, Output output) throws InterruptedException {
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath)) {
+            Task task;
+            while ((task = queue.take()) != Task.POISON) {
+                MeasurementResult result = null;
+                Exception error = null;
+                // 直接读取并分析 Mat，不生成 *_analyzed 可视化文件
+                Mat image = opencv_imgcodecs.imread(task.file.toString());
+                try {
+                    if (image.empty()) {
+                        error = new RuntimeException("无法加载图像: " + task.file);
+                    } else {
+                        result = analyzer.analyze(image);
+                    }
+                } catch (RuntimeException e) {
+                    error = e;
+                } finally {
+                    image.close();
+                }
+                output.accept(task, result, error);
+            }
+        }
+    }
+
+    static boolean isImage(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.contains("_analyzed.")) {
+            return false;
+        }
+        for (String ext : IMAGE_EXTENSIONS) {
+            if (name.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 待分析文件
+     */
+    private static final class Task {
+        static final Task POISON = new Task(-1, null, null);
+
+        final long seq;
+        final Path file;
+        final String relative;
+
+        Task(long seq, Path file, String relative) {
+            this.seq = seq;
+            this.file = file;
+            this.relative = relative;
+        }
+    }
+
+    /**
+     * 目录遍历：有序模式单线程按名称排序深度优先，无序模式按子目录并行
+     */
+    private final class Walker {
+        private final Checkpoint checkpoint;
+        private final BlockingQueue<Task> queue;
+        private final Semaphore inFlight;
+        private final Output output;
+        private final AtomicLong seq = new AtomicLong();
+
+        Walker(Checkpoint checkpoint, BlockingQueue<Task> queue, Semaphore inFlight, Output output) {
+            this.checkpoint = checkpoint;
+            this.queue = queue;
+            this.inFlight = inFlight;
+            this.output = output;
+        }
+
+        void walk() throws InterruptedException {
+            if (ordered) {
+                walkSorted(root);
+                return;
+            }
+            ForkJoinPool pool = new ForkJoinPool(Math.min(4, workers));
+            try {
+                pool.invoke(new DirectoryAction(root));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        private void walkSorted(Path dir) throws InterruptedException {
+            for (Path entry : list(dir)) {
+                checkAborted();
+                if (Files.isDirectory(entry)) {
+                    walkSorted(entry);
+                } else {
+                    offer(entry);
+                }
+            }
+        }
+
+        private List<Path> list(Path dir) {
+            try (Stream<Path> entries = Files.list(dir)) {
+                return entries.sorted().collect(Collectors.toList());
+            } catch (IOException e) {
+                listener.onSkippedDirectory(dir, e);
+                return new ArrayList<>();
+            }
+        }
+
+        private void offer(Path file) throws InterruptedException {
+            if (!isImage(file)) {
+                return;
+            }
+            String relative = root.relativize(file).toString().replace('\\', '/');
+            if (checkpoint.isDone(relative) && !(retryFailed && checkpoint.isFailed(relative))) {
+                output.skipped.incrementAndGet();
+                return;
+            }
+            while (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                checkAborted();
+            }
+            output.discovered.incrementAndGet();
+            enqueue(new Task(seq.getAndIncrement(), file, relative));
+        }
+
+        /**
+         * 放入队列；任务中止（工作线程失败）时不再阻塞
+         */
+        void enqueue(Task task) throws InterruptedException {
+            while (!queue.offer(task, 100, TimeUnit.MILLISECONDS)) {
+                checkAborted();
+            }
+        }
+
+        private void checkAborted() throws InterruptedException {
+            if (output.aborted) {
+                throw new InterruptedException("回填已中止");
+            }
+        }
+
+        private final class DirectoryAction extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final Path dir;
+
+            DirectoryAction(Path dir) {
+                this.dir = dir;
+            }
+
+            @Override
+            protected void compute() {
+                List<DirectoryAction> children = new ArrayList<>();
+                for (Path entry : list(dir)) {
+                    if (Files.isDirectory(entry)) {
+                        children.add(new DirectoryAction(entry));
+                    } else {
+                        try {
+                            offer(entry);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+                invokeAll(children);
+            }
+        }
+    }
+
+    /**
+     * 输出阶段：串行写入结果和检查点，按条数或时间分批提交
+     */
+    private final class Output implements AutoCloseable {
+        private final Checkpoint checkpoint;
+        private final Semaphore inFlight;
+        private final FileChannel channel;
+        private final ResultWriter writer;
+        private final long start;
+        private final Map<Long, Object[]> pending = new HashMap<>();
+        final AtomicLong discovered = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        volatile boolean walkComplete;
+        volatile boolean aborted;
+        private long nextSeq;
+        private long rows;
+        private long succeeded;
+        private long failed;
+        private int uncommitted;
+        private long lastCommit;
+
+        Output(Checkpoint checkpoint, Semaphore inFlight, long start) {
+            this.checkpoint = checkpoint;
+            this.inFlight = inFlight;
+            this.start = start;
+            this.lastCommit = start;
+            this.rows = checkpoint.getCommittedRows();
+            long committedBytes = checkpoint.getCommittedBytes();
+            checkResumable(committedBytes, rows);
+            try {
+                channel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                // 丢弃上次运行中未提交的输出
+                channel.truncate(committedBytes);
+                channel.position(committedBytes);
+            } catch (IOException e) {
+                throw new RuntimeException("无法打开输出文件: " + outputPath, e);
+            }
+            switch (format) {
+                case CSV:
+                    writer = new CsvResultWriter(channel, AbstractResultWriter.DEFAULT_BUFFER_SIZE, committedBytes == 0);
+                    break;
+                case BINARY:
+                    writer = new BinaryResultWriter(channel);
+                    break;
+                default:
+                    writer = new JsonLinesResultWriter(channel);
+                    break;
+            }
+        }
+
+        /**
+         * 续跑时检查已提交的输出与当前版本的格式一致（记录大小或 CSV 表头变化后不能追加）
+         */
+        private void checkResumable(long committedBytes, long committedRows) {
+            if (committedBytes == 0) {
+                return;
+            }
+            boolean compatible = true;
+            if (format == OutputFormat.BINARY) {
+                compatible = committedBytes == committedRows * MeasurementRecord.RECORD_SIZE;
+            } else if (format == OutputFormat.CSV) {
+                try (BufferedReader reader = Files.newBufferedReader(outputPath, StandardCharsets.UTF_8)) {
+                    compatible = CsvResultWriter.HEADER.equals(reader.readLine());
+                } catch (IOException e) {
+                    throw new RuntimeException("无法读取输出文件: " + outputPath, e);
+                }
+            }
+            if (!compatible) {
+                throw new RuntimeException("输出文件的格式与当前版本不一致，无法续跑: " + outputPath);
+            }
+        }
+
+        synchronized void accept(Task task, MeasurementResult result, Exception error) {
+            if (!ordered) {
+                emit(task, result, error);
+            } else {
+                pending.put(task.seq, new Object[] { task, result, error });
+                Object[] ready;
+                while ((ready = pending.remove(nextSeq)) != null) {
+                    emit((Task) ready[0], (MeasurementResult) ready[1], (Exception) ready[2]);
+                    nextSeq++;
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (uncommitted >= commitEvery || (uncommitted > 0 && now - lastCommit >= commitIntervalMs)) {
+                commit(now);
+            }
+        }
+
+        private void emit(Task task, MeasurementResult result, Exception error) {
+            if (result != null) {
+                writer.write(result);
+                checkpoint.recordSuccess(task.relative, rows++);
+                succeeded++;
+            } else {
+                checkpoint.recordFailure(task.relative);
+                failed++;
+                listener.onFailure(task.file, error);
+            }
+            uncommitted++;
+            // 写出后才归还许可：有序模式下队首图像变慢时暂存的结果不会无限增长
+            inFlight.release();
+        }
+
+        private void commit(long now) {
+            writer.flush();
+            try {
+                channel.force(false);
+                checkpoint.commit(rows, channel.position());
+            } catch (IOException e) {
+                throw new RuntimeException("输出落盘失败: " + outputPath, e);
+            }
+            uncommitted = 0;
+            lastCommit = now;
+            listener.onProgress(progress(now));
+        }
+
+        synchronized BackfillProgress progress(long now) {
+            return new BackfillProgress(discovered.get(), skipped.get(), succeeded, failed,
+                walkComplete, now - start);
+        }
+
+        synchronized BackfillProgress finish() {
+            long now = System.currentTimeMillis();
+            if (uncommitted > 0) {
+                // 提交时会回调监听器
+                commit(now);
+                return progress(now);
+            }
+            BackfillProgress last = progress(now);
+            listener.onProgress(last);
+            return last;
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+        }
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 模板 图像目录 输出文件 [--format jsonl|csv|binary] [--workers N] [--ordered]
+     *             [--checkpoint 路径] [--retry-failed]
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("用法: BackfillJob <模板> <图像目录> <输出文件> [--format jsonl|csv|binary] "
+                + "[--workers N] [--ordered] [--checkpoint 路径] [--retry-failed]");
+            System.exit(2);
+        }
+        BackfillJob job = new BackfillJob(args[0], Paths.get(args[1]), Paths.get(args[2]));
+        int workers = Runtime.getRuntime().availableProcessors();
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format":
+                    job.setFormat(OutputFormat.valueOf(args[++i].toUpperCase(Locale.ROOT)));
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(args[++i]);
+                    break;
+                case "--ordered":
+                    job.setOrdered(true);
+                    break;
+                case "--checkpoint":
+                    job.setCheckpoint(Paths.get(args[++i]));
+                    break;
+                case "--retry-failed":
+                    job.setRetryFailed(true);
+                    break;
+                default:
+                    System.err.println("未知参数: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        job.setWorkers(workers);
+        OpenCVInitializer.initialize(ThreadingPolicy.builder()
+            .setName("backfill")
+            .setWorkerThreads(workers)
+            .setOpenCVThreads(1)
+            .build());
+
+        job.setListener(new BackfillListener() {
+            @Override
+            public void onProgress(BackfillProgress progress) {
+                System.out.println("Backfill " + progress);
+            }
+
+            @Override
+            public void onFailure(Path image, Exception cause) {
+                System.err.println("回填失败: " + image + " - " + cause.getMessage());
+            }
+
+            @Override
+            public void onSkippedDirectory(Path dir, IOException cause) {
+                System.err.println("无法遍历目录: " + dir + " - " + cause.getMessage());
+            }
+        });
+        BackfillProgress summary = job.run();
+        System.out.println("Backfill finished: " + summary);
+    }
+}
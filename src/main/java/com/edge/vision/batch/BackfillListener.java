@@ -0,0 +1,38 @@
+package com.edge.vision.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 回填进度监听器
+ * 进度和失败回调在输出线程中执行，应尽快返回
+ * @author Coder建设
+ */
+@FunctionalInterface
+public interface BackfillListener {
+
+    /**
+     * 进度更新（每次检查点提交和任务结束时）
+     *
+     * @param progress 当前进度
+     */
+    void onProgress(BackfillProgress progress);
+
+    /**
+     * 单个文件分析失败（已记入检查点，默认之后的运行不再重试；默认忽略）
+     *
+     * @param image 图像文件
+     * @param cause 失败原因
+     */
+    default void onFailure(Path image, Exception cause) {
+    }
+
+    /**
+     * 目录无法遍历，其中的文件被跳过（在遍历线程中回调，无序模式下可能并发；默认忽略）
+     *
+     * @param dir 目录
+     * @param cause 失败原因
+     */
+    default void onSkippedDirectory(Path dir, IOException cause) {
+    }
+}
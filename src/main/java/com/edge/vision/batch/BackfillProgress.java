@@ -0,0 +1,78 @@
+package com.edge.vision.batch;
+
+import java.util.Locale;
+
+/**
+ * 回填进度快照
+ *
+ * 目录遍历与分析同时进行，遍历结束前总数未知，此时不提供预计剩余时间。
+ * @author Coder建设
+ */
+public final class BackfillProgress {
+
+    private final long discovered;
+    private final long skipped;
+    private final long succeeded;
+    private final long failed;
+    private final boolean walkComplete;
+    private final long elapsedMs;
+
+    BackfillProgress(long discovered, long skipped, long succeeded, long failed,
+                     boolean walkComplete, long elapsedMs) {
+        this.discovered = discovered;
+        this.skipped = skipped;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.walkComplete = walkComplete;
+        this.elapsedMs = elapsedMs;
+    }
+
+    /** 遍历发现的待处理文件数（不含跳过的文件） */
+    public long getDiscovered() { return discovered; }
+    /** 因检查点中已完成而跳过的文件数 */
+    public long getSkipped() { return skipped; }
+    /** 本次运行成功的文件数 */
+    public long getSucceeded() { return succeeded; }
+    /** 本次运行失败的文件数 */
+    public long getFailed() { return failed; }
+    /** 目录遍历是否已结束 */
+    public boolean isWalkComplete() { return walkComplete; }
+    public long getElapsedMs() { return elapsedMs; }
+
+    /** 本次运行已处理的文件数 */
+    public long getProcessed() {
+        return succeeded + failed;
+    }
+
+    /** 处理速率（张/秒） */
+    public double getRate() {
+        return elapsedMs > 0 ? getProcessed() * 1000.0 / elapsedMs : 0;
+    }
+
+    /**
+     * 预计剩余时间
+     *
+     * @return 毫秒，遍历未结束或尚无速率时返回-1
+     */
+    public long getEtaMs() {
+        double rate = getRate();
+        if (!walkComplete || rate <= 0) {
+            return -1;
+        }
+        return (long) ((discovered - getProcessed()) / rate * 1000);
+    }
+
+    @Override
+    public String toString() {
+        long eta = getEtaMs();
+        return String.format(Locale.ROOT, "processed=%d/%s (ok=%d, failed=%d, skipped=%d), %.1f/s, eta=%s",
+            getProcessed(), walkComplete ? String.valueOf(discovered) : discovered + "+",
+            succeeded, failed, skipped, getRate(),
+            eta < 0 ? "unknown" : formatDuration(eta));
+    }
+
+    private static String formatDuration(long ms) {
+        long s = ms / 1000;
+        return String.format(Locale.ROOT, "%d:%02d:%02d", s / 3600, (s / 60) % 60, s % 60);
+    }
+}
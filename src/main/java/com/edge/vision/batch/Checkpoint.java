@@ -0,0 +1,310 @@
+package com.edge.vision.batch;
+
+import com.edge.vision.cache.ContentHash;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 回填任务的持久化检查点
+ *
+ * 追加写入的文本日志，每行一条，字段以制表符分隔:
+ * <pre>
+ * ok      &lt;输出行号&gt;  &lt;相对路径&gt;
+ * fail    -           &lt;相对路径&gt;
+ * commit  &lt;输出行数&gt;  &lt;输出字节数&gt;
+ * </pre>
+ *
+ * 条目按批写入，每批以 commit 行结束并 fsync；结果输出总是先于检查点落盘。
+ * 加载时只接受最后一个 commit 行之前的条目，并将日志和输出文件截断到该位置，
+ * 因此崩溃后重启既不会遗漏文件，也不会产生重复的输出行。
+ * ok 行的输出行号同时作为文件到结果行的索引。
+ *
+ * 同一文件可以有多行（失败后重试），以最后提交的一行为准。
+ * 内存中只保存相对路径的64位哈希，数百万文件约占用数十MB。
+ * @author Coder建设
+ */
+public class Checkpoint implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final LongHashSet done = new LongHashSet();
+    private final LongHashSet failed = new LongHashSet();   // done 的子集：最后一次结果为失败
+    private long committedRows;
+    private long committedBytes;
+    private long failedCount;
+    private final StringBuilder batch = new StringBuilder();
+
+    /**
+     * 打开或创建检查点
+     *
+     * @param path 检查点文件
+     */
+    public Checkpoint(Path path) {
+        this.path = path;
+        try {
+            long validLength = load();
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // 丢弃最后一次提交之后未完成的批次
+            channel.truncate(validLength);
+            channel.position(validLength);
+        } catch (IOException e) {
+            throw new RuntimeException("无法打开检查点: " + path, e);
+        }
+    }
+
+    private long load() throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long fileSize = Files.size(path);
+        long offset = 0;
+        long validLength = 0;
+        List<long[]> pending = new ArrayList<>();   // {哈希, 1=失败}
+        long pendingFailed = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(path), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (offset > fileSize) {
+                    // 末行没有换行符，是写入中断的残行
+                    break;
+                }
+                String[] fields = line.split("\t", 3);
+                if (fields.length != 3) {
+                    break;
+                }
+                switch (fields[0]) {
+                    case "ok":
+                        pending.add(new long[] { hash(fields[2]), 0 });
+                        break;
+                    case "fail":
+                        pending.add(new long[] { hash(fields[2]), 1 });
+                        pendingFailed++;
+                        break;
+                    case "commit":
+                        for (long[] entry : pending) {
+                            done.add(entry[0]);
+                            if (entry[1] != 0) {
+                                failed.add(entry[0]);
+                            } else {
+                                failed.remove(entry[0]);
+                            }
+                        }
+                        pending.clear();
+                        failedCount += pendingFailed;
+                        pendingFailed = 0;
+                        committedRows = Long.parseLong(fields[1]);
+                        committedBytes = Long.parseLong(fields[2]);
+                        validLength = offset;
+                        break;
+                    default:
+                        return validLength;
+                }
+            }
+        }
+        return validLength;
+    }
+
+    private static long hash(String relativePath) {
+        return ContentHash.hash64(relativePath.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 文件是否已在之前的运行中完成（成功或失败）
+     *
+     * @param relativePath 相对路径（'/'分隔）
+     */
+    public boolean isDone(String relativePath) {
+        return done.contains(hash(relativePath));
+    }
+
+    /**
+     * 文件在之前的运行中最后一次处理是否失败（之后重试成功的不算）
+     *
+     * @param relativePath 相对路径（'/'分隔）
+     */
+    public boolean isFailed(String relativePath) {
+        return failed.contains(hash(relativePath));
+    }
+
+    /**
+     * 记录成功的文件（提交前不生效）
+     *
+     * @param relativePath 相对路径
+     * @param row 结果在输出中的行号（从0开始）
+     */
+    public void recordSuccess(String relativePath, long row) {
+        batch.append("ok\t").append(row).append('\t').append(relativePath).append('\n');
+    }
+
+    /**
+     * 记录失败的文件（提交前不生效）
+     *
+     * @param relativePath 相对路径
+     */
+    public void recordFailure(String relativePath) {
+        batch.append("fail\t-\t").append(relativePath).append('\n');
+        failedCount++;
+    }
+
+    /**
+     * 提交当前批次并落盘
+     * 调用前输出文件必须已刷新并落盘到 outputBytes
+     *
+     * @param outputRows 输出总行数
+     * @param outputBytes 输出文件总字节数
+     */
+    public void commit(long outputRows, long outputBytes) {
+        batch.append("commit\t").append(outputRows).append('\t').append(outputBytes).append('\n');
+        ByteBuffer buf = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("写入检查点失败: " + path, e);
+        }
+        batch.setLength(0);
+        committedRows = outputRows;
+        committedBytes = outputBytes;
+    }
+
+    /** 之前运行已完成的文件数 */
+    public long getDoneCount() { return done.size(); }
+    /** 累计失败记录数（重试后再次失败的文件重复计数） */
+    public long getFailedCount() { return failedCount; }
+    /** 最后一次提交时的输出行数 */
+    public long getCommittedRows() { return committedRows; }
+    /** 最后一次提交时的输出字节数 */
+    public long getCommittedBytes() { return committedBytes; }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("关闭检查点失败: " + path, e);
+        }
+    }
+
+    /**
+     * 开放寻址的 long 集合（避免数百万个 Long 装箱对象）
+     * 0 作为空槽标记，值为0的元素单独记录
+     */
+    static final class LongHashSet {
+        private long[] slots = new long[1024];
+        private int size;
+        private boolean hasZero;
+
+        void add(long value) {
+            if (value == 0) {
+                if (!hasZero) {
+                    hasZero = true;
+                    size++;
+                }
+                return;
+            }
+            if ((size + 1) * 2 > slots.length) {
+                grow();
+            }
+            if (insert(slots, value)) {
+                size++;
+            }
+        }
+
+        /**
+         * 删除元素（线性探测的后移删除，保持探测链连续）
+         */
+        void remove(long value) {
+            if (value == 0) {
+                if (hasZero) {
+                    hasZero = false;
+                    size--;
+                }
+                return;
+            }
+            int mask = slots.length - 1;
+            int i = mix(value) & mask;
+            while (slots[i] != value) {
+                if (slots[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = 0;
+            size--;
+            // 把后续探测链上的元素移回空位，避免查找提前在空槽处停止
+            for (int j = (i + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+                long v = slots[j];
+                int home = mix(v) & mask;
+                boolean between = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+                if (!between) {
+                    slots[i] = v;
+                    slots[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        boolean contains(long value) {
+            if (value == 0) {
+                return hasZero;
+            }
+            int mask = slots.length - 1;
+            for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+                long v = slots[i];
+                if (v == 0) {
+                    return false;
+                }
+                if (v == value) {
+                    return true;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private static boolean insert(long[] table, long value) {
+            int mask = table.length - 1;
+            for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+                long v = table[i];
+                if (v == 0) {
+                    table[i] = value;
+                    return true;
+                }
+                if (v == value) {
+                    return false;
+                }
+            }
+        }
+
+        private void grow() {
+            long[] bigger = new long[slots.length * 2];
+            for (long v : slots) {
+                if (v != 0) {
+                    insert(bigger, v);
+                }
+            }
+            slots = bigger;
+        }
+
+        private static int mix(long value) {
+            return (int) (value ^ (value >>> 32));
+        }
+    }
+}
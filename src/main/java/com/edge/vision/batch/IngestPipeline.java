@@ -0,0 +1,235 @@
+package com.edge.vision.batch;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.platform.ThreadingPolicy;
+import com.edge.vision.utils.ImageUtils;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两阶段批量导入：I/O 阶段读取并解码图像，CPU 阶段在有界平台线程池上分析
+ *
+ * <ul>
+ *   <li>I/O 阶段 - JDK 21+ 使用虚拟线程（多版本 JAR 的 META-INF/versions/21），
+ *       阻塞读取不占用平台线程；其他运行时使用固定大小的平台线程池</li>
+ *   <li>CPU 阶段 - 固定数量的平台线程执行 matchTemplate，按 {@link ThreadingPolicy} 设置 OpenCV 线程数</li>
+ *   <li>在途上限 - 读取中、已解码待分析和分析中的图像合计不超过 maxInFlight，
+ *       达到上限时 {@link #run(Iterable, Listener)} 阻塞，不再提交新的读取</li>
+ * </ul>
+ * 回调串行执行（不保证按输入顺序），应尽快返回。
+ *
+ * 使用示例:
+ * <pre>
+ * long ok = new IngestPipeline(analyzer)
+ *     .setCpuThreads(4)
+ *     .setMaxInFlight(32)
+ *     .run(paths, (path, result) -&gt; writer.write(result));
+ * </pre>
+ * @author Coder建设
+ */
+public class IngestPipeline {
+
+    /**
+     * 结果回调
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * 一张图像分析完成
+         */
+        void onResult(Path image, MeasurementResult result);
+
+        /**
+         * 一张图像读取、解码或分析失败（该图像不计入成功数，批次继续；默认忽略）
+         */
+        default void onError(Path image, Exception error) {
+        }
+    }
+
+    private final NeedleLengthAnalyzer analyzer;
+    private int cpuThreads = Runtime.getRuntime().availableProcessors();
+    private int ioThreads = 4;
+    private int maxInFlight = 0;
+    private boolean virtualThreads = true;
+
+    /**
+     * @param analyzer 分析器（多个 CPU 线程共享）
+     */
+    public IngestPipeline(NeedleLengthAnalyzer analyzer) {
+        if (analyzer == null) {
+            throw new IllegalArgumentException("分析器不能为空");
+        }
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * 设置 CPU 阶段的平台线程数（默认 CPU 核数）
+     */
+    public IngestPipeline setCpuThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("CPU 线程数必须大于0");
+        }
+        this.cpuThreads = threads;
+        return this;
+    }
+
+    /**
+     * 设置不使用虚拟线程时 I/O 阶段的平台线程数（默认 4）
+     */
+    public IngestPipeline setIoThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("I/O 线程数必须大于0");
+        }
+        this.ioThreads = threads;
+        return this;
+    }
+
+    /**
+     * 设置在途图像上限（默认 CPU 线程数的 4 倍），决定解码后图像占用的内存上限
+     */
+    public IngestPipeline setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("在途上限必须大于0");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * 设置 I/O 阶段是否使用虚拟线程（默认开启，运行时不支持时自动回退到平台线程）
+     */
+    public IngestPipeline setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * I/O 阶段实际是否会使用虚拟线程
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads && IoExecutors.isVirtualThreadAvailable();
+    }
+
+    /**
+     * 导入全部图像，所有图像处理完成后返回
+     *
+     * @param images 图像路径（可以是惰性遍历，按需读取）
+     * @param listener 结果回调
+     * @return 成功分析的图像数
+     */
+    public long run(Iterable<Path> images, Listener listener) {
+        int limit = maxInFlight > 0 ? maxInFlight : cpuThreads * 4;
+        Semaphore inFlight = new Semaphore(limit);
+        AtomicLong succeeded = new AtomicLong();
+        Object callbackLock = new Object();
+
+        ExecutorService io = IoExecutors.newExecutor("ingest", virtualThreads, ioThreads);
+        ExecutorService cpu = ThreadingPolicy.builder()
+            .setName("ingest")
+            .setOpenCVThreads(1)
+            .setWorkerThreads(cpuThreads)
+            .setThreadNamePrefix("ingest-cpu")
+            .build()
+            .newWorkerExecutor();
+        try {
+            for (Path image : images) {
+                inFlight.acquire();
+                try {
+                    io.execute(() -> read(image, cpu, inFlight, succeeded, listener, callbackLock));
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+            // 取回全部许可即全部完成
+            inFlight.acquire(limit);
+            return succeeded.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("导入被中断", e);
+        } finally {
+            io.shutdownNow();
+            cpu.shutdownNow();
+            awaitQuietly(io);
+            awaitQuietly(cpu);
+        }
+    }
+
+    /**
+     * I/O 阶段：读取并解码，交给 CPU 阶段
+     */
+    private void read(Path image, ExecutorService cpu, Semaphore inFlight, AtomicLong succeeded,
+                      Listener listener, Object callbackLock) {
+        Mat decoded;
+        try {
+            // 内存映射后直接解码，编码字节不复制到 Java 堆
+            decoded = ImageUtils.readFromFile(image);
+            if (decoded.empty()) {
+                decoded.close();
+                throw new IOException("无法解码图像");
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(image, e, inFlight, listener, callbackLock);
+            return;
+        }
+
+        try {
+            cpu.execute(() -> analyze(image, decoded, inFlight, succeeded, listener, callbackLock));
+        } catch (RejectedExecutionException e) {
+            decoded.close();
+            fail(image, e, inFlight, listener, callbackLock);
+        }
+    }
+
+    /**
+     * CPU 阶段：分析并回调
+     */
+    private void analyze(Path image, Mat decoded, Semaphore inFlight, AtomicLong succeeded,
+                         Listener listener, Object callbackLock) {
+        MeasurementResult result;
+        try {
+            result = analyzer.analyze(decoded);
+        } catch (RuntimeException e) {
+            fail(image, e, inFlight, listener, callbackLock);
+            return;
+        } finally {
+            decoded.close();
+        }
+        try {
+            synchronized (callbackLock) {
+                listener.onResult(image, result);
+            }
+            succeeded.incrementAndGet();
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private static void fail(Path image, Exception error, Semaphore inFlight,
+                             Listener listener, Object callbackLock) {
+        try {
+            synchronized (callbackLock) {
+                listener.onError(image, error);
+            }
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private static void awaitQuietly(ExecutorService executor) {
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.edge.vision.batch;
+
+import com.edge.vision.platform.ThreadingPolicy;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * I/O 阶段的执行器
+ *
+ * JDK 21+ 运行多版本 JAR 时，用 META-INF/versions/21 中的 VirtualThreadIo 创建
+ * 每任务一个虚拟线程的执行器；其他运行时（JDK 11–20、Android、目录形式的 classpath）
+ * 回退到固定大小的平台线程池。
+ * @author Coder建设
+ */
+final class IoExecutors {
+
+    private static final String VIRTUAL_THREAD_CLASS = "com.edge.vision.batch.VirtualThreadIo";
+
+    private static volatile Method factory;
+    private static volatile boolean resolved;
+
+    private IoExecutors() {
+    }
+
+    /**
+     * 当前运行时是否可以使用虚拟线程
+     */
+    static boolean isVirtualThreadAvailable() {
+        return resolve() != null;
+    }
+
+    /**
+     * 创建 I/O 执行器
+     *
+     * @param name 线程名前缀
+     * @param virtual 是否优先使用虚拟线程
+     * @param platformThreads 回退到平台线程时的线程数
+     */
+    static ExecutorService newExecutor(String name, boolean virtual, int platformThreads) {
+        Method method = virtual ? resolve() : null;
+        if (method != null) {
+            try {
+                return (ExecutorService) method.invoke(null, name);
+            } catch (ReflectiveOperationException e) {
+                // 回退到平台线程
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads,
+            ThreadingPolicy.openCVDefault().newThreadFactory(name + "-io"));
+    }
+
+    private static Method resolve() {
+        if (!resolved) {
+            Method method = null;
+            try {
+                method = Class.forName(VIRTUAL_THREAD_CLASS).getDeclaredMethod("newExecutor", String.class);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // 非 JDK 21 运行时或非多版本 JAR
+            }
+            factory = method;
+            resolved = true;
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,113 @@
+package com.edge.vision.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 快速内容哈希（xxHash64）
+ * 用于按图像编码字节识别重复提交，速度接近内存带宽
+ * @author Coder建设
+ */
+public final class ContentHash {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private ContentHash() {
+    }
+
+    /**
+     * 计算字节数组的64位哈希
+     *
+     * @param data 数据
+     * @return xxHash64（seed=0）
+     */
+    public static long hash64(byte[] data) {
+        return hash64(ByteBuffer.wrap(data), 0);
+    }
+
+    /**
+     * 计算缓冲区 position 到 limit 之间内容的64位哈希（不改变缓冲区状态）
+     *
+     * @param data 数据（堆内或直接缓冲区均可）
+     * @param seed 种子
+     * @return xxHash64
+     */
+    public static long hash64(ByteBuffer data, long seed) {
+        ByteBuffer buf = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int pos = buf.position();
+        int end = buf.limit();
+        int len = end - pos;
+        long h;
+
+        if (len >= 32) {
+            long v1 = seed + P1 + P2;
+            long v2 = seed + P2;
+            long v3 = seed;
+            long v4 = seed - P1;
+            int limit = end - 32;
+            do {
+                v1 = round(v1, buf.getLong(pos));
+                v2 = round(v2, buf.getLong(pos + 8));
+                v3 = round(v3, buf.getLong(pos + 16));
+                v4 = round(v4, buf.getLong(pos + 24));
+                pos += 32;
+            } while (pos <= limit);
+
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + P5;
+        }
+
+        h += len;
+
+        while (pos + 8 <= end) {
+            h ^= round(0, buf.getLong(pos));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+            pos += 8;
+        }
+        if (pos + 4 <= end) {
+            h ^= (buf.getInt(pos) & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            pos += 4;
+        }
+        while (pos < end) {
+            h ^= (buf.get(pos) & 0xFFL) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+            pos++;
+        }
+
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * 合并多个64位值（用于组合参数指纹）
+     */
+    public static long combine(long h, long value) {
+        return mergeRound(h == 0 ? P5 : h, value);
+    }
+
+    private static long round(long acc, long lane) {
+        acc += lane * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * P1 + P4;
+    }
+}
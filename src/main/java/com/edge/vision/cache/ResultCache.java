@@ -0,0 +1,382 @@
+package com.edge.vision.cache;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.io.MeasurementRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测量结果缓存
+ *
+ * 以图像编码字节的内容哈希 + 分析参数指纹为键，内存中按LRU淘汰，
+ * 可选地将结果持久化到磁盘目录（每条结果一个定长二进制记录文件），
+ * 重启后或跨进程的重复提交也能直接命中。磁盘层同样有条目上限，超出时删除最久未使用的记录文件
+ * （打开时按修改时间恢复顺序；上限只约束本进程可见的文件）。
+ * 磁盘层读写失败不抛出，按未命中处理并计入 {@link #getDiskWriteFailures()}。
+ *
+ * 使用示例:
+ * <pre>
+ * analyzer.setResultCache(new ResultCache(10_000, Paths.get("/var/cache/needle")));
+ * MeasurementResult r1 = analyzer.analyze(bytes);  // 完整分析
+ * MeasurementResult r2 = analyzer.analyze(bytes);  // 直接命中缓存
+ * </pre>
+ *
+ * 此类是线程安全的
+ * @author Coder建设
+ */
+public class ResultCache {
+
+    private static final String FILE_SUFFIX = ".rec";
+
+    /** 磁盘层默认条目上限（约 10 MB 记录文件） */
+    public static final int DEFAULT_MAX_DISK_ENTRIES = 100_000;
+
+    private final int maxEntries;
+    private final Path persistentDir;
+    private final int maxDiskEntries;
+    private final Map<Key, MeasurementResult> entries;
+    private final LinkedHashMap<Key, Boolean> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong diskWriteFailures = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    /**
+     * 创建仅内存的缓存
+     *
+     * @param maxEntries 最大条目数
+     */
+    public ResultCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * 创建带磁盘持久化层的缓存（磁盘层最多 {@value #DEFAULT_MAX_DISK_ENTRIES} 条）
+     *
+     * @param maxEntries 内存中的最大条目数
+     * @param persistentDir 持久化目录，为null时不持久化
+     */
+    public ResultCache(int maxEntries, Path persistentDir) {
+        this(maxEntries, persistentDir, DEFAULT_MAX_DISK_ENTRIES);
+    }
+
+    /**
+     * 创建带磁盘持久化层的缓存
+     *
+     * @param maxEntries 内存中的最大条目数
+     * @param persistentDir 持久化目录，为null时不持久化
+     * @param maxDiskEntries 磁盘层的最大条目数
+     */
+    public ResultCache(int maxEntries, Path persistentDir, int maxDiskEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0");
+        }
+        if (maxDiskEntries <= 0) {
+            throw new IllegalArgumentException("磁盘缓存容量必须大于0");
+        }
+        this.maxEntries = maxEntries;
+        this.persistentDir = persistentDir;
+        this.maxDiskEntries = maxDiskEntries;
+        this.entries = new LinkedHashMap<Key, MeasurementResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, MeasurementResult> eldest) {
+                return size() > ResultCache.this.maxEntries;
+            }
+        };
+
+        if (persistentDir != null) {
+            try {
+                Files.createDirectories(persistentDir);
+            } catch (IOException e) {
+                throw new RuntimeException("无法创建缓存目录: " + persistentDir, e);
+            }
+            loadDiskIndex();
+        }
+    }
+
+    /**
+     * 查找缓存结果（先查内存，再查磁盘）
+     *
+     * @param key 缓存键
+     * @return 缓存的结果，未命中时返回null
+     */
+    public MeasurementResult get(Key key) {
+        MeasurementResult result;
+        synchronized (entries) {
+            result = entries.get(key);
+        }
+        if (result != null) {
+            hits.incrementAndGet();
+            return result;
+        }
+
+        result = readPersistent(key);
+        if (result != null) {
+            diskHits.incrementAndGet();
+            synchronized (entries) {
+                entries.put(key, result);
+            }
+            return result;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入缓存（同时写入磁盘层）
+     *
+     * @param key 缓存键
+     * @param result 测量结果
+     */
+    public void put(Key key, MeasurementResult result) {
+        synchronized (entries) {
+            entries.put(key, result);
+        }
+        writePersistent(key, result);
+    }
+
+    /**
+     * 清空内存中的缓存（磁盘层保留）
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries() { return maxEntries; }
+    public Path getPersistentDir() { return persistentDir; }
+    public long getHits() { return hits.get(); }
+    public long getDiskHits() { return diskHits.get(); }
+    public long getMisses() { return misses.get(); }
+    public int getMaxDiskEntries() { return maxDiskEntries; }
+    /** 磁盘层写入失败次数（该结果只保留在内存中） */
+    public long getDiskWriteFailures() { return diskWriteFailures.get(); }
+    /** 因超出磁盘层上限删除的记录数 */
+    public long getDiskEvictions() { return diskEvictions.get(); }
+
+    /**
+     * 磁盘层当前条目数
+     */
+    public int diskSize() {
+        synchronized (diskEntries) {
+            return diskEntries.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResultCache{size=%d/%d, hits=%d, diskHits=%d, misses=%d, diskWriteFailures=%d}",
+            size(), maxEntries, hits.get(), diskHits.get(), misses.get(), diskWriteFailures.get());
+    }
+
+    // ============ 磁盘层 ============
+
+    private Path persistentPath(Key key) {
+        return persistentDir
+            .resolve(Long.toHexString(key.parameterFingerprint))
+            .resolve(Long.toHexString(key.contentHash) + "-" + Long.toHexString(key.contentLength) + FILE_SUFFIX);
+    }
+
+    /**
+     * 扫描已有记录文件，按修改时间从旧到新建立磁盘层的 LRU 顺序，超出上限的旧文件删除
+     */
+    private void loadDiskIndex() {
+        List<Object[]> found = new ArrayList<>();
+        try (DirectoryStream<Path> fingerprints = Files.newDirectoryStream(persistentDir, Files::isDirectory)) {
+            for (Path dir : fingerprints) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + FILE_SUFFIX)) {
+                    for (Path file : files) {
+                        Key key = parseKey(dir.getFileName().toString(), file.getFileName().toString());
+                        if (key != null) {
+                            found.add(new Object[] { key, Files.getLastModifiedTime(file).toMillis() });
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("无法读取缓存目录: " + persistentDir, e);
+        }
+        found.sort((a, b) -> Long.compare((Long) a[1], (Long) b[1]));
+        for (Object[] entry : found) {
+            recordDiskEntry((Key) entry[0]);
+        }
+    }
+
+    private static Key parseKey(String fingerprintName, String fileName) {
+        String name = fileName.substring(0, fileName.length() - FILE_SUFFIX.length());
+        int dash = name.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            return new Key(Long.parseUnsignedLong(name.substring(0, dash), 16),
+                Long.parseUnsignedLong(name.substring(dash + 1), 16),
+                Long.parseUnsignedLong(fingerprintName, 16));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 登记一条磁盘记录，超出上限时删除最久未使用的记录文件
+     */
+    private void recordDiskEntry(Key key) {
+        List<Key> evicted = new ArrayList<>();
+        synchronized (diskEntries) {
+            diskEntries.put(key, Boolean.TRUE);
+            Iterator<Key> it = diskEntries.keySet().iterator();
+            while (diskEntries.size() - evicted.size() > maxDiskEntries && it.hasNext()) {
+                evicted.add(it.next());
+            }
+            for (Key k : evicted) {
+                diskEntries.remove(k);
+            }
+        }
+        for (Key k : evicted) {
+            try {
+                Files.deleteIfExists(persistentPath(k));
+                diskEvictions.incrementAndGet();
+            } catch (IOException e) {
+                // 下次写入同一键时覆盖
+            }
+        }
+    }
+
+    private MeasurementResult readPersistent(Key key) {
+        if (persistentDir == null) {
+            return null;
+        }
+        Path path = persistentPath(key);
+        try {
+            if (!Files.isRegularFile(path)) {
+                return null;
+            }
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length != MeasurementRecord.RECORD_SIZE) {
+                return null;
+            }
+            synchronized (diskEntries) {
+                // 其他进程写入的记录也纳入本进程的上限
+                diskEntries.put(key, Boolean.TRUE);
+            }
+            ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            return MeasurementRecord.read(buf, 0);
+        } catch (IOException e) {
+            // 磁盘层读取失败按未命中处理
+            return null;
+        }
+    }
+
+    private void writePersistent(Key key, MeasurementResult result) {
+        if (persistentDir == null) {
+            return;
+        }
+        byte[] templateField;
+        try {
+            templateField = MeasurementRecord.encodeTemplateId(result.getTemplateId());
+        } catch (IllegalArgumentException e) {
+            // 模板ID过长，无法使用定长记录，仅保留在内存中
+            return;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(MeasurementRecord.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        MeasurementRecord.write(buf, 0, result, templateField);
+
+        Path path = persistentPath(key);
+        try {
+            Files.createDirectories(path.getParent());
+            // 先写临时文件再原子替换，避免其他进程读到半条记录
+            Path tmp = Files.createTempFile(path.getParent(), "rec", ".tmp");
+            Files.write(tmp, buf.array());
+            try {
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // 结果仍在内存层中，磁盘层写入失败只计数，不影响本次分析
+            diskWriteFailures.incrementAndGet();
+            return;
+        }
+        recordDiskEntry(key);
+    }
+
+    // ============ 缓存键 ============
+
+    /**
+     * 缓存键：内容哈希 + 内容长度 + 分析参数指纹
+     */
+    public static final class Key {
+        private final long contentHash;
+        private final long contentLength;
+        private final long parameterFingerprint;
+
+        public Key(long contentHash, long contentLength, long parameterFingerprint) {
+            this.contentHash = contentHash;
+            this.contentLength = contentLength;
+            this.parameterFingerprint = parameterFingerprint;
+        }
+
+        /**
+         * 根据图像编码字节生成缓存键
+         *
+         * @param content 图像编码字节
+         * @param parameterFingerprint 分析参数指纹
+         */
+        public static Key of(byte[] content, long parameterFingerprint) {
+            return new Key(ContentHash.hash64(content), content.length, parameterFingerprint);
+        }
+
+        /**
+         * 根据缓冲区中的图像编码字节（position 到 limit）生成缓存键，与同内容的字节数组键相同
+         *
+         * @param content 图像编码字节（不改变缓冲区状态）
+         * @param parameterFingerprint 分析参数指纹
+         */
+        public static Key of(ByteBuffer content, long parameterFingerprint) {
+            return new Key(ContentHash.hash64(content, 0), content.remaining(), parameterFingerprint);
+        }
+
+        public long getContentHash() { return contentHash; }
+        public long getContentLength() { return contentLength; }
+        public long getParameterFingerprint() { return parameterFingerprint; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return contentHash == other.contentHash
+                && contentLength == other.contentLength
+                && parameterFingerprint == other.parameterFingerprint;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(contentHash) * 31 + Long.hashCode(parameterFingerprint);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.edge.vision.calibration;
+
+import org.bytedeco.opencv.global.opencv_calib3d;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.bytedeco.opencv.opencv_core.Point2f;
+import org.bytedeco.opencv.opencv_core.Point2fVector;
+import org.bytedeco.opencv.opencv_core.Point2fVectorVector;
+import org.bytedeco.opencv.opencv_core.Point3f;
+import org.bytedeco.opencv.opencv_core.Point3fVector;
+import org.bytedeco.opencv.opencv_core.Point3fVectorVector;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.bytedeco.opencv.opencv_core.TermCriteria;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 离线棋盘格标定工具
+ *
+ * 用多张不同姿态的棋盘格图像标定相机内参和畸变系数；
+ * 再用一张平放在测量平面上的棋盘格图像计算平面单应矩阵（去畸变像素 → 毫米）。
+ *
+ * 使用示例:
+ * <pre>
+ * CalibrationBuilder builder = new CalibrationBuilder(9, 6, 5.0);
+ * for (String path : boardImages) {
+ *     builder.addView(path);
+ * }
+ * builder.setPlaneView("plane.png");
+ * builder.build().save("station1.calib");
+ * </pre>
+ *
+ * 只设置平面视图、不添加姿态视图时只标定透视（不校正畸变），
+ * 或通过 {@link #setLensCalibration(CameraCalibration)} 沿用已有的镜头标定。
+ *
+ * 从图像检测角点和标定内参使用 OpenCV calib3d 模块（其本地库依赖 GUI 库，适合在桌面标定工位上运行）；
+ * 也可以直接传入其他工具检测到的角点。平面单应为纯 Java 计算。
+ * @author Coder建设
+ */
+public class CalibrationBuilder {
+
+    /** 标定内参至少需要的视图数 */
+    public static final int MIN_VIEWS = 3;
+
+    private final int columns;
+    private final int rows;
+    private final double squareSizeMm;
+    private final List<float[]> views = new ArrayList<>();
+    private float[] planeCorners;
+    private CameraCalibration lens;
+    private int imageWidth;
+    private int imageHeight;
+
+    /**
+     * @param columns 棋盘格每行内角点数
+     * @param rows 棋盘格每列内角点数
+     * @param squareSizeMm 方格边长(mm)
+     */
+    public CalibrationBuilder(int columns, int rows, double squareSizeMm) {
+        if (columns < 2 || rows < 2) {
+            throw new IllegalArgumentException("棋盘格内角点数至少为 2x2");
+        }
+        if (squareSizeMm <= 0) {
+            throw new IllegalArgumentException("方格边长必须大于0");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.squareSizeMm = squareSizeMm;
+    }
+
+    /**
+     * 添加一张标定姿态图像
+     *
+     * @param image 棋盘格图像（BGR 或灰度）
+     * @return 是否检测到完整棋盘格（未检测到时忽略该图像）
+     */
+    public boolean addView(Mat image) {
+        float[] corners = detect(image);
+        if (corners != null) {
+            views.add(corners);
+        }
+        return corners != null;
+    }
+
+    /**
+     * 添加一张标定姿态图像
+     *
+     * @param imagePath 图像路径
+     * @return 是否检测到完整棋盘格
+     */
+    public boolean addView(String imagePath) {
+        Mat image = load(imagePath);
+        try {
+            return addView(image);
+        } finally {
+            image.close();
+        }
+    }
+
+    /**
+     * 设置平放在测量平面上的棋盘格图像
+     *
+     * @param image 棋盘格图像
+     * @return 是否检测到完整棋盘格
+     */
+    public boolean setPlaneView(Mat image) {
+        float[] corners = detect(image);
+        if (corners != null) {
+            planeCorners = corners;
+        }
+        return corners != null;
+    }
+
+    /**
+     * 设置平放在测量平面上的棋盘格图像
+     *
+     * @param imagePath 图像路径
+     * @return 是否检测到完整棋盘格
+     */
+    public boolean setPlaneView(String imagePath) {
+        Mat image = load(imagePath);
+        try {
+            return setPlaneView(image);
+        } finally {
+            image.close();
+        }
+    }
+
+    /**
+     * 添加已检测好的角点（行优先，每行 columns 个点）
+     *
+     * @param corners {x0, y0, x1, y1, ...}
+     */
+    public void addView(float[] corners) {
+        views.add(checkCorners(corners));
+    }
+
+    /**
+     * 设置测量平面上已检测好的角点
+     *
+     * @param corners {x0, y0, x1, y1, ...}
+     */
+    public void setPlaneView(float[] corners) {
+        planeCorners = checkCorners(corners);
+    }
+
+    /**
+     * 使用已有的镜头标定（只重新标定测量平面，例如工位重新调平后）
+     *
+     * @param lens 已有标定，其内参和畸变系数被沿用
+     */
+    public void setLensCalibration(CameraCalibration lens) {
+        this.lens = lens;
+    }
+
+    /**
+     * 设置图像尺寸（直接传入角点时需要；从图像检测时自动取图像尺寸）
+     */
+    public void setImageSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("图像尺寸必须大于0");
+        }
+        this.imageWidth = width;
+        this.imageHeight = height;
+    }
+
+    private float[] checkCorners(float[] corners) {
+        if (corners.length != columns * rows * 2) {
+            throw new IllegalArgumentException("角点数应为 " + columns + "x" + rows);
+        }
+        return corners.clone();
+    }
+
+    public int getViewCount() {
+        return views.size();
+    }
+
+    private static Mat load(String path) {
+        Mat image = opencv_imgcodecs.imread(path);
+        if (image.empty()) {
+            throw new RuntimeException("无法加载标定图像: " + path);
+        }
+        return image;
+    }
+
+    /**
+     * 检测内角点（亚像素精度）
+     *
+     * @return 行优先的角点坐标 {x0, y0, x1, y1, ...}，未检测到时返回null
+     */
+    private float[] detect(Mat image) {
+        if (imageWidth == 0) {
+            imageWidth = image.cols();
+            imageHeight = image.rows();
+        } else if (image.cols() != imageWidth || image.rows() != imageHeight) {
+            throw new IllegalArgumentException("标定图像尺寸不一致: " + image.cols() + "x" + image.rows());
+        }
+
+        Mat gray = new Mat();
+        Mat corners = new Mat();
+        try {
+            if (image.channels() == 1) {
+                image.copyTo(gray);
+            } else {
+                opencv_imgproc.cvtColor(image, gray, opencv_imgproc.COLOR_BGR2GRAY);
+            }
+            boolean found = opencv_calib3d.findChessboardCorners(gray, new Size(columns, rows), corners,
+                opencv_calib3d.CALIB_CB_ADAPTIVE_THRESH | opencv_calib3d.CALIB_CB_NORMALIZE_IMAGE);
+            if (!found || corners.rows() * corners.cols() != columns * rows) {
+                return null;
+            }
+            opencv_imgproc.cornerSubPix(gray, corners, new Size(5, 5), new Size(-1, -1),
+                new TermCriteria(TermCriteria.EPS + TermCriteria.COUNT, 50, 1e-4));
+            float[] xy = new float[columns * rows * 2];
+            ((FloatBuffer) corners.createBuffer()).get(xy);
+            return xy;
+        } finally {
+            gray.close();
+            corners.close();
+        }
+    }
+
+    /**
+     * 执行标定
+     *
+     * @return 标定模型（标定了内参时重投影误差见 {@link CameraCalibration#getReprojectionError()}）
+     * @throws RuntimeException 如果视图不足
+     */
+    public CameraCalibration build() {
+        if (views.isEmpty() && planeCorners == null) {
+            throw new RuntimeException("没有可用的标定图像");
+        }
+        if (!views.isEmpty() && views.size() < MIN_VIEWS) {
+            throw new RuntimeException("标定内参至少需要 " + MIN_VIEWS + " 张有效图像，当前 " + views.size());
+        }
+        if (!views.isEmpty() && imageWidth == 0) {
+            throw new RuntimeException("未设置图像尺寸");
+        }
+
+        CameraCalibration calibration;
+        if (lens != null && views.isEmpty()) {
+            calibration = lens.withHomography(null);
+        } else if (views.isEmpty()) {
+            // 只标定平面：单位内参、零畸变，去畸变为恒等变换
+            calibration = new CameraCalibration(new double[] { 1, 1, 0, 0 }, new double[5], null,
+                imageWidth, imageHeight, Double.NaN);
+        } else {
+            calibration = calibrateIntrinsics();
+        }
+
+        if (planeCorners != null) {
+            calibration = calibration.withHomography(planeHomography(calibration));
+        }
+        return calibration;
+    }
+
+    private CameraCalibration calibrateIntrinsics() {
+        Point3fVectorVector objectPoints = new Point3fVectorVector(views.size());
+        Point2fVectorVector imagePoints = new Point2fVectorVector(views.size());
+        Mat cameraMatrix = new Mat();
+        Mat distCoeffs = new Mat();
+        MatVector rvecs = new MatVector();
+        MatVector tvecs = new MatVector();
+        Point3f objectPoint = new Point3f();
+        Point2f imagePoint = new Point2f();
+        Size imageSize = new Size(imageWidth, imageHeight);
+        int n = columns * rows;
+        try {
+            for (int i = 0; i < views.size(); i++) {
+                float[] corners = views.get(i);
+                // put 按值复制到外层向量，单视图向量随即释放
+                Point3fVector object = new Point3fVector(n);
+                Point2fVector image = new Point2fVector(n);
+                try {
+                    for (int j = 0; j < n; j++) {
+                        object.put(j, objectPoint.x((float) ((j % columns) * squareSizeMm))
+                            .y((float) ((j / columns) * squareSizeMm)).z(0f));
+                        image.put(j, imagePoint.x(corners[2 * j]).y(corners[2 * j + 1]));
+                    }
+                    objectPoints.put(i, object);
+                    imagePoints.put(i, image);
+                } finally {
+                    object.close();
+                    image.close();
+                }
+            }
+            double rms = opencv_calib3d.calibrateCamera(objectPoints, imagePoints,
+                imageSize, cameraMatrix, distCoeffs, rvecs, tvecs);
+
+            double[] k = new double[9];
+            ((DoubleBuffer) cameraMatrix.createBuffer()).get(k);
+            double[] d = new double[(int) distCoeffs.total()];
+            ((DoubleBuffer) distCoeffs.createBuffer()).get(d);
+            double[] distortion = new double[5];
+            System.arraycopy(d, 0, distortion, 0, Math.min(5, d.length));
+            return new CameraCalibration(new double[] { k[0], k[4], k[2], k[5] }, distortion, null,
+                imageWidth, imageHeight, rms);
+        } finally {
+            objectPoints.close();
+            imagePoints.close();
+            cameraMatrix.close();
+            distCoeffs.close();
+            rvecs.close();
+            tvecs.close();
+            objectPoint.close();
+            imagePoint.close();
+            imageSize.close();
+        }
+    }
+
+    /**
+     * 平面视图的去畸变角点 → 棋盘格毫米坐标 的单应矩阵
+     */
+    private double[] planeHomography(CameraCalibration calibration) {
+        int n = columns * rows;
+        double[] src = new double[n * 2];
+        double[] dst = new double[n * 2];
+        for (int i = 0; i < n; i++) {
+            double[] u = calibration.undistort(planeCorners[2 * i], planeCorners[2 * i + 1]);
+            src[2 * i] = u[0];
+            src[2 * i + 1] = u[1];
+            dst[2 * i] = (i % columns) * squareSizeMm;
+            dst[2 * i + 1] = (i / columns) * squareSizeMm;
+        }
+        return Homography.fit(src, dst);
+    }
+}
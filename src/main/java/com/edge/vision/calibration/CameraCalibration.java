@@ -0,0 +1,303 @@
+package com.edge.vision.calibration;
+
+import com.edge.vision.cache.ContentHash;
+
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * 相机标定模型
+ *
+ * 包含相机内参 (fx, fy, cx, cy)、Brown-Conrady 畸变系数 (k1, k2, p1, p2, k3)
+ * 以及可选的测量平面单应矩阵（去畸变像素坐标 → 平面毫米坐标）。
+ *
+ * 只对检测到的针尖坐标做校正，不对整帧图像 remap，每帧开销为几十次浮点运算。
+ * 纯 Java 实现，不依赖本地库，可在 Android 上使用。实例不可变。
+ *
+ * 标定文件为 properties 格式，由 {@link CalibrationBuilder} 离线生成。
+ * @author Coder建设
+ */
+public final class CameraCalibration {
+
+    private static final int UNDISTORT_ITERATIONS = 20;
+    private static final double UNDISTORT_EPSILON = 1e-12;
+
+    private final double fx;
+    private final double fy;
+    private final double cx;
+    private final double cy;
+    private final double k1;
+    private final double k2;
+    private final double p1;
+    private final double p2;
+    private final double k3;
+    private final double[] homography;  // 行优先 3x3，可为null
+    private final int imageWidth;
+    private final int imageHeight;
+    private final double reprojectionError;
+
+    /**
+     * @param intrinsics {fx, fy, cx, cy}
+     * @param distortion {k1, k2, p1, p2[, k3]}
+     * @param homography 行优先 3x3 平面单应矩阵，没有测量平面标定时为null
+     * @param imageWidth 标定时的图像宽度
+     * @param imageHeight 标定时的图像高度
+     * @param reprojectionError 标定重投影误差(像素)，未知时为NaN
+     */
+    public CameraCalibration(double[] intrinsics, double[] distortion, double[] homography,
+                             int imageWidth, int imageHeight, double reprojectionError) {
+        if (intrinsics.length != 4 || intrinsics[0] <= 0 || intrinsics[1] <= 0) {
+            throw new IllegalArgumentException("相机内参无效");
+        }
+        if (distortion.length != 4 && distortion.length != 5) {
+            throw new IllegalArgumentException("畸变系数需要4或5个");
+        }
+        if (homography != null && homography.length != 9) {
+            throw new IllegalArgumentException("单应矩阵需要9个元素");
+        }
+        this.fx = intrinsics[0];
+        this.fy = intrinsics[1];
+        this.cx = intrinsics[2];
+        this.cy = intrinsics[3];
+        this.k1 = distortion[0];
+        this.k2 = distortion[1];
+        this.p1 = distortion[2];
+        this.p2 = distortion[3];
+        this.k3 = distortion.length == 5 ? distortion[4] : 0;
+        this.homography = homography == null ? null : homography.clone();
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.reprojectionError = reprojectionError;
+    }
+
+    /**
+     * 替换测量平面单应矩阵
+     */
+    public CameraCalibration withHomography(double[] homography) {
+        return new CameraCalibration(getIntrinsics(), getDistortion(), homography,
+            imageWidth, imageHeight, reprojectionError);
+    }
+
+    /**
+     * 去畸变（迭代求逆畸变模型，与 OpenCV undistortPoints 相同的模型，P = K）
+     *
+     * @param x 图像像素坐标 x
+     * @param y 图像像素坐标 y
+     * @return 去畸变后的像素坐标 {x, y}
+     */
+    public double[] undistort(double x, double y) {
+        double x0 = (x - cx) / fx;
+        double y0 = (y - cy) / fy;
+        double ux = x0;
+        double uy = y0;
+        for (int i = 0; i < UNDISTORT_ITERATIONS; i++) {
+            double r2 = ux * ux + uy * uy;
+            double icdist = 1 / (1 + ((k3 * r2 + k2) * r2 + k1) * r2);
+            double dx = 2 * p1 * ux * uy + p2 * (r2 + 2 * ux * ux);
+            double dy = p1 * (r2 + 2 * uy * uy) + 2 * p2 * ux * uy;
+            double nx = (x0 - dx) * icdist;
+            double ny = (y0 - dy) * icdist;
+            boolean converged = Math.abs(nx - ux) < UNDISTORT_EPSILON && Math.abs(ny - uy) < UNDISTORT_EPSILON;
+            ux = nx;
+            uy = ny;
+            if (converged) {
+                break;
+            }
+        }
+        return new double[] { ux * fx + cx, uy * fy + cy };
+    }
+
+    /**
+     * 施加畸变（去畸变的逆运算）
+     *
+     * @param x 去畸变像素坐标 x
+     * @param y 去畸变像素坐标 y
+     * @return 图像像素坐标 {x, y}
+     */
+    public double[] distort(double x, double y) {
+        double ux = (x - cx) / fx;
+        double uy = (y - cy) / fy;
+        double r2 = ux * ux + uy * uy;
+        double radial = 1 + ((k3 * r2 + k2) * r2 + k1) * r2;
+        double dx = ux * radial + 2 * p1 * ux * uy + p2 * (r2 + 2 * ux * ux);
+        double dy = uy * radial + p1 * (r2 + 2 * uy * uy) + 2 * p2 * ux * uy;
+        return new double[] { dx * fx + cx, dy * fy + cy };
+    }
+
+    /**
+     * 图像像素坐标 → 测量平面坐标(mm)（先去畸变再做单应变换）
+     *
+     * @throws IllegalStateException 如果没有测量平面标定
+     */
+    public double[] toPlane(double x, double y) {
+        if (homography == null) {
+            throw new IllegalStateException("没有测量平面标定");
+        }
+        double[] u = undistort(x, y);
+        double[] h = homography;
+        double w = h[6] * u[0] + h[7] * u[1] + h[8];
+        return new double[] {
+            (h[0] * u[0] + h[1] * u[1] + h[2]) / w,
+            (h[3] * u[0] + h[4] * u[1] + h[5]) / w
+        };
+    }
+
+    /**
+     * 去畸变后两点间的像素距离
+     */
+    public double undistortedDistance(double x1, double y1, double x2, double y2) {
+        double[] a = undistort(x1, y1);
+        double[] b = undistort(x2, y2);
+        return Math.hypot(b[0] - a[0], b[1] - a[1]);
+    }
+
+    /**
+     * 两点在测量平面上的距离(mm)
+     *
+     * @throws IllegalStateException 如果没有测量平面标定
+     */
+    public double planeDistanceMm(double x1, double y1, double x2, double y2) {
+        double[] a = toPlane(x1, y1);
+        double[] b = toPlane(x2, y2);
+        return Math.hypot(b[0] - a[0], b[1] - a[1]);
+    }
+
+    public boolean hasPlaneHomography() {
+        return homography != null;
+    }
+
+    /** {fx, fy, cx, cy} */
+    public double[] getIntrinsics() {
+        return new double[] { fx, fy, cx, cy };
+    }
+
+    /** {k1, k2, p1, p2, k3} */
+    public double[] getDistortion() {
+        return new double[] { k1, k2, p1, p2, k3 };
+    }
+
+    /** 行优先 3x3 单应矩阵，没有时返回null */
+    public double[] getHomography() {
+        return homography == null ? null : homography.clone();
+    }
+
+    public int getImageWidth() { return imageWidth; }
+    public int getImageHeight() { return imageHeight; }
+    /** 标定重投影误差(像素)，未知时为NaN */
+    public double getReprojectionError() { return reprojectionError; }
+
+    /**
+     * 参数指纹（参与结果缓存键，标定变化后不会命中旧结果）
+     */
+    public long getFingerprint() {
+        long h = 0;
+        for (double v : new double[] { fx, fy, cx, cy, k1, k2, p1, p2, k3 }) {
+            h = ContentHash.combine(h, Double.doubleToLongBits(v));
+        }
+        if (homography != null) {
+            for (double v : homography) {
+                h = ContentHash.combine(h, Double.doubleToLongBits(v));
+            }
+        }
+        return h;
+    }
+
+    /**
+     * 保存为标定文件
+     *
+     * @param path 文件路径
+     * @throws RuntimeException 如果保存失败
+     */
+    public void save(String path) {
+        try (FileWriter writer = new FileWriter(path)) {
+            writer.write("# 相机标定\n");
+            writer.write("image.width=" + imageWidth + "\n");
+            writer.write("image.height=" + imageHeight + "\n");
+            writer.write("camera.fx=" + fx + "\n");
+            writer.write("camera.fy=" + fy + "\n");
+            writer.write("camera.cx=" + cx + "\n");
+            writer.write("camera.cy=" + cy + "\n");
+            writer.write("distortion.k1=" + k1 + "\n");
+            writer.write("distortion.k2=" + k2 + "\n");
+            writer.write("distortion.p1=" + p1 + "\n");
+            writer.write("distortion.p2=" + p2 + "\n");
+            writer.write("distortion.k3=" + k3 + "\n");
+            if (homography != null) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < 9; i++) {
+                    sb.append(i == 0 ? "" : ",").append(homography[i]);
+                }
+                writer.write("plane.homography=" + sb + "\n");
+            }
+            if (!Double.isNaN(reprojectionError)) {
+                writer.write("reprojection.error=" + reprojectionError + "\n");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("保存标定文件失败: " + path, e);
+        }
+    }
+
+    /**
+     * 加载标定文件
+     *
+     * @param path 文件路径
+     * @throws RuntimeException 如果加载失败
+     */
+    public static CameraCalibration load(String path) {
+        try (InputStream is = new FileInputStream(path)) {
+            return load(is);
+        } catch (IOException e) {
+            throw new RuntimeException("无法加载标定文件: " + path, e);
+        }
+    }
+
+    /**
+     * 从输入流加载标定文件（例如 Android assets）
+     *
+     * @throws RuntimeException 如果加载失败
+     */
+    public static CameraCalibration load(InputStream in) {
+        Properties props = new Properties();
+        try {
+            props.load(in);
+            double[] intrinsics = {
+                number(props, "camera.fx"), number(props, "camera.fy"),
+                number(props, "camera.cx"), number(props, "camera.cy")
+            };
+            double[] distortion = {
+                number(props, "distortion.k1"), number(props, "distortion.k2"),
+                number(props, "distortion.p1"), number(props, "distortion.p2"),
+                Double.parseDouble(props.getProperty("distortion.k3", "0"))
+            };
+            double[] homography = null;
+            String h = props.getProperty("plane.homography");
+            if (h != null) {
+                homography = Arrays.stream(h.split(",")).mapToDouble(s -> Double.parseDouble(s.trim())).toArray();
+            }
+            return new CameraCalibration(intrinsics, distortion, homography,
+                Integer.parseInt(props.getProperty("image.width", "0")),
+                Integer.parseInt(props.getProperty("image.height", "0")),
+                Double.parseDouble(props.getProperty("reprojection.error", "NaN")));
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("无法解析标定文件", e);
+        }
+    }
+
+    private static double number(Properties props, String key) {
+        String value = props.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("标定文件缺少字段: " + key);
+        }
+        return Double.parseDouble(value);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CameraCalibration{f=(%.2f, %.2f), c=(%.2f, %.2f), k=(%.5f, %.5f, %.5f), p=(%.5f, %.5f), plane=%s}",
+            fx, fy, cx, cy, k1, k2, k3, p1, p2, homography != null);
+    }
+}
@@ -0,0 +1,146 @@
+package com.edge.vision.calibration;
+
+/**
+ * 平面单应矩阵估计（归一化 DLT，最小二乘）
+ *
+ * 纯 Java 实现，点对坐标先平移缩放到均值为0、平均距离为 √2，再解 8 元正规方程，
+ * 数值稳定性与 OpenCV findHomography(method=0) 相当。
+ * @author Coder建设
+ */
+final class Homography {
+
+    private Homography() {
+    }
+
+    /**
+     * 估计 src → dst 的单应矩阵
+     *
+     * @param src 源点 {x0, y0, x1, y1, ...}
+     * @param dst 目标点，与 src 一一对应
+     * @return 行优先 3x3 矩阵（h[8] = 1）
+     * @throws IllegalArgumentException 如果点数少于4或点退化
+     */
+    static double[] fit(double[] src, double[] dst) {
+        int n = src.length / 2;
+        if (n < 4 || src.length != dst.length) {
+            throw new IllegalArgumentException("单应估计至少需要4对点");
+        }
+        double[] ts = normalization(src);
+        double[] td = normalization(dst);
+
+        double[][] ata = new double[8][8];
+        double[] atb = new double[8];
+        double[] row = new double[8];
+        for (int i = 0; i < n; i++) {
+            double x = (src[2 * i] - ts[0]) * ts[2];
+            double y = (src[2 * i + 1] - ts[1]) * ts[2];
+            double u = (dst[2 * i] - td[0]) * td[2];
+            double v = (dst[2 * i + 1] - td[1]) * td[2];
+
+            row[0] = x; row[1] = y; row[2] = 1; row[3] = 0; row[4] = 0; row[5] = 0;
+            row[6] = -x * u; row[7] = -y * u;
+            accumulate(ata, atb, row, u);
+            row[0] = 0; row[1] = 0; row[2] = 0; row[3] = x; row[4] = y; row[5] = 1;
+            row[6] = -x * v; row[7] = -y * v;
+            accumulate(ata, atb, row, v);
+        }
+        double[] h = solve(ata, atb);
+        double[] hn = { h[0], h[1], h[2], h[3], h[4], h[5], h[6], h[7], 1 };
+
+        // 反归一化 H = Td^-1 * Hn * Ts
+        double[] tsMat = { ts[2], 0, -ts[2] * ts[0], 0, ts[2], -ts[2] * ts[1], 0, 0, 1 };
+        double[] tdInv = { 1 / td[2], 0, td[0], 0, 1 / td[2], td[1], 0, 0, 1 };
+        double[] result = multiply(tdInv, multiply(hn, tsMat));
+        double scale = result[8];
+        if (Math.abs(scale) < 1e-300) {
+            throw new IllegalArgumentException("点退化，无法估计单应矩阵");
+        }
+        for (int i = 0; i < 9; i++) {
+            result[i] /= scale;
+        }
+        return result;
+    }
+
+    /**
+     * @return {均值x, 均值y, 缩放}
+     */
+    private static double[] normalization(double[] points) {
+        int n = points.length / 2;
+        double mx = 0;
+        double my = 0;
+        for (int i = 0; i < n; i++) {
+            mx += points[2 * i];
+            my += points[2 * i + 1];
+        }
+        mx /= n;
+        my /= n;
+        double dist = 0;
+        for (int i = 0; i < n; i++) {
+            dist += Math.hypot(points[2 * i] - mx, points[2 * i + 1] - my);
+        }
+        dist /= n;
+        if (dist == 0) {
+            throw new IllegalArgumentException("点退化，无法估计单应矩阵");
+        }
+        return new double[] { mx, my, Math.sqrt(2) / dist };
+    }
+
+    private static void accumulate(double[][] ata, double[] atb, double[] row, double b) {
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                ata[r][c] += row[r] * row[c];
+            }
+            atb[r] += row[r] * b;
+        }
+    }
+
+    /**
+     * 部分主元高斯消元
+     */
+    private static double[] solve(double[][] a, double[] b) {
+        int n = b.length;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < n; r++) {
+                if (Math.abs(a[r][col]) > Math.abs(a[pivot][col])) {
+                    pivot = r;
+                }
+            }
+            if (Math.abs(a[pivot][col]) < 1e-12) {
+                throw new IllegalArgumentException("点退化，无法估计单应矩阵");
+            }
+            double[] tmpRow = a[col];
+            a[col] = a[pivot];
+            a[pivot] = tmpRow;
+            double tmp = b[col];
+            b[col] = b[pivot];
+            b[pivot] = tmp;
+            for (int r = col + 1; r < n; r++) {
+                double f = a[r][col] / a[col][col];
+                for (int c = col; c < n; c++) {
+                    a[r][c] -= f * a[col][c];
+                }
+                b[r] -= f * b[col];
+            }
+        }
+        double[] x = new double[n];
+        for (int r = n - 1; r >= 0; r--) {
+            double s = b[r];
+            for (int c = r + 1; c < n; c++) {
+                s -= a[r][c] * x[c];
+            }
+            x[r] = s / a[r][r];
+        }
+        return x;
+    }
+
+    private static double[] multiply(double[] a, double[] b) {
+        double[] m = new double[9];
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++) {
+                m[3 * r + c] = a[3 * r] * b[c] + a[3 * r + 1] * b[3 + c] + a[3 * r + 2] * b[6 + c];
+            }
+        }
+        return m;
+    }
+}
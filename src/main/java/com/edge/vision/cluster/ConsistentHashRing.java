@@ -0,0 +1,153 @@
+package com.edge.vision.cluster;
+
+import com.edge.vision.cache.ContentHash;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一致性哈希环
+ *
+ * 每个节点在环上放置若干虚拟节点，键按哈希值顺时针路由到第一个虚拟节点。
+ * 增减一个节点时只有约 1/N 的键改变归属，其余键仍落在原节点上。
+ *
+ * 修改加锁并重建不可变快照，路由只读快照，无锁。
+ * @author Coder建设
+ */
+public final class ConsistentHashRing<N> {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int virtualNodes;
+    private final Map<String, N> nodes = new LinkedHashMap<>();
+    private volatile Snapshot<N> snapshot = new Snapshot<>(new long[0], new Object[0]);
+
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param virtualNodes 每个节点的虚拟节点数（越多分布越均匀）
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("虚拟节点数必须大于0");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * 加入节点（同名节点会被替换）
+     *
+     * @param name 节点名（决定在环上的位置，重启后用同名加入可以收回原来的键）
+     * @param node 节点对象
+     */
+    public synchronized void add(String name, N node) {
+        nodes.put(name, node);
+        rebuild();
+    }
+
+    /**
+     * 移除节点
+     *
+     * @param name 节点名
+     * @return 节点是否存在
+     */
+    public synchronized boolean remove(String name) {
+        if (nodes.remove(name) == null) {
+            return false;
+        }
+        rebuild();
+        return true;
+    }
+
+    public synchronized boolean contains(String name) {
+        return nodes.containsKey(name);
+    }
+
+    /**
+     * 当前节点数
+     */
+    public int size() {
+        return snapshot.points.length / virtualNodes;
+    }
+
+    /**
+     * 查找键所属的节点
+     *
+     * @param key 路由键
+     * @return 节点，环为空时返回null
+     */
+    public N route(String key) {
+        return route(key, Collections.emptySet());
+    }
+
+    /**
+     * 查找键所属的节点，跳过排除的节点（顺时针取下一个未排除的节点）
+     *
+     * @param key 路由键
+     * @param exclude 不参与路由的节点
+     * @return 节点，环为空或节点都被排除时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public N route(String key, Collection<?> exclude) {
+        Snapshot<N> s = snapshot;
+        int n = s.points.length;
+        if (n == 0) {
+            return null;
+        }
+        long h = hash(key);
+        int i = Arrays.binarySearch(s.points, h);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        for (int step = 0; step < n; step++) {
+            Object owner = s.owners[(i + step) % n];
+            if (!exclude.contains(owner)) {
+                return (N) owner;
+            }
+        }
+        return null;
+    }
+
+    private void rebuild() {
+        List<long[]> entries = new ArrayList<>(nodes.size() * virtualNodes);
+        List<N> owners = new ArrayList<>(nodes.values());
+        int ownerIndex = 0;
+        for (String name : nodes.keySet()) {
+            for (int v = 0; v < virtualNodes; v++) {
+                entries.add(new long[] { hash(name + "#" + v), ownerIndex });
+            }
+            ownerIndex++;
+        }
+        entries.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        long[] points = new long[entries.size()];
+        Object[] pointOwners = new Object[entries.size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = entries.get(i)[0];
+            pointOwners[i] = owners.get((int) entries.get(i)[1]);
+        }
+        snapshot = new Snapshot<>(points, pointOwners);
+    }
+
+    private static long hash(String key) {
+        return ContentHash.hash64(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Snapshot<N> {
+        final long[] points;
+        final Object[] owners;
+
+        Snapshot(long[] points, Object[] owners) {
+            this.points = points;
+            this.owners = owners;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.edge.vision.cluster;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.io.MeasurementRecord;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 协调进程与工作进程之间的请求/响应格式（本机回环 TCP，大端长度前缀）
+ *
+ * <pre>
+ * 请求:  op(1) [templateId(UTF) templatePath(UTF) payload]
+ *        ANALYZE_BYTES 的 payload 为 length(4) + 编码后的图像字节
+ *        ANALYZE_FILE  的 payload 为图像路径(UTF)，由工作进程直接读取，不经过套接字复制
+ * 响应:  status(1) + OK: {@link MeasurementRecord} ({@value MeasurementRecord#RECORD_SIZE} 字节)
+ *                   ERROR: 错误信息(UTF)
+ * </pre>
+ * @author Coder建设
+ */
+final class ShardProtocol {
+
+    static final byte OP_ANALYZE_BYTES = 1;
+    static final byte OP_ANALYZE_FILE = 2;
+    static final byte OP_PING = 3;
+    static final byte OP_SHUTDOWN = 4;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    /** 工作进程就绪后在标准输出打印的行前缀，后跟监听端口 */
+    static final String READY_PREFIX = "SHARD-READY ";
+
+    static final int MAX_IMAGE_BYTES = 512 * 1024 * 1024;
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * 将结果编码为 {@link MeasurementRecord}
+     *
+     * @throws IllegalArgumentException 如果模板ID超过 {@value MeasurementRecord#TEMPLATE_ID_BYTES} 字节
+     */
+    static byte[] encodeResult(MeasurementResult result) {
+        ByteBuffer buf = ByteBuffer.allocate(MeasurementRecord.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        MeasurementRecord.write(buf, 0, result, MeasurementRecord.encodeTemplateId(result.getTemplateId()));
+        return buf.array();
+    }
+
+    static void writeResult(DataOutputStream out, byte[] record) throws IOException {
+        out.writeByte(STATUS_OK);
+        out.write(record);
+    }
+
+    static void writeError(DataOutputStream out, String message) throws IOException {
+        out.writeByte(STATUS_ERROR);
+        out.writeUTF(message == null ? "未知错误" : message);
+    }
+
+    /**
+     * 读取响应
+     *
+     * @return 测量结果
+     * @throws ShardException 工作进程返回了分析错误（连接仍可用）
+     * @throws IOException 连接异常
+     */
+    static MeasurementResult readResponse(DataInputStream in) throws IOException {
+        byte status = in.readByte();
+        if (status == STATUS_OK) {
+            byte[] record = new byte[MeasurementRecord.RECORD_SIZE];
+            in.readFully(record);
+            return MeasurementRecord.read(ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN), 0);
+        }
+        if (status == STATUS_ERROR) {
+            throw new ShardException(in.readUTF());
+        }
+        throw new IOException("无效的响应状态: " + status);
+    }
+
+    /**
+     * 工作进程返回的分析错误
+     */
+    static final class ShardException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ShardException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.edge.vision.cluster;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.platform.OpenCVInitializer;
+import com.edge.vision.platform.ThreadingPolicy;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 分片工作进程
+ *
+ * 由 {@link ShardedCoordinator} 启动，监听本机回环端口，每个连接一个线程，
+ * 按请求中的模板ID懒加载分析器并常驻内存。一致性哈希保证同一模板总是路由到同一进程，
+ * 因此每个进程只加载自己负责的模板。同一模板ID的路径变化（重新注册）时加载新模板，
+ * 旧分析器在进行中的请求结束后关闭。
+ *
+ * 启动后在标准输出打印 "SHARD-READY &lt;端口&gt;"；标准输入关闭（协调进程退出）时自行退出，
+ * 避免留下孤儿进程。
+ *
+ * 命令行:
+ * <pre>
+ * java -cp app.jar com.edge.vision.cluster.ShardWorker --name shard-0 --port 0 --opencv-threads 1
+ * </pre>
+ * @author Coder建设
+ */
+public class ShardWorker implements Closeable {
+
+    private final String name;
+    private final ServerSocket server;
+    private final ExecutorService connections;
+    private final Map<String, LoadedTemplate> analyzers = new ConcurrentHashMap<>();
+    private volatile Listener listener = e -> { };
+    private volatile boolean running = true;
+
+    /**
+     * 连接错误监听器（在连接线程中回调）
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * 接受连接失败或连接异常断开
+         *
+         * @param error 异常
+         */
+        void onConnectionError(IOException error);
+    }
+
+    /**
+     * 创建工作进程并绑定端口
+     *
+     * @param name 名称（日志用）
+     * @param port 监听端口，0 表示自动分配
+     * @param policy 线程策略（连接线程启动时应用）
+     */
+    public ShardWorker(String name, int port, ThreadingPolicy policy) {
+        this.name = name;
+        try {
+            this.server = new ServerSocket(port, 64, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new RuntimeException("工作进程无法监听端口: " + port, e);
+        }
+        this.connections = Executors.newCachedThreadPool(policy.newThreadFactory(name + "-conn"));
+    }
+
+    /**
+     * 设置连接错误监听器（默认忽略）
+     *
+     * @return this
+     */
+    public ShardWorker setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * 已加载的模板数
+     */
+    public int getTemplateCount() {
+        return analyzers.size();
+    }
+
+    /**
+     * 接受连接直到关闭
+     */
+    public void serve() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (running) {
+                    listener.onConnectionError(e);
+                }
+                continue;
+            }
+            connections.execute(() -> handle(socket));
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 64 * 1024));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), 4096));
+            int op;
+            while ((op = in.read()) >= 0) {
+                switch (op) {
+                    case ShardProtocol.OP_PING:
+                        out.writeByte(ShardProtocol.STATUS_OK);
+                        break;
+                    case ShardProtocol.OP_SHUTDOWN:
+                        out.writeByte(ShardProtocol.STATUS_OK);
+                        out.flush();
+                        close();
+                        return;
+                    case ShardProtocol.OP_ANALYZE_BYTES:
+                    case ShardProtocol.OP_ANALYZE_FILE:
+                        analyze(op, in, out);
+                        break;
+                    default:
+                        throw new IOException("未知的请求类型: " + op);
+                }
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // 协调进程关闭了连接
+        } catch (IOException e) {
+            listener.onConnectionError(e);
+        }
+    }
+
+    private void analyze(int op, DataInputStream in, DataOutputStream out) throws IOException {
+        String templateId = in.readUTF();
+        String templatePath = in.readUTF();
+        byte[] image = null;
+        String imagePath = null;
+        if (op == ShardProtocol.OP_ANALYZE_BYTES) {
+            int length = in.readInt();
+            if (length < 0 || length > ShardProtocol.MAX_IMAGE_BYTES) {
+                throw new IOException("图像长度无效: " + length);
+            }
+            image = new byte[length];
+            in.readFully(image);
+        } else {
+            imagePath = in.readUTF();
+        }
+
+        byte[] record;
+        try {
+            LoadedTemplate loaded = acquire(templateId, templatePath);
+            MeasurementResult result;
+            try {
+                result = image != null ? loaded.analyzer.analyze(image) : analyzeFile(loaded.analyzer, imagePath);
+            } finally {
+                loaded.release();
+            }
+            // 模板ID超长等编码错误也作为分析错误返回，连接保持可用
+            record = ShardProtocol.encodeResult(result);
+        } catch (RuntimeException e) {
+            ShardProtocol.writeError(out, e.getMessage());
+            return;
+        }
+        ShardProtocol.writeResult(out, record);
+    }
+
+    /**
+     * 取得模板对应的分析器并登记使用；路径与已加载的不同时加载新模板并退役旧分析器
+     */
+    private LoadedTemplate acquire(String templateId, String templatePath) {
+        while (true) {
+            LoadedTemplate loaded = analyzers.compute(templateId, (id, current) -> {
+                if (current != null && current.path.equals(templatePath)) {
+                    return current;
+                }
+                LoadedTemplate replacement = new LoadedTemplate(templatePath);
+                if (current != null) {
+                    current.retire();
+                }
+                return replacement;
+            });
+            if (loaded.acquire()) {
+                return loaded;
+            }
+            // 刚被并发的路径变更或关闭退役，重新查找
+            if (!running) {
+                throw new IllegalStateException("工作进程已关闭");
+            }
+        }
+    }
+
+    private static MeasurementResult analyzeFile(NeedleLengthAnalyzer analyzer, String path) {
+        // 不使用 analyze(String)，避免在图像旁生成可视化文件
+        Mat image = opencv_imgcodecs.imread(path);
+        try {
+            if (image.empty()) {
+                throw new RuntimeException("无法加载目标图像: " + path);
+            }
+            return analyzer.analyze(image);
+        } finally {
+            image.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            server.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+        connections.shutdownNow();
+        for (LoadedTemplate loaded : analyzers.values()) {
+            loaded.retire();
+        }
+        analyzers.clear();
+    }
+
+    /**
+     * 已加载的模板：记录使用中的请求数，退役后由最后一个请求关闭分析器
+     */
+    private static final class LoadedTemplate {
+        final String path;
+        final NeedleLengthAnalyzer analyzer;
+        private int users;
+        private boolean retired;
+
+        LoadedTemplate(String path) {
+            this.path = path;
+            this.analyzer = new NeedleLengthAnalyzer(path);
+        }
+
+        synchronized boolean acquire() {
+            if (retired) {
+                return false;
+            }
+            users++;
+            return true;
+        }
+
+        synchronized void release() {
+            users--;
+            if (retired && users == 0) {
+                analyzer.close();
+            }
+        }
+
+        synchronized void retire() {
+            if (retired) {
+                return;
+            }
+            retired = true;
+            if (users == 0) {
+                analyzer.close();
+            }
+        }
+    }
+
+    /**
+     * 标准输入关闭时退出进程
+     */
+    private static void exitWhenParentGone() {
+        Thread watcher = new Thread(() -> {
+            InputStream stdin = System.in;
+            byte[] buf = new byte[256];
+            try {
+                while (stdin.read(buf) >= 0) {
+                    // 丢弃
+                }
+            } catch (IOException e) {
+                // 视为父进程已退出
+            }
+            System.exit(0);
+        }, "shard-parent-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args [--name NAME] [--port PORT] [--opencv-threads N]
+     */
+    public static void main(String[] args) {
+        String name = "shard";
+        int port = 0;
+        int openCVThreads = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--name": name = value; break;
+                case "--port": port = Integer.parseInt(value); break;
+                case "--opencv-threads": openCVThreads = Integer.parseInt(value); break;
+                default:
+                    System.err.println("未知参数: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        ThreadingPolicy policy = ThreadingPolicy.builder()
+            .setName(name)
+            .setOpenCVThreads(openCVThreads)
+            .setThreadNamePrefix(name)
+            .build();
+        OpenCVInitializer.initialize(policy);
+
+        String workerName = name;
+        ShardWorker worker = new ShardWorker(name, port, policy)
+            .setListener(e -> System.err.println("[" + workerName + "] 连接异常: " + e.getMessage()));
+        exitWhenParentGone();
+        System.out.println(ShardProtocol.READY_PREFIX + worker.getPort());
+        System.out.flush();
+        worker.serve();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,772 @@
+package com.edge.vision.cluster;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.io.MeasurementRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多进程分片协调器
+ *
+ * 单个 JVM 在多核服务器上会受本地内存分配器竞争和 OpenCV 全局状态限制。
+ * 协调器在本机启动 N 个 {@link ShardWorker} 进程，按模板ID一致性哈希路由请求，
+ * 每个工作进程只加载并常驻自己负责的模板。
+ *
+ * 图像通过本机回环 TCP 传给工作进程；图像已在本机磁盘上时用
+ * {@link #analyzeFile(String, Path)} 只传路径，由工作进程直接读取。
+ *
+ * 故障处理:
+ * <ul>
+ *   <li>请求时连接失败且进程已退出（或无响应）- 将其移出哈希环，请求重路由到环上的下一个进程</li>
+ *   <li>请求超时但进程仍能响应 ping - 直接失败，不重路由</li>
+ *   <li>其他连接错误但进程仍能响应 - 本次请求跳过该进程，重路由到环上的下一个进程</li>
+ *   <li>后台监控线程定期检查进程存活，重启下线的进程，重启后以同名重新加入哈希环，
+ *       原来属于它的模板自动迁回</li>
+ * </ul>
+ *
+ * 使用示例:
+ * <pre>
+ * try (ShardedCoordinator coordinator = new ShardedCoordinator(8)) {
+ *     coordinator.registerTemplate("needle-50", "template/needle_template_50mm.png");
+ *     coordinator.start();
+ *     MeasurementResult result = coordinator.analyzeFile("needle-50", Paths.get("image.jpg"));
+ * }
+ * </pre>
+ * @author Coder建设
+ */
+public class ShardedCoordinator implements Closeable {
+
+    /**
+     * 工作进程状态
+     */
+    public enum WorkerState { STARTING, UP, DOWN, STOPPED }
+
+    /**
+     * 工作进程事件监听器（在监控线程、请求线程或输出转发线程中回调，应尽快返回；默认全部忽略）
+     */
+    public interface Listener {
+
+        /**
+         * 工作进程下线，其模板重新分配
+         *
+         * @param worker 工作进程名
+         * @param cause 连接异常，进程自行退出时为null
+         */
+        default void onWorkerDown(String worker, Exception cause) {
+        }
+
+        /**
+         * 工作进程已重启并重新加入哈希环
+         *
+         * @param worker 工作进程名
+         * @param pid 新进程ID
+         */
+        default void onWorkerRestarted(String worker, long pid) {
+        }
+
+        /**
+         * 工作进程重启失败（下一轮监控时重试），或监控本身出错（worker 为null）
+         *
+         * @param worker 工作进程名
+         * @param cause 异常
+         */
+        default void onSupervisionError(String worker, RuntimeException cause) {
+        }
+
+        /**
+         * 工作进程标准输出中的一行（就绪行除外）
+         *
+         * @param worker 工作进程名
+         * @param line 输出行
+         */
+        default void onWorkerOutput(String worker, String line) {
+        }
+    }
+
+    private final int workerCount;
+    private int virtualNodes = ConsistentHashRing.DEFAULT_VIRTUAL_NODES;
+    private int maxIdleConnections = 8;
+    private int openCVThreads = 1;
+    private List<String> jvmArgs = new ArrayList<>();
+    private Duration startupTimeout = Duration.ofSeconds(60);
+    private Duration requestTimeout = Duration.ofSeconds(60);
+    private Duration healthCheckInterval = Duration.ofSeconds(1);
+
+    private final Map<String, String> templates = new ConcurrentHashMap<>();
+    private final List<WorkerHandle> handles = new ArrayList<>();
+    private ConsistentHashRing<WorkerHandle> ring;
+    private ScheduledExecutorService supervisor;
+    private final AtomicLong restarts = new AtomicLong();
+    private final AtomicLong rerouted = new AtomicLong();
+    private volatile Listener listener = new Listener() { };
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    /**
+     * @param workers 工作进程数
+     */
+    public ShardedCoordinator(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("工作进程数必须大于0");
+        }
+        this.workerCount = workers;
+    }
+
+    /**
+     * 设置每个进程在哈希环上的虚拟节点数
+     *
+     * @return this
+     */
+    public ShardedCoordinator setVirtualNodes(int virtualNodes) {
+        checkNotStarted();
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("虚拟节点数必须大于0");
+        }
+        this.virtualNodes = virtualNodes;
+        return this;
+    }
+
+    /**
+     * 设置每个工作进程保留的空闲连接数（并发请求超过时临时建立连接）
+     *
+     * @return this
+     */
+    public ShardedCoordinator setMaxIdleConnections(int connections) {
+        checkNotStarted();
+        if (connections <= 0) {
+            throw new IllegalArgumentException("连接数必须大于0");
+        }
+        this.maxIdleConnections = connections;
+        return this;
+    }
+
+    /**
+     * 设置每个工作进程的 OpenCV 线程数（默认1，由进程数提供并行度）
+     *
+     * @return this
+     */
+    public ShardedCoordinator setOpenCVThreads(int threads) {
+        checkNotStarted();
+        if (threads <= 0) {
+            throw new IllegalArgumentException("线程数必须大于0");
+        }
+        this.openCVThreads = threads;
+        return this;
+    }
+
+    /**
+     * 设置工作进程的 JVM 参数（例如 -Xmx512m、AppCDS 参数）
+     *
+     * @return this
+     */
+    public ShardedCoordinator setJvmArgs(List<String> jvmArgs) {
+        checkNotStarted();
+        this.jvmArgs = new ArrayList<>(jvmArgs);
+        return this;
+    }
+
+    /**
+     * 设置工作进程启动超时
+     *
+     * @return this
+     */
+    public ShardedCoordinator setStartupTimeout(Duration timeout) {
+        checkNotStarted();
+        this.startupTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * 设置单次请求超时（超时后连接被关闭）
+     *
+     * @return this
+     */
+    public ShardedCoordinator setRequestTimeout(Duration timeout) {
+        checkNotStarted();
+        this.requestTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * 设置进程存活检查及重启的间隔
+     *
+     * @return this
+     */
+    public ShardedCoordinator setHealthCheckInterval(Duration interval) {
+        checkNotStarted();
+        this.healthCheckInterval = interval;
+        return this;
+    }
+
+    /**
+     * 设置工作进程事件监听器（默认忽略所有事件）
+     *
+     * @return this
+     */
+    public ShardedCoordinator setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 注册模板（可在启动后继续注册，重新注册同一ID时工作进程改用新路径）
+     * 工作进程在第一次收到该模板的请求时按路径加载
+     *
+     * @param templateId 路由用的模板ID
+     * @param templatePath 模板文件路径（工作进程可访问的本机路径）
+     * @return this
+     * @throws IllegalArgumentException 如果模板ID超过 {@value MeasurementRecord#TEMPLATE_ID_BYTES} 字节（结果格式的上限）
+     */
+    public ShardedCoordinator registerTemplate(String templateId, String templatePath) {
+        MeasurementRecord.encodeTemplateId(templateId);
+        templates.put(templateId, Paths.get(templatePath).toAbsolutePath().toString());
+        return this;
+    }
+
+    private void checkNotStarted() {
+        if (started) {
+            throw new IllegalStateException("协调器已启动");
+        }
+    }
+
+    /**
+     * 启动所有工作进程（并行启动，全部就绪后返回）
+     *
+     * @throws RuntimeException 如果有工作进程未能启动
+     */
+    public synchronized void start() {
+        checkNotStarted();
+        started = true;
+        ring = new ConsistentHashRing<>(virtualNodes);
+        for (int i = 0; i < workerCount; i++) {
+            handles.add(new WorkerHandle("shard-" + i));
+        }
+
+        List<CompletableFuture<Void>> launches = new ArrayList<>();
+        for (WorkerHandle handle : handles) {
+            launches.add(CompletableFuture.runAsync(() -> launch(handle)));
+        }
+        try {
+            CompletableFuture.allOf(launches.toArray(new CompletableFuture<?>[0])).join();
+        } catch (RuntimeException e) {
+            close();
+            throw new RuntimeException("工作进程启动失败", e.getCause() != null ? e.getCause() : e);
+        }
+        for (WorkerHandle handle : handles) {
+            ring.add(handle.name, handle);
+        }
+
+        supervisor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "shard-supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, healthCheckInterval.toMillis());
+        supervisor.scheduleWithFixedDelay(this::superviseQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 分析编码后的图像（JPEG/PNG 等文件字节）
+     *
+     * @param templateId 已注册的模板ID
+     * @param imageBytes 图像字节
+     * @return 测量结果
+     * @throws RuntimeException 如果分析失败或没有可用的工作进程
+     */
+    public MeasurementResult analyze(String templateId, byte[] imageBytes) {
+        return dispatch(templateId, imageBytes, null);
+    }
+
+    /**
+     * 分析本机磁盘上的图像（只传路径，不复制图像数据）
+     *
+     * @param templateId 已注册的模板ID
+     * @param imagePath 图像路径
+     * @return 测量结果
+     * @throws RuntimeException 如果分析失败或没有可用的工作进程
+     */
+    public MeasurementResult analyzeFile(String templateId, Path imagePath) {
+        return dispatch(templateId, null, imagePath.toAbsolutePath().toString());
+    }
+
+    private MeasurementResult dispatch(String templateId, byte[] imageBytes, String imagePath) {
+        if (!started || closed) {
+            throw new IllegalStateException("协调器未启动或已关闭");
+        }
+        String templatePath = templates.get(templateId);
+        if (templatePath == null) {
+            throw new IllegalArgumentException("未注册的模板: " + templateId);
+        }
+
+        // 每次连接失败都把该进程排除，顺时针换环上的下一个进程，最多把每个进程试一遍
+        List<WorkerHandle> tried = new ArrayList<>(2);
+        IOException lastError = null;
+        WorkerHandle handle;
+        while ((handle = ring.route(templateId, tried)) != null) {
+            if (!tried.isEmpty()) {
+                rerouted.incrementAndGet();
+            }
+            tried.add(handle);
+            try {
+                return handle.call(templateId, templatePath, imageBytes, imagePath);
+            } catch (ShardProtocol.ShardException e) {
+                throw new RuntimeException("工作进程 " + handle.name + " 分析失败: " + e.getMessage(), e);
+            } catch (IOException e) {
+                lastError = e;
+                if (!handle.isHealthy()) {
+                    markDown(handle, e);
+                } else if (e instanceof SocketTimeoutException) {
+                    // 进程仍在响应，只是这张图处理太慢，换进程重做只会把延迟再放大一倍
+                    throw new RuntimeException("工作进程 " + handle.name + " 请求超时: " + e.getMessage(), e);
+                }
+            }
+        }
+        throw new RuntimeException("没有可用的工作进程处理模板: " + templateId, lastError);
+    }
+
+    /**
+     * 模板当前路由到的工作进程
+     *
+     * @param templateId 模板ID
+     * @return 工作进程名，没有可用进程时返回null
+     */
+    public String ownerOf(String templateId) {
+        WorkerHandle handle = ring == null ? null : ring.route(templateId);
+        return handle == null ? null : handle.name;
+    }
+
+    /**
+     * 各工作进程状态快照
+     */
+    public List<WorkerStatus> getWorkerStatus() {
+        List<WorkerStatus> status = new ArrayList<>();
+        for (WorkerHandle handle : handles) {
+            Process process = handle.process;
+            status.add(new WorkerStatus(handle.name, handle.state, process == null ? -1 : process.pid(),
+                handle.port, handle.requests.get(), handle.starts.get()));
+        }
+        return Collections.unmodifiableList(status);
+    }
+
+    /** 累计重启次数 */
+    public long getRestartCount() { return restarts.get(); }
+    /** 重路由次数（请求改投到环上另一个进程的次数） */
+    public long getReroutedCount() { return rerouted.get(); }
+    /** 当前在哈希环上的进程数 */
+    public int getActiveWorkerCount() { return ring == null ? 0 : ring.size(); }
+
+    private void superviseQuietly() {
+        try {
+            supervise();
+        } catch (RuntimeException e) {
+            listener.onSupervisionError(null, e);
+        }
+    }
+
+    private void supervise() {
+        for (WorkerHandle handle : handles) {
+            if (closed) {
+                return;
+            }
+            if (handle.state == WorkerState.UP && !handle.process.isAlive()) {
+                markDown(handle, null);
+            }
+            if (handle.state == WorkerState.DOWN) {
+                try {
+                    launch(handle);
+                    ring.add(handle.name, handle);
+                    restarts.incrementAndGet();
+                    listener.onWorkerRestarted(handle.name, handle.process.pid());
+                } catch (RuntimeException e) {
+                    // 下一轮重试
+                    handle.state = WorkerState.DOWN;
+                    listener.onSupervisionError(handle.name, e);
+                }
+            }
+        }
+    }
+
+    private void markDown(WorkerHandle handle, Exception cause) {
+        synchronized (handle) {
+            if (handle.state != WorkerState.UP) {
+                return;
+            }
+            handle.state = WorkerState.DOWN;
+            ring.remove(handle.name);
+            handle.closeConnections();
+            handle.process.destroyForcibly();
+        }
+        listener.onWorkerDown(handle.name, cause);
+    }
+
+    private void launch(WorkerHandle handle) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add("--name");
+        command.add(handle.name);
+        command.add("--opencv-threads");
+        command.add(String.valueOf(openCVThreads));
+
+        synchronized (handle) {
+            handle.state = WorkerState.STARTING;
+            Process process;
+            try {
+                process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            } catch (IOException e) {
+                handle.state = WorkerState.DOWN;
+                throw new RuntimeException("无法启动工作进程: " + handle.name, e);
+            }
+
+            CompletableFuture<Integer> ready = new CompletableFuture<>();
+            Thread forwarder = new Thread(() -> forwardOutput(handle.name, process, ready),
+                handle.name + "-stdout");
+            forwarder.setDaemon(true);
+            forwarder.start();
+
+            try {
+                handle.port = ready.get(startupTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+                handle.state = WorkerState.DOWN;
+                throw new RuntimeException("等待工作进程启动被中断: " + handle.name, e);
+            } catch (ExecutionException | TimeoutException e) {
+                process.destroyForcibly();
+                handle.state = WorkerState.DOWN;
+                throw new RuntimeException("工作进程未能就绪: " + handle.name, e);
+            }
+            handle.process = process;
+            handle.starts.incrementAndGet();
+            handle.state = WorkerState.UP;
+        }
+    }
+
+    /**
+     * 读取工作进程标准输出：解析就绪行，其余行交给监听器
+     */
+    private void forwardOutput(String name, Process process, CompletableFuture<Integer> ready) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!ready.isDone() && line.startsWith(ShardProtocol.READY_PREFIX)) {
+                    ready.complete(Integer.parseInt(line.substring(ShardProtocol.READY_PREFIX.length()).trim()));
+                } else {
+                    listener.onWorkerOutput(name, line);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            ready.completeExceptionally(e);
+        }
+        ready.completeExceptionally(new IOException("工作进程输出已关闭: " + name));
+    }
+
+    /**
+     * 停止所有工作进程
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (supervisor != null) {
+            supervisor.shutdownNow();
+        }
+        for (WorkerHandle handle : handles) {
+            handle.shutdown();
+        }
+    }
+
+    /**
+     * 工作进程状态
+     */
+    public static final class WorkerStatus {
+        private final String name;
+        private final WorkerState state;
+        private final long pid;
+        private final int port;
+        private final long requests;
+        private final long starts;
+
+        WorkerStatus(String name, WorkerState state, long pid, int port, long requests, long starts) {
+            this.name = name;
+            this.state = state;
+            this.pid = pid;
+            this.port = port;
+            this.requests = requests;
+            this.starts = starts;
+        }
+
+        public String getName() { return name; }
+        public WorkerState getState() { return state; }
+        public long getPid() { return pid; }
+        public int getPort() { return port; }
+        /** 成功完成的请求数 */
+        public long getRequests() { return requests; }
+        /** 启动次数（含重启） */
+        public long getStarts() { return starts; }
+
+        @Override
+        public String toString() {
+            return String.format("%s[%s, pid=%d, port=%d, requests=%d, starts=%d]",
+                name, state, pid, port, requests, starts);
+        }
+    }
+
+    /**
+     * 一个工作进程及其连接池
+     */
+    private final class WorkerHandle {
+        final String name;
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong starts = new AtomicLong();
+        final BlockingQueue<Connection> idle;
+        volatile Process process;
+        volatile int port;
+        volatile WorkerState state = WorkerState.STARTING;
+
+        WorkerHandle(String name) {
+            this.name = name;
+            this.idle = new ArrayBlockingQueue<>(maxIdleConnections);
+        }
+
+        MeasurementResult call(String templateId, String templatePath, byte[] imageBytes, String imagePath)
+                throws IOException {
+            Connection connection = idle.poll();
+            if (connection == null) {
+                connection = new Connection(port, (int) requestTimeout.toMillis());
+            }
+            boolean reusable = false;
+            try {
+                MeasurementResult result = connection.analyze(templateId, templatePath, imageBytes, imagePath);
+                reusable = true;
+                requests.incrementAndGet();
+                return result;
+            } catch (ShardProtocol.ShardException e) {
+                // 分析错误，连接本身仍然可用
+                reusable = true;
+                throw e;
+            } finally {
+                if (!reusable || connection.port != port || !idle.offer(connection)) {
+                    connection.close();
+                }
+            }
+        }
+
+        /**
+         * 进程存活且能响应 ping
+         */
+        boolean isHealthy() {
+            Process p = process;
+            if (p == null || !p.isAlive()) {
+                return false;
+            }
+            try (Connection probe = new Connection(port, 2000)) {
+                return probe.ping();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        void closeConnections() {
+            Connection c;
+            while ((c = idle.poll()) != null) {
+                c.close();
+            }
+        }
+
+        void shutdown() {
+            Process p = process;
+            if (p != null && p.isAlive() && state == WorkerState.UP) {
+                try (Connection c = new Connection(port, 2000)) {
+                    c.shutdown();
+                } catch (IOException e) {
+                    // 进程可能已退出
+                }
+            }
+            state = WorkerState.STOPPED;
+            closeConnections();
+            if (p != null) {
+                try {
+                    // 关闭标准输入，工作进程随之退出
+                    p.getOutputStream().close();
+                    if (!p.waitFor(5, TimeUnit.SECONDS)) {
+                        p.destroyForcibly();
+                    }
+                } catch (IOException e) {
+                    p.destroyForcibly();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    p.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    /**
+     * 到工作进程的一条连接（同一时刻只被一个请求使用）
+     */
+    private static final class Connection implements Closeable {
+        final int port;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        Connection(int port, int timeoutMillis) throws IOException {
+            this.port = port;
+            this.socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                socket.setTcpNoDelay(true);
+                this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 4096));
+                this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        MeasurementResult analyze(String templateId, String templatePath, byte[] imageBytes, String imagePath)
+                throws IOException {
+            if (imageBytes != null) {
+                out.writeByte(ShardProtocol.OP_ANALYZE_BYTES);
+                out.writeUTF(templateId);
+                out.writeUTF(templatePath);
+                out.writeInt(imageBytes.length);
+                out.write(imageBytes);
+            } else {
+                out.writeByte(ShardProtocol.OP_ANALYZE_FILE);
+                out.writeUTF(templateId);
+                out.writeUTF(templatePath);
+                out.writeUTF(imagePath);
+            }
+            out.flush();
+            return ShardProtocol.readResponse(in);
+        }
+
+        boolean ping() throws IOException {
+            out.writeByte(ShardProtocol.OP_PING);
+            out.flush();
+            return in.readByte() == ShardProtocol.STATUS_OK;
+        }
+
+        void shutdown() throws IOException {
+            out.writeByte(ShardProtocol.OP_SHUTDOWN);
+            out.flush();
+            in.readByte();
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args --workers N --template ID=PATH [--template ...] ID:IMAGE [ID:IMAGE ...]
+     */
+    public static void main(String[] args) {
+        int workers = Runtime.getRuntime().availableProcessors();
+        List<String[]> jobs = new ArrayList<>();
+        List<String[]> templateArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--workers") && i + 1 < args.length) {
+                workers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--template") && i + 1 < args.length) {
+                templateArgs.add(args[++i].split("=", 2));
+            } else if (args[i].contains(":") && !args[i].startsWith("--")) {
+                jobs.add(args[i].split(":", 2));
+            } else {
+                System.err.println("未知参数: " + args[i]);
+                System.exit(2);
+            }
+        }
+        if (templateArgs.isEmpty() || jobs.isEmpty()) {
+            System.err.println("用法: ShardedCoordinator --workers N --template ID=PATH [--template ...] "
+                + "ID:IMAGE [ID:IMAGE ...]");
+            System.exit(2);
+        }
+
+        try (ShardedCoordinator coordinator = new ShardedCoordinator(workers)) {
+            coordinator.setListener(new Listener() {
+                @Override
+                public void onWorkerDown(String worker, Exception cause) {
+                    System.err.println("工作进程下线: " + worker
+                        + (cause != null ? " - " + cause : " - 进程已退出") + "，其模板重新分配");
+                }
+
+                @Override
+                public void onWorkerRestarted(String worker, long pid) {
+                    System.out.println("工作进程已重启: " + worker + " (pid=" + pid + ")");
+                }
+
+                @Override
+                public void onSupervisionError(String worker, RuntimeException cause) {
+                    System.err.println("工作进程监控异常: " + (worker != null ? worker + " - " : "")
+                        + cause.getMessage());
+                }
+
+                @Override
+                public void onWorkerOutput(String worker, String line) {
+                    System.out.println("[" + worker + "] " + line);
+                }
+            });
+            for (String[] t : templateArgs) {
+                coordinator.registerTemplate(t[0], t[1]);
+            }
+            coordinator.start();
+            for (String[] job : jobs) {
+                try {
+                    MeasurementResult result = coordinator.analyzeFile(job[0], Paths.get(job[1]));
+                    System.out.println(job[1] + " [" + coordinator.ownerOf(job[0]) + "] " + result);
+                } catch (RuntimeException e) {
+                    System.err.println(job[1] + " - " + e.getMessage());
+                }
+            }
+            coordinator.getWorkerStatus().forEach(System.out::println);
+        }
+    }
+}
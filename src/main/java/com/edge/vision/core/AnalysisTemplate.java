@@ -1,9 +1,13 @@
 package com.edge.vision.core;
 
+import com.edge.vision.match.NccPatch;
+import com.edge.vision.platform.NativeMemoryTracker;
+import com.edge.vision.utils.ImageUtils;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.Point;
 import org.bytedeco.opencv.opencv_core.Rect;
 import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
 import org.bytedeco.opencv.global.opencv_core;
 import org.bytedeco.opencv.global.opencv_imgcodecs;
 import org.bytedeco.opencv.global.opencv_imgproc;
@@ -11,7 +15,9 @@ import org.bytedeco.opencv.global.opencv_imgproc;
 import java.io.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 分析模板数据类
@@ -31,6 +37,11 @@ public class AnalysisTemplate implements Closeable {
     private final Mat tip2Patch;  // 针尖2的小区域特征
     private final LocalDateTime createdAt;
     private final int tipPatchSize;
+    private NativeMemoryTracker.TemplateHandle memory;  // 本地内存登记
+
+    // 按缩放尺寸缓存的针尖特征块（纯 Java NCC 使用，含预计算的均值和范数）
+    private final Map<Integer, NccPatch> tip1NccPatches = new ConcurrentHashMap<>();
+    private final Map<Integer, NccPatch> tip2NccPatches = new ConcurrentHashMap<>();
 
     public static final int DEFAULT_TIP_PATCH_SIZE = 30;  // 针尖特征块大小
 
@@ -72,6 +83,7 @@ public class AnalysisTemplate implements Closeable {
         // 提取针尖区域特征
         this.tip1Patch = extractTipPatch(grayImage, tip1);
         this.tip2Patch = extractTipPatch(grayImage, tip2);
+        registerMemory();
     }
 
     /**
@@ -136,6 +148,7 @@ public class AnalysisTemplate implements Closeable {
         // 提取针尖特征块
         this.tip1Patch = extractTipPatch(grayImage, referenceTip1);
         this.tip2Patch = extractTipPatch(grayImage, referenceTip2);
+        registerMemory();
     }
 
     /**
@@ -146,9 +159,8 @@ public class AnalysisTemplate implements Closeable {
      * @throws RuntimeException 如果加载失败
      */
     public AnalysisTemplate(InputStream imageInputStream, InputStream metaInputStream) {
-        // 读取模板图像
-        byte[] imageBytes = readAllBytes(imageInputStream);
-        this.templateImage = opencv_imgcodecs.imdecode(new Mat(imageBytes), opencv_imgcodecs.IMREAD_COLOR);
+        // 读取模板图像（经池化直接缓冲区解码，不经过堆内字节数组）
+        this.templateImage = ImageUtils.readFromStream(imageInputStream);
 
         if (templateImage.empty()) {
             throw new RuntimeException("无法从输入流加载模板图像");
@@ -193,6 +205,13 @@ public class AnalysisTemplate implements Closeable {
         // 提取针尖特征块
         this.tip1Patch = extractTipPatch(grayImage, referenceTip1);
         this.tip2Patch = extractTipPatch(grayImage, referenceTip2);
+        registerMemory();
+    }
+
+    private void registerMemory() {
+        long bytes = NativeMemoryTracker.sizeOf(templateImage) + NativeMemoryTracker.sizeOf(grayImage)
+            + NativeMemoryTracker.sizeOf(tip1Patch) + NativeMemoryTracker.sizeOf(tip2Patch);
+        this.memory = NativeMemoryTracker.getDefault().registerTemplate(this, templateId, bytes);
     }
 
     /**
@@ -215,19 +234,6 @@ public class AnalysisTemplate implements Closeable {
         return new Mat(gray, roi).clone();
     }
 
-    private byte[] readAllBytes(InputStream is) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            byte[] buffer = new byte[8192];
-            int read;
-            while ((read = is.read(buffer)) != -1) {
-                baos.write(buffer, 0, read);
-            }
-            return baos.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("读取输入流失败", e);
-        }
-    }
-
     /**
      * 保存模板到文件
      *
@@ -266,12 +272,40 @@ public class AnalysisTemplate implements Closeable {
 
     @Override
     public void close() {
+        if (memory != null) {
+            memory.release();
+        }
         templateImage.close();
         grayImage.close();
         tip1Patch.close();
         tip2Patch.close();
     }
 
+    /**
+     * 获取缩放到指定尺寸的针尖特征块（纯 Java NCC 使用）
+     * 缩放方式与多尺度匹配中的 resize 相同，结果按尺寸缓存
+     *
+     * @param tip 针尖编号（1 或 2）
+     * @param size 缩放后的边长
+     * @return 含均值和范数的特征块
+     */
+    public NccPatch getTipNccPatch(int tip, int size) {
+        if (tip != 1 && tip != 2) {
+            throw new IllegalArgumentException("针尖编号只能是1或2: " + tip);
+        }
+        Mat patch = tip == 1 ? tip1Patch : tip2Patch;
+        Map<Integer, NccPatch> cache = tip == 1 ? tip1NccPatches : tip2NccPatches;
+        return cache.computeIfAbsent(size, s -> {
+            Mat scaled = new Mat();
+            try {
+                opencv_imgproc.resize(patch, scaled, new Size(s, s));
+                return NccPatch.of(scaled);
+            } finally {
+                scaled.close();
+            }
+        });
+    }
+
     // Getters
     public String getTemplateId() { return templateId; }
     public double getMmPerPixel() { return mmPerPixel; }
@@ -0,0 +1,359 @@
+package com.edge.vision.core;
+
+import com.edge.vision.platform.AppCdsSupport;
+import com.edge.vision.platform.OpenCVInitializer;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 分析器预热
+ *
+ * 首次分析需要完成原生库延迟加载、JavaCPP 指针初始化、OpenCV 内部线程池创建、
+ * 编解码器加载以及 JIT 编译，耗时是稳定状态的数倍。预热对每个已注册的分析器和
+ * 图像尺寸用合成图像执行完整的分析流程，完成后第一次真实测量即可达到稳定耗时。
+ * 合成图像的结果不计入分析器的 SPC 统计和搜索区域命中计数，也不改变限时分析的尺度提示。
+ * 每次 run/start 都是一次独立的预热，各自有自己的完成信号。
+ *
+ * 使用示例:
+ * <pre>
+ * AnalyzerWarmup warmup = new AnalyzerWarmup()
+ *     .addAnalyzer(analyzer)
+ *     .addImageSize(4096, 3000);
+ *
+ * // 启动时阻塞预热
+ * AnalyzerWarmup.Report report = warmup.run();
+ *
+ * // 或者后台预热，就绪后再接收请求
+ * warmup.start().thenAccept(r -> markReady());
+ * </pre>
+ *
+ * 命令行运行时可作为 AppCDS 归档的训练程序，参见 {@link com.edge.vision.platform.AppCdsSupport}
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=needle-sdk.jsa -cp app.jar com.edge.vision.core.AnalyzerWarmup template.png 4096 3000
+ * </pre>
+ * @author Coder建设
+ */
+public class AnalyzerWarmup {
+
+    private final List<NeedleLengthAnalyzer> analyzers = new ArrayList<>();
+    private final List<int[]> imageSizes = new ArrayList<>();
+    private int iterations = 3;
+    private volatile CompletableFuture<Report> completion;  // 最近一次预热，尚未开始时为null
+
+    /**
+     * 注册需要预热的分析器
+     *
+     * @param analyzer 分析器
+     * @return this
+     */
+    public AnalyzerWarmup addAnalyzer(NeedleLengthAnalyzer analyzer) {
+        analyzers.add(analyzer);
+        return this;
+    }
+
+    /**
+     * 注册需要预热的图像尺寸（与产线相机分辨率一致）
+     *
+     * @param width 宽度
+     * @param height 高度
+     * @return this
+     */
+    public AnalyzerWarmup addImageSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("图像尺寸无效: " + width + "x" + height);
+        }
+        imageSizes.add(new int[] { width, height });
+        return this;
+    }
+
+    /**
+     * 设置每个分析器/尺寸组合的预热次数
+     *
+     * @param iterations 次数（至少1次）
+     * @return this
+     */
+    public AnalyzerWarmup setIterations(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("预热次数必须大于0");
+        }
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * 在当前线程执行预热（阻塞）
+     *
+     * @return 预热报告
+     */
+    public Report run() {
+        CompletableFuture<Report> future = new CompletableFuture<>();
+        completion = future;
+        return execute(future);
+    }
+
+    /**
+     * 在后台守护线程中执行预热
+     *
+     * @return 本次预热的完成信号（副本，调用方完成或取消它不影响预热本身）
+     */
+    public CompletableFuture<Report> start() {
+        CompletableFuture<Report> future = new CompletableFuture<>();
+        completion = future;
+        Thread thread = new Thread(() -> executeQuietly(future), "needle-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        return future.copy();
+    }
+
+    /**
+     * 在指定线程池中执行预热
+     *
+     * @param executor 线程池
+     * @return 本次预热的完成信号（副本，调用方完成或取消它不影响预热本身）
+     */
+    public CompletableFuture<Report> start(Executor executor) {
+        CompletableFuture<Report> future = new CompletableFuture<>();
+        completion = future;
+        try {
+            executor.execute(() -> executeQuietly(future));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future.copy();
+    }
+
+    private Report execute(CompletableFuture<Report> future) {
+        try {
+            Report report = doRun();
+            future.complete(report);
+            return report;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void executeQuietly(CompletableFuture<Report> future) {
+        try {
+            execute(future);
+        } catch (RuntimeException e) {
+            // 异常已通过 future 传递
+        }
+    }
+
+    /**
+     * 最近一次预热是否已完成（成功或失败）；尚未开始时返回false
+     */
+    public boolean isComplete() {
+        CompletableFuture<Report> future = completion;
+        return future != null && future.isDone();
+    }
+
+    /**
+     * 等待最近一次预热完成
+     *
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     * @return 预热报告
+     * @throws IllegalStateException 如果预热尚未开始
+     * @throws RuntimeException 如果预热失败、超时或被中断
+     */
+    public Report awaitCompletion(long timeout, TimeUnit unit) {
+        CompletableFuture<Report> future = completion;
+        if (future == null) {
+            throw new IllegalStateException("预热尚未开始");
+        }
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("等待预热超时", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待预热被中断", e);
+        } catch (Exception e) {
+            throw new RuntimeException("预热失败: " + e.getMessage(), e);
+        }
+    }
+
+    private Report doRun() {
+        long start = System.nanoTime();
+        List<Entry> entries = new ArrayList<>();
+
+        warmCodecs();
+
+        for (NeedleLengthAnalyzer analyzer : analyzers) {
+            List<int[]> sizes = imageSizes;
+            if (sizes.isEmpty()) {
+                // 未指定尺寸时按模板图像的尺寸预热
+                AnalysisTemplate template = analyzer.getTemplate();
+                Mat gray = template.getGrayImage();
+                sizes = Collections.singletonList(new int[] { gray.cols(), gray.rows() });
+                gray.close();
+            }
+            for (int[] size : sizes) {
+                entries.add(warm(analyzer, size[0], size[1]));
+            }
+        }
+
+        return new Report(entries, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Entry warm(NeedleLengthAnalyzer analyzer, int width, int height) {
+        Mat frame = createSyntheticFrame(analyzer.getTemplate(), width, height);
+        try {
+            long first = 0;
+            long last = 0;
+            for (int i = 0; i < iterations; i++) {
+                long t0 = System.nanoTime();
+                analyzer.analyzeForWarmUp(frame);
+                long elapsed = (System.nanoTime() - t0) / 1_000_000;
+                if (i == 0) {
+                    first = elapsed;
+                }
+                last = elapsed;
+            }
+            return new Entry(analyzer.getTemplate().getTemplateId(), width, height, first, last);
+        } finally {
+            frame.close();
+        }
+    }
+
+    /**
+     * 生成合成图像：黑色背景，模板图像居中放置（超出时等比缩小）
+     */
+    static Mat createSyntheticFrame(AnalysisTemplate template, int width, int height) {
+        Mat frame = new Mat(height, width, opencv_core.CV_8UC3, new Scalar(0));
+        Mat templateImage = template.getTemplateImage();
+        Mat placed = new Mat();
+        try {
+            double fit = Math.min(1.0, Math.min((double) width / templateImage.cols(),
+                (double) height / templateImage.rows()));
+            if (fit < 1.0) {
+                opencv_imgproc.resize(templateImage, placed, new Size(
+                    Math.max(1, (int) (templateImage.cols() * fit)), Math.max(1, (int) (templateImage.rows() * fit))));
+            } else {
+                templateImage.copyTo(placed);
+            }
+            if (placed.channels() == 1) {
+                opencv_imgproc.cvtColor(placed, placed, opencv_imgproc.COLOR_GRAY2BGR);
+            }
+            Rect roi = new Rect((width - placed.cols()) / 2, (height - placed.rows()) / 2,
+                placed.cols(), placed.rows());
+            Mat target = new Mat(frame, roi);
+            placed.copyTo(target);
+            target.close();
+            return frame;
+        } finally {
+            templateImage.close();
+            placed.close();
+        }
+    }
+
+    /**
+     * 加载常用编解码器（首次 imdecode/imencode 同样存在延迟初始化开销）
+     */
+    private static void warmCodecs() {
+        Mat sample = new Mat(64, 64, opencv_core.CV_8UC3, new Scalar(128));
+        try {
+            for (String ext : new String[] { ".jpg", ".png" }) {
+                BytePointer buf = new BytePointer();
+                opencv_imgcodecs.imencode(ext, sample, buf);
+                Mat encoded = new Mat(1, (int) buf.limit(), opencv_core.CV_8UC1, buf);
+                Mat decoded = opencv_imgcodecs.imdecode(encoded, opencv_imgcodecs.IMREAD_COLOR);
+                decoded.close();
+                encoded.close();
+                buf.close();
+            }
+        } finally {
+            sample.close();
+        }
+    }
+
+    /**
+     * 命令行预热（AppCDS 训练运行）
+     *
+     * @param args 模板路径 [宽度 高度]
+     */
+    public static void main(String[] args) {
+        if (args.length != 1 && args.length != 3) {
+            System.err.println("用法: AnalyzerWarmup <模板路径> [宽度 高度]");
+            System.exit(2);
+        }
+        OpenCVInitializer.initializePreloaded(null);
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(args[0])) {
+            AnalyzerWarmup warmup = new AnalyzerWarmup().addAnalyzer(analyzer);
+            if (args.length == 3) {
+                warmup.addImageSize(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            }
+            System.out.println(warmup.run());
+        }
+        System.out.println(OpenCVInitializer.getStartupTiming());
+        // 训练运行（AppCdsSupport.trainingArgs）时记录归档对应的 JVM 和 classpath
+        AppCdsSupport.recordTrainingRun();
+    }
+
+    /**
+     * 单个分析器/尺寸组合的预热结果
+     */
+    public static final class Entry {
+        private final String templateId;
+        private final int width;
+        private final int height;
+        private final long firstMs;
+        private final long lastMs;
+
+        Entry(String templateId, int width, int height, long firstMs, long lastMs) {
+            this.templateId = templateId;
+            this.width = width;
+            this.height = height;
+            this.firstMs = firstMs;
+            this.lastMs = lastMs;
+        }
+
+        public String getTemplateId() { return templateId; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public long getFirstMs() { return firstMs; }
+        public long getLastMs() { return lastMs; }
+
+        @Override
+        public String toString() {
+            return String.format("%s@%dx%d first=%dms last=%dms", templateId, width, height, firstMs, lastMs);
+        }
+    }
+
+    /**
+     * 预热报告
+     */
+    public static final class Report {
+        private final List<Entry> entries;
+        private final long totalMs;
+
+        Report(List<Entry> entries, long totalMs) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.totalMs = totalMs;
+        }
+
+        public List<Entry> getEntries() { return entries; }
+        public long getTotalMs() { return totalMs; }
+
+        @Override
+        public String toString() {
+            return "WarmupReport{total=" + totalMs + "ms, " + entries + "}";
+        }
+    }
+}
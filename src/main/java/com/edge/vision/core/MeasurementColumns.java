@@ -0,0 +1,506 @@
+package com.edge.vision.core;
+
+import org.bytedeco.opencv.opencv_core.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式测量结果容器
+ *
+ * 每个字段存放在一个基本类型数组中，模板ID做字典编码，
+ * 批量分析时可直接追加而不创建 {@link MeasurementResult} 对象，
+ * 统计方法在连续数组上循环，不物化逐行对象。
+ *
+ * 使用示例:
+ * <pre>
+ * MeasurementColumns columns = new MeasurementColumns(100_000);
+ * analyzer.analyzeBatch(imagePaths, columns);
+ *
+ * double mean = columns.mean(MeasurementColumns.Column.LENGTH_MM);
+ * double[] p = columns.percentiles(MeasurementColumns.Column.LENGTH_MM, 50, 95, 99);
+ * </pre>
+ *
+ * 注意：此类不是线程安全的
+ * @author Coder建设
+ */
+public class MeasurementColumns {
+
+    /**
+     * 可统计的数值列
+     */
+    public enum Column {
+        LENGTH_MM,
+        PIXEL_LENGTH,
+        TIP1_X,
+        TIP1_Y,
+        TIP2_X,
+        TIP2_Y,
+        CONFIDENCE,
+        PROCESSING_TIME_MS
+    }
+
+    /**
+     * 表示“不按模板过滤”
+     */
+    private static final int ALL_TEMPLATES = -1;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private double[] lengthMm;
+    private double[] pixelLength;
+    private double[] tip1X;
+    private double[] tip1Y;
+    private double[] tip2X;
+    private double[] tip2Y;
+    private double[] confidence;
+    private long[] processingTimeMs;
+    private int[] templateCode;
+    // 限时分析未完成的行（稀少，用位图）
+    private final BitSet truncated = new BitSet();
+    private int size = 0;
+
+    // 模板ID字典
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+    private String lastTemplateId;
+    private int lastTemplateCode = -1;
+
+    // 百分位计算用的临时数组（按需扩容并复用）
+    private double[] scratch = new double[0];
+
+    public MeasurementColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity 初始行容量
+     */
+    public MeasurementColumns(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0");
+        }
+        lengthMm = new double[initialCapacity];
+        pixelLength = new double[initialCapacity];
+        tip1X = new double[initialCapacity];
+        tip1Y = new double[initialCapacity];
+        tip2X = new double[initialCapacity];
+        tip2Y = new double[initialCapacity];
+        confidence = new double[initialCapacity];
+        processingTimeMs = new long[initialCapacity];
+        templateCode = new int[initialCapacity];
+    }
+
+    // ============ 追加 ============
+
+    /**
+     * 追加一行（参数顺序与 {@link MeasurementResult} 构造函数一致）
+     *
+     * @return 新行的下标
+     */
+    public int append(double mm, double px, Point t1, Point t2,
+                      double conf, long time, String templateId) {
+        return append(mm, px, t1.x(), t1.y(), t2.x(), t2.y(), conf, time, templateId);
+    }
+
+    /**
+     * 追加一行
+     *
+     * @return 新行的下标
+     */
+    public int append(double mm, double px, double t1x, double t1y,
+                      double t2x, double t2y, double conf, long time, String templateId) {
+        if (size == lengthMm.length) {
+            grow();
+        }
+        int row = size;
+        lengthMm[row] = mm;
+        pixelLength[row] = px;
+        tip1X[row] = t1x;
+        tip1Y[row] = t1y;
+        tip2X[row] = t2x;
+        tip2Y[row] = t2y;
+        confidence[row] = conf;
+        processingTimeMs[row] = time;
+        templateCode[row] = encodeTemplate(templateId);
+        truncated.clear(row);
+        size++;
+        return row;
+    }
+
+    /**
+     * 追加一个已有的测量结果
+     *
+     * @return 新行的下标
+     */
+    public int append(MeasurementResult result) {
+        int row = append(result.getLengthMm(), result.getPixelLength(),
+            result.getTip1X(), result.getTip1Y(), result.getTip2X(), result.getTip2Y(),
+            result.getConfidence(), result.getProcessingTimeMs(), result.getTemplateId());
+        truncated.set(row, !result.isComplete());
+        return row;
+    }
+
+    private int encodeTemplate(String templateId) {
+        // 同一批次通常是同一个模板ID实例，先比较引用避免哈希查找
+        if (templateId == lastTemplateId && lastTemplateCode >= 0) {
+            return lastTemplateCode;
+        }
+        Integer code = dictionaryIndex.get(templateId);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(templateId);
+            dictionaryIndex.put(templateId, code);
+        }
+        lastTemplateId = templateId;
+        lastTemplateCode = code;
+        return code;
+    }
+
+    private void grow() {
+        int capacity = lengthMm.length + (lengthMm.length >> 1) + 1;
+        lengthMm = Arrays.copyOf(lengthMm, capacity);
+        pixelLength = Arrays.copyOf(pixelLength, capacity);
+        tip1X = Arrays.copyOf(tip1X, capacity);
+        tip1Y = Arrays.copyOf(tip1Y, capacity);
+        tip2X = Arrays.copyOf(tip2X, capacity);
+        tip2Y = Arrays.copyOf(tip2Y, capacity);
+        confidence = Arrays.copyOf(confidence, capacity);
+        processingTimeMs = Arrays.copyOf(processingTimeMs, capacity);
+        templateCode = Arrays.copyOf(templateCode, capacity);
+    }
+
+    /**
+     * 清空所有行（保留已分配的容量和模板字典）
+     */
+    public void clear() {
+        size = 0;
+        truncated.clear();
+    }
+
+    // ============ 行访问 ============
+
+    public int size() {
+        return size;
+    }
+
+    public double getLengthMm(int row) {
+        checkRow(row);
+        return lengthMm[row];
+    }
+
+    public double getPixelLength(int row) {
+        checkRow(row);
+        return pixelLength[row];
+    }
+
+    public double getConfidence(int row) {
+        checkRow(row);
+        return confidence[row];
+    }
+
+    public long getProcessingTimeMs(int row) {
+        checkRow(row);
+        return processingTimeMs[row];
+    }
+
+    public String getTemplateId(int row) {
+        checkRow(row);
+        return dictionary.get(templateCode[row]);
+    }
+
+    /**
+     * 该行的搜索是否完整（见 {@link MeasurementResult#isComplete()}）
+     */
+    public boolean isComplete(int row) {
+        checkRow(row);
+        return !truncated.get(row);
+    }
+
+    /**
+     * 读取指定列的值（时间列转换为double）
+     */
+    public double get(Column column, int row) {
+        checkRow(row);
+        if (column == Column.PROCESSING_TIME_MS) {
+            return processingTimeMs[row];
+        }
+        return doubleColumn(column)[row];
+    }
+
+    /**
+     * 将指定行物化为结果对象
+     */
+    public MeasurementResult toResult(int row) {
+        checkRow(row);
+        return new MeasurementResult(lengthMm[row], pixelLength[row],
+            tip1X[row], tip1Y[row], tip2X[row], tip2Y[row],
+            confidence[row], processingTimeMs[row], dictionary.get(templateCode[row]), !truncated.get(row));
+    }
+
+    /**
+     * 已出现过的模板ID（按首次出现顺序）
+     */
+    public List<String> getTemplateIds() {
+        return new ArrayList<>(dictionary);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("行下标越界: " + row + ", size=" + size);
+        }
+    }
+
+    private double[] doubleColumn(Column column) {
+        switch (column) {
+            case LENGTH_MM: return lengthMm;
+            case PIXEL_LENGTH: return pixelLength;
+            case TIP1_X: return tip1X;
+            case TIP1_Y: return tip1Y;
+            case TIP2_X: return tip2X;
+            case TIP2_Y: return tip2Y;
+            case CONFIDENCE: return confidence;
+            default: throw new IllegalArgumentException("不是double列: " + column);
+        }
+    }
+
+    // ============ 统计 ============
+
+    /**
+     * 行数（可按模板过滤）
+     */
+    public int count(String templateId) {
+        int code = templateFilter(templateId);
+        if (code == ALL_TEMPLATES) {
+            return size;
+        }
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (templateCode[i] == code) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public double mean(Column column) {
+        return mean(column, null);
+    }
+
+    /**
+     * 平均值
+     *
+     * @param column 列
+     * @param templateId 模板ID，为null时统计全部行
+     * @return 平均值，没有数据时返回NaN
+     */
+    public double mean(Column column, String templateId) {
+        int code = templateFilter(templateId);
+        if (column == Column.PROCESSING_TIME_MS) {
+            long sum = 0;
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (code == ALL_TEMPLATES || templateCode[i] == code) {
+                    sum += processingTimeMs[i];
+                    n++;
+                }
+            }
+            return n == 0 ? Double.NaN : (double) sum / n;
+        }
+        double[] values = doubleColumn(column);
+        if (code == ALL_TEMPLATES) {
+            return size == 0 ? Double.NaN : sum(values, size) / size;
+        }
+        double sum = 0;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (templateCode[i] == code) {
+                sum += values[i];
+                n++;
+            }
+        }
+        return n == 0 ? Double.NaN : sum / n;
+    }
+
+    public double stddev(Column column) {
+        return stddev(column, null);
+    }
+
+    /**
+     * 样本标准差（两遍算法，先求均值再累加偏差平方）
+     *
+     * @param column 列
+     * @param templateId 模板ID，为null时统计全部行
+     * @return 标准差，少于2行时返回NaN
+     */
+    public double stddev(Column column, String templateId) {
+        double mean = mean(column, templateId);
+        int code = templateFilter(templateId);
+        double sumSq = 0;
+        int n = 0;
+        if (column == Column.PROCESSING_TIME_MS) {
+            for (int i = 0; i < size; i++) {
+                if (code == ALL_TEMPLATES || templateCode[i] == code) {
+                    double d = processingTimeMs[i] - mean;
+                    sumSq += d * d;
+                    n++;
+                }
+            }
+        } else if (code == ALL_TEMPLATES) {
+            sumSq = sumSquaredDeviations(doubleColumn(column), size, mean);
+            n = size;
+        } else {
+            double[] values = doubleColumn(column);
+            for (int i = 0; i < size; i++) {
+                if (templateCode[i] == code) {
+                    double d = values[i] - mean;
+                    sumSq += d * d;
+                    n++;
+                }
+            }
+        }
+        return n < 2 ? Double.NaN : Math.sqrt(sumSq / (n - 1));
+    }
+
+    public double min(Column column) {
+        return min(column, null);
+    }
+
+    /**
+     * 最小值，没有数据时返回NaN
+     */
+    public double min(Column column, String templateId) {
+        int code = templateFilter(templateId);
+        double min = Double.POSITIVE_INFINITY;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (code == ALL_TEMPLATES || templateCode[i] == code) {
+                min = Math.min(min, value(column, i));
+                n++;
+            }
+        }
+        return n == 0 ? Double.NaN : min;
+    }
+
+    public double max(Column column) {
+        return max(column, null);
+    }
+
+    /**
+     * 最大值，没有数据时返回NaN
+     */
+    public double max(Column column, String templateId) {
+        int code = templateFilter(templateId);
+        double max = Double.NEGATIVE_INFINITY;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (code == ALL_TEMPLATES || templateCode[i] == code) {
+                max = Math.max(max, value(column, i));
+                n++;
+            }
+        }
+        return n == 0 ? Double.NaN : max;
+    }
+
+    public double[] percentiles(Column column, double... percents) {
+        return percentiles(column, null, percents);
+    }
+
+    /**
+     * 百分位数（线性插值，与常见统计软件的默认定义一致）
+     *
+     * 每次调用只排序一次，可一次求多个百分位
+     *
+     * @param column 列
+     * @param templateId 模板ID，为null时统计全部行
+     * @param percents 百分位（0-100）
+     * @return 与percents一一对应的结果，没有数据时为NaN
+     */
+    public double[] percentiles(Column column, String templateId, double... percents) {
+        int code = templateFilter(templateId);
+        if (scratch.length < size) {
+            scratch = new double[lengthMm.length];
+        }
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (code == ALL_TEMPLATES || templateCode[i] == code) {
+                scratch[n++] = value(column, i);
+            }
+        }
+        Arrays.sort(scratch, 0, n);
+
+        double[] out = new double[percents.length];
+        for (int k = 0; k < percents.length; k++) {
+            double p = percents[k];
+            if (p < 0 || p > 100) {
+                throw new IllegalArgumentException("百分位必须在0-100之间: " + p);
+            }
+            if (n == 0) {
+                out[k] = Double.NaN;
+                continue;
+            }
+            double rank = p / 100.0 * (n - 1);
+            int lo = (int) Math.floor(rank);
+            int hi = Math.min(lo + 1, n - 1);
+            out[k] = scratch[lo] + (scratch[hi] - scratch[lo]) * (rank - lo);
+        }
+        return out;
+    }
+
+    private double value(Column column, int row) {
+        return column == Column.PROCESSING_TIME_MS ? processingTimeMs[row] : doubleColumn(column)[row];
+    }
+
+    /**
+     * 模板过滤条件：null表示全部，未出现过的模板返回不可能匹配的编码
+     */
+    private int templateFilter(String templateId) {
+        if (templateId == null) {
+            return ALL_TEMPLATES;
+        }
+        Integer code = dictionaryIndex.get(templateId);
+        return code == null ? Integer.MIN_VALUE : code;
+    }
+
+    /**
+     * 四路独立累加，减少循环携带依赖以便JIT展开和流水线并行
+     */
+    private static double sum(double[] values, int n) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double sumSquaredDeviations(double[] values, int n, double mean) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            double d0 = values[i] - mean;
+            double d1 = values[i + 1] - mean;
+            double d2 = values[i + 2] - mean;
+            double d3 = values[i + 3] - mean;
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < n; i++) {
+            double d = values[i] - mean;
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+}
@@ -0,0 +1,87 @@
+package com.edge.vision.core;
+
+import java.io.Serializable;
+
+/**
+ * 测量结果的矢量标注数据
+ * 针尖坐标（原图像素坐标）和标注文字，由界面自行绘制，不需要生成和传输标注图像
+ * @author Coder建设
+ */
+public class MeasurementOverlay implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final double tip1X;
+    private final double tip1Y;
+    private final double tip2X;
+    private final double tip2Y;
+    private final double lengthMm;
+    private final String label;
+
+    public MeasurementOverlay(double t1x, double t1y, double t2x, double t2y, double mm) {
+        this.tip1X = t1x;
+        this.tip1Y = t1y;
+        this.tip2X = t2x;
+        this.tip2Y = t2y;
+        this.lengthMm = mm;
+        this.label = String.format("%.3f mm", mm);
+    }
+
+    /**
+     * 从测量结果生成标注
+     */
+    public static MeasurementOverlay of(MeasurementResult result) {
+        return new MeasurementOverlay(result.getTip1X(), result.getTip1Y(),
+            result.getTip2X(), result.getTip2Y(), result.getLengthMm());
+    }
+
+    public double getTip1X() {
+        return tip1X;
+    }
+
+    public double getTip1Y() {
+        return tip1Y;
+    }
+
+    public double getTip2X() {
+        return tip2X;
+    }
+
+    public double getTip2Y() {
+        return tip2Y;
+    }
+
+    public double getLengthMm() {
+        return lengthMm;
+    }
+
+    /**
+     * 标注文字（如 "50.012 mm"），绘制在两针尖连线中点上方
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    public double getMidX() {
+        return (tip1X + tip2X) / 2;
+    }
+
+    public double getMidY() {
+        return (tip1Y + tip2Y) / 2;
+    }
+
+    /**
+     * 获取JSON格式的标注数据
+     */
+    public String toJsonString() {
+        return String.format(
+            "{\"tip1\":{\"x\":%.2f,\"y\":%.2f},\"tip2\":{\"x\":%.2f,\"y\":%.2f},\"lengthMm\":%.4f,\"label\":\"%s\"}",
+            tip1X, tip1Y, tip2X, tip2Y, lengthMm, label
+        );
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MeasurementOverlay{(%.1f,%.1f)-(%.1f,%.1f), %s}",
+            tip1X, tip1Y, tip2X, tip2Y, label);
+    }
+}
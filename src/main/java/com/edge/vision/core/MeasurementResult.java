@@ -10,7 +10,7 @@ import java.io.Serializable;
  * @author Coder建设
  */
 public class MeasurementResult implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     private final double lengthMm;           // 测量长度(毫米)
     private final double pixelLength;        // 像素长度
@@ -21,18 +21,49 @@ public class MeasurementResult implements Serializable {
     private final double confidence;         // 测量置信度(0.0-1.0)
     private final long processingTimeMs;     // 处理耗时(毫秒)
     private final String templateId;         // 使用的模板标识
+    private final boolean truncated;         // 限时分析到期时为true（反序列化旧数据时默认为false）
 
     public MeasurementResult(double mm, double px, Point t1, Point t2,
                              double conf, long time, String template) {
+        this(mm, px, t1.x(), t1.y(), t2.x(), t2.y(), conf, time, template, true);
+    }
+
+    /**
+     * 创建可能未完成的结果（限时分析）
+     *
+     * @param complete 搜索是否完整
+     */
+    public MeasurementResult(double mm, double px, Point t1, Point t2,
+                             double conf, long time, String template, boolean complete) {
+        this(mm, px, t1.x(), t1.y(), t2.x(), t2.y(), conf, time, template, complete);
+    }
+
+    /**
+     * 直接使用坐标值创建结果（用于从二进制记录等序列化形式还原）
+     */
+    public MeasurementResult(double mm, double px, double t1x, double t1y,
+                             double t2x, double t2y, double conf, long time, String template) {
+        this(mm, px, t1x, t1y, t2x, t2y, conf, time, template, true);
+    }
+
+    /**
+     * 直接使用坐标值创建可能未完成的结果（用于从序列化形式还原）
+     *
+     * @param complete 搜索是否完整
+     */
+    public MeasurementResult(double mm, double px, double t1x, double t1y,
+                             double t2x, double t2y, double conf, long time, String template,
+                             boolean complete) {
         this.lengthMm = mm;
         this.pixelLength = px;
-        this.tip1X = t1.x();
-        this.tip1Y = t1.y();
-        this.tip2X = t2.x();
-        this.tip2Y = t2.y();
+        this.tip1X = t1x;
+        this.tip1Y = t1y;
+        this.tip2X = t2x;
+        this.tip2Y = t2y;
         this.confidence = conf;
         this.processingTimeMs = time;
         this.templateId = template;
+        this.truncated = !complete;
     }
 
     public double getLengthMm() {
@@ -79,11 +110,19 @@ public class MeasurementResult implements Serializable {
         return templateId;
     }
 
+    /**
+     * 搜索是否完整
+     * 限时分析在到期前没有搜索完全部尺度时为false，此时结果是目前为止的最佳结果
+     */
+    public boolean isComplete() {
+        return !truncated;
+    }
+
     @Override
     public String toString() {
         return String.format(
-            "MeasurementResult{length=%.4fmm, pixel=%.3f, confidence=%.3f, time=%dms}",
-            lengthMm, pixelLength, confidence, processingTimeMs
+            "MeasurementResult{length=%.4fmm, pixel=%.3f, confidence=%.3f, time=%dms%s}",
+            lengthMm, pixelLength, confidence, processingTimeMs, truncated ? ", incomplete" : ""
         );
     }
 
@@ -99,9 +138,9 @@ public class MeasurementResult implements Serializable {
      */
     public String toJsonString() {
         return String.format(
-            "{\"lengthMm\":%.4f,\"pixelLength\":%.3f,\"tip1\":{\"x\":%.2f,\"y\":%.2f},\"tip2\":{\"x\":%.2f,\"y\":%.2f},\"confidence\":%.3f,\"processingTimeMs\":%d,\"templateId\":\"%s\"}",
+            "{\"lengthMm\":%.4f,\"pixelLength\":%.3f,\"tip1\":{\"x\":%.2f,\"y\":%.2f},\"tip2\":{\"x\":%.2f,\"y\":%.2f},\"confidence\":%.3f,\"processingTimeMs\":%d,\"templateId\":\"%s\",\"complete\":%b}",
             lengthMm, pixelLength, tip1X, tip1Y, tip2X, tip2Y,
-            confidence, processingTimeMs, templateId
+            confidence, processingTimeMs, templateId, !truncated
         );
     }
 }
@@ -0,0 +1,241 @@
+package com.edge.vision.core;
+
+import com.edge.vision.utils.ImageEncoder;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 测量结果可视化
+ *
+ * 标注只有两个针尖圆点、一条连线和一个标签，没有必要复制整帧原图再编码。
+ * 除完整尺寸外提供三种轻量模式：
+ * <ul>
+ *   <li>{@link Mode#THUMBNAIL} 直接缩小到缩略图（INTER_AREA）后在缩略图上绘制，不复制原图</li>
+ *   <li>{@link Mode#ROI_CROP} 只复制针周围的区域（两针尖外接矩形加边距）后绘制</li>
+ *   <li>{@link Mode#OVERLAY_ONLY} 不生成图像，只提供 {@link MeasurementOverlay} 矢量数据由界面绘制</li>
+ * </ul>
+ * 缩略图和裁剪图上的线宽、圆点和文字大小与完整尺寸相同（以输出像素计）。
+ *
+ * 使用示例:
+ * <pre>
+ * analyzer.setVisualizer(new MeasurementVisualizer()
+ *     .setMode(MeasurementVisualizer.Mode.THUMBNAIL)
+ *     .setThumbnailSize(640));
+ * </pre>
+ * @author Coder建设
+ */
+public class MeasurementVisualizer {
+
+    /**
+     * 可视化模式
+     */
+    public enum Mode {
+        /** 完整尺寸（复制整帧） */
+        FULL,
+        /** 缩略图 */
+        THUMBNAIL,
+        /** 针周围的裁剪区域 */
+        ROI_CROP,
+        /** 只有矢量标注，不生成图像 */
+        OVERLAY_ONLY
+    }
+
+    public static final int DEFAULT_THUMBNAIL_SIZE = 640;
+    public static final int DEFAULT_ROI_MARGIN = 48;
+
+    private static final double FONT_SCALE = 0.8;
+    private static final int FONT_THICKNESS = 2;
+
+    private Mode mode = Mode.FULL;
+    private int thumbnailSize = DEFAULT_THUMBNAIL_SIZE;
+    private int roiMargin = DEFAULT_ROI_MARGIN;
+    private ImageEncoder encoder;
+
+    /**
+     * @param mode 可视化模式，默认 {@link Mode#FULL}
+     */
+    public MeasurementVisualizer setMode(Mode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("可视化模式不能为空");
+        }
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * @param size 缩略图长边像素，原图更小时不放大
+     */
+    public MeasurementVisualizer setThumbnailSize(int size) {
+        if (size < 16) {
+            throw new IllegalArgumentException("缩略图尺寸至少为16像素: " + size);
+        }
+        this.thumbnailSize = size;
+        return this;
+    }
+
+    /**
+     * @param margin 裁剪区域在两针尖外接矩形外的边距（像素），需容纳标签
+     */
+    public MeasurementVisualizer setRoiMargin(int margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("裁剪边距不能为负: " + margin);
+        }
+        this.roiMargin = margin;
+        return this;
+    }
+
+    /**
+     * @param encoder 保存到文件时使用的编码器，为null时按文件扩展名选择（PNG 使用最快压缩级别）
+     */
+    public MeasurementVisualizer setEncoder(ImageEncoder encoder) {
+        this.encoder = encoder;
+        return this;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getThumbnailSize() {
+        return thumbnailSize;
+    }
+
+    public int getRoiMargin() {
+        return roiMargin;
+    }
+
+    public ImageEncoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * 按当前模式生成标注图像
+     *
+     * @param image 原始图像（不修改）
+     * @param overlay 标注数据
+     * @return 标注图像，由调用方释放
+     * @throws IllegalStateException 模式为 {@link Mode#OVERLAY_ONLY} 时
+     */
+    public Mat render(Mat image, MeasurementOverlay overlay) {
+        switch (mode) {
+            case THUMBNAIL:
+                return renderThumbnail(image, overlay);
+            case ROI_CROP:
+                return renderRoi(image, overlay);
+            case OVERLAY_ONLY:
+                throw new IllegalStateException("OVERLAY_ONLY 模式不生成图像，请使用 MeasurementOverlay");
+            default:
+                Mat out = image.clone();
+                draw(out, overlay, 1.0, 0, 0);
+                return out;
+        }
+    }
+
+    /**
+     * 按当前模式生成标注图像并保存，{@link Mode#OVERLAY_ONLY} 模式下不写文件
+     *
+     * @return 是否写入了文件
+     * @throws IOException 如果写入失败
+     */
+    public boolean save(Mat image, MeasurementOverlay overlay, Path file) throws IOException {
+        if (mode == Mode.OVERLAY_ONLY) {
+            return false;
+        }
+        ImageEncoder enc = encoder != null ? encoder : ImageEncoder.forPath(file.toString());
+        Mat out = render(image, overlay);
+        try {
+            enc.encode(out, file);
+            return true;
+        } finally {
+            out.close();
+        }
+    }
+
+    private Mat renderThumbnail(Mat image, MeasurementOverlay overlay) {
+        double scale = Math.min(1.0, (double) thumbnailSize / Math.max(image.cols(), image.rows()));
+        if (scale >= 1.0) {
+            Mat out = image.clone();
+            draw(out, overlay, 1.0, 0, 0);
+            return out;
+        }
+        Mat out = new Mat();
+        Size size = new Size(Math.max(1, (int) Math.round(image.cols() * scale)),
+                             Math.max(1, (int) Math.round(image.rows() * scale)));
+        try {
+            opencv_imgproc.resize(image, out, size, 0, 0, opencv_imgproc.INTER_AREA);
+        } finally {
+            size.close();
+        }
+        // 实际缩放比例按取整后的尺寸计算
+        draw(out, overlay, (double) out.cols() / image.cols(), 0, 0);
+        return out;
+    }
+
+    private Mat renderRoi(Mat image, MeasurementOverlay overlay) {
+        int x0 = (int) Math.floor(Math.min(overlay.getTip1X(), overlay.getTip2X())) - roiMargin;
+        int y0 = (int) Math.floor(Math.min(overlay.getTip1Y(), overlay.getTip2Y())) - roiMargin;
+        int x1 = (int) Math.ceil(Math.max(overlay.getTip1X(), overlay.getTip2X())) + roiMargin + 1;
+        int y1 = (int) Math.ceil(Math.max(overlay.getTip1Y(), overlay.getTip2Y())) + roiMargin + 1;
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(image.cols(), x1);
+        y1 = Math.min(image.rows(), y1);
+        if (x1 <= x0 || y1 <= y0) {
+            throw new IllegalArgumentException("针尖不在图像范围内: " + overlay);
+        }
+
+        Rect roi = new Rect(x0, y0, x1 - x0, y1 - y0);
+        Mat view = new Mat(image, roi);
+        Mat out;
+        try {
+            out = view.clone();
+        } finally {
+            view.close();
+            roi.close();
+        }
+        draw(out, overlay, 1.0, x0, y0);
+        return out;
+    }
+
+    /**
+     * 在输出图像上绘制标注：输出坐标 = (原图坐标 - 偏移) * 比例
+     */
+    private static void draw(Mat out, MeasurementOverlay overlay, double scale, double offsetX, double offsetY) {
+        Point t1 = new Point((int) Math.round((overlay.getTip1X() - offsetX) * scale),
+                             (int) Math.round((overlay.getTip1Y() - offsetY) * scale));
+        Point t2 = new Point((int) Math.round((overlay.getTip2X() - offsetX) * scale),
+                             (int) Math.round((overlay.getTip2Y() - offsetY) * scale));
+
+        // 绘制测量线
+        opencv_imgproc.circle(out, t1, 8, new Scalar(0, 0, 255, 0), -1, 0, 0);
+        opencv_imgproc.circle(out, t1, 10, new Scalar(255, 255, 255, 0), 2, 0, 0);
+        opencv_imgproc.circle(out, t2, 8, new Scalar(0, 0, 255, 0), -1, 0, 0);
+        opencv_imgproc.circle(out, t2, 10, new Scalar(255, 255, 255, 0), 2, 0, 0);
+        opencv_imgproc.line(out, t1, t2, new Scalar(0, 255, 0, 0), 3, 0, 0);
+
+        // 标注
+        String label = overlay.getLabel();
+        int[] baseline = {0};
+        Size textSize = opencv_imgproc.getTextSize(label, opencv_imgproc.FONT_HERSHEY_SIMPLEX,
+            FONT_SCALE, FONT_THICKNESS, baseline);
+        Point textPos = new Point((t1.x() + t2.x())/2 - textSize.width()/2,
+                                  (t1.y() + t2.y())/2 - textSize.height() - 10);
+
+        // 文字背景
+        opencv_imgproc.rectangle(out,
+            new Point(textPos.x() - 5, textPos.y() - textSize.height() - 5),
+            new Point(textPos.x() + textSize.width() + 5, textPos.y() + baseline[0] + 5),
+            new Scalar(0, 0, 0, 0), -1, 0, 0);
+
+        // 文字
+        opencv_imgproc.putText(out, label, textPos,
+            opencv_imgproc.FONT_HERSHEY_SIMPLEX, FONT_SCALE, new Scalar(0, 255, 255, 0), FONT_THICKNESS, 0, false);
+    }
+}
@@ -1,7 +1,19 @@
 package com.edge.vision.core;
 
+import com.edge.vision.cache.ContentHash;
+import com.edge.vision.cache.ResultCache;
+import com.edge.vision.calibration.CameraCalibration;
+import com.edge.vision.match.NccKernel;
+import com.edge.vision.match.NccPatch;
+import com.edge.vision.platform.NativeMemoryTracker;
+import com.edge.vision.platform.OpenCVInitializer;
+import com.edge.vision.preprocess.SearchRegionDetector;
+import com.edge.vision.stats.SpcStatistics;
+import com.edge.vision.utils.ImageUtils;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Rect;
 import org.bytedeco.opencv.opencv_core.Scalar;
 import org.bytedeco.opencv.opencv_core.Size;
 import org.bytedeco.opencv.global.opencv_core;
@@ -9,7 +21,23 @@ import org.bytedeco.opencv.global.opencv_imgcodecs;
 import org.bytedeco.opencv.global.opencv_imgproc;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 
 /**
  * 高精度针长度测量分析器
@@ -22,6 +50,48 @@ public class NeedleLengthAnalyzer implements Closeable {
 
     private final AnalysisTemplate template;
     private final double[] scales;  // 多尺度匹配的比例数组
+    private volatile ResultCache resultCache;  // 可选的结果缓存
+    private volatile long templateFingerprint;  // 模板及尺度参数指纹（延迟计算）
+    private volatile SpcStatistics statistics;  // 可选的在线 SPC 统计
+    private volatile CalibrationState calibration;  // 可选的镜头畸变/透视标定
+
+    // 搜索区域裁剪
+    private volatile SearchRegionDetector searchRegionDetector;
+    private volatile int searchRegionPadding = DEFAULT_SEARCH_REGION_PADDING;
+    private final AtomicLong searchRegionHits = new AtomicLong();
+    private final AtomicLong searchRegionFallbacks = new AtomicLong();
+
+    // 小窗口纯 Java 匹配
+    private volatile int smallWindowThreshold = DEFAULT_SMALL_WINDOW_THRESHOLD;
+
+    // 按精度要求降低工作分辨率
+    private volatile double targetToleranceMm = Double.NaN;
+    private volatile double workingScale = 1.0;
+
+    // 限时分析：上次完整搜索得到的尺度，作为下次搜索的起点
+    private volatile double scaleHint = 1.0;
+
+    // 异步分析
+    private volatile Executor asyncExecutor;  // 为null时使用线程策略管理的共享工作线程池
+
+    // 标注图像的生成方式（完整/缩略图/裁剪/仅矢量）
+    private volatile MeasurementVisualizer visualizer = new MeasurementVisualizer();
+
+    // 多针测量
+    private volatile double peakMinScore = DEFAULT_PEAK_MIN_SCORE;
+    private volatile double pairAngleTolerance = Math.toRadians(DEFAULT_PAIR_ANGLE_TOLERANCE_DEG);
+
+    public static final int DEFAULT_SEARCH_REGION_PADDING = 20;
+    public static final int DEFAULT_MAX_NEEDLES = 20;
+    public static final int DEFAULT_SMALL_WINDOW_THRESHOLD = 64;
+    public static final double DEFAULT_PEAK_MIN_SCORE = 0.6;
+    public static final double DEFAULT_PAIR_ANGLE_TOLERANCE_DEG = 15.0;
+    private static final double SEARCH_REGION_MIN_SCORE = 0.5;     // 区域内匹配得分低于此值时回退全图
+    private static final double SEARCH_REGION_MAX_FRACTION = 0.6;  // 区域超过全图此比例时直接全图搜索
+    private static final int MIN_WORKING_PATCH_SIZE = 16;          // 降分辨率后特征块（原尺度）的最小边长
+    private static final double SUB_PIXEL_ERROR = 0.25;            // 抛物线拟合后峰值定位误差上界（工作分辨率像素，经验值）
+    private static final double MIN_USEFUL_DOWNSCALE = 0.9;        // 工作比例高于此值时直接使用原分辨率
+    private static final int REFINE_RADIUS = 3;                    // 降分辨率匹配后在原图上细化的半径（7x7=49 个位置，低于默认小窗口阈值）
 
     /**
      * 使用模板文件路径创建分析器
@@ -72,11 +142,17 @@ public class NeedleLengthAnalyzer implements Closeable {
      *
      * @param targetImagePath 目标图像路径
      * @return 测量结果
-     * @throws RuntimeException 如果分析失败
+     * @throws RuntimeException 如果分析失败或标注图像保存失败（不需要标注图像时使用 OVERLAY_ONLY 模式）
      */
     public MeasurementResult analyze(String targetImagePath) {
         long startTime = System.currentTimeMillis();
 
+        ResultCache cache = resultCache;
+        if (cache != null) {
+            // 普通读取到堆上：哈希和解码完成后即可回收，不留下等待 GC 解除的文件映射
+            return analyzeCached(cache, ByteBuffer.wrap(readFile(targetImagePath)), startTime, targetImagePath);
+        }
+
         Mat target = opencv_imgcodecs.imread(targetImagePath);
         if (target.empty()) {
             throw new RuntimeException("无法加载目标图像: " + targetImagePath);
@@ -99,7 +175,12 @@ public class NeedleLengthAnalyzer implements Closeable {
     public MeasurementResult analyze(byte[] imageBytes) {
         long startTime = System.currentTimeMillis();
 
-        Mat target = opencv_imgcodecs.imdecode(new Mat(imageBytes), opencv_imgcodecs.IMREAD_COLOR);
+        ResultCache cache = resultCache;
+        if (cache != null) {
+            return analyzeCached(cache, ByteBuffer.wrap(imageBytes), startTime, null);
+        }
+
+        Mat target = ImageUtils.readFromBuffer(ByteBuffer.wrap(imageBytes));
         if (target.empty()) {
             throw new RuntimeException("无法解码目标图像");
         }
@@ -112,259 +193,1536 @@ public class NeedleLengthAnalyzer implements Closeable {
     }
 
     /**
-     * 分析目标图像（从Mat对象）
+     * 分析目标图像（从缓冲区中 position 到 limit 的编码字节，不改变缓冲区状态）
+     * 直接缓冲区（含 {@link java.nio.MappedByteBuffer}）的内容直接交给解码器，不经过 Java 堆
      *
-     * @param target 目标图像Mat（BGR格式）
+     * @param encodedImage 编码后的图像
      * @return 测量结果
      */
-    public MeasurementResult analyze(Mat target) {
+    public MeasurementResult analyze(ByteBuffer encodedImage) {
         long startTime = System.currentTimeMillis();
-        Mat cloned = target.clone();
+
+        ResultCache cache = resultCache;
+        if (cache != null) {
+            return analyzeCached(cache, encodedImage, startTime, null);
+        }
+
+        Mat target = ImageUtils.readFromBuffer(encodedImage);
+        if (target.empty()) {
+            throw new RuntimeException("无法解码目标图像");
+        }
+
         try {
-            return analyzeInternal(cloned, startTime, null);
+            return analyzeInternal(target, startTime, null);
         } finally {
-            cloned.close();
+            target.close();
         }
     }
 
     /**
-     * 内部分析方法
+     * 内存映射读取并分析图像文件（不生成可视化图像）
+     * 大图（如 20 MB 的 TIFF）的编码字节不复制到 Java 堆；设置了结果缓存时同样先查缓存
+     *
+     * @param targetImage 目标图像文件
+     * @return 测量结果
      */
-    private MeasurementResult analyzeInternal(Mat target, long startTime, String originalPath) {
-        Mat targetGray = new Mat();
-        opencv_imgproc.cvtColor(target, targetGray, opencv_imgproc.COLOR_BGR2GRAY);
-
+    public MeasurementResult analyze(Path targetImage) {
         try {
-            // 用两个针尖特征块进行全图匹配
-            Point[] needleTips = findNeedleTipsByFeatureMatching(targetGray);
+            return analyze(ImageUtils.mapFile(targetImage));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("无法加载目标图像: " + targetImage, e);
+        }
+    }
 
-            Point t1 = needleTips[0];
-            Point t2 = needleTips[1];
+    /**
+     * 经过结果缓存的分析：命中时直接返回缓存结果（不重新生成可视化图像）
+     */
+    private MeasurementResult analyzeCached(ResultCache cache, ByteBuffer encodedImage,
+            long startTime, String originalPath) {
+        ResultCache.Key key = ResultCache.Key.of(encodedImage, getParameterFingerprint());
+        MeasurementResult cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
 
-            // 计算像素长度
-            double pixelLen = Math.sqrt(
-                Math.pow(t2.x() - t1.x(), 2) + Math.pow(t2.y() - t1.y(), 2)
-            );
+        Mat target = ImageUtils.readFromBuffer(encodedImage);
+        if (target.empty()) {
+            throw new RuntimeException(originalPath != null
+                ? "无法加载目标图像: " + originalPath : "无法解码目标图像");
+        }
 
-            // 使用模板的 mmPerPixel 进行换算
-            double mmLen = pixelLen * template.getMmPerPixel();
+        try {
+            MeasurementResult result = analyzeInternal(target, startTime, originalPath);
+            cache.put(key, result);
+            return result;
+        } finally {
+            target.close();
+        }
+    }
 
-            // 计算置信度（基于匹配得分和长度合理性）
-            double confidence = calculateConfidence(pixelLen, template.getReferenceLengthMm() / template.getMmPerPixel());
+    private static byte[] readFile(String path) {
+        try {
+            return Files.readAllBytes(Paths.get(path));
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("无法加载目标图像: " + path, e);
+        }
+    }
 
-            long procTime = System.currentTimeMillis() - startTime;
+    /**
+     * 设置结果缓存
+     * 启用后 {@link #analyze(String)}、{@link #analyze(byte[])}、{@link #analyze(ByteBuffer)} 和 {@link #analyze(Path)} 会先按图像内容查找缓存；
+     * 多个分析器可以共享同一个缓存，键中包含模板和参数指纹，不会串用
+     *
+     * @param cache 结果缓存，为null时关闭缓存
+     */
+    public void setResultCache(ResultCache cache) {
+        this.resultCache = cache;
+    }
 
-            // 保存可视化结果（如果提供了路径）
-            if (originalPath != null) {
-                saveVisualization(target, t1, t2, mmLen, originalPath);
-            }
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
 
-            return new MeasurementResult(mmLen, pixelLen, t1, t2,
-                confidence, procTime, template.getTemplateId());
+    /**
+     * 设置在线 SPC 统计
+     * 启用后每次测量（包括多针测量的每根针）的长度计入所属模板的统计；
+     * 结果缓存命中的请求不重复计入。多个分析器可以共享同一个实例
+     *
+     * @param statistics 统计，为null时关闭
+     */
+    public void setStatistics(SpcStatistics statistics) {
+        this.statistics = statistics;
+    }
 
-        } finally {
-            targetGray.close();
+    public SpcStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 设置相机标定（工位级）
+     * 只对检测到的两个针尖坐标去畸变后再计算长度，不对整帧图像做校正。
+     * 标定包含测量平面单应矩阵时长度直接取平面上的毫米距离；
+     * 否则用模板参考针尖去畸变后的距离重新计算像素比例
+     *
+     * @param calibration 标定模型（须与拍摄模板时是同一相机），为null时关闭
+     */
+    public void setCalibration(CameraCalibration calibration) {
+        if (calibration == null) {
+            this.calibration = null;
+            return;
         }
+        Point r1 = template.getReferenceTip1();
+        Point r2 = template.getReferenceTip2();
+        double referencePixelLen = calibration.undistortedDistance(r1.x(), r1.y(), r2.x(), r2.y());
+        if (referencePixelLen <= 0) {
+            throw new IllegalArgumentException("模板参考针尖无效，无法应用标定");
+        }
+        this.calibration = new CalibrationState(calibration,
+            template.getReferenceLengthMm() / referencePixelLen, referencePixelLen);
+    }
+
+    public CameraCalibration getCalibration() {
+        CalibrationState state = calibration;
+        return state == null ? null : state.calibration;
     }
 
     /**
-     * 使用针尖特征块进行全图匹配，找到针的两端
+     * 标定模型及由它推导的模板参数
      */
-    private Point[] findNeedleTipsByFeatureMatching(Mat gray) {
-        int patchSize = template.getTipPatchSize();
+    private static final class CalibrationState {
+        final CameraCalibration calibration;
+        final double mmPerPixel;          // 去畸变像素的毫米比例（无平面单应时使用）
+        final double referencePixelLen;   // 模板参考针尖去畸变后的距离
 
-        // 找针尖1
-        MatchResult match1 = findBestMatch(gray, template.getTip1Patch(), patchSize, "Tip1");
-        // 找针尖2
-        MatchResult match2 = findBestMatch(gray, template.getTip2Patch(), patchSize, "Tip2");
+        CalibrationState(CameraCalibration calibration, double mmPerPixel, double referencePixelLen) {
+            this.calibration = calibration;
+            this.mmPerPixel = mmPerPixel;
+            this.referencePixelLen = referencePixelLen;
+        }
+    }
 
-        return new Point[] { match1.location, match2.location };
+    /**
+     * 由两个针尖计算长度
+     *
+     * @return {像素长度, 毫米长度, 参考像素长度}，有标定时像素长度为去畸变后的距离
+     */
+    private double[] measureLength(Point t1, Point t2) {
+        CalibrationState state = calibration;
+        if (state == null) {
+            double pixelLen = Math.sqrt(Math.pow(t2.x() - t1.x(), 2) + Math.pow(t2.y() - t1.y(), 2));
+            return new double[] { pixelLen, pixelLen * template.getMmPerPixel(),
+                template.getReferenceLengthMm() / template.getMmPerPixel() };
+        }
+        CameraCalibration c = state.calibration;
+        double pixelLen = c.undistortedDistance(t1.x(), t1.y(), t2.x(), t2.y());
+        double mmLen = c.hasPlaneHomography()
+            ? c.planeDistanceMm(t1.x(), t1.y(), t2.x(), t2.y())
+            : pixelLen * state.mmPerPixel;
+        return new double[] { pixelLen, mmLen, state.referencePixelLen };
     }
 
     /**
-     * 匹配结果内部类
+     * 分析参数指纹
+     * 由模板ID、像素比例、针尖特征块内容、尺度数组、工作分辨率、相机标定、
+     * 搜索区域检测器（{@link SearchRegionDetector#getFingerprint()}）及外扩边距计算，
+     * 这些参数变化都会得到不同的指纹，用作结果缓存键的一部分。
+     * 不影响测量结果的设置（可视化、异步执行器、统计等）不参与计算
+     *
+     * @return 64位指纹
      */
-    private static class MatchResult {
-        final Point location;
-        final double score;
-        final double scale;
+    public long getParameterFingerprint() {
+        long h = templateFingerprint;
+        if (h == 0) {
+            h = ContentHash.combine(0, template.getTemplateId() == null ? 0 : template.getTemplateId().hashCode());
+            h = ContentHash.combine(h, Double.doubleToLongBits(template.getMmPerPixel()));
+            h = ContentHash.combine(h, template.getTipPatchSize());
+            h = ContentHash.combine(h, hashPatch(template.getTip1Patch()));
+            h = ContentHash.combine(h, hashPatch(template.getTip2Patch()));
+            for (double scale : scales) {
+                h = ContentHash.combine(h, Double.doubleToLongBits(scale));
+            }
+            templateFingerprint = h;
+        }
+        double scale = workingScale;
+        if (scale < 1.0) {
+            h = ContentHash.combine(h, Double.doubleToLongBits(scale));
+        }
+        CalibrationState state = calibration;
+        if (state != null) {
+            h = ContentHash.combine(h, state.calibration.getFingerprint());
+        }
+        SearchRegionDetector detector = searchRegionDetector;
+        if (detector != null) {
+            h = ContentHash.combine(h, detector.getFingerprint());
+            h = ContentHash.combine(h, searchRegionPadding);
+        }
+        return h;
+    }
 
-        MatchResult(Point location, double score, double scale) {
-            this.location = location;
-            this.score = score;
-            this.scale = scale;
+    private static long hashPatch(Mat patch) {
+        Mat continuous = patch.isContinuous() ? patch : patch.clone();
+        try {
+            byte[] bytes = new byte[(int) (continuous.total() * continuous.elemSize())];
+            continuous.data().get(bytes);
+            return ContentHash.hash64(bytes);
+        } finally {
+            if (continuous != patch) {
+                continuous.close();
+            }
         }
     }
 
     /**
-     * 在全图中搜索最佳匹配位置（多尺度）
+     * 分析目标图像（从Mat对象）
      *
-     * @param gray 目标灰度图
-     * @param feature 特征块
-     * @param featureSize 特征块大小
-     * @param name 特征名称（用于日志）
-     * @return 最佳匹配结果
+     * @param target 目标图像Mat（BGR格式）
+     * @return 测量结果
      */
-    private MatchResult findBestMatch(Mat gray, Mat feature, int featureSize, String name) {
-        double bestScore = -1;
-        double bestScale = 1.0;
-        Point bestLoc = null;
+    public MeasurementResult analyze(Mat target) {
+        long startTime = System.currentTimeMillis();
+        Mat cloned = target.clone();
+        try {
+            return analyzeInternal(cloned, startTime, null);
+        } finally {
+            cloned.close();
+        }
+    }
 
-        for (double scale : scales) {
-            int scaledSize = (int)(featureSize * scale);
+    /**
+     * 在时间预算内分析目标图像（从Mat对象）
+     * 两个针尖交替搜索，尺度从上次完整搜索得到的尺度向两侧展开（最可能命中的尺度先算），
+     * 每次 matchTemplate 之前检查截止时间；到期后返回目前为止的最佳结果，
+     * 并用 {@link MeasurementResult#isComplete()} 标记搜索未完成。
+     * 每个针尖至少匹配一个尺度，因此预算过小时实际耗时会超出预算。
+     * 未完成的结果不计入 SPC 统计
+     *
+     * @param target 目标图像Mat（BGR格式）
+     * @param budget 时间预算（从调用开始计算）
+     * @return 测量结果
+     */
+    public MeasurementResult analyze(Mat target, Duration budget) {
+        SearchBudget search = SearchBudget.of(budget);
+        long startTime = System.currentTimeMillis();
+        Mat cloned = target.clone();
+        try {
+            return analyzeInternal(cloned, startTime, null, search);
+        } finally {
+            cloned.close();
+        }
+    }
 
-            if (scaledSize > gray.cols() || scaledSize > gray.rows()) continue;
+    /**
+     * 预热分析（供 {@link AnalyzerWarmup} 使用）
+     * 完整执行分析流程，但结果不计入 SPC 统计、不更新尺度提示，合成图像不影响线上数据
+     *
+     * @param frame 合成图像（BGR格式，不修改）
+     */
+    MeasurementResult analyzeForWarmUp(Mat frame) {
+        return analyzeInternal(frame, System.currentTimeMillis(), null, SearchBudget.warmUp());
+    }
 
-            // 缩放特征块
-            Mat scaledFeature = new Mat();
-            opencv_imgproc.resize(feature, scaledFeature, new Size(scaledSize, scaledSize));
+    /**
+     * 在时间预算内分析目标图像（从字节数组），预算包含解码时间
+     * 设置了结果缓存时先查缓存，只有完整搜索的结果才写入缓存
+     *
+     * @param imageBytes 图像字节数组
+     * @param budget 时间预算（从调用开始计算）
+     * @return 测量结果
+     * @see #analyze(Mat, Duration)
+     */
+    public MeasurementResult analyze(byte[] imageBytes, Duration budget) {
+        SearchBudget search = SearchBudget.of(budget);
+        return analyzeBytes(imageBytes, System.currentTimeMillis(), search);
+    }
 
-            // 全图模板匹配
-            Mat result = new Mat();
-            opencv_imgproc.matchTemplate(gray, scaledFeature, result, opencv_imgproc.TM_CCOEFF_NORMED);
+    /**
+     * 受控的字节数组分析（限时或可取消），只有完整搜索的结果才写入缓存
+     */
+    private MeasurementResult analyzeBytes(byte[] imageBytes, long startTime, SearchBudget search) {
+        ResultCache cache = resultCache;
+        ResultCache.Key key = null;
+        if (cache != null) {
+            key = ResultCache.Key.of(imageBytes, getParameterFingerprint());
+            MeasurementResult cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-            // 找到最大值位置
-            double[] minVal = new double[1];
-            double[] maxVal = new double[1];
-            Point minLoc = new Point();
-            Point maxLoc = new Point();
-            opencv_core.minMaxLoc(result, minVal, maxVal, minLoc, maxLoc, null);
+        Mat target = ImageUtils.readFromBuffer(ByteBuffer.wrap(imageBytes));
+        if (target.empty()) {
+            throw new RuntimeException("无法解码目标图像");
+        }
 
-            if (maxVal[0] > bestScore) {
-                bestScore = maxVal[0];
-                bestScale = scale;
-                bestLoc = new Point(maxLoc.x(), maxLoc.y());
+        try {
+            MeasurementResult result = analyzeInternal(target, startTime, null, search);
+            if (key != null && result.isComplete()) {
+                cache.put(key, result);
             }
-
-            scaledFeature.close();
-            result.close();
+            return result;
+        } finally {
+            target.close();
         }
+    }
+
+    /**
+     * 异步分析目标图像（从字节数组），在 {@link #setAsyncExecutor(Executor)} 设置的执行器上运行
+     * 取消返回的 future 后，分析在下一个针尖/尺度之间停止，已分配的中间 Mat 全部释放，
+     * 在线程池中排队尚未开始的请求直接丢弃
+     *
+     * @param imageBytes 图像字节数组
+     * @return 测量结果的 future
+     */
+    public CompletableFuture<MeasurementResult> analyzeAsync(byte[] imageBytes) {
+        return submitAsync(future -> analyzeBytes(imageBytes, System.currentTimeMillis(),
+            SearchBudget.cancellable(future::isCancelled)), null);
+    }
+
+    /**
+     * 异步分析目标图像（从Mat对象）
+     * 调用时立即复制图像，返回后调用方即可释放 target
+     *
+     * @param target 目标图像Mat（BGR格式）
+     * @return 测量结果的 future
+     * @see #analyzeAsync(byte[])
+     */
+    public CompletableFuture<MeasurementResult> analyzeAsync(Mat target) {
+        Mat cloned = target.clone();
+        return submitAsync(future -> analyzeInternal(cloned, System.currentTimeMillis(), null,
+            SearchBudget.cancellable(future::isCancelled)), cloned);
+    }
 
-        if (bestLoc == null) {
-            throw new RuntimeException("特征匹配失败: " + name);
+    @FunctionalInterface
+    private interface AsyncTask {
+        MeasurementResult run(CompletableFuture<MeasurementResult> future);
+    }
+
+    /**
+     * @param owned 任务结束（或未能提交）时释放的 Mat，可为null
+     */
+    private CompletableFuture<MeasurementResult> submitAsync(AsyncTask task, Mat owned) {
+        CompletableFuture<MeasurementResult> future = new CompletableFuture<>();
+        Runnable runnable = () -> {
+            try {
+                if (!future.isCancelled()) {
+                    future.complete(task.run(future));
+                }
+            } catch (CancellationException e) {
+                // future 已被取消
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                if (owned != null) {
+                    owned.close();
+                }
+            }
+        };
+        try {
+            getAsyncExecutor().execute(runnable);
+        } catch (RejectedExecutionException e) {
+            if (owned != null) {
+                owned.close();
+            }
+            future.completeExceptionally(e);
         }
+        return future;
+    }
 
-        // 计算特征块中心点
-        int actualSize = (int)(featureSize * bestScale);
-        Point center = new Point((int)(bestLoc.x() + actualSize / 2.0), (int)(bestLoc.y() + actualSize / 2.0));
+    /**
+     * 设置异步分析使用的执行器
+     * 默认使用 {@link OpenCVInitializer#getWorkerExecutor()}，即按当前线程策略创建的共享工作线程池
+     * （每次提交时获取，切换策略后自动使用新的线程池）
+     *
+     * @param executor 执行器，为null时恢复默认
+     */
+    public void setAsyncExecutor(Executor executor) {
+        this.asyncExecutor = executor;
+    }
 
-        return new MatchResult(center, bestScore, bestScale);
+    /**
+     * 当前异步分析使用的执行器
+     */
+    public Executor getAsyncExecutor() {
+        Executor executor = asyncExecutor;
+        return executor != null ? executor : OpenCVInitializer.getWorkerExecutor();
     }
 
     /**
-     * 计算置信度
+     * 分析目标图像并将结果直接追加到列式容器（不创建结果对象）
      *
-     * @param measuredPixelLen 测量的像素长度
-     * @param referencePixelLen 参考像素长度
-     * @return 置信度 (0.0 - 1.0)
+     * @param targetImagePath 目标图像路径
+     * @param out 列式结果容器
+     * @return 新行的下标
+     * @throws RuntimeException 如果分析失败
      */
-    private double calculateConfidence(double measuredPixelLen, double referencePixelLen) {
-        // 基于长度比例的置信度
-        double lengthRatio = Math.min(measuredPixelLen, referencePixelLen) /
-                            Math.max(measuredPixelLen, referencePixelLen);
+    public int analyzeInto(String targetImagePath, MeasurementColumns out) {
+        long startTime = System.currentTimeMillis();
 
-        // 基础置信度
-        double baseConfidence = 0.85;
+        Mat target = opencv_imgcodecs.imread(targetImagePath);
+        if (target.empty()) {
+            throw new RuntimeException("无法加载目标图像: " + targetImagePath);
+        }
 
-        // 根据长度差异调整
-        double adjustedConfidence = baseConfidence * lengthRatio;
+        try {
+            return analyzeInternal(target, startTime, targetImagePath, out::append);
+        } finally {
+            target.close();
+        }
+    }
 
-        // 确保在合理范围内
-        return Math.max(0.5, Math.min(0.99, adjustedConfidence));
+    /**
+     * 分析目标图像（从Mat对象）并将结果直接追加到列式容器
+     *
+     * @param target 目标图像Mat（BGR格式）
+     * @param out 列式结果容器
+     * @return 新行的下标
+     */
+    public int analyzeInto(Mat target, MeasurementColumns out) {
+        long startTime = System.currentTimeMillis();
+        Mat cloned = target.clone();
+        try {
+            return analyzeInternal(cloned, startTime, null, out::append);
+        } finally {
+            cloned.close();
+        }
     }
 
     /**
-     * 生成多尺度数组
+     * 批量分析图像，结果按顺序追加到列式容器
+     * 单张图像分析失败时跳过该图像，不中断整个批次；需要知道哪些图像失败时使用
+     * {@link #analyzeBatch(Iterable, MeasurementColumns, BiConsumer)}
+     *
+     * @param targetImagePaths 目标图像路径
+     * @param out 列式结果容器
+     * @return 成功追加的行数
      */
-    private double[] generateScales(double min, double max, double step) {
-        int count = (int)((max - min) / step) + 1;
-        double[] scales = new double[count];
-        for (int i = 0; i < count; i++) {
-            scales[i] = min + i * step;
+    public int analyzeBatch(Iterable<String> targetImagePaths, MeasurementColumns out) {
+        return analyzeBatch(targetImagePaths, out, (path, error) -> { });
+    }
+
+    /**
+     * 批量分析图像，结果按顺序追加到列式容器
+     * 单张图像分析失败时交给 onFailure 并跳过该图像，不中断整个批次
+     *
+     * @param targetImagePaths 目标图像路径
+     * @param out 列式结果容器
+     * @param onFailure 失败回调（图像路径, 失败原因），在调用线程上按顺序调用
+     * @return 成功追加的行数
+     */
+    public int analyzeBatch(Iterable<String> targetImagePaths, MeasurementColumns out,
+                            BiConsumer<String, RuntimeException> onFailure) {
+        int appended = 0;
+        for (String path : targetImagePaths) {
+            try {
+                analyzeInto(path, out);
+                appended++;
+            } catch (RuntimeException e) {
+                onFailure.accept(path, e);
+            }
         }
-        return scales;
+        return appended;
     }
 
     /**
-     * 保存可视化结果
+     * 测量一张图像中的多根针（例如整盘针）
+     * 从同一组相关响应图中为每个针尖提取多个峰值（非极大值抑制），
+     * 再按参考长度和方向将针尖1/针尖2候选配对，每根针返回一个结果
      *
-     * @param image 原始图像
-     * @param t1 针尖1
-     * @param t2 针尖2
-     * @param mm 测量长度
-     * @param originalPath 原始路径
+     * @param target 目标图像Mat（BGR格式）
+     * @return 每根针的测量结果（按从上到下、从左到右排序），未找到时返回空列表
      */
-    private void saveVisualization(Mat image, Point t1, Point t2,
-            double mm, String originalPath) {
-        Mat out = image.clone();
-
-        // 绘制测量线
-        opencv_imgproc.circle(out, t1, 8, new Scalar(0, 0, 255, 0), -1, 0, 0);
-        opencv_imgproc.circle(out, t1, 10, new Scalar(255, 255, 255, 0), 2, 0, 0);
-        opencv_imgproc.circle(out, t2, 8, new Scalar(0, 0, 255, 0), -1, 0, 0);
-        opencv_imgproc.circle(out, t2, 10, new Scalar(255, 255, 255, 0), 2, 0, 0);
-        opencv_imgproc.line(out, t1, t2, new Scalar(0, 255, 0, 0), 3, 0, 0);
-
-        // 标注
-        String label = String.format("%.3f mm", mm);
-        int[] baseline = {0};
-        Size textSize = opencv_imgproc.getTextSize(label, opencv_imgproc.FONT_HERSHEY_SIMPLEX, 0.8, 2, baseline);
-        Point textPos = new Point((t1.x() + t2.x())/2 - textSize.width()/2,
-                                  (t1.y() + t2.y())/2 - textSize.height() - 10);
-
-        // 文字背景
-        opencv_imgproc.rectangle(out,
-            new Point(textPos.x() - 5, textPos.y() - textSize.height() - 5),
-            new Point(textPos.x() + textSize.width() + 5, textPos.y() + baseline[0] + 5),
-            new Scalar(0, 0, 0, 0), -1, 0, 0);
-
-        // 文字
-        opencv_imgproc.putText(out, label, textPos,
-            opencv_imgproc.FONT_HERSHEY_SIMPLEX, 0.8, new Scalar(0, 255, 255, 0), 2, 0, false);
-
-        // 保存
-        String outPath = originalPath.replaceAll("(\\.[^.]+)$", "_analyzed$1");
-        opencv_imgcodecs.imwrite(outPath, out);
-        out.close();
+    public List<MeasurementResult> analyzeAll(Mat target) {
+        return analyzeAll(target, DEFAULT_MAX_NEEDLES);
     }
 
     /**
-     * 生成带测量结果的图像（返回Mat，不保存到文件）
+     * 测量一张图像中的多根针
      *
-     * @param image 原始图像
-     * @param result 测量结果
-     * @return 带标注的图像
+     * @param target 目标图像Mat（BGR格式）
+     * @param maxNeedles 最多返回的针数
+     * @return 每根针的测量结果（按从上到下、从左到右排序）
      */
-    public Mat generateVisualization(Mat image, MeasurementResult result) {
-        Mat out = image.clone();
-        Point t1 = result.getTip1();
-        Point t2 = result.getTip2();
-
-        // 绘制测量线
-        opencv_imgproc.circle(out, t1, 8, new Scalar(0, 0, 255, 0), -1, 0, 0);
-        opencv_imgproc.circle(out, t1, 10, new Scalar(255, 255, 255, 0), 2, 0, 0);
-        opencv_imgproc.circle(out, t2, 8, new Scalar(0, 0, 255, 0), -1, 0, 0);
-        opencv_imgproc.circle(out, t2, 10, new Scalar(255, 255, 255, 0), 2, 0, 0);
-        opencv_imgproc.line(out, t1, t2, new Scalar(0, 255, 0, 0), 3, 0, 0);
-
-        // 标注
-        String label = String.format("%.3f mm", result.getLengthMm());
-        int[] baseline = {0};
-        Size textSize = opencv_imgproc.getTextSize(label, opencv_imgproc.FONT_HERSHEY_SIMPLEX, 0.8, 2, baseline);
-        Point textPos = new Point((t1.x() + t2.x())/2 - textSize.width()/2,
-                                  (t1.y() + t2.y())/2 - textSize.height() - 10);
-
-        // 文字背景
-        opencv_imgproc.rectangle(out,
-            new Point(textPos.x() - 5, textPos.y() - textSize.height() - 5),
-            new Point(textPos.x() + textSize.width() + 5, textPos.y() + baseline[0] + 5),
-            new Scalar(0, 0, 0, 0), -1, 0, 0);
-
-        // 文字
-        opencv_imgproc.putText(out, label, textPos,
-            opencv_imgproc.FONT_HERSHEY_SIMPLEX, 0.8, new Scalar(0, 255, 255, 0), 2, 0, false);
-
-        return out;
+    public List<MeasurementResult> analyzeAll(Mat target, int maxNeedles) {
+        if (maxNeedles <= 0) {
+            throw new IllegalArgumentException("针数必须大于0");
+        }
+        long startTime = System.currentTimeMillis();
+
+        Mat gray = new Mat();
+        NativeMemoryTracker.AnalysisScope scope = NativeMemoryTracker.getDefault()
+            .openAnalysis(template.getTemplateId(), NativeMemoryTracker.sizeOf(target));
+        try {
+            opencv_imgproc.cvtColor(target, gray, opencv_imgproc.COLOR_BGR2GRAY);
+
+            // 每个针尖多取一些峰值，给配对留出排除干扰的余量
+            int peaksPerTip = maxNeedles * 2;
+            int patchSize = template.getTipPatchSize();
+            List<MatchResult> tip1Candidates = findPeaks(gray, template.getTip1Patch(), patchSize, peaksPerTip);
+            List<MatchResult> tip2Candidates = findPeaks(gray, template.getTip2Patch(), patchSize, peaksPerTip);
+
+            List<MatchResult[]> pairs = pairTips(tip1Candidates, tip2Candidates, maxNeedles);
+            pairs.sort(Comparator.<MatchResult[]>comparingInt(p -> Math.min(p[0].location.y(), p[1].location.y()))
+                .thenComparingInt(p -> Math.min(p[0].location.x(), p[1].location.x())));
+
+            long procTime = System.currentTimeMillis() - startTime;
+            SpcStatistics stats = statistics;
+            List<MeasurementResult> results = new ArrayList<>(pairs.size());
+            for (MatchResult[] pair : pairs) {
+                Point t1 = pair[0].location;
+                Point t2 = pair[1].location;
+                double[] length = measureLength(t1, t2);
+                MeasurementResult result = new MeasurementResult(length[1], length[0], t1, t2,
+                    calculateConfidence(length[0], length[2]), procTime, template.getTemplateId());
+                if (stats != null) {
+                    stats.record(result);
+                }
+                results.add(result);
+            }
+            return results;
+        } finally {
+            scope.close();
+            gray.close();
+        }
+    }
+
+    /**
+     * 测量图像文件中的多根针（不保存可视化结果）
+     *
+     * @param targetImagePath 目标图像路径
+     * @param maxNeedles 最多返回的针数
+     * @return 每根针的测量结果
+     */
+    public List<MeasurementResult> analyzeAll(String targetImagePath, int maxNeedles) {
+        Mat target = opencv_imgcodecs.imread(targetImagePath);
+        if (target.empty()) {
+            throw new RuntimeException("无法加载目标图像: " + targetImagePath);
+        }
+        try {
+            return analyzeAll(target, maxNeedles);
+        } finally {
+            target.close();
+        }
+    }
+
+    /**
+     * 设置多针测量时峰值的最低匹配得分
+     *
+     * @param minScore TM_CCOEFF_NORMED 得分（0-1）
+     */
+    public void setPeakMinScore(double minScore) {
+        if (minScore <= 0 || minScore >= 1) {
+            throw new IllegalArgumentException("得分阈值必须在(0, 1)之间");
+        }
+        this.peakMinScore = minScore;
+    }
+
+    /**
+     * 设置多针配对时允许的方向偏差
+     *
+     * @param degrees 与模板中针方向的最大夹角（度）
+     */
+    public void setPairAngleTolerance(double degrees) {
+        if (degrees <= 0 || degrees > 180) {
+            throw new IllegalArgumentException("角度容差必须在(0, 180]之间");
+        }
+        this.pairAngleTolerance = Math.toRadians(degrees);
+    }
+
+    /**
+     * 测量结果的接收方
+     * 参数顺序与 {@link MeasurementResult} 构造函数一致，
+     * 便于直接传入构造函数引用或 {@link MeasurementColumns#append} 引用
+     */
+    @FunctionalInterface
+    private interface ResultSink<T> {
+        T accept(double mm, double px, Point t1, Point t2, double conf, long time, String templateId);
+    }
+
+    /**
+     * 内部分析方法
+     */
+    private MeasurementResult analyzeInternal(Mat target, long startTime, String originalPath) {
+        return analyzeInternal(target, startTime, originalPath, null, MeasurementResult::new);
+    }
+
+    private MeasurementResult analyzeInternal(Mat target, long startTime, String originalPath,
+            SearchBudget budget) {
+        return analyzeInternal(target, startTime, originalPath, budget,
+            (mm, px, t1, t2, conf, time, id) ->
+                new MeasurementResult(mm, px, t1, t2, conf, time, id, budget.isComplete()));
+    }
+
+    private <T> T analyzeInternal(Mat target, long startTime, String originalPath, ResultSink<T> sink) {
+        return analyzeInternal(target, startTime, originalPath, null, sink);
+    }
+
+    /**
+     * 在 {@link NativeMemoryTracker.AnalysisScope} 内执行：本次分析新建的 Mat 在返回前全部释放
+     *
+     * @param budget 时间预算，为null时不限时
+     */
+    private <T> T analyzeInternal(Mat target, long startTime, String originalPath,
+            SearchBudget budget, ResultSink<T> sink) {
+        NativeMemoryTracker.AnalysisScope scope = NativeMemoryTracker.getDefault()
+            .openAnalysis(template.getTemplateId(), NativeMemoryTracker.sizeOf(target));
+        try {
+            return analyzeScoped(target, startTime, originalPath, budget, sink);
+        } finally {
+            scope.close();
+        }
+    }
+
+    private <T> T analyzeScoped(Mat target, long startTime, String originalPath,
+            SearchBudget budget, ResultSink<T> sink) {
+        Mat targetGray = new Mat();
+        opencv_imgproc.cvtColor(target, targetGray, opencv_imgproc.COLOR_BGR2GRAY);
+
+        try {
+            // 用两个针尖特征块进行全图匹配
+            Point[] needleTips = findNeedleTipsByFeatureMatching(targetGray, budget);
+
+            Point t1 = needleTips[0];
+            Point t2 = needleTips[1];
+
+            // 计算像素长度并换算为毫米（有标定时先对针尖去畸变）
+            double[] length = measureLength(t1, t2);
+            double pixelLen = length[0];
+            double mmLen = length[1];
+
+            // 计算置信度（基于匹配得分和长度合理性）
+            double confidence = calculateConfidence(pixelLen, length[2]);
+
+            long procTime = System.currentTimeMillis() - startTime;
+
+            SpcStatistics stats = statistics;
+            if (stats != null && (budget == null || budget.updatesState())) {
+                stats.record(template.getTemplateId(), mmLen);
+            }
+
+            // 保存可视化结果（如果提供了路径）
+            if (originalPath != null) {
+                saveVisualization(target, t1, t2, mmLen, originalPath);
+            }
+
+            return sink.accept(mmLen, pixelLen, t1, t2,
+                confidence, procTime, template.getTemplateId());
+
+        } finally {
+            targetGray.close();
+        }
+    }
+
+    /**
+     * 使用针尖特征块进行全图匹配，找到针的两端
+     */
+    private Point[] findNeedleTipsByFeatureMatching(Mat gray, SearchBudget budget) {
+        SearchRegionDetector detector = searchRegionDetector;
+        if (detector != null) {
+            Point[] tips = findNeedleTipsInRegion(detector, gray, budget);
+            boolean counted = budget == null || !budget.isWarmUp();
+            if (tips != null) {
+                if (counted) {
+                    searchRegionHits.incrementAndGet();
+                }
+                return tips;
+            }
+            if (counted) {
+                searchRegionFallbacks.incrementAndGet();
+            }
+        }
+
+        MatchResult[] matches = matchTips(gray, budget);
+        return new Point[] { matches[0].location, matches[1].location };
+    }
+
+    /**
+     * 用两个针尖特征块在给定图像中匹配
+     */
+    private MatchResult[] matchTips(Mat gray, SearchBudget budget) {
+        double scale = workingScale;
+        if (scale < 1.0) {
+            return matchTipsDownscaled(gray, scale, budget);
+        }
+        return searchTips(gray, template.getTipPatchSize(), false, budget);
+    }
+
+    /**
+     * 在降低后的工作分辨率上匹配（特征块按同一比例缩小），
+     * 峰值做亚像素拟合后换算回原图坐标，再在原图上该位置附近细化
+     */
+    private MatchResult[] matchTipsDownscaled(Mat gray, double scale, SearchBudget budget) {
+        int width = Math.max(1, (int) Math.round(gray.cols() * scale));
+        int height = Math.max(1, (int) Math.round(gray.rows() * scale));
+        double sx = (double) width / gray.cols();
+        double sy = (double) height / gray.rows();
+        int patchSize = Math.max(1, (int) Math.round(template.getTipPatchSize() * scale));
+
+        Mat small = new Mat();
+        try {
+            opencv_imgproc.resize(gray, small, new Size(width, height), 0, 0, opencv_imgproc.INTER_AREA);
+            MatchResult[] found = searchTips(small, patchSize, true, budget);
+            MatchResult[] matches = new MatchResult[2];
+            for (int tip = 1; tip <= 2; tip++) {
+                MatchResult m = found[tip - 1];
+                // 工作像素 i 覆盖原图 [i/s, (i+1)/s)，中心为 (i+0.5)/s-0.5
+                double x = (m.centerX + 0.5) / sx - 0.5;
+                double y = (m.centerY + 0.5) / sy - 0.5;
+                MatchResult refined = refineTip(gray, tip, m.scale, x, y);
+                matches[tip - 1] = refined != null ? refined
+                    : new MatchResult(new Point((int) Math.round(x), (int) Math.round(y)), m.score, m.scale);
+            }
+            return matches;
+        } finally {
+            small.close();
+        }
+    }
+
+    /**
+     * 在原图上以粗匹配中心为中心、±{@value #REFINE_RADIUS} 像素的小窗口内重新匹配并做亚像素拟合
+     * （窗口的候选位置数低于小窗口阈值，走纯 Java NCC）
+     *
+     * @param scale 粗匹配得到的特征块尺度
+     * @param x 粗匹配中心（原图坐标）
+     * @param y 粗匹配中心（原图坐标）
+     * @return 原图坐标下的结果，窗口超出图像而放不下特征块时返回null
+     */
+    private MatchResult refineTip(Mat gray, int tip, double scale, double x, double y) {
+        int size = (int) (template.getTipPatchSize() * scale);
+        int left = Math.max(0, (int) Math.round(x - size / 2.0) - REFINE_RADIUS);
+        int top = Math.max(0, (int) Math.round(y - size / 2.0) - REFINE_RADIUS);
+        int right = Math.min(gray.cols(), left + size + 2 * REFINE_RADIUS);
+        int bottom = Math.min(gray.rows(), top + size + 2 * REFINE_RADIUS);
+        if (right - left < size || bottom - top < size) {
+            return null;
+        }
+
+        Mat window = new Mat(gray, new Rect(left, top, right - left, bottom - top));
+        try {
+            TipSearch search = new TipSearch(window, tip, template.getTipPatchSize(), true);
+            search.step(scale);
+            if (!search.hasMatch()) {
+                return null;
+            }
+            MatchResult m = search.result();
+            double cx = m.centerX + left;
+            double cy = m.centerY + top;
+            return new MatchResult(new Point((int) Math.round(cx), (int) Math.round(cy)), m.score, m.scale, cx, cy);
+        } finally {
+            window.close();
+        }
+    }
+
+    /**
+     * 只在检测到的针区域内搜索针尖
+     *
+     * @return 全图坐标下的两个针尖；区域不可信或区域内匹配得分过低时返回null（调用方回退全图）
+     */
+    private Point[] findNeedleTipsInRegion(SearchRegionDetector detector, Mat gray, SearchBudget budget) {
+        Rect region;
+        try {
+            region = detector.detect(gray);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        Rect roi = validateSearchRegion(region, gray);
+        if (roi == null) {
+            return null;
+        }
+
+        Mat sub = new Mat(gray, roi);
+        try {
+            MatchResult[] matches = matchTips(sub, budget);
+            if (matches[0].score < SEARCH_REGION_MIN_SCORE || matches[1].score < SEARCH_REGION_MIN_SCORE) {
+                return null;
+            }
+            return new Point[] {
+                new Point(matches[0].location.x() + roi.x(), matches[0].location.y() + roi.y()),
+                new Point(matches[1].location.x() + roi.x(), matches[1].location.y() + roi.y())
+            };
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // 区域内无法完成匹配（例如区域小于缩放后的特征块）
+            return null;
+        } finally {
+            sub.close();
+        }
+    }
+
+    /**
+     * 检查检测到的区域是否可信，并外扩边距
+     *
+     * @return 外扩并裁剪到图像范围内的搜索区域，不可信时返回null
+     */
+    private Rect validateSearchRegion(Rect region, Mat gray) {
+        if (region == null || region.width() <= 0 || region.height() <= 0) {
+            return null;
+        }
+
+        double minScale = scales[0];
+        double maxScale = scales[scales.length - 1];
+
+        // 区域对角线至少要容纳最小尺度下的针长
+        double referencePixelLen = template.getReferenceLengthMm() / template.getMmPerPixel();
+        double diagonal = Math.hypot(region.width(), region.height());
+        if (diagonal < referencePixelLen * minScale * 0.8) {
+            return null;
+        }
+
+        int pad = searchRegionPadding + (int) Math.ceil(template.getTipPatchSize() * maxScale);
+        int x1 = Math.max(0, region.x() - pad);
+        int y1 = Math.max(0, region.y() - pad);
+        int x2 = Math.min(gray.cols(), region.x() + region.width() + pad);
+        int y2 = Math.min(gray.rows(), region.y() + region.height() + pad);
+        if (x2 <= x1 || y2 <= y1) {
+            return null;
+        }
+
+        // 区域几乎覆盖全图时裁剪没有收益
+        double fraction = (double) (x2 - x1) * (y2 - y1) / ((double) gray.cols() * gray.rows());
+        if (fraction > SEARCH_REGION_MAX_FRACTION) {
+            return null;
+        }
+        return new Rect(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    /**
+     * 设置搜索区域检测器
+     * 设置后先检测针所在区域，只在外扩后的区域内匹配针尖；
+     * 区域不可信或区域内匹配得分过低时自动回退到全图搜索
+     *
+     * @param detector 区域检测器，为null时关闭区域裁剪
+     */
+    public void setSearchRegionDetector(SearchRegionDetector detector) {
+        this.searchRegionDetector = detector;
+    }
+
+    /**
+     * 设置搜索区域检测器及外扩边距
+     *
+     * @param detector 区域检测器
+     * @param padding 外扩边距（像素，另外还会加上一个缩放后特征块的大小）
+     */
+    public void setSearchRegionDetector(SearchRegionDetector detector, int padding) {
+        if (padding < 0) {
+            throw new IllegalArgumentException("边距不能为负数");
+        }
+        this.searchRegionPadding = padding;
+        this.searchRegionDetector = detector;
+    }
+
+    public SearchRegionDetector getSearchRegionDetector() {
+        return searchRegionDetector;
+    }
+
+    /**
+     * 设置纯 Java NCC 的窗口大小阈值
+     * 搜索窗口中模板可放置的位置数（(W-w+1)*(H-h+1)）不超过该值时不调用 OpenCV matchTemplate，
+     * 改用 {@link NccKernel} 在字节数组上计算，结果与 TM_CCOEFF_NORMED 一致。
+     * 适用于跟踪、细化等只在上一次位置附近几个像素内搜索的场景
+     * （降低工作分辨率时，原图上的针尖细化即在 7x7 个位置内搜索）；
+     * 默认值约为 8x8 个位置，超过后 OpenCV 基于 DFT 的实现更快
+     *
+     * @param positions 候选位置数阈值，0 表示始终使用 OpenCV
+     */
+    public void setSmallWindowThreshold(int positions) {
+        if (positions < 0) {
+            throw new IllegalArgumentException("阈值不能为负数");
+        }
+        this.smallWindowThreshold = positions;
+    }
+
+    public int getSmallWindowThreshold() {
+        return smallWindowThreshold;
+    }
+
+    /**
+     * 设置目标测量精度，按精度选择最低的工作分辨率
+     * 针尖匹配在缩小后的图像上进行（特征块按同一比例缩小），峰值做亚像素拟合后换算回原图坐标，
+     * 再在原图上该位置 ±{@value #REFINE_RADIUS} 像素内细化。
+     * 误差预算按两个针尖各自的最坏情况计算：
+     * 2 × (亚像素误差 / 工作比例 + 0.5) × mmPerPixel ≤ 精度，
+     * 同时保证缩小后的特征块不小于 {@value #MIN_WORKING_PATCH_SIZE} 像素。
+     * 精度要求达不到时使用原分辨率。多针测量 {@link #analyzeAll(Mat)} 不受影响
+     *
+     * @param toleranceMm 允许的长度误差(mm)，NaN 或不大于0时恢复原分辨率
+     */
+    public void setTargetTolerance(double toleranceMm) {
+        if (Double.isNaN(toleranceMm) || toleranceMm <= 0) {
+            this.targetToleranceMm = Double.NaN;
+            this.workingScale = 1.0;
+            return;
+        }
+        this.targetToleranceMm = toleranceMm;
+        this.workingScale = computeWorkingScale(toleranceMm);
+    }
+
+    public double getTargetTolerance() {
+        return targetToleranceMm;
+    }
+
+    /**
+     * 当前的工作分辨率比例（1 表示原分辨率）
+     */
+    public double getWorkingScale() {
+        return workingScale;
+    }
+
+    private double computeWorkingScale(double toleranceMm) {
+        // 原图坐标取整占去每个针尖 0.5 像素，剩余预算留给工作分辨率上的定位误差
+        double budget = toleranceMm / (2 * template.getMmPerPixel()) - 0.5;
+        if (budget <= 0) {
+            return 1.0;
+        }
+        double scale = SUB_PIXEL_ERROR / budget;
+        double minScale = (double) MIN_WORKING_PATCH_SIZE / template.getTipPatchSize();
+        scale = Math.max(scale, minScale);
+        return scale >= MIN_USEFUL_DOWNSCALE ? 1.0 : scale;
+    }
+
+    /**
+     * 在检测区域内完成匹配的次数
+     */
+    public long getSearchRegionHits() {
+        return searchRegionHits.get();
+    }
+
+    /**
+     * 区域不可信而回退全图搜索的次数
+     */
+    public long getSearchRegionFallbacks() {
+        return searchRegionFallbacks.get();
+    }
+
+    /**
+     * 匹配结果内部类
+     */
+    private static class MatchResult {
+        final Point location;
+        final double score;
+        final double scale;
+        final double centerX;  // 亚像素中心（未拟合时等于 location）
+        final double centerY;
+
+        MatchResult(Point location, double score, double scale) {
+            this(location, score, scale, location.x(), location.y());
+        }
+
+        MatchResult(Point location, double score, double scale, double centerX, double centerY) {
+            this.location = location;
+            this.score = score;
+            this.scale = scale;
+            this.centerX = centerX;
+            this.centerY = centerY;
+        }
+    }
+
+    /**
+     * 两个针尖的多尺度搜索
+     * 不限时时依次完成两个针尖的全部尺度；限时时两个针尖交替、按尺度优先级搜索，
+     * 两个针尖都有结果后，每次匹配前检查截止时间。
+     * 可取消时每次匹配前检查取消标志
+     *
+     * @param gray 目标灰度图
+     * @param featureSize 特征块大小
+     * @param subPixel 是否对响应峰值做亚像素拟合
+     * @param budget 时间预算，为null时不限时
+     * @return 两个针尖的最佳匹配结果
+     * @throws CancellationException 分析已取消
+     */
+    private MatchResult[] searchTips(Mat gray, int featureSize, boolean subPixel, SearchBudget budget) {
+        TipSearch[] tips = { new TipSearch(gray, 1, featureSize, subPixel),
+                             new TipSearch(gray, 2, featureSize, subPixel) };
+        if (budget == null || !budget.hasDeadline()) {
+            for (TipSearch tip : tips) {
+                for (double scale : scales) {
+                    if (budget != null) {
+                        budget.checkCancelled();
+                    }
+                    tip.step(scale);
+                }
+            }
+        } else {
+            double[] order = scalesByPriority();
+            for (int k = 0; k < order.length * 2; k++) {
+                budget.checkCancelled();
+                if (tips[0].hasMatch() && tips[1].hasMatch() && budget.expired()) {
+                    budget.truncated = true;
+                    break;
+                }
+                tips[k % 2].step(order[k / 2]);
+            }
+        }
+
+        MatchResult[] matches = { tips[0].result(), tips[1].result() };
+        if (budget == null || budget.updatesState()) {
+            scaleHint = matches[0].scale;
+        }
+        return matches;
+    }
+
+    /**
+     * 限时搜索的尺度顺序：离上次完整搜索得到的尺度越近越先算，距离相同时小尺度（更便宜）优先
+     */
+    private double[] scalesByPriority() {
+        double hint = scaleHint;
+        double[] order = scales.clone();
+        for (int i = 1; i < order.length; i++) {
+            double s = order[i];
+            int j = i - 1;
+            while (j >= 0 && Math.abs(order[j] - hint) > Math.abs(s - hint) + 1e-9) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = s;
+        }
+        return order;
+    }
+
+    /**
+     * 单个针尖的多尺度搜索状态
+     * 某个尺度的候选位置数不超过 {@link #setSmallWindowThreshold(int)} 时用纯 Java NCC 计算
+     * （主要是降分辨率匹配后的原图细化），否则调用 OpenCV matchTemplate；两条路径的亚像素拟合相同
+     */
+    private final class TipSearch {
+        private final Mat gray;
+        private final int tip;
+        private final int featureSize;
+        private final boolean subPixel;
+        private final Mat feature;
+        private final int threshold = smallWindowThreshold;
+        private byte[] pixels;
+
+        private double bestScore = -1;
+        private double bestScale = 1.0;
+        private Point bestLoc;
+        private double bestDx;
+        private double bestDy;
+
+        /**
+         * @param gray 目标灰度图
+         * @param tip 针尖编号（1 或 2）
+         * @param featureSize 特征块大小
+         * @param subPixel 是否对响应峰值做亚像素拟合
+         */
+        TipSearch(Mat gray, int tip, int featureSize, boolean subPixel) {
+            this.gray = gray;
+            this.tip = tip;
+            this.featureSize = featureSize;
+            this.subPixel = subPixel;
+            this.feature = tip == 1 ? template.getTip1Patch() : template.getTip2Patch();
+        }
+
+        boolean hasMatch() {
+            return bestLoc != null;
+        }
+
+        /**
+         * 在一个尺度上匹配并更新最佳结果（特征块大于图像时跳过）
+         */
+        void step(double scale) {
+            int scaledSize = (int)(featureSize * scale);
+
+            if (scaledSize > gray.cols() || scaledSize > gray.rows()) return;
+
+            long positions = (long) (gray.cols() - scaledSize + 1) * (gray.rows() - scaledSize + 1);
+            if (positions <= threshold) {
+                // 小窗口：避免 JNI 往返和本地 Mat 分配
+                if (pixels == null) {
+                    pixels = NccPatch.toBytes(gray);
+                }
+                int outW = gray.cols() - scaledSize + 1;
+                int outH = gray.rows() - scaledSize + 1;
+                float[] response = new float[outW * outH];
+                NccKernel.getDefault().match(pixels, gray.cols(), gray.rows(),
+                    template.getTipNccPatch(tip, scaledSize), response);
+                // 与 minMaxLoc 一样取行优先的第一个最大值
+                int best = 0;
+                for (int i = 1; i < response.length; i++) {
+                    if (response[i] > response[best]) {
+                        best = i;
+                    }
+                }
+                if (response[best] > bestScore) {
+                    bestScore = response[best];
+                    bestScale = scale;
+                    bestLoc = new Point(best % outW, best / outW);
+                    double[] offset = subPixel ? subPixelOffset(response, outW, outH, best % outW, best / outW)
+                        : new double[2];
+                    bestDx = offset[0];
+                    bestDy = offset[1];
+                }
+                return;
+            }
+
+            Mat scaledFeature = new Mat();
+            Mat result = new Mat();
+            try {
+                // 缩放特征块
+                opencv_imgproc.resize(feature, scaledFeature, new Size(scaledSize, scaledSize));
+
+                // 全图模板匹配
+                opencv_imgproc.matchTemplate(gray, scaledFeature, result, opencv_imgproc.TM_CCOEFF_NORMED);
+
+                // 找到最大值位置
+                double[] minVal = new double[1];
+                double[] maxVal = new double[1];
+                Point minLoc = new Point();
+                Point maxLoc = new Point();
+                opencv_core.minMaxLoc(result, minVal, maxVal, minLoc, maxLoc, null);
+                NativeMemoryTracker.sample();
+
+                if (maxVal[0] > bestScore) {
+                    bestScore = maxVal[0];
+                    bestScale = scale;
+                    bestLoc = new Point(maxLoc.x(), maxLoc.y());
+                    double[] offset = subPixel ? subPixelOffset(result, maxLoc.x(), maxLoc.y()) : new double[2];
+                    bestDx = offset[0];
+                    bestDy = offset[1];
+                }
+            } finally {
+                scaledFeature.close();
+                result.close();
+            }
+        }
+
+        /**
+         * @return 最佳匹配结果（特征块中心）
+         */
+        MatchResult result() {
+            if (bestLoc == null) {
+                throw new RuntimeException("特征匹配失败: Tip" + tip);
+            }
+
+            // 计算特征块中心点
+            int actualSize = (int)(featureSize * bestScale);
+            Point center = new Point((int)(bestLoc.x() + actualSize / 2.0), (int)(bestLoc.y() + actualSize / 2.0));
+
+            return new MatchResult(center, bestScore, bestScale,
+                bestLoc.x() + bestDx + actualSize / 2.0, bestLoc.y() + bestDy + actualSize / 2.0);
+        }
+    }
+
+    /**
+     * 单次分析的时间预算和取消检查
+     * 只在分析线程内使用
+     */
+    private static final class SearchBudget {
+        private final long deadlineNanos;
+        private final boolean hasDeadline;
+        private final BooleanSupplier cancelled;
+        private final boolean warmUp;  // 预热：不计入 SPC 统计、不更新尺度提示
+        boolean truncated;  // 是否因到期跳过了部分尺度
+
+        private SearchBudget(long deadlineNanos, boolean hasDeadline, BooleanSupplier cancelled) {
+            this(deadlineNanos, hasDeadline, cancelled, false);
+        }
+
+        private SearchBudget(long deadlineNanos, boolean hasDeadline, BooleanSupplier cancelled, boolean warmUp) {
+            this.deadlineNanos = deadlineNanos;
+            this.hasDeadline = hasDeadline;
+            this.cancelled = cancelled;
+            this.warmUp = warmUp;
+        }
+
+        /**
+         * 预热用：不限时、完整搜索，但结果不影响分析器状态
+         */
+        static SearchBudget warmUp() {
+            return new SearchBudget(0, false, null, true);
+        }
+
+        /**
+         * 不限时、可取消
+         */
+        static SearchBudget cancellable(BooleanSupplier cancelled) {
+            return new SearchBudget(0, false, cancelled);
+        }
+
+        static SearchBudget of(Duration budget) {
+            if (budget == null || budget.isNegative()) {
+                throw new IllegalArgumentException("时间预算不能为空或为负: " + budget);
+            }
+            long nanos;
+            try {
+                nanos = Math.min(budget.toNanos(), Long.MAX_VALUE / 2);
+            } catch (ArithmeticException e) {
+                nanos = Long.MAX_VALUE / 2;
+            }
+            return new SearchBudget(System.nanoTime() + nanos, true, null);
+        }
+
+        boolean hasDeadline() {
+            return hasDeadline;
+        }
+
+        boolean expired() {
+            return hasDeadline && System.nanoTime() - deadlineNanos >= 0;
+        }
+
+        void checkCancelled() {
+            if (cancelled != null && cancelled.getAsBoolean()) {
+                throw new CancellationException("分析已取消");
+            }
+        }
+
+        boolean isComplete() {
+            return !truncated;
+        }
+
+        boolean isWarmUp() {
+            return warmUp;
+        }
+
+        /**
+         * 结果是否计入统计和尺度提示：完整搜索且不是预热
+         */
+        boolean updatesState() {
+            return !warmUp && isComplete();
+        }
+    }
+
+    /**
+     * 在响应图峰值的 3x3 邻域上分别沿 x、y 拟合抛物线，得到亚像素偏移
+     *
+     * @return {dx, dy}，各在 [-0.5, 0.5] 内；峰值在边界上时该方向为0
+     */
+    private static double[] subPixelOffset(Mat response, int x, int y) {
+        double[] offset = new double[2];
+        try (FloatIndexer idx = response.createIndexer()) {
+            float c = idx.get(y, x);
+            if (x > 0 && x < response.cols() - 1) {
+                offset[0] = parabolaVertex(idx.get(y, x - 1), c, idx.get(y, x + 1));
+            }
+            if (y > 0 && y < response.rows() - 1) {
+                offset[1] = parabolaVertex(idx.get(y - 1, x), c, idx.get(y + 1, x));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * 同 {@link #subPixelOffset(Mat, int, int)}，响应图为行优先的 float 数组（纯 Java NCC 的输出）
+     */
+    private static double[] subPixelOffset(float[] response, int width, int height, int x, int y) {
+        double[] offset = new double[2];
+        float c = response[y * width + x];
+        if (x > 0 && x < width - 1) {
+            offset[0] = parabolaVertex(response[y * width + x - 1], c, response[y * width + x + 1]);
+        }
+        if (y > 0 && y < height - 1) {
+            offset[1] = parabolaVertex(response[(y - 1) * width + x], c, response[(y + 1) * width + x]);
+        }
+        return offset;
+    }
+
+    private static double parabolaVertex(double left, double center, double right) {
+        double denominator = left - 2 * center + right;
+        if (denominator >= 0) {
+            // 不是严格的极大值
+            return 0;
+        }
+        return Math.max(-0.5, Math.min(0.5, 0.5 * (left - right) / denominator));
+    }
+
+    /**
+     * 在全图中提取多个匹配峰值（多尺度）
+     * 每个尺度的响应图上依次取最大值并抑制其邻域，再跨尺度做一次非极大值抑制
+     *
+     * @param gray 目标灰度图
+     * @param feature 特征块
+     * @param featureSize 特征块大小
+     * @param maxPeaks 最多返回的峰值数
+     * @return 按得分从高到低排列的峰值（位置为特征块中心）
+     */
+    private List<MatchResult> findPeaks(Mat gray, Mat feature, int featureSize, int maxPeaks) {
+        double minScore = peakMinScore;
+        List<MatchResult> all = new ArrayList<>();
+
+        double[] minVal = new double[1];
+        double[] maxVal = new double[1];
+        Point minLoc = new Point();
+        Point maxLoc = new Point();
+        Scalar suppressed = new Scalar(-1.0);
+
+        for (double scale : scales) {
+            int scaledSize = (int)(featureSize * scale);
+
+            if (scaledSize > gray.cols() || scaledSize > gray.rows()) continue;
+
+            Mat scaledFeature = new Mat();
+            Mat result = new Mat();
+            try {
+                opencv_imgproc.resize(feature, scaledFeature, new Size(scaledSize, scaledSize));
+                opencv_imgproc.matchTemplate(gray, scaledFeature, result, opencv_imgproc.TM_CCOEFF_NORMED);
+                NativeMemoryTracker.sample();
+
+                int radius = Math.max(1, scaledSize / 2);
+                for (int k = 0; k < maxPeaks; k++) {
+                    opencv_core.minMaxLoc(result, minVal, maxVal, minLoc, maxLoc, null);
+                    if (maxVal[0] < minScore) {
+                        break;
+                    }
+                    int x = maxLoc.x();
+                    int y = maxLoc.y();
+                    all.add(new MatchResult(new Point((int)(x + scaledSize / 2.0), (int)(y + scaledSize / 2.0)),
+                        maxVal[0], scale));
+
+                    // 抑制峰值邻域
+                    opencv_imgproc.rectangle(result,
+                        new Point(Math.max(0, x - radius), Math.max(0, y - radius)),
+                        new Point(Math.min(result.cols() - 1, x + radius), Math.min(result.rows() - 1, y + radius)),
+                        suppressed, -1, 8, 0);
+                }
+            } finally {
+                scaledFeature.close();
+                result.close();
+            }
+        }
+
+        // 跨尺度非极大值抑制：同一位置在相邻尺度上都会出现峰值
+        all.sort((a, b) -> Double.compare(b.score, a.score));
+        List<MatchResult> kept = new ArrayList<>();
+        for (MatchResult candidate : all) {
+            boolean overlaps = false;
+            for (MatchResult k : kept) {
+                double radius = featureSize * Math.max(candidate.scale, k.scale) / 2.0;
+                if (Math.hypot(candidate.location.x() - k.location.x(),
+                        candidate.location.y() - k.location.y()) < radius) {
+                    overlaps = true;
+                    break;
+                }
+            }
+            if (!overlaps) {
+                kept.add(candidate);
+                if (kept.size() >= maxPeaks) {
+                    break;
+                }
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * 按参考长度和方向将针尖候选配对（贪心：得分最高的合格配对优先）
+     *
+     * @return 配对结果，每项为 {针尖1, 针尖2}
+     */
+    private List<MatchResult[]> pairTips(List<MatchResult> tip1Candidates, List<MatchResult> tip2Candidates,
+            int maxPairs) {
+        Point ref1 = template.getReferenceTip1();
+        Point ref2 = template.getReferenceTip2();
+        double refDx = ref2.x() - ref1.x();
+        double refDy = ref2.y() - ref1.y();
+        double refLength = Math.hypot(refDx, refDy);
+        double refAngle = Math.atan2(refDy, refDx);
+        double angleTolerance = pairAngleTolerance;
+
+        // 长度必须落在尺度范围内，并与两个候选各自的匹配尺度大致一致
+        double minRatio = scales[0] * 0.9;
+        double maxRatio = scales[scales.length - 1] * 1.1;
+
+        List<double[]> edges = new ArrayList<>();  // {得分, i, j}
+        for (int i = 0; i < tip1Candidates.size(); i++) {
+            MatchResult a = tip1Candidates.get(i);
+            for (int j = 0; j < tip2Candidates.size(); j++) {
+                MatchResult b = tip2Candidates.get(j);
+                double dx = b.location.x() - a.location.x();
+                double dy = b.location.y() - a.location.y();
+                double ratio = Math.hypot(dx, dy) / refLength;
+                if (ratio < minRatio || ratio > maxRatio) continue;
+
+                double expectedRatio = (a.scale + b.scale) / 2.0;
+                if (Math.abs(ratio - expectedRatio) > 0.25) continue;
+
+                double angleDiff = Math.abs(Math.atan2(dy, dx) - refAngle);
+                if (angleDiff > Math.PI) {
+                    angleDiff = 2 * Math.PI - angleDiff;
+                }
+                if (angleDiff > angleTolerance) continue;
+
+                // 得分越高、方向越一致越优先
+                double score = (a.score + b.score) / 2.0 * (1.0 - 0.5 * angleDiff / angleTolerance);
+                edges.add(new double[] { score, i, j });
+            }
+        }
+        edges.sort((x, y) -> Double.compare(y[0], x[0]));
+
+        boolean[] used1 = new boolean[tip1Candidates.size()];
+        boolean[] used2 = new boolean[tip2Candidates.size()];
+        List<MatchResult[]> pairs = new ArrayList<>();
+        for (double[] edge : edges) {
+            int i = (int) edge[1];
+            int j = (int) edge[2];
+            if (used1[i] || used2[j]) continue;
+            MatchResult a = tip1Candidates.get(i);
+            MatchResult b = tip2Candidates.get(j);
+            pairs.add(new MatchResult[] { a, b });
+            if (pairs.size() >= maxPairs) {
+                break;
+            }
+
+            // 针身上的局部相似峰值不能再组成其他针：占用该针线段附近的所有候选
+            double corridor = template.getTipPatchSize() * Math.max(a.scale, b.scale);
+            markCorridor(tip1Candidates, used1, a.location, b.location, corridor);
+            markCorridor(tip2Candidates, used2, a.location, b.location, corridor);
+        }
+        return pairs;
+    }
+
+    private static void markCorridor(List<MatchResult> candidates, boolean[] used,
+            Point p1, Point p2, double corridor) {
+        double dx = p2.x() - p1.x();
+        double dy = p2.y() - p1.y();
+        double lenSq = dx * dx + dy * dy;
+        for (int k = 0; k < candidates.size(); k++) {
+            Point c = candidates.get(k).location;
+            double t = lenSq == 0 ? 0 : ((c.x() - p1.x()) * dx + (c.y() - p1.y()) * dy) / lenSq;
+            t = Math.max(0, Math.min(1, t));
+            double dist = Math.hypot(c.x() - (p1.x() + t * dx), c.y() - (p1.y() + t * dy));
+            if (dist < corridor) {
+                used[k] = true;
+            }
+        }
+    }
+
+    /**
+     * 计算置信度
+     *
+     * @param measuredPixelLen 测量的像素长度
+     * @param referencePixelLen 参考像素长度
+     * @return 置信度 (0.0 - 1.0)
+     */
+    private double calculateConfidence(double measuredPixelLen, double referencePixelLen) {
+        // 基于长度比例的置信度
+        double lengthRatio = Math.min(measuredPixelLen, referencePixelLen) /
+                            Math.max(measuredPixelLen, referencePixelLen);
+
+        // 基础置信度
+        double baseConfidence = 0.85;
+
+        // 根据长度差异调整
+        double adjustedConfidence = baseConfidence * lengthRatio;
+
+        // 确保在合理范围内
+        return Math.max(0.5, Math.min(0.99, adjustedConfidence));
+    }
+
+    /**
+     * 生成多尺度数组
+     */
+    private double[] generateScales(double min, double max, double step) {
+        int count = (int)((max - min) / step) + 1;
+        double[] scales = new double[count];
+        for (int i = 0; i < count; i++) {
+            scales[i] = min + i * step;
+        }
+        return scales;
+    }
+
+    /**
+     * 保存可视化结果（按 {@link #setVisualizer(MeasurementVisualizer)} 设置的模式）
+     *
+     * @param image 原始图像
+     * @param t1 针尖1
+     * @param t2 针尖2
+     * @param mm 测量长度
+     * @param originalPath 原始路径
+     * @throws RuntimeException 如果保存失败
+     */
+    private void saveVisualization(Mat image, Point t1, Point t2,
+            double mm, String originalPath) {
+        MeasurementOverlay overlay = new MeasurementOverlay(t1.x(), t1.y(), t2.x(), t2.y(), mm);
+        String outPath = originalPath.replaceAll("(\\.[^.]+)$", "_analyzed$1");
+        try {
+            visualizer.save(image, overlay, Paths.get(outPath));
+        } catch (IOException e) {
+            throw new RuntimeException("保存可视化结果失败: " + outPath, e);
+        }
+    }
+
+    /**
+     * 生成带测量结果的图像（返回Mat，不保存到文件）
+     * 按 {@link #setVisualizer(MeasurementVisualizer)} 设置的模式生成完整尺寸、缩略图或裁剪图
+     *
+     * @param image 原始图像
+     * @param result 测量结果
+     * @return 带标注的图像
+     * @throws IllegalStateException 可视化模式为 OVERLAY_ONLY 时，此时使用 {@link MeasurementOverlay#of(MeasurementResult)}
+     */
+    public Mat generateVisualization(Mat image, MeasurementResult result) {
+        return visualizer.render(image, MeasurementOverlay.of(result));
+    }
+
+    /**
+     * 设置可视化方式
+     * 影响 {@link #analyze(String)} 保存的标注图像和 {@link #generateVisualization(Mat, MeasurementResult)}；
+     * OVERLAY_ONLY 模式下 {@link #analyze(String)} 不再写标注图像；其他模式下标注图像写入失败时
+     * {@link #analyze(String)} 抛出异常
+     *
+     * @param visualizer 可视化设置
+     */
+    public void setVisualizer(MeasurementVisualizer visualizer) {
+        if (visualizer == null) {
+            throw new IllegalArgumentException("可视化设置不能为空");
+        }
+        this.visualizer = visualizer;
+    }
+
+    public MeasurementVisualizer getVisualizer() {
+        return visualizer;
+    }
+
+    /**
+     * 用合成图像预热本分析器（阻塞）
+     * 产线启动时调用，避免第一次真实测量承担原生库初始化和JIT编译开销
+     *
+     * @param width 相机图像宽度
+     * @param height 相机图像高度
+     * @return 预热报告
+     */
+    public AnalyzerWarmup.Report warmUp(int width, int height) {
+        return new AnalyzerWarmup().addAnalyzer(this).addImageSize(width, height).run();
     }
 
     @Override
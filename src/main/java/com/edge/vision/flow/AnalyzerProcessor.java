@@ -0,0 +1,304 @@
+package com.edge.vision.flow;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 {@link NeedleLengthAnalyzer} 的 {@link Flow.Processor}：帧进，测量结果出
+ *
+ * 只使用 JDK Flow 类型，可以通过 FlowAdapters 接入任意 Reactive Streams 实现。
+ * <ul>
+ *   <li>并发 - 最多 maxConcurrency 帧同时分析，在分析器的 {@link NeedleLengthAnalyzer#setAsyncExecutor(Executor)} 上运行</li>
+ *   <li>顺序 - 结果按帧的到达顺序发出，先完成的结果在重排队列中等待</li>
+ *   <li>背压 - 正在分析和等待发出的帧合计不超过 maxConcurrency，
+ *       下游不请求时结果堆积到上限后不再向上游请求新帧</li>
+ * </ul>
+ * 只支持一个下游订阅者。任一帧分析失败或上游出错时向下游发出 onError，
+ * 取消上游订阅和尚未完成的分析；下游取消时同样取消上游和进行中的分析。
+ *
+ * 使用示例:
+ * <pre>
+ * AnalyzerProcessor processor = new AnalyzerProcessor(analyzer, 4);
+ * cameraPublisher.subscribe(processor);
+ * processor.subscribe(resultSubscriber);
+ * </pre>
+ * @author Coder建设
+ */
+public class AnalyzerProcessor implements Flow.Processor<FrameInput, MeasurementResult> {
+
+    private final NeedleLengthAnalyzer analyzer;
+    private final int maxConcurrency;
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // 以下字段由 this 保护
+    private final ArrayDeque<CompletableFuture<MeasurementResult>> pending = new ArrayDeque<>();
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super MeasurementResult> downstream;
+    private boolean subscribed;     // 下游 onSubscribe 已返回
+    private long demand;            // 下游未满足的请求数
+    private int outstanding;        // 已向上游请求、尚未到达的帧数
+    private boolean upstreamDone;
+    private Throwable failure;
+    private boolean terminated;
+
+    /**
+     * @param analyzer 分析器
+     * @param maxConcurrency 正在分析和等待发出的帧数上限
+     */
+    public AnalyzerProcessor(NeedleLengthAnalyzer analyzer, int maxConcurrency) {
+        if (analyzer == null) {
+            throw new IllegalArgumentException("分析器不能为空");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("并发数必须大于0");
+        }
+        this.analyzer = analyzer;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    // ---------- 上游 ----------
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        boolean accept;
+        synchronized (this) {
+            accept = upstream == null && !terminated;
+            if (accept) {
+                upstream = subscription;
+            }
+        }
+        if (!accept) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(FrameInput frame) {
+        if (frame == null) {
+            throw new NullPointerException("帧不能为空");
+        }
+        synchronized (this) {
+            if (terminated) {
+                frame.release();
+                return;
+            }
+            outstanding = Math.max(0, outstanding - 1);
+        }
+
+        CompletableFuture<MeasurementResult> future;
+        try {
+            future = frame.submit(analyzer);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        boolean added;
+        synchronized (this) {
+            added = !terminated;
+            if (added) {
+                pending.add(future);
+            }
+        }
+        if (!added) {
+            future.cancel(true);
+            return;
+        }
+        future.whenComplete((r, e) -> drain());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            upstreamDone = true;
+            if (failure == null) {
+                failure = throwable;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    // ---------- 下游 ----------
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super MeasurementResult> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("订阅者不能为空");
+        }
+        boolean accept;
+        synchronized (this) {
+            accept = downstream == null;
+            if (accept) {
+                downstream = subscriber;
+            }
+        }
+        if (!accept) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override public void request(long n) { }
+                @Override public void cancel() { }
+            });
+            subscriber.onError(new IllegalStateException("只支持一个订阅者"));
+            return;
+        }
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                synchronized (AnalyzerProcessor.this) {
+                    if (n <= 0) {
+                        if (failure == null) {
+                            failure = new IllegalArgumentException("请求数必须大于0: " + n);
+                        }
+                    } else {
+                        demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                    }
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelAll();
+            }
+        });
+        synchronized (this) {
+            subscribed = true;
+        }
+        drain();
+    }
+
+    private void cancelAll() {
+        Flow.Subscription up;
+        List<CompletableFuture<MeasurementResult>> inFlight;
+        synchronized (this) {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            up = upstream;
+            inFlight = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (up != null) {
+            up.cancel();
+        }
+        for (CompletableFuture<MeasurementResult> future : inFlight) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 发出已就绪的结果并补充上游请求，同一时刻只有一个线程执行
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (true) {
+                Flow.Subscriber<? super MeasurementResult> ds;
+                Flow.Subscription up = null;
+                MeasurementResult next = null;
+                Throwable error = null;
+                boolean complete = false;
+                int request = 0;
+
+                synchronized (this) {
+                    if (terminated || !subscribed) {
+                        break;
+                    }
+                    ds = downstream;
+                    CompletableFuture<MeasurementResult> head = pending.peek();
+                    if (failure != null) {
+                        error = failure;
+                    } else if (head != null && head.isDone()) {
+                        try {
+                            MeasurementResult result = head.join();
+                            if (demand > 0) {
+                                pending.poll();
+                                next = result;
+                                if (demand != Long.MAX_VALUE) {
+                                    demand--;
+                                }
+                            }
+                        } catch (CompletionException | CancellationException e) {
+                            error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        }
+                    } else if (head == null && upstreamDone) {
+                        complete = true;
+                    }
+
+                    if (error != null || complete) {
+                        terminated = true;
+                    } else if (!upstreamDone && upstream != null) {
+                        int capacity = maxConcurrency - pending.size() - outstanding;
+                        if (capacity > 0) {
+                            outstanding += capacity;
+                            request = capacity;
+                            up = upstream;
+                        }
+                    }
+                }
+
+                if (error != null) {
+                    cancelAfterError();
+                    ds.onError(error);
+                    break;
+                }
+                if (complete) {
+                    ds.onComplete();
+                    break;
+                }
+                if (request > 0) {
+                    up.request(request);
+                }
+                if (next == null) {
+                    break;
+                }
+                ds.onNext(next);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void cancelAfterError() {
+        Flow.Subscription up;
+        List<CompletableFuture<MeasurementResult>> inFlight;
+        synchronized (this) {
+            up = upstreamDone ? null : upstream;
+            inFlight = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (up != null) {
+            up.cancel();
+        }
+        for (CompletableFuture<MeasurementResult> future : inFlight) {
+            future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.edge.vision.flow;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 进入 {@link AnalyzerProcessor} 的一帧图像
+ *
+ * 编码后的字节数组或已解码的 Mat（BGR）。Mat 帧由处理器接管，分析提交后释放，
+ * 调用方创建后不应再使用或释放该 Mat。
+ * @author Coder建设
+ */
+public final class FrameInput {
+
+    private final byte[] bytes;
+    private final Mat image;
+
+    private FrameInput(byte[] bytes, Mat image) {
+        this.bytes = bytes;
+        this.image = image;
+    }
+
+    /**
+     * 编码后的图像（JPEG/PNG 等）
+     *
+     * @param imageBytes 图像字节数组
+     */
+    public static FrameInput ofBytes(byte[] imageBytes) {
+        if (imageBytes == null) {
+            throw new IllegalArgumentException("图像字节不能为空");
+        }
+        return new FrameInput(imageBytes, null);
+    }
+
+    /**
+     * 已解码的图像，所有权转移给处理器
+     *
+     * @param image BGR 图像
+     */
+    public static FrameInput ofMat(Mat image) {
+        if (image == null || image.empty()) {
+            throw new IllegalArgumentException("图像不能为空");
+        }
+        return new FrameInput(null, image);
+    }
+
+    /**
+     * 提交异步分析（Mat 在提交时复制，随后释放本帧持有的 Mat）
+     */
+    CompletableFuture<MeasurementResult> submit(NeedleLengthAnalyzer analyzer) {
+        if (bytes != null) {
+            return analyzer.analyzeAsync(bytes);
+        }
+        try {
+            return analyzer.analyzeAsync(image);
+        } finally {
+            image.close();
+        }
+    }
+
+    /**
+     * 丢弃未分析的帧
+     */
+    void release() {
+        if (image != null) {
+            image.close();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.edge.vision.io;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于可复用缓冲区的结果输出基类
+ *
+ * 所有结果先编码到同一个直接缓冲区，写满后一次性写入通道；
+ * 数值格式化直接写入缓冲区字节，模板ID的编码结果按引用缓存，
+ * 因此稳定状态下每条结果不产生任何临时对象。
+ * @author Coder建设
+ */
+public abstract class AbstractResultWriter implements ResultWriter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+
+    // 超过该值的数字不走定点格式化快速路径
+    private static final double MAX_FAST_VALUE = 1e12;
+
+    protected final ByteBuffer buffer;
+    private final WritableByteChannel channel;
+    private long count = 0;
+    private boolean closed = false;
+
+    // 模板ID编码缓存（同一批结果通常共用一个模板ID实例）
+    private String cachedTemplateId;
+    private byte[] cachedTemplateBytes;
+
+    protected AbstractResultWriter(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < MeasurementRecord.RECORD_SIZE * 2) {
+            throw new IllegalArgumentException("缓冲区过小: " + bufferSize);
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 以覆盖方式打开文件通道
+     */
+    protected static WritableByteChannel openFile(Path path) {
+        try {
+            return FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("无法打开输出文件: " + path, e);
+        }
+    }
+
+    @Override
+    public final void write(MeasurementResult result) {
+        if (closed) {
+            throw new IllegalStateException("输出已关闭");
+        }
+        byte[] templateBytes = templateBytes(result.getTemplateId());
+        ensureCapacity(maxEncodedSize(templateBytes));
+        encode(result, templateBytes);
+        count++;
+    }
+
+    /**
+     * 将一条结果编码到缓冲区（调用前已保证剩余空间足够）
+     *
+     * @param result 测量结果
+     * @param templateBytes 编码后的模板ID
+     */
+    protected abstract void encode(MeasurementResult result, byte[] templateBytes);
+
+    /**
+     * 单条结果编码后的最大字节数
+     */
+    protected abstract int maxEncodedSize(byte[] templateBytes);
+
+    /**
+     * 将模板ID编码为输出格式所需的字节（结果会被缓存）
+     */
+    protected abstract byte[] encodeTemplateId(String templateId);
+
+    private byte[] templateBytes(String templateId) {
+        if (templateId != cachedTemplateId || cachedTemplateBytes == null) {
+            cachedTemplateBytes = encodeTemplateId(templateId);
+            cachedTemplateId = templateId;
+        }
+        return cachedTemplateBytes;
+    }
+
+    /**
+     * 确保缓冲区至少还有 size 字节空间
+     */
+    protected final void ensureCapacity(int size) {
+        if (size > buffer.capacity()) {
+            throw new IllegalArgumentException("单条记录超过缓冲区大小: " + size);
+        }
+        if (buffer.remaining() < size) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("写入结果失败", e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.position() > 0) {
+            drain();
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException("关闭输出失败", e);
+            }
+        }
+    }
+
+    // ============ 无分配的文本编码辅助方法 ============
+
+    protected final void putAscii(byte[] bytes) {
+        buffer.put(bytes);
+    }
+
+    protected final void putByte(char c) {
+        buffer.put((byte) c);
+    }
+
+    /**
+     * 按 {@code String.format("%.Nf")} 的样式写入定点小数
+     *
+     * 舍入采用 HALF_UP；仅在二进制表示恰好落在舍入边界附近时，
+     * 末位可能与 {@link String#format} 的结果相差 1
+     *
+     * @param value 数值
+     * @param decimals 小数位数（0-6）
+     */
+    protected final void putFixed(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_FAST_VALUE) {
+            // 极少出现的情况，允许分配
+            buffer.put(String.format("%." + decimals + "f", value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = (long) Math.floor(value * scale + 0.5);
+        putLong(scaled / scale);
+        if (decimals > 0) {
+            buffer.put((byte) '.');
+            long fraction = scaled % scale;
+            for (long div = scale / 10; div > 0; div /= 10) {
+                buffer.put((byte) ('0' + (fraction / div) % 10));
+            }
+        }
+    }
+
+    /**
+     * 写入十进制整数
+     */
+    protected final void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            buffer.put(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        if (value == 0) {
+            buffer.put((byte) '0');
+            return;
+        }
+        long div = 1;
+        while (div <= value / 10) {
+            div *= 10;
+        }
+        for (; div > 0; div /= 10) {
+            buffer.put((byte) ('0' + (value / div) % 10));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.edge.vision.io;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 读取 {@link BinaryResultWriter} 写出的定长二进制记录
+ * @author Coder建设
+ */
+public class BinaryResultReader implements Closeable {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private boolean eof = false;
+
+    public BinaryResultReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        int size = (AbstractResultWriter.DEFAULT_BUFFER_SIZE / MeasurementRecord.RECORD_SIZE)
+            * MeasurementRecord.RECORD_SIZE;
+        this.buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.limit(0);
+    }
+
+    public BinaryResultReader(Path path) {
+        this(open(path));
+    }
+
+    private static ReadableByteChannel open(Path path) {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new RuntimeException("无法打开结果文件: " + path, e);
+        }
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 测量结果，已到文件末尾时返回null
+     * @throws RuntimeException 如果读取失败或文件末尾存在不完整记录
+     */
+    public MeasurementResult next() {
+        if (buffer.remaining() < MeasurementRecord.RECORD_SIZE && !fill()) {
+            return null;
+        }
+        int offset = buffer.position();
+        MeasurementResult result = MeasurementRecord.read(buffer, offset);
+        buffer.position(offset + MeasurementRecord.RECORD_SIZE);
+        return result;
+    }
+
+    private boolean fill() {
+        if (eof) {
+            return false;
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < MeasurementRecord.RECORD_SIZE) {
+                if (channel.read(buffer) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("读取结果失败", e);
+        } finally {
+            buffer.flip();
+        }
+        if (buffer.remaining() == 0) {
+            return false;
+        }
+        if (buffer.remaining() < MeasurementRecord.RECORD_SIZE) {
+            throw new RuntimeException("结果文件末尾存在不完整记录");
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("关闭结果文件失败", e);
+        }
+    }
+}
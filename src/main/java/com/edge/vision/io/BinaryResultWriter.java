@@ -0,0 +1,51 @@
+package com.edge.vision.io;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * 定长二进制格式结果输出
+ *
+ * 记录布局见 {@link MeasurementRecord}，文件大小恒为记录数 × {@value MeasurementRecord#RECORD_SIZE}，
+ * 可按下标随机访问，也可用 {@link BinaryResultReader} 读回。
+ * @author Coder建设
+ */
+public class BinaryResultWriter extends AbstractResultWriter {
+
+    public BinaryResultWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BinaryResultWriter(WritableByteChannel channel, int bufferSize) {
+        super(channel, bufferSize);
+    }
+
+    public BinaryResultWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    public BinaryResultWriter(Path path) {
+        this(openFile(path));
+    }
+
+    @Override
+    protected void encode(MeasurementResult r, byte[] templateBytes) {
+        int offset = buffer.position();
+        MeasurementRecord.write(buffer, offset, r, templateBytes);
+        buffer.position(offset + MeasurementRecord.RECORD_SIZE);
+    }
+
+    @Override
+    protected int maxEncodedSize(byte[] templateBytes) {
+        return MeasurementRecord.RECORD_SIZE;
+    }
+
+    @Override
+    protected byte[] encodeTemplateId(String templateId) {
+        return MeasurementRecord.encodeTemplateId(templateId);
+    }
+}
@@ -0,0 +1,100 @@
+package com.edge.vision.io;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * CSV 格式结果输出
+ *
+ * 首行为表头，字段和数值精度与 {@link MeasurementResult#toJsonString()} 相同，
+ * 模板ID按 RFC 4180 规则在需要时加引号。
+ * @author Coder建设
+ */
+public class CsvResultWriter extends AbstractResultWriter {
+
+    public static final String HEADER =
+        "lengthMm,pixelLength,tip1X,tip1Y,tip2X,tip2Y,confidence,processingTimeMs,templateId,complete";
+
+    private static final byte[] HEADER_LINE = (HEADER + "\n").getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] COMPLETE = ",true\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INCOMPLETE = ",false\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MAX_FIXED_SIZE = 256;
+
+    private boolean headerWritten = false;
+
+    public CsvResultWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvResultWriter(WritableByteChannel channel, int bufferSize) {
+        this(channel, bufferSize, true);
+    }
+
+    /**
+     * @param channel 输出通道
+     * @param bufferSize 缓冲区大小
+     * @param writeHeader 是否写表头（追加到已有文件时传false）
+     */
+    public CsvResultWriter(WritableByteChannel channel, int bufferSize, boolean writeHeader) {
+        super(channel, bufferSize);
+        this.headerWritten = !writeHeader;
+    }
+
+    public CsvResultWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    public CsvResultWriter(Path path) {
+        this(openFile(path));
+    }
+
+    @Override
+    protected void encode(MeasurementResult r, byte[] templateBytes) {
+        if (!headerWritten) {
+            putAscii(HEADER_LINE);
+            headerWritten = true;
+        }
+        putFixed(r.getLengthMm(), 4);
+        putByte(',');
+        putFixed(r.getPixelLength(), 3);
+        putByte(',');
+        putFixed(r.getTip1X(), 2);
+        putByte(',');
+        putFixed(r.getTip1Y(), 2);
+        putByte(',');
+        putFixed(r.getTip2X(), 2);
+        putByte(',');
+        putFixed(r.getTip2Y(), 2);
+        putByte(',');
+        putFixed(r.getConfidence(), 3);
+        putByte(',');
+        putLong(r.getProcessingTimeMs());
+        putByte(',');
+        putAscii(templateBytes);
+        putAscii(r.isComplete() ? COMPLETE : INCOMPLETE);
+    }
+
+    @Override
+    protected int maxEncodedSize(byte[] templateBytes) {
+        int size = MAX_FIXED_SIZE + templateBytes.length;
+        return headerWritten ? size : size + HEADER_LINE.length;
+    }
+
+    @Override
+    protected byte[] encodeTemplateId(String templateId) {
+        String value = templateId == null ? "" : templateId;
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (quote) {
+            value = "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
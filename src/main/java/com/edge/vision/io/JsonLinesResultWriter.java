@@ -0,0 +1,123 @@
+package com.edge.vision.io;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * JSON Lines 格式结果输出
+ *
+ * 每行一个JSON对象，字段和数值精度与 {@link MeasurementResult#toJsonString()} 相同，
+ * 模板ID会做JSON转义。
+ *
+ * 使用示例:
+ * <pre>
+ * try (ResultWriter writer = new JsonLinesResultWriter(Paths.get("results.jsonl"))) {
+ *     for (String path : images) {
+ *         writer.write(analyzer.analyze(path));
+ *     }
+ * }
+ * </pre>
+ * @author Coder建设
+ */
+public class JsonLinesResultWriter extends AbstractResultWriter {
+
+    private static final byte[] LENGTH_MM = ascii("{\"lengthMm\":");
+    private static final byte[] PIXEL_LENGTH = ascii(",\"pixelLength\":");
+    private static final byte[] TIP1_X = ascii(",\"tip1\":{\"x\":");
+    private static final byte[] TIP2_X = ascii("},\"tip2\":{\"x\":");
+    private static final byte[] Y = ascii(",\"y\":");
+    private static final byte[] CONFIDENCE = ascii("},\"confidence\":");
+    private static final byte[] TIME = ascii(",\"processingTimeMs\":");
+    private static final byte[] TEMPLATE_ID = ascii(",\"templateId\":\"");
+    private static final byte[] COMPLETE = ascii("\",\"complete\":true}\n");
+    private static final byte[] INCOMPLETE = ascii("\",\"complete\":false}\n");
+
+    // 固定文本 + 8个数值字段的上限
+    private static final int MAX_FIXED_SIZE = 512;
+
+    public JsonLinesResultWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonLinesResultWriter(WritableByteChannel channel, int bufferSize) {
+        super(channel, bufferSize);
+    }
+
+    public JsonLinesResultWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    public JsonLinesResultWriter(Path path) {
+        this(openFile(path));
+    }
+
+    @Override
+    protected void encode(MeasurementResult r, byte[] templateBytes) {
+        putAscii(LENGTH_MM);
+        putFixed(r.getLengthMm(), 4);
+        putAscii(PIXEL_LENGTH);
+        putFixed(r.getPixelLength(), 3);
+        putAscii(TIP1_X);
+        putFixed(r.getTip1X(), 2);
+        putAscii(Y);
+        putFixed(r.getTip1Y(), 2);
+        putAscii(TIP2_X);
+        putFixed(r.getTip2X(), 2);
+        putAscii(Y);
+        putFixed(r.getTip2Y(), 2);
+        putAscii(CONFIDENCE);
+        putFixed(r.getConfidence(), 3);
+        putAscii(TIME);
+        putLong(r.getProcessingTimeMs());
+        putAscii(TEMPLATE_ID);
+        putAscii(templateBytes);
+        putAscii(r.isComplete() ? COMPLETE : INCOMPLETE);
+    }
+
+    @Override
+    protected int maxEncodedSize(byte[] templateBytes) {
+        return MAX_FIXED_SIZE + templateBytes.length;
+    }
+
+    @Override
+    protected byte[] encodeTemplateId(String templateId) {
+        String value = String.valueOf(templateId);
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
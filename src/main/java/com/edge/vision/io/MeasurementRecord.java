@@ -0,0 +1,146 @@
+package com.edge.vision.io;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 测量结果的定长二进制记录格式
+ *
+ * 字段与 {@link MeasurementResult#toJsonString()} 一致，小端字节序，每条 {@value #RECORD_SIZE} 字节：
+ * <pre>
+ * 偏移  长度  字段
+ *  0     8    lengthMm          (double)
+ *  8     8    pixelLength       (double)
+ * 16     8    tip1X             (double)
+ * 24     8    tip1Y             (double)
+ * 32     8    tip2X             (double)
+ * 40     8    tip2Y             (double)
+ * 48     8    confidence        (double)
+ * 56     8    processingTimeMs  (long)
+ * 64    32    templateId        (UTF-8，不足补0)
+ * 96     1    flags             (bit0: 限时分析未完成，见 {@link MeasurementResult#isComplete()})
+ * 97     7    保留（0）
+ * </pre>
+ * 104 字节的布局为第2版（第1版为 96 字节，没有 flags），记录大小不同的旧文件不能直接读取。
+ * @author Coder建设
+ */
+public final class MeasurementRecord {
+
+    public static final int TEMPLATE_ID_BYTES = 32;
+    public static final int RECORD_SIZE = 64 + TEMPLATE_ID_BYTES + 8;
+
+    /** flags: 限时分析到期，结果未完成 */
+    public static final int FLAG_TRUNCATED = 1;
+
+    private static final int OFFSET_LENGTH_MM = 0;
+    private static final int OFFSET_PIXEL_LENGTH = 8;
+    private static final int OFFSET_TIP1_X = 16;
+    private static final int OFFSET_TIP1_Y = 24;
+    private static final int OFFSET_TIP2_X = 32;
+    private static final int OFFSET_TIP2_Y = 40;
+    private static final int OFFSET_CONFIDENCE = 48;
+    private static final int OFFSET_TIME = 56;
+    private static final int OFFSET_TEMPLATE_ID = 64;
+    private static final int OFFSET_FLAGS = OFFSET_TEMPLATE_ID + TEMPLATE_ID_BYTES;
+
+    private MeasurementRecord() {
+    }
+
+    /**
+     * 将模板ID编码为定长字段
+     *
+     * @param templateId 模板ID
+     * @return {@value #TEMPLATE_ID_BYTES} 字节数组
+     * @throws IllegalArgumentException 如果模板ID的UTF-8编码超过字段长度
+     */
+    public static byte[] encodeTemplateId(String templateId) {
+        byte[] field = new byte[TEMPLATE_ID_BYTES];
+        if (templateId == null) {
+            return field;
+        }
+        byte[] utf8 = templateId.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > TEMPLATE_ID_BYTES) {
+            throw new IllegalArgumentException(
+                "模板ID超过 " + TEMPLATE_ID_BYTES + " 字节: " + templateId);
+        }
+        System.arraycopy(utf8, 0, field, 0, utf8.length);
+        return field;
+    }
+
+    /**
+     * 在缓冲区指定位置写入一条记录（绝对位置写入，不改变缓冲区position）
+     *
+     * @param buf 目标缓冲区（需为小端字节序）
+     * @param offset 记录起始位置
+     * @param result 测量结果
+     * @param templateField {@link #encodeTemplateId(String)} 的编码结果
+     */
+    public static void write(ByteBuffer buf, int offset, MeasurementResult result, byte[] templateField) {
+        buf.putDouble(offset + OFFSET_LENGTH_MM, result.getLengthMm());
+        buf.putDouble(offset + OFFSET_PIXEL_LENGTH, result.getPixelLength());
+        buf.putDouble(offset + OFFSET_TIP1_X, result.getTip1X());
+        buf.putDouble(offset + OFFSET_TIP1_Y, result.getTip1Y());
+        buf.putDouble(offset + OFFSET_TIP2_X, result.getTip2X());
+        buf.putDouble(offset + OFFSET_TIP2_Y, result.getTip2Y());
+        buf.putDouble(offset + OFFSET_CONFIDENCE, result.getConfidence());
+        buf.putLong(offset + OFFSET_TIME, result.getProcessingTimeMs());
+        for (int i = 0; i < TEMPLATE_ID_BYTES; i++) {
+            buf.put(offset + OFFSET_TEMPLATE_ID + i, templateField[i]);
+        }
+        buf.putLong(offset + OFFSET_FLAGS, result.isComplete() ? 0 : FLAG_TRUNCATED);
+    }
+
+    /**
+     * 从缓冲区指定位置读取一条记录
+     *
+     * @param buf 源缓冲区（需为小端字节序）
+     * @param offset 记录起始位置
+     * @return 测量结果
+     */
+    public static MeasurementResult read(ByteBuffer buf, int offset) {
+        return new MeasurementResult(
+            lengthMm(buf, offset),
+            buf.getDouble(offset + OFFSET_PIXEL_LENGTH),
+            buf.getDouble(offset + OFFSET_TIP1_X),
+            buf.getDouble(offset + OFFSET_TIP1_Y),
+            buf.getDouble(offset + OFFSET_TIP2_X),
+            buf.getDouble(offset + OFFSET_TIP2_Y),
+            confidence(buf, offset),
+            processingTimeMs(buf, offset),
+            templateId(buf, offset),
+            isComplete(buf, offset));
+    }
+
+    // 单字段读取，便于扫描时不创建结果对象
+
+    public static double lengthMm(ByteBuffer buf, int offset) {
+        return buf.getDouble(offset + OFFSET_LENGTH_MM);
+    }
+
+    public static double confidence(ByteBuffer buf, int offset) {
+        return buf.getDouble(offset + OFFSET_CONFIDENCE);
+    }
+
+    public static long processingTimeMs(ByteBuffer buf, int offset) {
+        return buf.getLong(offset + OFFSET_TIME);
+    }
+
+    public static boolean isComplete(ByteBuffer buf, int offset) {
+        return (buf.get(offset + OFFSET_FLAGS) & FLAG_TRUNCATED) == 0;
+    }
+
+    public static String templateId(ByteBuffer buf, int offset) {
+        byte[] field = new byte[TEMPLATE_ID_BYTES];
+        int len = 0;
+        for (; len < TEMPLATE_ID_BYTES; len++) {
+            byte b = buf.get(offset + OFFSET_TEMPLATE_ID + len);
+            if (b == 0) {
+                break;
+            }
+            field[len] = b;
+        }
+        return new String(field, 0, len, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package com.edge.vision.io;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.io.Closeable;
+
+/**
+ * 测量结果流式输出接口
+ *
+ * 实现类将结果写入可复用的缓冲区，缓冲区写满后批量刷新到通道，
+ * 适用于回填等需要输出数百万条结果的场景。
+ *
+ * 注意：实现类不是线程安全的，多线程写入时需要外部同步
+ * @author Coder建设
+ */
+public interface ResultWriter extends Closeable {
+
+    /**
+     * 写入一条测量结果
+     *
+     * @param result 测量结果
+     * @throws RuntimeException 如果写入失败
+     */
+    void write(MeasurementResult result);
+
+    /**
+     * 将缓冲区中的数据刷新到底层通道
+     *
+     * @throws RuntimeException 如果写入失败
+     */
+    void flush();
+
+    /**
+     * 已写入的结果条数
+     */
+    long getCount();
+
+    /**
+     * 刷新并关闭底层通道
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,246 @@
+package com.edge.vision.match;
+
+import java.util.Arrays;
+
+/**
+ * 纯 Java 归一化互相关（与 OpenCV TM_CCOEFF_NORMED 等价）
+ *
+ * 用于小搜索窗口：一次 matchTemplate 调用的 JNI 往返和本地 Mat 分配
+ * 在小窗口上比计算本身更贵，这里直接在字节数组上计算，不产生本地内存。
+ *
+ * 目标窗口的和与平方和由整型积分图得到，模板与窗口的互相关由子类逐行累加
+ * （像素先扩展为 int，乘加不溢出的前提见 {@link NccPatch#MAX_AREA}）；
+ * 归一化及边界处理与 OpenCV 一致:
+ * <pre>
+ * R(x,y) = (Σ T·I - meanT·ΣI) / (normT · sqrt(ΣI² - (ΣI)²/n))
+ * </pre>
+ *
+ * {@link #getDefault()} 在 JDK 17+ 且启用了 jdk.incubator.vector 模块时返回
+ * Vector API 实现（多版本 JAR 的 META-INF/versions/17），否则返回标量实现。
+ * 可用系统属性 {@value #KERNEL_PROPERTY}=scalar 强制使用标量实现。
+ *
+ * 实例无状态，线程安全。
+ * @author Coder建设
+ */
+public abstract class NccKernel {
+
+    public static final String KERNEL_PROPERTY = "needle.ncc.kernel";
+
+    private static final String VECTOR_KERNEL_CLASS = "com.edge.vision.match.VectorNccKernel";
+    private static final double DBL_EPSILON = 2.220446049250313e-16;
+    private static final float FLT_EPSILON = 1.1920929e-7f;
+
+    private static volatile NccKernel defaultKernel;
+
+    /**
+     * 获取当前平台可用的最快实现
+     */
+    public static NccKernel getDefault() {
+        NccKernel kernel = defaultKernel;
+        if (kernel == null) {
+            kernel = selectKernel();
+            defaultKernel = kernel;
+        }
+        return kernel;
+    }
+
+    /**
+     * 获取标量实现
+     */
+    public static NccKernel scalar() {
+        return ScalarNccKernel.INSTANCE;
+    }
+
+    private static NccKernel selectKernel() {
+        if ("scalar".equalsIgnoreCase(System.getProperty(KERNEL_PROPERTY))) {
+            return scalar();
+        }
+        try {
+            if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                return scalar();
+            }
+            Class<?> type = Class.forName(VECTOR_KERNEL_CLASS);
+            return (NccKernel) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // 非多版本 JAR 的 classpath、Android 等无模块系统的运行时，回退到标量实现
+            return scalar();
+        }
+    }
+
+    /**
+     * 实现名称
+     */
+    public abstract String getName();
+
+    /**
+     * 计算一行输出位置的原始互相关
+     * acc[x] = Σ_k T[k] · I[y*width + x + offsets[k]]，x ∈ [0, outWidth)
+     *
+     * @param image 扩展为 int 的目标图像像素
+     * @param rowStart 输出行在目标图像中的起始下标（y*width）
+     * @param patch 模板块
+     * @param offsets 模板第 k 个像素相对窗口左上角的下标偏移（r*width + c）
+     * @param outWidth 输出宽度
+     * @param acc 输出
+     */
+    protected abstract void correlateRow(int[] image, int rowStart, NccPatch patch, int[] offsets,
+                                         int outWidth, int[] acc);
+
+    /**
+     * 计算完整的响应图
+     *
+     * @param image 目标图像像素（行优先，单通道8位）
+     * @param width 目标图像宽度
+     * @param height 目标图像高度
+     * @param patch 模板块
+     * @param result 输出，长度至少 (width-w+1)*(height-h+1)，行优先
+     */
+    public void match(byte[] image, int width, int height, NccPatch patch, float[] result) {
+        int outW = checkSize(image, width, height, patch);
+        int outH = height - patch.getHeight() + 1;
+        if (result.length < outW * outH) {
+            throw new IllegalArgumentException("结果数组长度不足");
+        }
+        scan(image, width, height, patch, result, null);
+    }
+
+    /**
+     * 查找响应最大的位置（等价于 matchTemplate + minMaxLoc 的最大值）
+     *
+     * @param image 目标图像像素（行优先，单通道8位）
+     * @param width 目标图像宽度
+     * @param height 目标图像高度
+     * @param patch 模板块
+     * @return 最佳位置（模板左上角）
+     */
+    public Match findBest(byte[] image, int width, int height, NccPatch patch) {
+        checkSize(image, width, height, patch);
+        Match best = new Match();
+        scan(image, width, height, patch, null, best);
+        return best;
+    }
+
+    private static int checkSize(byte[] image, int width, int height, NccPatch patch) {
+        if (image.length < width * height) {
+            throw new IllegalArgumentException("图像数组长度不足");
+        }
+        int outW = width - patch.getWidth() + 1;
+        int outH = height - patch.getHeight() + 1;
+        if (outW <= 0 || outH <= 0) {
+            throw new IllegalArgumentException("模板块大于目标图像");
+        }
+        return outW;
+    }
+
+    private void scan(byte[] image, int width, int height, NccPatch patch, float[] result, Match best) {
+        int w = patch.getWidth();
+        int h = patch.getHeight();
+        int outW = width - w + 1;
+        int outH = height - h + 1;
+        int area = w * h;
+
+        double templMean = patch.getMean();
+        double templNorm = patch.getNorm();
+        if (templNorm * templNorm / area < DBL_EPSILON) {
+            // 常数模板：OpenCV 约定全部为1
+            if (result != null) {
+                Arrays.fill(result, 0, outW * outH, 1f);
+            }
+            if (best != null) {
+                best.set(0, 0, 1.0);
+            }
+            return;
+        }
+
+        // 像素一次性扩展为 int，内核的乘加不再需要逐次转换
+        int[] values = new int[width * height];
+        long[] sum = new long[(width + 1) * (height + 1)];
+        long[] sqsum = new long[(width + 1) * (height + 1)];
+        integral(image, width, height, values, sum, sqsum);
+
+        // 模板像素展开为一维偏移，内核只需一层循环
+        int[] offsets = new int[area];
+        for (int r = 0; r < h; r++) {
+            for (int c = 0; c < w; c++) {
+                offsets[r * w + c] = r * width + c;
+            }
+        }
+
+        int stride = width + 1;
+        int[] acc = new int[outW];
+        double invArea = 1.0 / area;
+        for (int y = 0; y < outH; y++) {
+            correlateRow(values, y * width, patch, offsets, outW, acc);
+
+            int top = y * stride;
+            int bottom = (y + h) * stride;
+            for (int x = 0; x < outW; x++) {
+                long s = sum[bottom + x + w] - sum[bottom + x] - sum[top + x + w] + sum[top + x];
+                long sq = sqsum[bottom + x + w] - sqsum[bottom + x] - sqsum[top + x + w] + sqsum[top + x];
+
+                double num = acc[x] - s * templMean;
+                double wndSum2 = sq;
+                double diff2 = Math.max(wndSum2 - (double) s * s * invArea, 0.0);
+                double t = diff2 <= Math.min(0.5, 10 * FLT_EPSILON * wndSum2) ? 0.0 : Math.sqrt(diff2) * templNorm;
+
+                if (Math.abs(num) < t) {
+                    num /= t;
+                } else if (Math.abs(num) < t * 1.125) {
+                    num = num > 0 ? 1 : -1;
+                } else {
+                    num = 0;
+                }
+
+                // 与 OpenCV 一样以 float 输出，保证比较最大值时的行为一致
+                float r = (float) num;
+                if (result != null) {
+                    result[y * outW + x] = r;
+                }
+                if (best != null && r > best.score) {
+                    best.set(x, y, r);
+                }
+            }
+        }
+    }
+
+    private static void integral(byte[] image, int width, int height, int[] values, long[] sum, long[] sqsum) {
+        int stride = width + 1;
+        for (int y = 0; y < height; y++) {
+            long rowSum = 0;
+            long rowSq = 0;
+            int src = y * width;
+            int prev = y * stride + 1;
+            int dst = prev + stride;
+            for (int x = 0; x < width; x++) {
+                int v = image[src + x] & 0xFF;
+                values[src + x] = v;
+                rowSum += v;
+                rowSq += v * v;
+                sum[dst + x] = sum[prev + x] + rowSum;
+                sqsum[dst + x] = sqsum[prev + x] + rowSq;
+            }
+        }
+    }
+
+    /**
+     * 最佳匹配位置
+     */
+    public static final class Match {
+        private int x;
+        private int y;
+        private double score = Double.NEGATIVE_INFINITY;
+
+        void set(int x, int y, double score) {
+            this.x = x;
+            this.y = y;
+            this.score = score;
+        }
+
+        /** 模板左上角 x */
+        public int getX() { return x; }
+        /** 模板左上角 y */
+        public int getY() { return y; }
+        /** 归一化相关系数 [-1, 1] */
+        public double getScore() { return score; }
+    }
+}
@@ -0,0 +1,106 @@
+package com.edge.vision.match;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.global.opencv_core;
+
+/**
+ * 归一化互相关的模板块
+ *
+ * 保存单通道8位像素及预先计算的均值和范数，匹配时只需计算目标窗口的统计量。
+ * 实例不可变，可在多个线程间共享。
+ * @author Coder建设
+ */
+public final class NccPatch {
+
+    /** 模板块最大像素数（保证 255*255*面积 不超出 int 累加范围） */
+    public static final int MAX_AREA = Integer.MAX_VALUE / (255 * 255);
+
+    private final byte[] pixels;
+    private final int[] values;  // 扩展为 int 的像素，供内核直接乘加
+    private final int width;
+    private final int height;
+    private final long sum;
+    private final double mean;
+    private final double norm;
+
+    /**
+     * 从像素数组创建模板块
+     *
+     * @param pixels 行优先的8位灰度像素（长度为 width*height，不复制）
+     * @param width 宽度
+     * @param height 高度
+     */
+    public NccPatch(byte[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("模板块尺寸必须大于0");
+        }
+        if ((long) width * height > MAX_AREA) {
+            throw new IllegalArgumentException("模板块过大: " + width + "x" + height);
+        }
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("像素数与尺寸不一致");
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+
+        this.values = new int[pixels.length];
+        long s = 0;
+        long sq = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            int v = pixels[i] & 0xFF;
+            values[i] = v;
+            s += v;
+            sq += v * v;
+        }
+        int area = width * height;
+        this.sum = s;
+        this.mean = (double) s / area;
+        // 中心化后的范数 sqrt(Σ(T-mean)^2)
+        this.norm = Math.sqrt(Math.max(0.0, sq - (double) s * s / area));
+    }
+
+    /**
+     * 从单通道8位 Mat 创建模板块（复制像素）
+     *
+     * @param gray 灰度图
+     * @return 模板块
+     */
+    public static NccPatch of(Mat gray) {
+        return new NccPatch(toBytes(gray), gray.cols(), gray.rows());
+    }
+
+    /**
+     * 将单通道8位 Mat（可以是子区域）复制为行优先的字节数组
+     *
+     * @param gray 灰度图
+     * @return 像素数组
+     */
+    public static byte[] toBytes(Mat gray) {
+        if (gray.type() != opencv_core.CV_8UC1) {
+            throw new IllegalArgumentException("只支持单通道8位图像");
+        }
+        int w = gray.cols();
+        int h = gray.rows();
+        byte[] data = new byte[w * h];
+        if (gray.isContinuous()) {
+            gray.data().get(data);
+        } else {
+            for (int y = 0; y < h; y++) {
+                gray.ptr(y).get(data, y * w, w);
+            }
+        }
+        return data;
+    }
+
+    /** 扩展为 int 的像素（调用方不得修改） */
+    int[] values() { return values; }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getArea() { return width * height; }
+    public long getSum() { return sum; }
+    public double getMean() { return mean; }
+    /** 中心化范数 sqrt(Σ(T-mean)^2) */
+    public double getNorm() { return norm; }
+}
@@ -0,0 +1,37 @@
+package com.edge.vision.match;
+
+import java.util.Arrays;
+
+/**
+ * 标量实现
+ *
+ * 内层循环对连续的输出位置做同一个模板像素的乘加，形式简单，
+ * C2 编译器在多数平台上可以自动向量化。
+ * @author Coder建设
+ */
+final class ScalarNccKernel extends NccKernel {
+
+    static final ScalarNccKernel INSTANCE = new ScalarNccKernel();
+
+    private ScalarNccKernel() {
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    protected void correlateRow(int[] image, int rowStart, NccPatch patch, int[] offsets,
+                                int outWidth, int[] acc) {
+        int[] templ = patch.values();
+        Arrays.fill(acc, 0, outWidth, 0);
+        for (int k = 0; k < templ.length; k++) {
+            int t = templ[k];
+            int base = rowStart + offsets[k];
+            for (int x = 0; x < outWidth; x++) {
+                acc[x] += t * image[base + x];
+            }
+        }
+    }
+}
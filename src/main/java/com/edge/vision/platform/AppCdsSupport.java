@@ -0,0 +1,296 @@
+package com.edge.vision.platform;
+
+import com.edge.vision.cache.ContentHash;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * AppCDS（应用类数据共享）归档辅助工具
+ *
+ * 生成用于创建和使用 SDK 类归档的 JVM 参数。归档需要在与生产环境相同的 JDK
+ * 和 classpath 下（classpath 只能包含 jar，不能是 classes 目录），通过一次训练运行生成，推荐用 {@code com.edge.vision.core.AnalyzerWarmup}
+ * 作为训练程序，使分析流程涉及的类全部进入归档。
+ *
+ * JDK 13 及以上（动态归档，一步完成）:
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=needle-sdk.jsa -cp app.jar com.edge.vision.core.AnalyzerWarmup template.png
+ * java -XX:SharedArchiveFile=needle-sdk.jsa -cp app.jar ...
+ * </pre>
+ *
+ * JDK 11/12（静态归档，先导出类列表再生成归档）:
+ * <pre>
+ * java -Xshare:off -XX:DumpLoadedClassList=needle-sdk.classlist -cp app.jar com.edge.vision.core.AnalyzerWarmup template.png
+ * java -Xshare:dump -XX:SharedClassListFile=needle-sdk.classlist -XX:SharedArchiveFile=needle-sdk.jsa -cp app.jar
+ * java -XX:SharedArchiveFile=needle-sdk.jsa -cp app.jar ...
+ * </pre>
+ *
+ * {@link #trainingArgs(Path)} 同时导出类列表（供 {@link DesktopOpenCVLoader.LoadMode#PRELOAD} 预加载），
+ * 训练程序调用 {@link #recordTrainingRun()} 在归档旁写出 .info 文件，记录生成归档的 JVM 版本和 classpath 哈希。
+ * {@link #isArchiveUsable(Path)} 据此拒绝过期或由其他 JVM 生成的归档。
+ * @author Coder建设
+ */
+public final class AppCdsSupport {
+
+    private static final String SHARED_ARCHIVE_OPTION = "-XX:SharedArchiveFile=";
+
+    /** 训练运行中标记归档路径的系统属性（由 {@link #trainingArgs(Path)} 设置） */
+    public static final String ARCHIVE_PROPERTY = "needle.cds.archive";
+
+    private static final String INFO_JVM = "jvm";
+    private static final String INFO_CLASSPATH = "classpath";
+
+    private AppCdsSupport() {
+    }
+
+    /**
+     * 当前 JDK 是否支持动态归档（-XX:ArchiveClassesAtExit，JDK 13+）
+     */
+    public static boolean supportsDynamicArchive() {
+        return Runtime.version().feature() >= 13;
+    }
+
+    /**
+     * 训练运行的 JVM 参数
+     * JDK 13+ 在退出时直接写出归档；JDK 11/12 只导出类列表，需再执行 {@link #dumpArgs(Path)}。
+     * 两种情况都导出类列表 {@link #classListFile(Path)}
+     *
+     * @param archive 归档文件路径
+     * @return JVM 参数
+     */
+    public static List<String> trainingArgs(Path archive) {
+        String classList = "-XX:DumpLoadedClassList=" + classListFile(archive);
+        String marker = "-D" + ARCHIVE_PROPERTY + "=" + archive;
+        if (supportsDynamicArchive()) {
+            return List.of("-XX:ArchiveClassesAtExit=" + archive, classList, marker);
+        }
+        return List.of("-Xshare:off", classList, marker);
+    }
+
+    /**
+     * 由类列表生成静态归档的 JVM 参数（仅 JDK 11/12 需要）
+     *
+     * @param archive 归档文件路径
+     * @return JVM 参数，支持动态归档的 JDK 返回空列表
+     */
+    public static List<String> dumpArgs(Path archive) {
+        if (supportsDynamicArchive()) {
+            return List.of();
+        }
+        return List.of("-Xshare:dump", "-XX:SharedClassListFile=" + classListFile(archive),
+            SHARED_ARCHIVE_OPTION + archive);
+    }
+
+    /**
+     * 使用归档启动的 JVM 参数（不检查归档，需要检查时用 {@link #usableRuntimeArgs(Path)}）
+     * 归档不可用（JDK 或 classpath 不匹配）时 JVM 会忽略归档正常启动
+     *
+     * @param archive 归档文件路径
+     * @return JVM 参数
+     */
+    public static List<String> runtimeArgs(Path archive) {
+        return List.of(SHARED_ARCHIVE_OPTION + archive, "-Xshare:auto");
+    }
+
+    /**
+     * 归档可供当前 JVM 使用时返回 {@link #runtimeArgs(Path)}，否则返回空列表
+     *
+     * @param archive 归档文件路径
+     * @return JVM 参数
+     * @see #isArchiveUsable(Path)
+     */
+    public static List<String> usableRuntimeArgs(Path archive) {
+        return isArchiveUsable(archive) ? runtimeArgs(archive) : List.of();
+    }
+
+    /**
+     * 训练运行导出的类列表文件路径
+     */
+    public static Path classListFile(Path archive) {
+        return sibling(archive, ".classlist");
+    }
+
+    /**
+     * 记录生成归档的 JVM 和 classpath 的信息文件路径
+     */
+    public static Path infoFile(Path archive) {
+        return sibling(archive, ".info");
+    }
+
+    private static Path sibling(Path archive, String suffix) {
+        String name = archive.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return archive.resolveSibling(base + suffix);
+    }
+
+    /**
+     * 训练程序中调用：按 {@value #ARCHIVE_PROPERTY} 属性写出归档信息文件
+     *
+     * @return 是否处于训练运行中（属性已设置）
+     */
+    public static boolean recordTrainingRun() {
+        String archive = System.getProperty(ARCHIVE_PROPERTY);
+        if (archive == null) {
+            return false;
+        }
+        writeArchiveInfo(Path.of(archive));
+        return true;
+    }
+
+    /**
+     * 以当前 JVM 版本和 classpath 写出归档信息文件
+     *
+     * @param archive 归档文件路径
+     * @throws RuntimeException 如果写入失败
+     */
+    public static void writeArchiveInfo(Path archive) {
+        Properties info = new Properties();
+        info.setProperty(INFO_JVM, jvmFingerprint());
+        info.setProperty(INFO_CLASSPATH, classPathFingerprint());
+        Path file = infoFile(archive);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                info.store(writer, "AppCDS archive info");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("无法写入归档信息: " + file, e);
+        }
+    }
+
+    /**
+     * 归档是否可供当前 JVM 使用：归档存在，且信息文件中的 JVM 版本和 classpath 哈希与当前一致
+     * （没有信息文件的归档视为来源不明，不使用）
+     *
+     * @param archive 归档文件路径
+     */
+    public static boolean isArchiveUsable(Path archive) {
+        Path file = infoFile(archive);
+        if (!Files.isRegularFile(archive) || !Files.isRegularFile(file)) {
+            return false;
+        }
+        Properties info = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            info.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+        return jvmFingerprint().equals(info.getProperty(INFO_JVM))
+            && classPathFingerprint().equals(info.getProperty(INFO_CLASSPATH));
+    }
+
+    /**
+     * 当前 JVM 的标识（实现名称和完整版本，归档只能由同一 JDK 构建使用）
+     */
+    static String jvmFingerprint() {
+        return System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version");
+    }
+
+    /**
+     * 当前 classpath 的哈希：各元素的路径、大小和修改时间（与 JVM 校验归档时比较的内容一致）
+     */
+    static String classPathFingerprint() {
+        StringBuilder sb = new StringBuilder();
+        for (String element : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            File file = new File(element);
+            sb.append(file.getAbsolutePath()).append('|').append(file.length()).append('|')
+                .append(file.lastModified()).append('\n');
+        }
+        return Long.toHexString(ContentHash.hash64(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 按类列表加载类（只加载不初始化，不触发原生库加载）
+     * 类列表为 -XX:DumpLoadedClassList 的输出格式，无法加载的类（如 lambda 代理类）跳过
+     *
+     * @param classList 类列表文件
+     * @param loader 类加载器
+     * @return 成功加载的类数
+     * @throws RuntimeException 如果类列表无法读取
+     */
+    public static int preloadClasses(Path classList, ClassLoader loader) {
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(classList, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '@') {
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                String name = (space > 0 ? line.substring(0, space) : line).replace('/', '.');
+                if (preloadClass(name, loader)) {
+                    loaded++;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("无法读取类列表: " + classList, e);
+        }
+        return loaded;
+    }
+
+    static boolean preloadClass(String name, ClassLoader loader) {
+        try {
+            Class.forName(name, false, loader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 获取当前 JVM 启动时指定的 AppCDS 归档
+     *
+     * @return 归档路径，未指定、不可用（见 {@link #isArchiveUsable(Path)}）或已通过 -Xshare:off 禁用时返回null
+     */
+    public static String getActiveArchive() {
+        List<String> args;
+        try {
+            args = new ArrayList<>(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        } catch (SecurityException e) {
+            return null;
+        }
+        if (args.contains("-Xshare:off") || args.contains("-Xshare:dump")) {
+            return null;
+        }
+        String archive = null;
+        for (String arg : args) {
+            if (arg.startsWith(SHARED_ARCHIVE_OPTION)) {
+                archive = arg.substring(SHARED_ARCHIVE_OPTION.length());
+            }
+        }
+        return archive != null && isArchiveUsable(Path.of(archive)) ? archive : null;
+    }
+
+    /**
+     * 打印生成和使用归档的命令行参数
+     *
+     * @param args [归档文件路径]
+     */
+    public static void main(String[] args) {
+        Path archive = Path.of(args.length > 0 ? args[0] : "needle-sdk.jsa");
+        System.out.println("JDK " + Runtime.version().feature()
+            + (supportsDynamicArchive() ? " (dynamic archive)" : " (static archive)"));
+        System.out.println("training: " + String.join(" ", trainingArgs(archive)));
+        if (!dumpArgs(archive).isEmpty()) {
+            System.out.println("dump:     " + String.join(" ", dumpArgs(archive)));
+        }
+        System.out.println("runtime:  " + String.join(" ", runtimeArgs(archive)));
+        System.out.println("usable:   " + isArchiveUsable(archive));
+        String active = getActiveArchive();
+        System.out.println("active:   " + (active != null ? active : "none"));
+    }
+}
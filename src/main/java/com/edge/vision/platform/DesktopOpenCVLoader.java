@@ -1,12 +1,28 @@
 package com.edge.vision.platform;
 
+import org.bytedeco.javacpp.Loader;
 import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.global.opencv_imgproc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * 桌面平台OpenCV加载器
  * 支持Windows、Mac、Linux
  *
  * 使用 JavaCV，原生库自动加载，无需手动配置
+ *
+ * 容器中横向扩容时可使用 {@link LoadMode#PRELOAD} 模式：只加载 SDK 实际使用的
+ * core/imgproc/imgcodecs 三个模块，并复用已解压的 JavaCPP 缓存目录
+ * （例如挂载的持久卷或镜像中预先解压的目录），避免每次启动重复解压原生库。
+ * 同时按训练运行导出的类列表（{@link AppCdsSupport#classListFile(Path)}）预加载类，
+ * 没有类列表时预加载 SDK 分析路径上的核心类。
  * @author Coder建设
  */
 public class DesktopOpenCVLoader implements OpenCVLoader {
@@ -14,10 +30,64 @@ public class DesktopOpenCVLoader implements OpenCVLoader {
     private static volatile boolean loaded = false;
     private static final Object lock = new Object();
 
+    /**
+     * JavaCPP 原生库缓存目录的系统属性
+     */
+    public static final String CACHE_DIR_PROPERTY = "org.bytedeco.javacpp.cachedir";
+
+    /**
+     * PRELOAD 模式使用的类列表文件的系统属性，未设置时使用当前 AppCDS 归档旁的类列表
+     */
+    public static final String CLASS_LIST_PROPERTY = "needle.preload.classlist";
+
+    /**
+     * 没有类列表时预加载的类（分析路径上的 SDK 和 JavaCV 核心类）
+     */
+    private static final String[] DEFAULT_PRELOAD_CLASSES = {
+        "com.edge.vision.core.NeedleLengthAnalyzer",
+        "com.edge.vision.core.AnalysisTemplate",
+        "com.edge.vision.core.MeasurementResult",
+        "com.edge.vision.utils.ImageUtils",
+        "org.bytedeco.javacpp.BytePointer",
+        "org.bytedeco.javacpp.indexer.UByteIndexer",
+        "org.bytedeco.javacpp.indexer.FloatIndexer",
+        "org.bytedeco.opencv.opencv_core.Mat",
+        "org.bytedeco.opencv.opencv_core.MatVector",
+        "org.bytedeco.opencv.opencv_core.Point",
+        "org.bytedeco.opencv.opencv_core.Rect",
+        "org.bytedeco.opencv.opencv_core.Size",
+        "org.bytedeco.opencv.opencv_core.Scalar"
+    };
+
+    /**
+     * 加载模式
+     */
+    public enum LoadMode {
+        /** 访问 opencv_core 触发加载，其余模块在首次使用时延迟加载 */
+        DEFAULT,
+        /** 启动时一次性预加载 core/imgproc/imgcodecs 和类列表中的类，不触碰其他模块 */
+        PRELOAD
+    }
+
     private final PlatformDetector.Platform platform;
+    private final LoadMode mode;
+    private final Path cacheDir;
+    private volatile StartupTiming startupTiming;
 
     public DesktopOpenCVLoader() {
+        this(LoadMode.DEFAULT, null);
+    }
+
+    /**
+     * 创建指定加载模式的加载器
+     *
+     * @param mode 加载模式
+     * @param cacheDir JavaCPP 缓存目录，为null时使用 JavaCPP 默认目录（~/.javacpp/cache）
+     */
+    public DesktopOpenCVLoader(LoadMode mode, Path cacheDir) {
         this.platform = PlatformDetector.detect();
+        this.mode = mode;
+        this.cacheDir = cacheDir;
     }
 
     /**
@@ -42,13 +112,49 @@ public class DesktopOpenCVLoader implements OpenCVLoader {
             }
 
             try {
-                // JavaCV 自动加载原生库
-                // 只需要访问 OpenCV 类即可触发加载
-                String version = opencv_core.CV_VERSION;
+                long start = System.nanoTime();
+                long jvmUptime = StartupTiming.jvmUptimeMs();
+
+                boolean cacheReused = prepareCacheDir(cacheDir);
+                long cacheMs = (System.nanoTime() - start) / 1_000_000;
+
+                Map<String, Long> moduleMs = new LinkedHashMap<>();
+                String classList = null;
+                int preloadedClasses = 0;
+                long classPreloadMs = 0;
+                if (mode == LoadMode.PRELOAD) {
+                    long t0 = System.nanoTime();
+                    Path listFile = preloadClassList();
+                    ClassLoader classLoader = DesktopOpenCVLoader.class.getClassLoader();
+                    if (listFile != null) {
+                        classList = listFile.toString();
+                        preloadedClasses = AppCdsSupport.preloadClasses(listFile, classLoader);
+                    } else {
+                        for (String name : DEFAULT_PRELOAD_CLASSES) {
+                            if (AppCdsSupport.preloadClass(name, classLoader)) {
+                                preloadedClasses++;
+                            }
+                        }
+                    }
+                    classPreloadMs = (System.nanoTime() - t0) / 1_000_000;
+
+                    moduleMs.put("core", timeLoad(opencv_core.class));
+                    moduleMs.put("imgproc", timeLoad(opencv_imgproc.class));
+                    moduleMs.put("imgcodecs", timeLoad(opencv_imgcodecs.class));
+                } else {
+                    // JavaCV 自动加载原生库
+                    // 只需要访问 OpenCV 类即可触发加载
+                    long t0 = System.nanoTime();
+                    String version = opencv_core.CV_VERSION;
+                    moduleMs.put("core", (System.nanoTime() - t0) / 1_000_000);
+                }
 
                 loaded = true;
+                startupTiming = new StartupTiming(mode, jvmUptime, cacheDirPath(), cacheReused,
+                    cacheMs, moduleMs, classList, preloadedClasses, classPreloadMs,
+                    (System.nanoTime() - start) / 1_000_000);
                 System.out.println("JavaCV OpenCV loaded on " + getPlatformName() +
-                    ", version: " + version);
+                    ", version: " + opencv_core.CV_VERSION + ", mode: " + mode);
 
             } catch (Exception e) {
                 throw new RuntimeException("JavaCV OpenCV加载失败: " + e.getMessage(), e);
@@ -56,6 +162,76 @@ public class DesktopOpenCVLoader implements OpenCVLoader {
         }
     }
 
+    /**
+     * PRELOAD 模式使用的类列表：系统属性指定的文件，否则为当前可用 AppCDS 归档旁的类列表
+     *
+     * @return 类列表文件，没有时返回null
+     */
+    private static Path preloadClassList() {
+        String configured = System.getProperty(CLASS_LIST_PROPERTY);
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        String archive = AppCdsSupport.getActiveArchive();
+        if (archive != null) {
+            Path classList = AppCdsSupport.classListFile(Path.of(archive));
+            if (Files.isRegularFile(classList)) {
+                return classList;
+            }
+        }
+        return null;
+    }
+
+    private static long timeLoad(Class<?> module) {
+        long t0 = System.nanoTime();
+        Loader.load(module);
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+
+    /**
+     * 准备 JavaCPP 缓存目录
+     * 命令行已通过 -D 指定缓存目录时以命令行为准；未指定目录时检查 JavaCPP 默认目录
+     *
+     * @param dir 缓存目录，可为null
+     * @return true 如果目录中已有解压好的原生库（本次启动无需重新解压）
+     */
+    private static boolean prepareCacheDir(Path dir) throws IOException {
+        String configured = System.getProperty(CACHE_DIR_PROPERTY);
+        Path effective;
+        if (configured != null) {
+            effective = Path.of(configured);
+        } else if (dir != null) {
+            effective = dir;
+            System.setProperty(CACHE_DIR_PROPERTY, dir.toAbsolutePath().toString());
+        } else {
+            effective = Path.of(System.getProperty("user.home"), ".javacpp", "cache");
+        }
+        if (!Files.isDirectory(effective)) {
+            Files.createDirectories(effective);
+            return false;
+        }
+        try (Stream<Path> entries = Files.list(effective)) {
+            return entries.findAny().isPresent();
+        }
+    }
+
+    private static String cacheDirPath() {
+        try {
+            return Loader.getCacheDir().getAbsolutePath();
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * 获取加载阶段的耗时统计
+     *
+     * @return 耗时统计，未加载或由其他实例加载时返回null
+     */
+    public StartupTiming getStartupTiming() {
+        return startupTiming;
+    }
+
     @Override
     public boolean isLoaded() {
         return loaded;
@@ -0,0 +1,455 @@
+package com.edge.vision.platform;
+
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SDK 本地内存统计与泄漏检测
+ *
+ * JavaCPP 的 maxPhysicalBytes 只会在本地内存超限时触发 GC，看不出是谁占用的内存。
+ * 这里按来源统计 SDK 自己持有的 Mat 数据：
+ * <ul>
+ *   <li>模板 - 每个模板的图像、灰度图和针尖特征块，模板关闭时扣除</li>
+ *   <li>分析 - 每次进行中的分析在一个 {@link AnalysisScope}（{@link PointerScope}）内执行，
+ *       其中新建的 Mat 在分析结束时确定性释放；在 matchTemplate 之后采样当前占用</li>
+ * </ul>
+ * 调试模式（系统属性 {@value #DEBUG_PROPERTY}=true 或 {@link #setDebug(boolean)}）下记录分配栈：
+ * 分析结束时仍未显式关闭的 Mat、未关闭就被回收的模板会连同分配栈记入 {@link #getLeaks()}。
+ * 非调试模式下同样计数，但不记录分配栈。检测到泄漏时回调 {@link #setLeakListener(LeakListener)} 设置的监听器。
+ *
+ * 统计的是 Mat 数据区大小（total × elemSize，子矩阵视图不重复计算），不含 OpenCV 内部缓冲。
+ * @author Coder建设
+ */
+public final class NativeMemoryTracker {
+
+    public static final String DEBUG_PROPERTY = "needle.memory.debug";
+
+    private static final int MAX_LEAKS = 256;
+    private static final NativeMemoryTracker DEFAULT = new NativeMemoryTracker();
+
+    private volatile boolean debug = Boolean.getBoolean(DEBUG_PROPERTY);
+    private volatile LeakListener leakListener;
+
+    private final Map<String, AtomicLong> templateBytes = new ConcurrentHashMap<>();
+    private final AtomicLong templateTotal = new AtomicLong();
+    private final AtomicLong analysisTotal = new AtomicLong();
+    private final AtomicLong peakBytes = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final Set<AnalysisScope> active = ConcurrentHashMap.newKeySet();
+
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final Set<TemplateHandle> liveTemplates = ConcurrentHashMap.newKeySet();
+    private final Deque<Leak> leaks = new ArrayDeque<>();
+
+    private NativeMemoryTracker() {
+    }
+
+    public static NativeMemoryTracker getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 设置调试模式（记录分配栈）
+     */
+    public void setDebug(boolean debug) {
+        this.debug = debug;
+    }
+
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * 泄漏监听器
+     * 在检测到泄漏的线程中回调（分析线程或查询统计的线程），应尽快返回
+     */
+    @FunctionalInterface
+    public interface LeakListener {
+
+        /**
+         * 检测到一次泄漏
+         *
+         * @param leak 泄漏信息（调试模式下含分配栈）
+         */
+        void onLeak(Leak leak);
+    }
+
+    /**
+     * 设置泄漏监听器
+     *
+     * @param listener 监听器，为null时只记入 {@link #getLeaks()}
+     */
+    public void setLeakListener(LeakListener listener) {
+        this.leakListener = listener;
+    }
+
+    /**
+     * Mat 数据区大小
+     *
+     * @return 字节数，空 Mat、已释放的 Mat 和子矩阵视图返回0
+     */
+    public static long sizeOf(Mat mat) {
+        if (mat == null || mat.isNull() || mat.empty() || mat.isSubmatrix()) {
+            return 0;
+        }
+        return mat.total() * mat.elemSize();
+    }
+
+    // ---------- 模板 ----------
+
+    /**
+     * 登记模板持有的本地内存
+     *
+     * @param owner 模板对象（未关闭就被回收时记为泄漏）
+     * @param templateId 模板ID
+     * @param bytes 字节数
+     * @return 句柄，模板关闭时调用 {@link TemplateHandle#release()}
+     */
+    public TemplateHandle registerTemplate(Object owner, String templateId, long bytes) {
+        pollCollected();
+        TemplateHandle handle = new TemplateHandle(owner, this, templateId, bytes,
+            debug ? new Throwable("模板分配位置") : null);
+        liveTemplates.add(handle);
+        templateBytes.computeIfAbsent(templateId, k -> new AtomicLong()).addAndGet(bytes);
+        updatePeak(templateTotal.addAndGet(bytes) + analysisTotal.get());
+        return handle;
+    }
+
+    private void releaseTemplate(TemplateHandle handle) {
+        liveTemplates.remove(handle);
+        AtomicLong bytes = templateBytes.get(handle.templateId);
+        if (bytes != null && bytes.addAndGet(-handle.bytes) == 0) {
+            templateBytes.remove(handle.templateId, bytes);
+        }
+        templateTotal.addAndGet(-handle.bytes);
+    }
+
+    private void pollCollected() {
+        Reference<?> ref;
+        while ((ref = collected.poll()) != null) {
+            TemplateHandle handle = (TemplateHandle) ref;
+            if (handle.markReleased()) {
+                releaseTemplate(handle);
+                addLeak(new Leak("模板未关闭即被回收: " + handle.templateId, handle.bytes, handle.origin));
+            }
+        }
+    }
+
+    /**
+     * 按模板ID统计的模板内存
+     *
+     * @return 模板ID → 字节数（按ID排序）
+     */
+    public Map<String, Long> getTemplateUsage() {
+        pollCollected();
+        Map<String, Long> usage = new TreeMap<>();
+        templateBytes.forEach((id, bytes) -> usage.put(id, bytes.get()));
+        return usage;
+    }
+
+    // ---------- 分析 ----------
+
+    /**
+     * 为一次分析打开作用域（当前线程），在其中新建的 Mat 在 close 时释放
+     *
+     * @param templateId 模板ID
+     * @param inputBytes 作用域外分配的输入图像字节数（计入本次分析的占用）
+     */
+    public AnalysisScope openAnalysis(String templateId, long inputBytes) {
+        AnalysisScope scope = new AnalysisScope(this, templateId, inputBytes);
+        active.add(scope);
+        scope.sample();
+        return scope;
+    }
+
+    /**
+     * 对当前线程最内层的分析作用域采样（不在分析中时无操作）
+     * 在分配了大块临时 Mat 之后、释放之前调用
+     */
+    public static void sample() {
+        PointerScope scope = PointerScope.getInnerScope();
+        if (scope instanceof AnalysisScope) {
+            ((AnalysisScope) scope).sample();
+        }
+    }
+
+    /**
+     * 进行中的分析
+     */
+    public List<AnalysisUsage> getActiveAnalyses() {
+        List<AnalysisUsage> list = new ArrayList<>();
+        for (AnalysisScope scope : active) {
+            list.add(new AnalysisUsage(scope.templateId, scope.threadName, scope.current, scope.peak));
+        }
+        return list;
+    }
+
+    /**
+     * 当前占用：模板 + 进行中的分析（以最近一次采样为准）
+     */
+    public long getLiveBytes() {
+        pollCollected();
+        return templateTotal.get() + analysisTotal.get();
+    }
+
+    /**
+     * 峰值占用（自启动或上次 {@link #resetPeak()} 以来）
+     */
+    public long getPeakBytes() {
+        return peakBytes.get();
+    }
+
+    public void resetPeak() {
+        peakBytes.set(getLiveBytes());
+    }
+
+    private void updatePeak(long live) {
+        long peak;
+        while (live > (peak = peakBytes.get()) && !peakBytes.compareAndSet(peak, live)) {
+            // 重试
+        }
+    }
+
+    // ---------- 泄漏 ----------
+
+    /**
+     * 检测到的泄漏（最近 {@value #MAX_LEAKS} 条）
+     */
+    public List<Leak> getLeaks() {
+        pollCollected();
+        synchronized (leaks) {
+            return Collections.unmodifiableList(new ArrayList<>(leaks));
+        }
+    }
+
+    /**
+     * 检测到的泄漏总数
+     */
+    public long getLeakCount() {
+        pollCollected();
+        return leakCount.get();
+    }
+
+    public void clearLeaks() {
+        synchronized (leaks) {
+            leaks.clear();
+        }
+    }
+
+    private void addLeak(Leak leak) {
+        leakCount.incrementAndGet();
+        synchronized (leaks) {
+            if (leaks.size() == MAX_LEAKS) {
+                leaks.removeFirst();
+            }
+            leaks.addLast(leak);
+        }
+        LeakListener listener = leakListener;
+        if (listener != null) {
+            listener.onLeak(leak);
+        }
+    }
+
+    /**
+     * 一次分析的作用域
+     * 只接管 Mat（其他本地对象仍由 GC 释放），结束时释放其中新建且未关闭的 Mat
+     */
+    public static final class AnalysisScope extends PointerScope {
+
+        /** 接管的类型（无法直接创建带通配符的泛型数组；数组只含 Mat.class，转换安全） */
+        @SuppressWarnings("unchecked")
+        private static final Class<? extends Pointer>[] SCOPED_TYPES =
+            (Class<? extends Pointer>[]) new Class<?>[] { Mat.class };
+
+        private final NativeMemoryTracker tracker;
+        private final String templateId;
+        private final String threadName = Thread.currentThread().getName();
+        private final long inputBytes;
+        private final List<Mat> mats = new ArrayList<>();
+        private final List<Throwable> origins;
+        private volatile long current;
+        private volatile long peak;
+
+        private AnalysisScope(NativeMemoryTracker tracker, String templateId, long inputBytes) {
+            super(SCOPED_TYPES);
+            this.tracker = tracker;
+            this.templateId = templateId;
+            this.inputBytes = inputBytes;
+            this.origins = tracker.debug ? new ArrayList<>() : null;
+        }
+
+        @Override
+        public PointerScope attach(Pointer p) {
+            super.attach(p);
+            if (p instanceof Mat) {
+                mats.add((Mat) p);
+                if (origins != null) {
+                    origins.add(new Throwable("Mat 分配位置"));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * 按作用域内 Mat 的当前大小更新占用和峰值
+         */
+        void sample() {
+            long bytes = inputBytes;
+            for (Mat mat : mats) {
+                bytes += sizeOf(mat);
+            }
+            long delta = bytes - current;
+            current = bytes;
+            if (bytes > peak) {
+                peak = bytes;
+            }
+            long analyses = tracker.analysisTotal.addAndGet(delta);
+            tracker.updatePeak(tracker.templateTotal.get() + analyses);
+        }
+
+        /**
+         * 本次分析的峰值占用（采样值）
+         */
+        public long getPeakBytes() {
+            return peak;
+        }
+
+        @Override
+        public void close() {
+            try {
+                for (int i = 0; i < mats.size(); i++) {
+                    Mat mat = mats.get(i);
+                    long bytes = sizeOf(mat);
+                    if (bytes > 0) {
+                        tracker.addLeak(new Leak("分析结束时 Mat 未关闭 (" + mat.rows() + "x" + mat.cols()
+                            + ", 模板 " + templateId + ")", bytes, origins != null ? origins.get(i) : null));
+                    }
+                }
+                tracker.analysisTotal.addAndGet(-current);
+                current = 0;
+                tracker.active.remove(this);
+            } finally {
+                mats.clear();
+                super.close();
+            }
+        }
+    }
+
+    /**
+     * 模板内存句柄
+     */
+    public static final class TemplateHandle extends PhantomReference<Object> {
+
+        private final NativeMemoryTracker tracker;
+        private final String templateId;
+        private final long bytes;
+        private final Throwable origin;
+        private boolean released;
+
+        private TemplateHandle(Object owner, NativeMemoryTracker tracker, String templateId,
+                               long bytes, Throwable origin) {
+            super(owner, tracker.collected);
+            this.tracker = tracker;
+            this.templateId = templateId;
+            this.bytes = bytes;
+            this.origin = origin;
+        }
+
+        private synchronized boolean markReleased() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            return true;
+        }
+
+        /**
+         * 模板关闭（可重复调用）
+         */
+        public void release() {
+            if (markReleased()) {
+                tracker.releaseTemplate(this);
+            }
+            clear();
+        }
+    }
+
+    /**
+     * 进行中的分析的占用
+     */
+    public static final class AnalysisUsage {
+        private final String templateId;
+        private final String threadName;
+        private final long liveBytes;
+        private final long peakBytes;
+
+        AnalysisUsage(String templateId, String threadName, long liveBytes, long peakBytes) {
+            this.templateId = templateId;
+            this.threadName = threadName;
+            this.liveBytes = liveBytes;
+            this.peakBytes = peakBytes;
+        }
+
+        public String getTemplateId() { return templateId; }
+        public String getThreadName() { return threadName; }
+        public long getLiveBytes() { return liveBytes; }
+        public long getPeakBytes() { return peakBytes; }
+
+        @Override
+        public String toString() {
+            return String.format("AnalysisUsage{template=%s, thread=%s, live=%s, peak=%s}",
+                templateId, threadName, Pointer.formatBytes(liveBytes), Pointer.formatBytes(peakBytes));
+        }
+    }
+
+    /**
+     * 泄漏记录
+     */
+    public static final class Leak {
+        private final String description;
+        private final long bytes;
+        private final Throwable origin;
+
+        Leak(String description, long bytes, Throwable origin) {
+            this.description = description;
+            this.bytes = bytes;
+            this.origin = origin;
+        }
+
+        public String getDescription() { return description; }
+        public long getBytes() { return bytes; }
+
+        /**
+         * 分配栈（只在调试模式下记录，否则为null）
+         */
+        public Throwable getOrigin() { return origin; }
+
+        @Override
+        public String toString() {
+            String text = description + ", " + Pointer.formatBytes(bytes);
+            if (origin == null) {
+                return text;
+            }
+            StringWriter stack = new StringWriter();
+            origin.printStackTrace(new PrintWriter(stack));
+            return text + "\n" + stack;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.edge.vision.platform;
 
+import org.bytedeco.opencv.global.opencv_core;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -13,6 +17,13 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * 
  * // Android平台
  * OpenCVInitializer.initialize(context);
+ *
+ * // 批量处理：每个核心一个工作线程，OpenCV 内部单线程
+ * OpenCVInitializer.initialize(ThreadingPolicy.throughput());
+ *
+ * // 容器快速启动：只预加载所需模块，复用已解压的原生库缓存
+ * OpenCVInitializer.initializePreloaded(Paths.get("/opt/javacpp-cache"));
+ * System.out.println(OpenCVInitializer.getStartupTiming());
  * </pre>
  * @author Coder建设
  */
@@ -21,6 +32,9 @@ public class OpenCVInitializer {
     private static final AtomicBoolean initialized = new AtomicBoolean(false);
     private static OpenCVLoader loader = null;
     private static volatile Exception lastError = null;
+    private static volatile ThreadingPolicy threadingPolicy = null;
+    private static ExecutorService workerExecutor = null;
+    private static volatile StartupTiming startupTiming = null;
     
     /**
      * 初始化OpenCV（桌面平台）
@@ -44,19 +58,139 @@ public class OpenCVInitializer {
                 return;
             }
             
-            try {
-                loader = new DesktopOpenCVLoader();
-                loader.load();
-                initialized.set(true);
-                System.out.println("OpenCV initialized on " + loader.getPlatformName() + 
-                    ", version: " + loader.getOpenCVVersion());
-            } catch (Exception e) {
-                lastError = e;
-                throw new RuntimeException("OpenCV初始化失败: " + e.getMessage(), e);
+            loadDesktop(new DesktopOpenCVLoader());
+        }
+    }
+
+    /**
+     * 快速启动初始化（桌面平台）
+     * 只预加载 SDK 使用的 core/imgproc/imgcodecs 模块，并复用指定的 JavaCPP 缓存目录；
+     * 目录中已有解压好的原生库时跳过解压。配合 {@link AppCdsSupport} 生成的类归档可进一步缩短启动时间
+     *
+     * @param cacheDir JavaCPP 缓存目录，为null时使用默认目录
+     * @throws RuntimeException 如果初始化失败
+     */
+    public static void initializePreloaded(Path cacheDir) {
+        if (initialized.get()) {
+            return;
+        }
+
+        if (PlatformDetector.detect() == PlatformDetector.Platform.ANDROID) {
+            throw new IllegalStateException(
+                "Android平台需要使用 initialize(Context context) 方法");
+        }
+
+        synchronized (OpenCVInitializer.class) {
+            if (initialized.get()) {
+                return;
             }
+            loadDesktop(new DesktopOpenCVLoader(DesktopOpenCVLoader.LoadMode.PRELOAD, cacheDir));
+        }
+    }
+
+    private static void loadDesktop(DesktopOpenCVLoader desktopLoader) {
+        try {
+            loader = desktopLoader;
+            loader.load();
+            startupTiming = desktopLoader.getStartupTiming();
+            initialized.set(true);
+            System.out.println("OpenCV initialized on " + loader.getPlatformName() + 
+                ", version: " + loader.getOpenCVVersion());
+        } catch (Exception e) {
+            lastError = e;
+            throw new RuntimeException("OpenCV初始化失败: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * 获取启动耗时统计
+     *
+     * @return 耗时统计；未初始化或原生库已在本次初始化之前加载时返回null
+     */
+    public static StartupTiming getStartupTiming() {
+        return startupTiming;
+    }
     
+    /**
+     * 初始化OpenCV并应用线程策略（桌面平台）
+     *
+     * @param policy 线程策略
+     * @throws RuntimeException 如果初始化失败
+     */
+    public static void initialize(ThreadingPolicy policy) {
+        initialize();
+        applyThreadingPolicy(policy);
+    }
+
+    /**
+     * 应用线程策略
+     * 可在初始化后调用以切换策略；已创建的共享工作线程池会被关闭并按新策略重建
+     *
+     * @param policy 线程策略
+     */
+    public static void applyThreadingPolicy(ThreadingPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("线程策略不能为空");
+        }
+        ensureInitialized();
+        synchronized (OpenCVInitializer.class) {
+            policy.apply();
+            threadingPolicy = policy;
+            if (workerExecutor != null) {
+                workerExecutor.shutdown();
+                workerExecutor = null;
+            }
+            System.out.println("Threading policy applied: " + describeThreading());
+        }
+    }
+
+    /**
+     * 获取当前线程策略
+     *
+     * @return 线程策略，未设置时返回null
+     */
+    public static ThreadingPolicy getThreadingPolicy() {
+        return threadingPolicy;
+    }
+
+    /**
+     * 获取按当前线程策略创建的共享工作线程池
+     * 未设置策略时按 {@link ThreadingPolicy#openCVDefault()} 创建
+     *
+     * @return 共享工作线程池
+     */
+    public static ExecutorService getWorkerExecutor() {
+        synchronized (OpenCVInitializer.class) {
+            if (workerExecutor == null) {
+                ThreadingPolicy policy = threadingPolicy != null ? threadingPolicy : ThreadingPolicy.openCVDefault();
+                workerExecutor = policy.newWorkerExecutor();
+            }
+            return workerExecutor;
+        }
+    }
+
+    /**
+     * 报告实际生效的线程配置
+     *
+     * @return 配置描述
+     */
+    public static String describeThreading() {
+        ThreadingPolicy policy = threadingPolicy;
+        StringBuilder sb = new StringBuilder();
+        sb.append("policy=").append(policy != null ? policy.getName() : "none");
+        sb.append(", cpus=").append(Runtime.getRuntime().availableProcessors());
+        sb.append(", workerThreads=").append(policy != null
+            ? policy.getWorkerThreads() : Runtime.getRuntime().availableProcessors());
+        if (initialized.get()) {
+            sb.append(", opencvThreads=").append(opencv_core.getNumThreads());
+            sb.append(", opencvCpus=").append(opencv_core.getNumberOfCPUs());
+            sb.append(", useOptimized=").append(opencv_core.useOptimized());
+        } else {
+            sb.append(", opencv=not initialized");
+        }
+        return sb.toString();
+    }
+
     /**
      * 初始化OpenCV（指定原生库路径，桌面平台）
      * 
@@ -74,8 +208,10 @@ public class OpenCVInitializer {
             }
             
             try {
-                loader = new DesktopOpenCVLoader(nativeLibPath);
+                DesktopOpenCVLoader desktopLoader = new DesktopOpenCVLoader(nativeLibPath);
+                loader = desktopLoader;
                 loader.load();
+                startupTiming = desktopLoader.getStartupTiming();
                 initialized.set(true);
                 System.out.println("OpenCV initialized from path: " + nativeLibPath);
             } catch (Exception e) {
@@ -196,6 +332,12 @@ public class OpenCVInitializer {
             initialized.set(false);
             loader = null;
             lastError = null;
+            threadingPolicy = null;
+            startupTiming = null;
+            if (workerExecutor != null) {
+                workerExecutor.shutdown();
+                workerExecutor = null;
+            }
         }
     }
     
@@ -0,0 +1,76 @@
+package com.edge.vision.platform;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * OpenCV 启动阶段耗时统计
+ *
+ * 记录 JVM 启动到开始加载的时间（主要是类加载，AppCDS 可缩短）、
+ * 缓存目录准备耗时、各原生模块的加载耗时以及 PRELOAD 模式下的类预加载情况。
+ * 通过 {@link OpenCVInitializer#getStartupTiming()} 获取。
+ * @author Coder建设
+ */
+public final class StartupTiming {
+
+    private final DesktopOpenCVLoader.LoadMode mode;
+    private final long jvmUptimeAtLoadMs;
+    private final String cacheDir;
+    private final boolean cacheReused;
+    private final long cachePrepareMs;
+    private final Map<String, Long> moduleLoadMs;
+    private final String classList;
+    private final int preloadedClasses;
+    private final long classPreloadMs;
+    private final long totalMs;
+    private final String appCdsArchive;
+
+    StartupTiming(DesktopOpenCVLoader.LoadMode mode, long jvmUptimeAtLoadMs, String cacheDir,
+                  boolean cacheReused, long cachePrepareMs, Map<String, Long> moduleLoadMs,
+                  String classList, int preloadedClasses, long classPreloadMs, long totalMs) {
+        this.mode = mode;
+        this.jvmUptimeAtLoadMs = jvmUptimeAtLoadMs;
+        this.cacheDir = cacheDir;
+        this.cacheReused = cacheReused;
+        this.cachePrepareMs = cachePrepareMs;
+        this.moduleLoadMs = Collections.unmodifiableMap(moduleLoadMs);
+        this.classList = classList;
+        this.preloadedClasses = preloadedClasses;
+        this.classPreloadMs = classPreloadMs;
+        this.totalMs = totalMs;
+        this.appCdsArchive = AppCdsSupport.getActiveArchive();
+    }
+
+    static long jvmUptimeMs() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    public DesktopOpenCVLoader.LoadMode getMode() { return mode; }
+    /** 开始加载 OpenCV 时 JVM 已运行的时间 */
+    public long getJvmUptimeAtLoadMs() { return jvmUptimeAtLoadMs; }
+    public String getCacheDir() { return cacheDir; }
+    /** 缓存目录在启动前是否已有解压好的原生库 */
+    public boolean isCacheReused() { return cacheReused; }
+    public long getCachePrepareMs() { return cachePrepareMs; }
+    /** 各模块加载耗时（模块名 -> 毫秒） */
+    public Map<String, Long> getModuleLoadMs() { return moduleLoadMs; }
+    /** 预加载使用的类列表文件，使用内置类列表或非 PRELOAD 模式时为null */
+    public String getClassList() { return classList; }
+    /** 预加载的类数（非 PRELOAD 模式为0） */
+    public int getPreloadedClasses() { return preloadedClasses; }
+    public long getClassPreloadMs() { return classPreloadMs; }
+    /** 原生库加载总耗时 */
+    public long getTotalMs() { return totalMs; }
+    /** 当前 JVM 使用的 AppCDS 归档，未使用时为null */
+    public String getAppCdsArchive() { return appCdsArchive; }
+
+    @Override
+    public String toString() {
+        return String.format("StartupTiming{mode=%s, jvmUptimeAtLoad=%dms, load=%dms, modules=%s, "
+                + "classes=%d (%dms, %s), cacheDir=%s, cacheReused=%b, cachePrepare=%dms, appCds=%s}",
+            mode, jvmUptimeAtLoadMs, totalMs, moduleLoadMs, preloadedClasses, classPreloadMs,
+            classList != null ? classList : "builtin", cacheDir, cacheReused, cachePrepareMs,
+            appCdsArchive != null ? appCdsArchive : "none");
+    }
+}
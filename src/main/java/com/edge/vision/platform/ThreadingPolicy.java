@@ -0,0 +1,207 @@
+package com.edge.vision.platform;
+
+import org.bytedeco.opencv.global.opencv_core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程策略
+ * 统一配置 OpenCV 内部并行线程数和 SDK 自身工作线程数，避免两者叠加导致CPU过载
+ *
+ * 预设:
+ * <ul>
+ *   <li>{@link #latency()} - 少量图像、单张尽快完成：1个工作线程，OpenCV 使用全部核心</li>
+ *   <li>{@link #throughput()} - 大批量图像：每个核心一个工作线程，OpenCV 单线程</li>
+ * </ul>
+ *
+ * 使用示例:
+ * <pre>
+ * OpenCVInitializer.initialize(ThreadingPolicy.throughput());
+ * ExecutorService workers = OpenCVInitializer.getWorkerExecutor();
+ * System.out.println(OpenCVInitializer.describeThreading());
+ * </pre>
+ * @author Coder建设
+ */
+public final class ThreadingPolicy {
+
+    /**
+     * 表示不修改 OpenCV 的线程设置
+     */
+    public static final int OPENCV_DEFAULT = -1;
+
+    private final String name;
+    private final int openCVThreads;
+    private final int workerThreads;
+    private final boolean useOptimized;
+    private final String threadNamePrefix;
+
+    private ThreadingPolicy(Builder builder) {
+        this.name = builder.name;
+        this.openCVThreads = builder.openCVThreads;
+        this.workerThreads = builder.workerThreads;
+        this.useOptimized = builder.useOptimized;
+        this.threadNamePrefix = builder.threadNamePrefix;
+    }
+
+    /**
+     * 低延迟预设：1个工作线程，OpenCV 并行使用全部核心
+     */
+    public static ThreadingPolicy latency() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return new Builder().setName("latency")
+            .setWorkerThreads(1)
+            .setOpenCVThreads(cpus)
+            .build();
+    }
+
+    /**
+     * 高吞吐预设：每个核心一个工作线程，OpenCV 单线程执行
+     */
+    public static ThreadingPolicy throughput() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return new Builder().setName("throughput")
+            .setWorkerThreads(cpus)
+            .setOpenCVThreads(1)
+            .build();
+    }
+
+    /**
+     * 默认策略：不修改 OpenCV 设置，工作线程数等于核心数
+     */
+    public static ThreadingPolicy openCVDefault() {
+        return new Builder().setName("default").build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 将 OpenCV 相关设置应用到进程
+     * 注意：setNumThreads 对 pthreads/TBB 并行后端是进程级设置
+     */
+    public void apply() {
+        opencv_core.setUseOptimized(useOptimized);
+        if (openCVThreads != OPENCV_DEFAULT) {
+            opencv_core.setNumThreads(openCVThreads);
+        }
+    }
+
+    /**
+     * 在当前线程上应用线程级设置（OpenMP 并行后端按线程生效，其他后端无副作用）
+     * SDK 创建的工作线程会在启动时自动调用
+     */
+    public void applyToCurrentThread() {
+        if (openCVThreads != OPENCV_DEFAULT) {
+            opencv_core.setNumThreads(openCVThreads);
+        }
+    }
+
+    /**
+     * 按策略创建工作线程池（守护线程，启动时应用线程级 OpenCV 设置）
+     *
+     * @return 固定大小的线程池
+     */
+    public ExecutorService newWorkerExecutor() {
+        return Executors.newFixedThreadPool(workerThreads, newThreadFactory(threadNamePrefix));
+    }
+
+    /**
+     * 创建应用本策略的线程工厂
+     *
+     * @param prefix 线程名前缀
+     */
+    public ThreadFactory newThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                applyToCurrentThread();
+                runnable.run();
+            }, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public String getName() { return name; }
+    public int getOpenCVThreads() { return openCVThreads; }
+    public int getWorkerThreads() { return workerThreads; }
+    public boolean isUseOptimized() { return useOptimized; }
+    public String getThreadNamePrefix() { return threadNamePrefix; }
+
+    @Override
+    public String toString() {
+        return String.format("ThreadingPolicy{name=%s, workers=%d, opencvThreads=%s, useOptimized=%b}",
+            name, workerThreads, openCVThreads == OPENCV_DEFAULT ? "default" : String.valueOf(openCVThreads),
+            useOptimized);
+    }
+
+    /**
+     * 线程策略构建器
+     */
+    public static final class Builder {
+        private String name = "custom";
+        private int openCVThreads = OPENCV_DEFAULT;
+        private int workerThreads = Runtime.getRuntime().availableProcessors();
+        private boolean useOptimized = true;
+        private String threadNamePrefix = "needle-worker";
+
+        private Builder() {
+        }
+
+        /**
+         * 设置策略名称（用于报告）
+         */
+        public Builder setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * 设置 OpenCV 内部并行线程数
+         *
+         * @param threads 线程数；1或0表示串行执行，{@link #OPENCV_DEFAULT} 表示不修改
+         */
+        public Builder setOpenCVThreads(int threads) {
+            if (threads < OPENCV_DEFAULT) {
+                throw new IllegalArgumentException("OpenCV线程数无效: " + threads);
+            }
+            this.openCVThreads = threads;
+            return this;
+        }
+
+        /**
+         * 设置 SDK 工作线程数
+         */
+        public Builder setWorkerThreads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("工作线程数必须大于0");
+            }
+            this.workerThreads = threads;
+            return this;
+        }
+
+        /**
+         * 设置是否启用 OpenCV 的 SIMD 优化代码路径
+         */
+        public Builder setUseOptimized(boolean useOptimized) {
+            this.useOptimized = useOptimized;
+            return this;
+        }
+
+        /**
+         * 设置工作线程名前缀
+         */
+        public Builder setThreadNamePrefix(String prefix) {
+            this.threadNamePrefix = prefix;
+            return this;
+        }
+
+        public ThreadingPolicy build() {
+            return new ThreadingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.edge.vision.preprocess;
+
+import com.edge.vision.cache.ContentHash;
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Size;
+
+/**
+ * 基于降采样前景图的区域检测基类
+ *
+ * 流程：降采样 → 子类计算前景响应 → 自适应阈值 → 闭运算连接断裂 →
+ * 取面积最大的轮廓，并合并与其相邻的轮廓 → 换算回全分辨率坐标
+ * @author Coder建设
+ */
+public abstract class AbstractRegionDetector implements SearchRegionDetector {
+
+    public static final int DEFAULT_WORKING_SIZE = 400;
+
+    private int workingSize = DEFAULT_WORKING_SIZE;
+    private double thresholdSigma = 4.0;   // 阈值 = 均值 + k × 标准差
+    private double minThreshold = 15.0;     // 前景响应的最小阈值（灰度级）
+    private int minContourArea = 6;         // 降采样图上的最小轮廓面积
+
+    @Override
+    public Rect detect(Mat gray) {
+        double factor = downscaleFactor(gray);
+        Mat small = downscale(gray);
+        Mat response = new Mat();
+        Mat mask = new Mat();
+        try {
+            if (!foregroundResponse(small, response)) {
+                return null;
+            }
+
+            double threshold = adaptiveThreshold(response);
+            opencv_imgproc.threshold(response, mask, threshold, 255, opencv_imgproc.THRESH_BINARY);
+
+            Mat kernel = opencv_imgproc.getStructuringElement(opencv_imgproc.MORPH_RECT, new Size(5, 5));
+            opencv_imgproc.morphologyEx(mask, mask, opencv_imgproc.MORPH_CLOSE, kernel);
+            kernel.close();
+
+            Rect smallRect = largestRegion(mask);
+            if (smallRect == null) {
+                return null;
+            }
+
+            // 换算回全分辨率坐标（向外取整）
+            double inv = 1.0 / factor;
+            int x1 = (int) Math.floor(smallRect.x() * inv);
+            int y1 = (int) Math.floor(smallRect.y() * inv);
+            int x2 = Math.min(gray.cols(), (int) Math.ceil((smallRect.x() + smallRect.width()) * inv));
+            int y2 = Math.min(gray.rows(), (int) Math.ceil((smallRect.y() + smallRect.height()) * inv));
+            return new Rect(x1, y1, x2 - x1, y2 - y1);
+        } finally {
+            small.close();
+            response.close();
+            mask.close();
+        }
+    }
+
+    /**
+     * 计算降采样图上的前景响应（CV_8U，值越大越可能是针）
+     *
+     * @param small 降采样后的灰度图
+     * @param response 输出的前景响应
+     * @return false表示当前无法给出响应（例如背景模型尚未学习）
+     */
+    protected abstract boolean foregroundResponse(Mat small, Mat response);
+
+    /**
+     * 将全分辨率图像降采样到工作尺寸
+     */
+    protected Mat downscale(Mat gray) {
+        double factor = downscaleFactor(gray);
+        Mat small = new Mat();
+        if (factor < 1.0) {
+            opencv_imgproc.resize(gray, small,
+                new Size((int) Math.round(gray.cols() * factor), (int) Math.round(gray.rows() * factor)),
+                0, 0, opencv_imgproc.INTER_AREA);
+        } else {
+            gray.copyTo(small);
+        }
+        return small;
+    }
+
+    private double downscaleFactor(Mat gray) {
+        int maxSide = Math.max(gray.cols(), gray.rows());
+        return maxSide > workingSize ? (double) workingSize / maxSide : 1.0;
+    }
+
+    private double adaptiveThreshold(Mat response) {
+        Mat mean = new Mat();
+        Mat stddev = new Mat();
+        try {
+            opencv_core.meanStdDev(response, mean, stddev);
+            DoubleIndexer meanIdx = mean.createIndexer();
+            DoubleIndexer stdIdx = stddev.createIndexer();
+            double t = meanIdx.get(0) + thresholdSigma * stdIdx.get(0);
+            meanIdx.release();
+            stdIdx.release();
+            return Math.max(minThreshold, t);
+        } finally {
+            mean.close();
+            stddev.close();
+        }
+    }
+
+    /**
+     * 取面积最大的轮廓，并合并外接矩形与其相交或相邻的轮廓（针可能被反光分成几段）
+     */
+    private Rect largestRegion(Mat mask) {
+        MatVector contours = new MatVector();
+        try {
+            opencv_imgproc.findContours(mask, contours,
+                opencv_imgproc.RETR_EXTERNAL, opencv_imgproc.CHAIN_APPROX_SIMPLE);
+
+            int n = (int) contours.size();
+            int[][] boxes = new int[n][];
+            int best = -1;
+            double bestArea = minContourArea;
+            for (int i = 0; i < n; i++) {
+                double area;
+                try (Mat contour = contours.get(i); Rect r = opencv_imgproc.boundingRect(contour)) {
+                    area = opencv_imgproc.contourArea(contour);
+                    boxes[i] = new int[] { r.x(), r.y(), r.x() + r.width(), r.y() + r.height() };
+                }
+                if (area >= bestArea) {
+                    bestArea = area;
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+
+            int[] union = boxes[best].clone();
+            int gap = 3;
+            boolean grown = true;
+            while (grown) {
+                grown = false;
+                for (int[] b : boxes) {
+                    if (b == null) continue;
+                    boolean near = b[0] <= union[2] + gap && b[2] >= union[0] - gap
+                        && b[1] <= union[3] + gap && b[3] >= union[1] - gap;
+                    boolean inside = b[0] >= union[0] && b[1] >= union[1] && b[2] <= union[2] && b[3] <= union[3];
+                    if (near && !inside) {
+                        union[0] = Math.min(union[0], b[0]);
+                        union[1] = Math.min(union[1], b[1]);
+                        union[2] = Math.max(union[2], b[2]);
+                        union[3] = Math.max(union[3], b[3]);
+                        grown = true;
+                    }
+                }
+            }
+            return new Rect(union[0], union[1], union[2] - union[0], union[3] - union[1]);
+        } finally {
+            contours.close();
+        }
+    }
+
+    // ============ 参数 ============
+
+    /**
+     * 设置降采样后的最大边长
+     */
+    public AbstractRegionDetector setWorkingSize(int workingSize) {
+        if (workingSize < 32) {
+            throw new IllegalArgumentException("工作尺寸过小: " + workingSize);
+        }
+        this.workingSize = workingSize;
+        return this;
+    }
+
+    /**
+     * 设置阈值系数：前景阈值 = 响应均值 + k × 响应标准差
+     */
+    public AbstractRegionDetector setThresholdSigma(double k) {
+        this.thresholdSigma = k;
+        return this;
+    }
+
+    /**
+     * 设置前景响应的最小阈值（灰度级）
+     */
+    public AbstractRegionDetector setMinThreshold(double minThreshold) {
+        this.minThreshold = minThreshold;
+        return this;
+    }
+
+    /**
+     * 设置降采样图上的最小轮廓面积（更小的轮廓视为噪声）
+     */
+    public AbstractRegionDetector setMinContourArea(int minContourArea) {
+        this.minContourArea = minContourArea;
+        return this;
+    }
+
+    public int getWorkingSize() {
+        return workingSize;
+    }
+
+    /**
+     * 由检测器类型和公共参数计算，子类在此基础上合并自己的参数
+     */
+    @Override
+    public long getFingerprint() {
+        long h = ContentHash.combine(0, getClass().getName().hashCode());
+        h = ContentHash.combine(h, workingSize);
+        h = ContentHash.combine(h, Double.doubleToLongBits(thresholdSigma));
+        h = ContentHash.combine(h, Double.doubleToLongBits(minThreshold));
+        return ContentHash.combine(h, minContourArea);
+    }
+}
@@ -0,0 +1,140 @@
+package com.edge.vision.preprocess;
+
+import com.edge.vision.cache.ContentHash;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.Closeable;
+
+/**
+ * 基于背景模型的区域检测器（每个工位一个实例）
+ *
+ * 工位背景固定时，先用若干张空工位图像学习背景（滑动平均），
+ * 检测时前景响应为 |当前帧 - 背景|。背景随时间缓慢变化时，
+ * 可以在检测后调用 {@link #learn(Mat)} 继续更新。
+ *
+ * 使用示例:
+ * <pre>
+ * BackgroundModelDetector detector = new BackgroundModelDetector();
+ * for (Mat empty : emptyStationFrames) {
+ *     detector.learn(emptyGray);
+ * }
+ * analyzer.setSearchRegionDetector(detector);
+ * </pre>
+ * @author Coder建设
+ */
+public class BackgroundModelDetector extends AbstractRegionDetector implements Closeable {
+
+    private final Object lock = new Object();
+    private Mat background;          // CV_32F 背景均值（降采样尺寸）
+    private int learnedFrames = 0;
+    private double learningRate = 0.05;
+    private int minLearnedFrames = 1;
+    private long modelVersion = 0;   // 每次学习或重置递增，参与指纹
+
+    /**
+     * 用一帧空工位图像（灰度，全分辨率）更新背景模型
+     *
+     * @param emptyGray 不含针的灰度图
+     */
+    public void learn(Mat emptyGray) {
+        Mat small = downscale(emptyGray);
+        try {
+            synchronized (lock) {
+                if (background == null || background.cols() != small.cols() || background.rows() != small.rows()) {
+                    if (background != null) {
+                        background.close();
+                    }
+                    background = new Mat();
+                    small.convertTo(background, opencv_core.CV_32F);
+                    learnedFrames = 1;
+                    modelVersion++;
+                    return;
+                }
+                // 前几帧按算术平均，之后按固定学习率滑动平均
+                double alpha = Math.max(learningRate, 1.0 / (learnedFrames + 1));
+                opencv_imgproc.accumulateWeighted(small, background, alpha);
+                learnedFrames++;
+                modelVersion++;
+            }
+        } finally {
+            small.close();
+        }
+    }
+
+    @Override
+    protected boolean foregroundResponse(Mat small, Mat response) {
+        Mat bg8u = new Mat();
+        try {
+            synchronized (lock) {
+                if (background == null || learnedFrames < minLearnedFrames
+                        || background.cols() != small.cols() || background.rows() != small.rows()) {
+                    return false;
+                }
+                background.convertTo(bg8u, opencv_core.CV_8U);
+            }
+            opencv_core.absdiff(small, bg8u, response);
+            return true;
+        } finally {
+            bg8u.close();
+        }
+    }
+
+    /**
+     * 设置背景滑动平均的学习率（0-1）
+     */
+    public BackgroundModelDetector setLearningRate(double learningRate) {
+        if (learningRate <= 0 || learningRate > 1) {
+            throw new IllegalArgumentException("学习率必须在(0, 1]之间");
+        }
+        this.learningRate = learningRate;
+        return this;
+    }
+
+    /**
+     * 设置开始检测前至少需要学习的帧数
+     */
+    public BackgroundModelDetector setMinLearnedFrames(int frames) {
+        this.minLearnedFrames = Math.max(1, frames);
+        return this;
+    }
+
+    public int getLearnedFrames() {
+        synchronized (lock) {
+            return learnedFrames;
+        }
+    }
+
+    /**
+     * 丢弃已学习的背景
+     */
+    public void reset() {
+        synchronized (lock) {
+            if (background != null) {
+                background.close();
+                background = null;
+            }
+            learnedFrames = 0;
+            modelVersion++;
+        }
+    }
+
+    /**
+     * 包含背景模型：背景只属于本实例，且每次学习或重置后指纹都会变化
+     */
+    @Override
+    public long getFingerprint() {
+        long h = ContentHash.combine(super.getFingerprint(), Double.doubleToLongBits(learningRate));
+        h = ContentHash.combine(h, minLearnedFrames);
+        h = ContentHash.combine(h, System.identityHashCode(this));
+        synchronized (lock) {
+            return ContentHash.combine(h, modelVersion);
+        }
+    }
+
+    @Override
+    public void close() {
+        reset();
+    }
+}
@@ -0,0 +1,35 @@
+package com.edge.vision.preprocess;
+
+import com.edge.vision.cache.ContentHash;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+/**
+ * 搜索区域检测器接口
+ * 在模板匹配之前快速估计针所在的区域，使针尖搜索只在该区域内进行
+ *
+ * detect 在分析的本地内存作用域内调用（见 {@link com.edge.vision.platform.NativeMemoryTracker}），
+ * 其中新建的 Mat 在分析结束时释放；需要跨帧保存的 Mat 应在 detect 之外创建
+ * @author Coder建设
+ */
+public interface SearchRegionDetector {
+
+    /**
+     * 检测针所在的区域
+     *
+     * @param gray 目标灰度图（全分辨率）
+     * @return 针的包围矩形（全分辨率坐标，不含外扩边距），无法确定时返回null
+     */
+    Rect detect(Mat gray);
+
+    /**
+     * 检测参数指纹，参与分析器结果缓存键的计算
+     * 参数或内部状态的变化可能改变 detect 的结果时指纹也必须变化；
+     * 默认按实例区分（不同实例视为不同参数，同一实例视为不变）
+     *
+     * @return 64位指纹
+     */
+    default long getFingerprint() {
+        return ContentHash.combine(getClass().getName().hashCode(), System.identityHashCode(this));
+    }
+}
@@ -0,0 +1,47 @@
+package com.edge.vision.preprocess;
+
+import com.edge.vision.cache.ContentHash;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
+/**
+ * 无需学习的快速区域检测器
+ *
+ * 用大核均值滤波估计缓变的背景光照，前景响应为 |像素 - 局部背景|，
+ * 因此对光照梯度不敏感，亮针和暗针都能检测
+ * @author Coder建设
+ */
+public class ThresholdRegionDetector extends AbstractRegionDetector {
+
+    private int backgroundKernel = 31;  // 背景估计核大小（降采样图上，奇数）
+
+    @Override
+    protected boolean foregroundResponse(Mat small, Mat response) {
+        Mat background = new Mat();
+        try {
+            opencv_imgproc.blur(small, background, new Size(backgroundKernel, backgroundKernel));
+            opencv_core.absdiff(small, background, response);
+            return true;
+        } finally {
+            background.close();
+        }
+    }
+
+    /**
+     * 设置背景估计核大小（降采样图上的像素，应明显大于针的宽度）
+     */
+    public ThresholdRegionDetector setBackgroundKernel(int size) {
+        if (size < 3) {
+            throw new IllegalArgumentException("背景核大小必须不小于3");
+        }
+        this.backgroundKernel = size | 1;
+        return this;
+    }
+
+    @Override
+    public long getFingerprint() {
+        return ContentHash.combine(super.getFingerprint(), backgroundKernel);
+    }
+}
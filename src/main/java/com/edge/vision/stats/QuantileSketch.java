@@ -0,0 +1,182 @@
+package com.edge.vision.stats;
+
+import java.util.Arrays;
+
+/**
+ * 可合并的分位数草图（对数分桶，相对误差有界）
+ *
+ * 正值 x 落入下标为 ceil(log_γ(x)) 的桶，γ = (1+α)/(1-α)，
+ * 桶代表值与桶内任意值的相对误差不超过 α。非正值单独计数，按 0 参与分位数计算。
+ * 相同 α 的草图可以合并或相减（桶计数逐项加减），适合分片汇总和滑动窗口。
+ *
+ * 实例不可变。
+ * @author Coder建设
+ */
+public final class QuantileSketch {
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private final int offset;       // counts[0] 对应的桶下标
+    private final long[] counts;
+    private final long zeroCount;
+    private final long total;
+
+    QuantileSketch(double relativeAccuracy, int offset, long[] counts, long zeroCount) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.logGamma = logGamma(relativeAccuracy);
+        this.offset = offset;
+        this.counts = counts;
+        this.zeroCount = zeroCount;
+        long t = zeroCount;
+        for (long c : counts) {
+            t += c;
+        }
+        this.total = t;
+    }
+
+    /**
+     * 空草图
+     *
+     * @param relativeAccuracy 相对误差 α，(0, 1)
+     */
+    public static QuantileSketch empty(double relativeAccuracy) {
+        checkAccuracy(relativeAccuracy);
+        return new QuantileSketch(relativeAccuracy, 0, new long[0], 0);
+    }
+
+    static void checkAccuracy(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("相对误差必须在(0, 1)之间");
+        }
+    }
+
+    static double logGamma(double relativeAccuracy) {
+        return Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    /** 正值所在的桶下标 */
+    static int index(double value, double logGamma) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private double value(int index) {
+        // 桶 (γ^(i-1), γ^i] 的代表值，相对误差不超过 α
+        return 2 * Math.exp(index * logGamma) / (Math.exp(logGamma) + 1);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /** 样本数 */
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * 分位数
+     *
+     * @param q 分位 [0, 1]
+     * @return 估计值，空草图返回NaN
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("分位必须在[0, 1]之间");
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(q * (total - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return value(offset + i);
+            }
+        }
+        return value(offset + counts.length - 1);
+    }
+
+    /**
+     * 合并两个草图
+     *
+     * @throws IllegalArgumentException 如果相对误差不同
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        return combine(other, 1);
+    }
+
+    /**
+     * 减去较早的草图（同一累加器的两次快照之差即为期间的分布）
+     *
+     * @throws IllegalArgumentException 如果相对误差不同或 other 不是本草图的子集
+     */
+    public QuantileSketch subtract(QuantileSketch other) {
+        return combine(other, -1);
+    }
+
+    private QuantileSketch combine(QuantileSketch other, int sign) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("草图相对误差不同，无法合并");
+        }
+        if (other.counts.length == 0 && other.zeroCount == 0) {
+            return this;
+        }
+        int lo = counts.length == 0 ? other.offset : Math.min(offset, other.offset);
+        int hi = counts.length == 0 ? other.offset + other.counts.length
+            : Math.max(offset + counts.length, other.offset + other.counts.length);
+        long[] merged = new long[hi - lo];
+        if (counts.length > 0) {
+            System.arraycopy(counts, 0, merged, offset - lo, counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            long c = merged[other.offset - lo + i] + sign * other.counts[i];
+            if (c < 0) {
+                throw new IllegalArgumentException("被减草图不是当前草图的子集");
+            }
+            merged[other.offset - lo + i] = c;
+        }
+        long zeros = zeroCount + sign * other.zeroCount;
+        if (zeros < 0) {
+            throw new IllegalArgumentException("被减草图不是当前草图的子集");
+        }
+        return trim(relativeAccuracy, lo, merged, zeros);
+    }
+
+    /**
+     * 去掉首尾的空桶
+     */
+    static QuantileSketch trim(double relativeAccuracy, int offset, long[] counts, long zeroCount) {
+        int start = 0;
+        int end = counts.length;
+        while (start < end && counts[start] == 0) {
+            start++;
+        }
+        while (end > start && counts[end - 1] == 0) {
+            end--;
+        }
+        if (start == 0 && end == counts.length) {
+            return new QuantileSketch(relativeAccuracy, offset, counts, zeroCount);
+        }
+        return new QuantileSketch(relativeAccuracy, offset + start, Arrays.copyOfRange(counts, start, end), zeroCount);
+    }
+
+    /** 最小值的估计（相对误差 α），空草图返回NaN */
+    public double getMinEstimate() {
+        if (total == 0) {
+            return Double.NaN;
+        }
+        return zeroCount > 0 ? 0 : value(offset);
+    }
+
+    /** 最大值的估计（相对误差 α），空草图返回NaN */
+    public double getMaxEstimate() {
+        if (total == 0) {
+            return Double.NaN;
+        }
+        return counts.length == 0 ? 0 : value(offset + counts.length - 1);
+    }
+}
@@ -0,0 +1,159 @@
+package com.edge.vision.stats;
+
+/**
+ * 统计过程控制（SPC）快照
+ *
+ * 均值和方差用 Welford/Chan 算法合并，分位数来自 {@link QuantileSketch}。
+ * 快照可以合并（多个模板或多个进程汇总），也可以相减得到两次快照之间的窗口统计，
+ * 用于观察均值和分位数的漂移。相减得到的窗口没有精确的最小/最大值，改用草图估计。
+ *
+ * 实例不可变。
+ * @author Coder建设
+ */
+public final class SpcSnapshot {
+
+    private final long timestampMillis;
+    private final long count;
+    private final double mean;
+    private final double m2;
+    private final double min;
+    private final double max;
+    private final QuantileSketch sketch;
+    private final double lowerSpecLimit;
+    private final double upperSpecLimit;
+
+    SpcSnapshot(long timestampMillis, long count, double mean, double m2, double min, double max,
+                QuantileSketch sketch, double lowerSpecLimit, double upperSpecLimit) {
+        this.timestampMillis = timestampMillis;
+        this.count = count;
+        this.mean = count == 0 ? Double.NaN : mean;
+        this.m2 = count == 0 ? 0 : Math.max(0, m2);
+        this.min = count == 0 ? Double.NaN : min;
+        this.max = count == 0 ? Double.NaN : max;
+        this.sketch = sketch;
+        this.lowerSpecLimit = lowerSpecLimit;
+        this.upperSpecLimit = upperSpecLimit;
+    }
+
+    /** 快照时间 */
+    public long getTimestampMillis() { return timestampMillis; }
+    /** 样本数 */
+    public long getCount() { return count; }
+    /** 均值，无样本时为NaN */
+    public double getMean() { return mean; }
+    /** 最小值，无样本时为NaN */
+    public double getMin() { return min; }
+    /** 最大值，无样本时为NaN */
+    public double getMax() { return max; }
+    public QuantileSketch getSketch() { return sketch; }
+    public double getLowerSpecLimit() { return lowerSpecLimit; }
+    public double getUpperSpecLimit() { return upperSpecLimit; }
+
+    /** 样本方差，少于2个样本时为NaN */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /** 样本标准差，少于2个样本时为NaN */
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * 分位数（相对误差见 {@link QuantileSketch#getRelativeAccuracy()}）
+     *
+     * @param q 分位 [0, 1]
+     */
+    public double quantile(double q) {
+        return sketch.quantile(q);
+    }
+
+    /**
+     * 过程能力指数 Cp = (USL - LSL) / 6σ
+     *
+     * @return 未设置双侧规格限或样本不足时为NaN
+     */
+    public double getCp() {
+        return (upperSpecLimit - lowerSpecLimit) / (6 * getStdDev());
+    }
+
+    /**
+     * 过程能力指数 Cpk = min(USL - μ, μ - LSL) / 3σ（单侧规格限时只用已设置的一侧）
+     *
+     * @return 未设置规格限或样本不足时为NaN
+     */
+    public double getCpk() {
+        double sigma3 = 3 * getStdDev();
+        double upper = (upperSpecLimit - mean) / sigma3;
+        double lower = (mean - lowerSpecLimit) / sigma3;
+        if (Double.isNaN(upper)) {
+            return lower;
+        }
+        if (Double.isNaN(lower)) {
+            return upper;
+        }
+        return Math.min(upper, lower);
+    }
+
+    /**
+     * 使用给定规格限的同一快照
+     */
+    public SpcSnapshot withSpecLimits(double lowerSpecLimit, double upperSpecLimit) {
+        return new SpcSnapshot(timestampMillis, count, mean, m2, min, max, sketch, lowerSpecLimit, upperSpecLimit);
+    }
+
+    /**
+     * 合并另一个快照（规格限取当前快照的）
+     *
+     * @throws IllegalArgumentException 如果草图相对误差不同
+     */
+    public SpcSnapshot merge(SpcSnapshot other) {
+        if (other.count == 0) {
+            return withSpecLimits(lowerSpecLimit, upperSpecLimit);
+        }
+        if (count == 0) {
+            return new SpcSnapshot(Math.max(timestampMillis, other.timestampMillis), other.count, other.mean, other.m2,
+                other.min, other.max, sketch.merge(other.sketch), lowerSpecLimit, upperSpecLimit);
+        }
+        long n = count + other.count;
+        double delta = other.mean - mean;
+        double mergedMean = mean + delta * other.count / n;
+        double mergedM2 = m2 + other.m2 + delta * delta * count * other.count / n;
+        return new SpcSnapshot(Math.max(timestampMillis, other.timestampMillis), n, mergedMean, mergedM2,
+            Math.min(min, other.min), Math.max(max, other.max), sketch.merge(other.sketch),
+            lowerSpecLimit, upperSpecLimit);
+    }
+
+    /**
+     * 本快照减去同一累加器较早的快照，得到两次快照之间的窗口统计
+     *
+     * @param earlier 较早的快照
+     * @return 窗口统计（最小/最大值为草图估计）
+     * @throws IllegalArgumentException 如果 earlier 不是本快照的前缀
+     */
+    public SpcSnapshot minus(SpcSnapshot earlier) {
+        if (earlier.count > count) {
+            throw new IllegalArgumentException("被减快照的样本数大于当前快照");
+        }
+        if (earlier.count == 0) {
+            return withSpecLimits(lowerSpecLimit, upperSpecLimit);
+        }
+        QuantileSketch window = sketch.subtract(earlier.sketch);
+        long n = count - earlier.count;
+        if (n == 0) {
+            return new SpcSnapshot(timestampMillis, 0, 0, 0, 0, 0, window, lowerSpecLimit, upperSpecLimit);
+        }
+        // Chan 合并公式的逆运算
+        double windowMean = (count * mean - earlier.count * earlier.mean) / n;
+        double delta = windowMean - earlier.mean;
+        double windowM2 = m2 - earlier.m2 - delta * delta * earlier.count * n / count;
+        return new SpcSnapshot(timestampMillis, n, windowMean, windowM2,
+            window.getMinEstimate(), window.getMaxEstimate(), window, lowerSpecLimit, upperSpecLimit);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SpcSnapshot{n=%d, mean=%.4f, std=%.4f, p50=%.4f, p99=%.4f, Cp=%.3f, Cpk=%.3f}",
+            count, mean, getStdDev(), quantile(0.5), quantile(0.99), getCp(), getCpk());
+    }
+}
@@ -0,0 +1,114 @@
+package com.edge.vision.stats;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按模板的在线 SPC 统计
+ *
+ * 通过 {@link com.edge.vision.core.NeedleLengthAnalyzer#setStatistics(SpcStatistics)} 挂到分析器上后，
+ * 每个测量结果的 lengthMm 计入所属模板的 {@link StreamingStatistics}，写入无锁；
+ * 看板和报警按需取 {@link SpcSnapshot}（均值、标准差、分位数、Cp/Cpk）。
+ *
+ * 使用示例:
+ * <pre>
+ * SpcStatistics spc = new SpcStatistics();
+ * spc.setSpecLimits("needle-50", 49.8, 50.2);
+ * analyzer.setStatistics(spc);
+ * ...
+ * SpcSnapshot before = spc.snapshot("needle-50");
+ * ...
+ * SpcSnapshot lastHour = spc.snapshot("needle-50").minus(before);
+ * </pre>
+ * 多个分析器可以共享同一个实例。
+ * @author Coder建设
+ */
+public class SpcStatistics {
+
+    private final double relativeAccuracy;
+    private final Map<String, StreamingStatistics> templates = new ConcurrentHashMap<>();
+    private final Map<String, double[]> specLimits = new ConcurrentHashMap<>();
+
+    public SpcStatistics() {
+        this(StreamingStatistics.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * @param relativeAccuracy 分位数草图的相对误差
+     */
+    public SpcStatistics(double relativeAccuracy) {
+        QuantileSketch.checkAccuracy(relativeAccuracy);
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    /**
+     * 计入一个测量结果
+     */
+    public void record(MeasurementResult result) {
+        record(result.getTemplateId(), result.getLengthMm());
+    }
+
+    /**
+     * 计入一个长度（无锁，可多线程并发调用）
+     *
+     * @param templateId 模板ID（null 按空字符串统计）
+     * @param lengthMm 长度(mm)
+     */
+    public void record(String templateId, double lengthMm) {
+        String key = templateId == null ? "" : templateId;
+        StreamingStatistics stats = templates.get(key);
+        if (stats == null) {
+            stats = templates.computeIfAbsent(key, k -> new StreamingStatistics(relativeAccuracy));
+        }
+        stats.add(lengthMm);
+    }
+
+    /**
+     * 设置模板的规格限（用于 Cp/Cpk，单侧规格时另一侧传NaN）
+     *
+     * @param templateId 模板ID
+     * @param lowerSpecLimit 规格下限(mm)
+     * @param upperSpecLimit 规格上限(mm)
+     */
+    public void setSpecLimits(String templateId, double lowerSpecLimit, double upperSpecLimit) {
+        if (lowerSpecLimit >= upperSpecLimit) {
+            throw new IllegalArgumentException("规格下限必须小于上限");
+        }
+        specLimits.put(templateId == null ? "" : templateId, new double[] { lowerSpecLimit, upperSpecLimit });
+    }
+
+    /**
+     * 模板的统计快照
+     *
+     * @param templateId 模板ID
+     * @return 快照，模板没有样本时返回空快照
+     */
+    public SpcSnapshot snapshot(String templateId) {
+        String key = templateId == null ? "" : templateId;
+        double[] limits = specLimits.getOrDefault(key, new double[] { Double.NaN, Double.NaN });
+        StreamingStatistics stats = templates.get(key);
+        if (stats == null) {
+            return new SpcSnapshot(System.currentTimeMillis(), 0, 0, 0, 0, 0,
+                QuantileSketch.empty(relativeAccuracy), limits[0], limits[1]);
+        }
+        return stats.snapshot(limits[0], limits[1]);
+    }
+
+    /**
+     * 所有模板的统计快照（按模板ID排序）
+     */
+    public Map<String, SpcSnapshot> snapshots() {
+        Map<String, SpcSnapshot> result = new TreeMap<>();
+        for (String templateId : templates.keySet()) {
+            result.put(templateId, snapshot(templateId));
+        }
+        return result;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+}
@@ -0,0 +1,172 @@
+package com.edge.vision.stats;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 统计条带单元
+ *
+ * 由序列锁保护（Welford 增量更新 + 对数分桶计数）：写者用 CAS 把偶数版本号加一取得单元，
+ * 写完再加一释放；读者在版本号为奇数或前后不一致时重读。
+ * @author Coder建设
+ */
+final class StatCell {
+
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(StatCell.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final double logGamma;
+
+    @SuppressWarnings("unused")
+    private volatile long version;
+
+    // 以下字段只由持有序列锁的写者写入，在版本号保护下读取
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private long zeroCount;
+    private int offset;
+    private long[] bins = new long[0];
+
+    StatCell(double logGamma) {
+        this.logGamma = logGamma;
+    }
+
+    /**
+     * 单元空闲时加入一个样本
+     *
+     * @return false 如果其他写者正持有该单元（未写入）
+     */
+    boolean tryAdd(double x) {
+        long v = (long) VERSION.getAcquire(this);
+        // CAS 的获取语义保证后续写入不会重排到奇数版本号之前
+        if ((v & 1) != 0 || !VERSION.compareAndSet(this, v, v + 1)) {
+            return false;
+        }
+
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+        if (count == 1) {
+            min = x;
+            max = x;
+        } else {
+            if (x < min) {
+                min = x;
+            }
+            if (x > max) {
+                max = x;
+            }
+        }
+        if (x > 0) {
+            addToBin(QuantileSketch.index(x, logGamma));
+        } else {
+            zeroCount++;
+        }
+
+        VERSION.setRelease(this, v + 2);
+        return true;
+    }
+
+    private void addToBin(int index) {
+        long[] b = bins;
+        if (b.length == 0) {
+            // 预留余量，减少扩容
+            b = new long[16];
+            offset = index - 8;
+        } else if (index < offset || index >= offset + b.length) {
+            int lo = Math.min(offset, index - 8);
+            int hi = Math.max(offset + b.length, index + 9);
+            long[] grown = new long[hi - lo];
+            System.arraycopy(b, 0, grown, offset - lo, b.length);
+            b = grown;
+            offset = lo;
+        }
+        b[index - offset]++;
+        bins = b;
+    }
+
+    /**
+     * 读取一致快照并累加到汇总器
+     */
+    void snapshotInto(Accumulator acc) {
+        while (true) {
+            long v1 = (long) VERSION.getAcquire(this);
+            if ((v1 & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long n = count;
+            double mu = mean;
+            double sq = m2;
+            double lo = min;
+            double hi = max;
+            long zeros = zeroCount;
+            int off = offset;
+            long[] copy = bins.clone();
+            VarHandle.loadLoadFence();
+            if ((long) VERSION.getAcquire(this) == v1) {
+                acc.add(n, mu, sq, lo, hi, zeros, off, copy);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 多个单元的合并结果（Chan 并行方差合并）
+     */
+    static final class Accumulator {
+        long count;
+        double mean;
+        double m2;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        long zeroCount;
+        int offset;
+        long[] bins = new long[0];
+
+        void add(long n, double mu, double sq, double lo, double hi, long zeros, int off, long[] b) {
+            if (n == 0) {
+                return;
+            }
+            long total = count + n;
+            double delta = mu - mean;
+            mean += delta * n / total;
+            m2 += sq + delta * delta * count * n / total;
+            min = count == 0 ? lo : Math.min(min, lo);
+            max = count == 0 ? hi : Math.max(max, hi);
+            count = total;
+            zeroCount += zeros;
+            mergeBins(off, b);
+        }
+
+        private void mergeBins(int off, long[] b) {
+            if (bins.length == 0) {
+                offset = off;
+                bins = b;
+                return;
+            }
+            int lo = Math.min(offset, off);
+            int hi = Math.max(offset + bins.length, off + b.length);
+            if (lo != offset || hi != offset + bins.length) {
+                long[] grown = new long[hi - lo];
+                System.arraycopy(bins, 0, grown, offset - lo, bins.length);
+                bins = grown;
+                offset = lo;
+            }
+            for (int i = 0; i < b.length; i++) {
+                bins[off - offset + i] += b[i];
+            }
+        }
+    }
+}
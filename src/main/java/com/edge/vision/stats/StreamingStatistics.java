@@ -0,0 +1,101 @@
+package com.edge.vision.stats;
+
+/**
+ * 分条带的流式统计累加器
+ *
+ * 与 {@link java.util.concurrent.atomic.LongAdder} 相同的思路：固定数量（不少于 CPU 数的2的幂）的
+ * {@link StatCell} 条带，写入线程按线程ID哈希选择条带，条带被占用时换到下一个条带，
+ * 并发写入者通常落在不同条带上。快照遍历所有条带并合并，代价与条带数成正比，与样本数和
+ * 写入过的线程数无关。
+ * @author Coder建设
+ */
+public final class StreamingStatistics {
+
+    /** 分位数草图的默认相对误差（50mm 时约 ±0.025mm） */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.0005;
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private static final int MAX_STRIPES = 64;
+
+    private final StatCell[] cells;
+
+    public StreamingStatistics() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * @param relativeAccuracy 分位数草图的相对误差 α，(0, 1)
+     */
+    public StreamingStatistics(double relativeAccuracy) {
+        QuantileSketch.checkAccuracy(relativeAccuracy);
+        this.relativeAccuracy = relativeAccuracy;
+        this.logGamma = QuantileSketch.logGamma(relativeAccuracy);
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        this.cells = new StatCell[Math.min(MAX_STRIPES, stripes)];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new StatCell(logGamma);
+        }
+    }
+
+    /**
+     * 加入一个样本（可多线程并发调用）
+     *
+     * @param value 样本值（非有限值被忽略）
+     */
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        int mask = cells.length - 1;
+        int start = stripe(Thread.currentThread().getId()) & mask;
+        for (int i = start; ; i = (i + 1) & mask) {
+            if (cells[i].tryAdd(value)) {
+                return;
+            }
+            if (((i + 1) & mask) == start) {
+                // 所有条带都被占用（写者多于条带数）
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static int stripe(long threadId) {
+        long h = threadId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 当前统计快照
+     */
+    public SpcSnapshot snapshot() {
+        return snapshot(Double.NaN, Double.NaN);
+    }
+
+    /**
+     * 当前统计快照（附带规格限，用于计算 Cp/Cpk）
+     *
+     * @param lowerSpecLimit 规格下限，未设置时为NaN
+     * @param upperSpecLimit 规格上限，未设置时为NaN
+     */
+    public SpcSnapshot snapshot(double lowerSpecLimit, double upperSpecLimit) {
+        StatCell.Accumulator acc = new StatCell.Accumulator();
+        for (StatCell cell : cells) {
+            cell.snapshotInto(acc);
+        }
+        QuantileSketch sketch = QuantileSketch.trim(relativeAccuracy, acc.offset, acc.bins, acc.zeroCount);
+        return new SpcSnapshot(System.currentTimeMillis(), acc.count, acc.mean, acc.m2,
+            acc.min, acc.max, sketch, lowerSpecLimit, upperSpecLimit);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * 条带数（固定，与写入线程数无关）
+     */
+    public int getCellCount() {
+        return cells.length;
+    }
+}
@@ -0,0 +1,379 @@
+package com.edge.vision.store;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.io.MeasurementRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内嵌的追加式测量历史存储
+ *
+ * 每个模板一个目录，目录下是内存映射的定长段文件（记录 = 时间戳 + {@link MeasurementRecord}，
+ * {@value Segment#RECORD_SIZE} 字节）。段内每 blockSize 条记录保存一项 (最小, 最大) 时间戳，
+ * 按时间范围扫描时跳过不相交的块。
+ *
+ * <ul>
+ *   <li>写入无锁：原子分配序号后直接写入映射内存，不经过系统调用</li>
+ *   <li>组提交：后台线程按提交间隔推进已提交位置并落盘，一次 force 覆盖期间所有写入；
+ *       {@link #flush()} 可同步提交</li>
+ *   <li>读取只看到已提交的记录；扫描和聚合直接读映射内存，不在堆上保存记录</li>
+ *   <li>崩溃后重新打开时丢弃未提交的记录</li>
+ *   <li>后台提交失败（如落盘出错）后存储进入失败状态，之后的 append/flush/close 抛出该错误；
+ *       已写入映射内存但未能确认落盘的记录不再视为可靠，需要重新打开存储</li>
+ * </ul>
+ *
+ * 使用示例:
+ * <pre>
+ * try (MeasurementStore store = new MeasurementStore(Paths.get("history"))) {
+ *     store.append(result);
+ *     StoreAggregate day = store.aggregate("needle-50", from, to);
+ * }
+ * </pre>
+ *
+ * 注意：Java 11 无法主动解除映射，关闭后映射内存随缓冲区被回收时释放。
+ * 同一目录同时只能由一个进程打开。
+ * @author Coder建设
+ */
+public class MeasurementStore implements Closeable {
+
+    /** 默认段容量（约 104MB 的稀疏文件） */
+    public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 20;
+    /** 默认时间索引粒度（每块记录数） */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private final Path root;
+    private int segmentCapacity = DEFAULT_SEGMENT_CAPACITY;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private Duration commitInterval = Duration.ofMillis(100);
+    private boolean forceOnCommit = true;
+
+    private final ConcurrentHashMap<String, TemplateLog> logs = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService committer;
+    private volatile RuntimeException commitFailure;
+    private volatile boolean closed;
+
+    /**
+     * @param root 存储根目录（不存在时创建）
+     */
+    public MeasurementStore(Path root) {
+        this.root = root;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new RuntimeException("无法创建存储目录: " + root, e);
+        }
+    }
+
+    /**
+     * 设置新建段的容量（已有段以文件头为准）
+     *
+     * @return this
+     */
+    public MeasurementStore setSegmentCapacity(int records) {
+        checkNotOpened();
+        if (records <= 0 || Segment.fileSize(records, blockSize) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("段容量无效: " + records);
+        }
+        this.segmentCapacity = records;
+        return this;
+    }
+
+    /**
+     * 设置时间索引粒度
+     *
+     * @return this
+     */
+    public MeasurementStore setBlockSize(int records) {
+        checkNotOpened();
+        if (records <= 0) {
+            throw new IllegalArgumentException("块大小必须大于0");
+        }
+        this.blockSize = records;
+        return this;
+    }
+
+    /**
+     * 设置组提交间隔（间隔越长单次落盘覆盖的写入越多，崩溃时可能丢失的记录也越多）
+     *
+     * @return this
+     */
+    public MeasurementStore setCommitInterval(Duration interval) {
+        checkNotOpened();
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("提交间隔必须大于0");
+        }
+        this.commitInterval = interval;
+        return this;
+    }
+
+    /**
+     * 设置提交时是否强制落盘（关闭后只保证进程崩溃不丢数据，不保证掉电）
+     *
+     * @return this
+     */
+    public MeasurementStore setForceOnCommit(boolean force) {
+        checkNotOpened();
+        this.forceOnCommit = force;
+        return this;
+    }
+
+    private void checkNotOpened() {
+        if (!logs.isEmpty()) {
+            throw new IllegalStateException("存储已在使用中，无法修改配置");
+        }
+    }
+
+    /**
+     * 以当前时间追加一条测量结果
+     *
+     * @param result 测量结果（按模板ID路由）
+     * @return 记录在该模板日志中的序号
+     */
+    public long append(MeasurementResult result) {
+        return append(System.currentTimeMillis(), result);
+    }
+
+    /**
+     * 追加一条测量结果（无锁，可多线程并发调用）
+     *
+     * @param timestampMillis 时间戳（毫秒，必须大于0）
+     * @param result 测量结果（按模板ID路由）
+     * @return 记录在该模板日志中的序号
+     * @throws IllegalArgumentException 如果时间戳无效或模板ID超过记录字段长度
+     * @throws RuntimeException 如果之前的后台提交失败
+     */
+    public long append(long timestampMillis, MeasurementResult result) {
+        if (timestampMillis <= 0) {
+            throw new IllegalArgumentException("时间戳必须大于0: " + timestampMillis);
+        }
+        if (closed) {
+            throw new IllegalStateException("存储已关闭");
+        }
+        checkCommitFailure();
+        TemplateLog log = logs.get(key(result.getTemplateId()));
+        if (log == null) {
+            log = openLog(key(result.getTemplateId()));
+            startCommitter();
+        }
+        return log.append(timestampMillis, result);
+    }
+
+    private TemplateLog openLog(String templateId) {
+        return logs.computeIfAbsent(templateId, id -> TemplateLog.open(root.resolve(directoryName(id)), id,
+            MeasurementRecord.encodeTemplateId(id.isEmpty() ? null : id), segmentCapacity, blockSize));
+    }
+
+    /**
+     * 读取时打开已有模板日志，不存在时返回null（不创建目录）
+     */
+    private TemplateLog existingLog(String templateId) {
+        String id = key(templateId);
+        TemplateLog log = logs.get(id);
+        if (log == null && Files.isDirectory(root.resolve(directoryName(id)))) {
+            log = openLog(id);
+        }
+        return log;
+    }
+
+    private static String key(String templateId) {
+        return templateId == null ? "" : templateId;
+    }
+
+    private void startCommitter() {
+        if (committer != null) {
+            return;
+        }
+        synchronized (this) {
+            if (committer != null || closed) {
+                return;
+            }
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "measurement-store-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = commitInterval.toMillis();
+            executor.scheduleWithFixedDelay(this::commitQuietly, interval, interval, TimeUnit.MILLISECONDS);
+            committer = executor;
+        }
+    }
+
+    private void commitQuietly() {
+        if (commitFailure != null) {
+            return;
+        }
+        try {
+            for (TemplateLog log : logs.values()) {
+                log.commit(forceOnCommit);
+            }
+        } catch (RuntimeException e) {
+            // 后台线程没有调用者可以通知，保存下来由下一次 append/flush/close 抛出
+            commitFailure = e;
+        }
+    }
+
+    private void checkCommitFailure() {
+        RuntimeException failure = commitFailure;
+        if (failure != null) {
+            throw new RuntimeException("测量历史提交失败: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * 同步提交调用前已追加的所有记录
+     *
+     * @throws RuntimeException 如果等待写入完成超时或之前的后台提交失败
+     */
+    public void flush() {
+        checkCommitFailure();
+        for (TemplateLog log : logs.values()) {
+            long target = log.reserved();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            log.commit(forceOnCommit);
+            while (log.committed() < target) {
+                if (System.nanoTime() > deadline) {
+                    throw new RuntimeException("等待写入完成超时: " + log.templateId);
+                }
+                Thread.yield();
+                log.commit(forceOnCommit);
+            }
+        }
+    }
+
+    /**
+     * 扫描模板在时间范围内的已提交记录
+     *
+     * @param templateId 模板ID
+     * @param fromMillis 起始时间（含）
+     * @param toMillis 结束时间（不含）
+     * @param visitor 回调
+     * @return 访问的记录数
+     */
+    public long scan(String templateId, long fromMillis, long toMillis, RecordVisitor visitor) {
+        TemplateLog log = existingLog(templateId);
+        return log == null ? 0 : log.scan(fromMillis, toMillis, visitor);
+    }
+
+    /**
+     * 读取模板在时间范围内的记录（结果保存在堆上，仅用于少量记录）
+     */
+    public List<MeasurementResult> query(String templateId, long fromMillis, long toMillis) {
+        List<MeasurementResult> results = new ArrayList<>();
+        scan(templateId, fromMillis, toMillis, (ts, buf, off) -> results.add(MeasurementRecord.read(buf, off)));
+        return results;
+    }
+
+    /**
+     * 聚合模板在时间范围内的记录
+     *
+     * @param templateId 模板ID
+     * @param fromMillis 起始时间（含）
+     * @param toMillis 结束时间（不含）
+     * @return 聚合结果
+     */
+    public StoreAggregate aggregate(String templateId, long fromMillis, long toMillis) {
+        StoreAggregate aggregate = new StoreAggregate();
+        scan(templateId, fromMillis, toMillis, aggregate::add);
+        return aggregate;
+    }
+
+    /**
+     * 模板的已提交记录数
+     */
+    public long count(String templateId) {
+        TemplateLog log = existingLog(templateId);
+        return log == null ? 0 : log.committed();
+    }
+
+    /**
+     * 存储中的所有模板ID（无模板ID的记录以空字符串表示）
+     */
+    public List<String> getTemplateIds() {
+        List<String> ids = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                ids.add(templateIdOf(dir.getFileName().toString()));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("无法读取存储目录: " + root, e);
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 模板ID转为目录名：字母、数字和'-'保留，其余 UTF-8 字节编码为 %XX，空ID为 "_"
+     */
+    static String directoryName(String templateId) {
+        if (templateId.isEmpty()) {
+            return "_";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : templateId.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-') {
+                sb.append(c);
+            } else {
+                sb.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return sb.toString();
+    }
+
+    static String templateIdOf(String directoryName) {
+        if (directoryName.equals("_")) {
+            return "";
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < directoryName.length(); i++) {
+            char c = directoryName.charAt(i);
+            if (c == '%' && i + 2 < directoryName.length()) {
+                bytes.write(Integer.parseInt(directoryName.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                bytes.write(c);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 提交所有记录并停止后台提交线程
+     *
+     * @throws RuntimeException 如果之前的后台提交失败或最后一次提交失败
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (committer != null) {
+            committer.shutdown();
+            try {
+                committer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+}
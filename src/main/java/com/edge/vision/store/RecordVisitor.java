@@ -0,0 +1,24 @@
+package com.edge.vision.store;
+
+import com.edge.vision.io.MeasurementRecord;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 记录扫描回调
+ *
+ * 直接访问映射缓冲区，不创建结果对象。字段用 {@link MeasurementRecord} 的单字段读取方法获取，
+ * 例如 {@code MeasurementRecord.lengthMm(buffer, offset)}；需要完整对象时调用
+ * {@link MeasurementRecord#read(ByteBuffer, int)}。
+ * @author Coder建设
+ */
+@FunctionalInterface
+public interface RecordVisitor {
+
+    /**
+     * @param timestampMillis 记录时间戳
+     * @param buffer 段缓冲区（小端字节序，只读使用，回调返回后不得保留）
+     * @param offset {@link MeasurementRecord} 在缓冲区中的起始位置
+     */
+    void visit(long timestampMillis, ByteBuffer buffer, int offset);
+}
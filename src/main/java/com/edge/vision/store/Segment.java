@@ -0,0 +1,226 @@
+package com.edge.vision.store;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.io.MeasurementRecord;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 定长段文件（内存映射）
+ *
+ * <pre>
+ * 偏移          内容
+ * 0             头部 ({@value #HEADER_SIZE} 字节): magic, version, recordSize, capacity, blockSize, 已提交记录数
+ * 64            稀疏时间索引: 每 blockSize 条记录一项 (minTimestamp, maxTimestamp)，各 8 字节
+ * dataOffset    记录区: capacity 条 × {@value #RECORD_SIZE} 字节，每条为 timestamp(8) + {@link MeasurementRecord}
+ * </pre>
+ *
+ * 全部小端字节序。文件按容量一次性创建（稀疏文件），记录区未写入的时间戳为0。
+ * @author Coder建设
+ */
+final class Segment {
+
+    static final int MAGIC = 0x3153_4D4E;  // "NMS1"
+    // 第2版：记录增加 flags（MeasurementRecord 第2版）
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 8 + MeasurementRecord.RECORD_SIZE;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_RECORD_SIZE = 8;
+    private static final int OFFSET_CAPACITY = 12;
+    private static final int OFFSET_BLOCK_SIZE = 16;
+    private static final int OFFSET_COMMITTED = 24;
+
+    /** 时间戳字段的 release/acquire 访问（记录按8字节对齐） */
+    private static final VarHandle LONG_VIEW =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    final Path path;
+    final int capacity;
+    final int blockSize;
+    final long baseSequence;
+    private final int blocks;
+    private final int dataOffset;
+    private final MappedByteBuffer buffer;
+
+    private Segment(Path path, MappedByteBuffer buffer, int capacity, int blockSize, long baseSequence) {
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.blockSize = blockSize;
+        this.baseSequence = baseSequence;
+        this.blocks = (capacity + blockSize - 1) / blockSize;
+        this.dataOffset = dataOffset(blocks);
+    }
+
+    private static int dataOffset(int blocks) {
+        // 记录区按64字节对齐
+        return (HEADER_SIZE + blocks * 16 + 63) & ~63;
+    }
+
+    static long fileSize(int capacity, int blockSize) {
+        int blocks = (capacity + blockSize - 1) / blockSize;
+        return dataOffset(blocks) + (long) capacity * RECORD_SIZE;
+    }
+
+    /**
+     * 创建新段文件
+     */
+    static Segment create(Path path, int capacity, int blockSize, long baseSequence) {
+        long size = fileSize(capacity, blockSize);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("段容量过大: " + capacity);
+        }
+        MappedByteBuffer buffer = map(path, size, true);
+        Segment segment = new Segment(path, buffer, capacity, blockSize, baseSequence);
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, VERSION);
+        buffer.putInt(OFFSET_RECORD_SIZE, RECORD_SIZE);
+        buffer.putInt(OFFSET_CAPACITY, capacity);
+        buffer.putInt(OFFSET_BLOCK_SIZE, blockSize);
+        buffer.putLong(OFFSET_COMMITTED, 0);
+        for (int b = 0; b < segment.blocks; b++) {
+            segment.resetBlock(b);
+        }
+        buffer.force();
+        return segment;
+    }
+
+    /**
+     * 打开已有段文件
+     *
+     * @throws RuntimeException 如果文件格式不正确
+     */
+    static Segment open(Path path, long baseSequence) {
+        MappedByteBuffer buffer = map(path, -1, false);
+        if (buffer.capacity() < HEADER_SIZE
+                || buffer.getInt(OFFSET_MAGIC) != MAGIC
+                || buffer.getInt(OFFSET_VERSION) != VERSION
+                || buffer.getInt(OFFSET_RECORD_SIZE) != RECORD_SIZE) {
+            throw new RuntimeException("无效的段文件: " + path);
+        }
+        int capacity = buffer.getInt(OFFSET_CAPACITY);
+        int blockSize = buffer.getInt(OFFSET_BLOCK_SIZE);
+        if (capacity <= 0 || blockSize <= 0 || buffer.capacity() != fileSize(capacity, blockSize)) {
+            throw new RuntimeException("段文件头损坏: " + path);
+        }
+        return new Segment(path, buffer, capacity, blockSize, baseSequence);
+    }
+
+    private static MappedByteBuffer map(Path path, long size, boolean create) {
+        try (FileChannel channel = create
+                ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long length = create ? size : channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            throw new RuntimeException("无法映射段文件: " + path, e);
+        }
+    }
+
+    /** 记录在映射缓冲区中的位置 */
+    int recordOffset(int index) {
+        return dataOffset + index * RECORD_SIZE;
+    }
+
+    /**
+     * 写入记录（不同下标可并发写入），时间戳最后写入，作为发布标记
+     */
+    void write(int index, long timestampMillis, MeasurementResult result, byte[] templateField) {
+        int offset = recordOffset(index);
+        MeasurementRecord.write(buffer, offset + 8, result, templateField);
+        LONG_VIEW.setRelease(buffer, offset, timestampMillis);
+    }
+
+    /** 记录是否已写完（提交线程使用） */
+    boolean isPublished(int index) {
+        return (long) LONG_VIEW.getAcquire(buffer, recordOffset(index)) != 0;
+    }
+
+    long timestamp(int index) {
+        return buffer.getLong(recordOffset(index));
+    }
+
+    long committed() {
+        return buffer.getLong(OFFSET_COMMITTED);
+    }
+
+    /**
+     * 更新已提交记录数（在记录区落盘之后调用）
+     */
+    void setCommitted(long count) {
+        buffer.putLong(OFFSET_COMMITTED, count);
+    }
+
+    int blockCount() {
+        return blocks;
+    }
+
+    long blockMin(int block) {
+        return buffer.getLong(HEADER_SIZE + block * 16);
+    }
+
+    long blockMax(int block) {
+        return buffer.getLong(HEADER_SIZE + block * 16 + 8);
+    }
+
+    /**
+     * 把一条已提交记录的时间戳并入所在块的索引项（仅提交线程调用）
+     */
+    void indexRecord(int index, long timestampMillis) {
+        int block = index / blockSize;
+        int pos = HEADER_SIZE + block * 16;
+        if (timestampMillis < buffer.getLong(pos)) {
+            buffer.putLong(pos, timestampMillis);
+        }
+        if (timestampMillis > buffer.getLong(pos + 8)) {
+            buffer.putLong(pos + 8, timestampMillis);
+        }
+    }
+
+    void resetBlock(int block) {
+        buffer.putLong(HEADER_SIZE + block * 16, Long.MAX_VALUE);
+        buffer.putLong(HEADER_SIZE + block * 16 + 8, Long.MIN_VALUE);
+    }
+
+    /**
+     * 崩溃恢复：清除已提交位置之后残留的记录和索引
+     */
+    void truncate(int committed) {
+        for (int i = committed; i < capacity; i++) {
+            int offset = recordOffset(i);
+            if (buffer.getLong(offset) != 0) {
+                buffer.putLong(offset, 0);
+            }
+        }
+        // 部分填充的块保留原索引项（范围只会偏宽，扫描时仍按时间戳逐条过滤）
+        for (int b = (committed + blockSize - 1) / blockSize; b < blocks; b++) {
+            resetBlock(b);
+        }
+        setCommitted(committed);
+        buffer.force();
+    }
+
+    /**
+     * 供扫描使用的独立视图（位置和字节序互不影响）
+     */
+    ByteBuffer view() {
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,67 @@
+package com.edge.vision.store;
+
+import com.edge.vision.io.MeasurementRecord;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 时间范围内测量记录的聚合统计
+ *
+ * 扫描时逐条累加（Welford 算法计算方差），不在堆上保存记录。
+ * @author Coder建设
+ */
+public final class StoreAggregate {
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double confidenceSum;
+    private long firstTimestamp;
+    private long lastTimestamp;
+
+    StoreAggregate() {
+    }
+
+    void add(long timestampMillis, ByteBuffer buffer, int offset) {
+        double length = MeasurementRecord.lengthMm(buffer, offset);
+        count++;
+        double delta = length - mean;
+        mean += delta / count;
+        m2 += delta * (length - mean);
+        if (count == 1) {
+            min = length;
+            max = length;
+            firstTimestamp = timestampMillis;
+            lastTimestamp = timestampMillis;
+        } else {
+            min = Math.min(min, length);
+            max = Math.max(max, length);
+            firstTimestamp = Math.min(firstTimestamp, timestampMillis);
+            lastTimestamp = Math.max(lastTimestamp, timestampMillis);
+        }
+        confidenceSum += MeasurementRecord.confidence(buffer, offset);
+    }
+
+    /** 记录数 */
+    public long getCount() { return count; }
+    /** 长度均值(mm)，无记录时为NaN */
+    public double getMeanLengthMm() { return count == 0 ? Double.NaN : mean; }
+    /** 长度样本标准差(mm)，少于2条记录时为NaN */
+    public double getStdDevLengthMm() { return count < 2 ? Double.NaN : Math.sqrt(m2 / (count - 1)); }
+    public double getMinLengthMm() { return min; }
+    public double getMaxLengthMm() { return max; }
+    /** 平均置信度，无记录时为NaN */
+    public double getMeanConfidence() { return count == 0 ? Double.NaN : confidenceSum / count; }
+    /** 最早记录时间戳，无记录时为0 */
+    public long getFirstTimestamp() { return firstTimestamp; }
+    /** 最晚记录时间戳，无记录时为0 */
+    public long getLastTimestamp() { return lastTimestamp; }
+
+    @Override
+    public String toString() {
+        return String.format("StoreAggregate{count=%d, mean=%.4fmm, std=%.4fmm, min=%.4fmm, max=%.4fmm, conf=%.3f}",
+            count, getMeanLengthMm(), getStdDevLengthMm(), min, max, getMeanConfidence());
+    }
+}
@@ -0,0 +1,242 @@
+package com.edge.vision.store;
+
+import com.edge.vision.core.MeasurementResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个模板的追加日志，由若干等容量段组成
+ *
+ * 写入：先确保序号所在段已创建，再以 CAS 分配全局序号，序号决定所在段和段内位置，
+ * 各写入线程互不加锁。建段失败时不占用序号，不会留下阻塞提交的空洞。
+ * 提交：由提交线程按序号顺序推进，只越过已写完（时间戳已发布）的记录，
+ * 落盘后更新段头的已提交数，读者只能看到已提交的记录。
+ * 已占用序号的记录写入失败（映射内存 I/O 错误）时日志进入失败状态：
+ * 之前的记录照常提交，之后的追加和提交都抛出该错误。
+ * @author Coder建设
+ */
+final class TemplateLog {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    final String templateId;
+    private final Path dir;
+    private final int capacity;
+    private final int blockSize;
+    private final byte[] templateField;
+    private final ConcurrentHashMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final AtomicLong next;
+    private volatile long committed;
+    private volatile Segment current;
+    private volatile RuntimeException failure;
+
+    private TemplateLog(String templateId, Path dir, int capacity, int blockSize, byte[] templateField, long committed) {
+        this.templateId = templateId;
+        this.dir = dir;
+        this.capacity = capacity;
+        this.blockSize = blockSize;
+        this.templateField = templateField;
+        this.committed = committed;
+        this.next = new AtomicLong(committed);
+    }
+
+    /**
+     * 打开或创建模板日志，丢弃上次未提交的记录
+     *
+     * @param capacity 新建段的容量（已有段以文件头为准）
+     */
+    static TemplateLog open(Path dir, String templateId, byte[] templateField, int capacity, int blockSize) {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new RuntimeException("无法创建模板目录: " + dir, e);
+        }
+
+        Segment first = Files.exists(segmentPath(dir, 0)) ? Segment.open(segmentPath(dir, 0), 0) : null;
+        if (first != null) {
+            capacity = first.capacity;
+            blockSize = first.blockSize;
+        }
+
+        // 提交严格按序推进：只有前一段写满，后一段才可能有已提交记录
+        ConcurrentHashMap<Integer, Segment> opened = new ConcurrentHashMap<>();
+        long total = 0;
+        int index = 0;
+        Segment segment = first;
+        while (segment != null) {
+            if (segment.capacity != capacity || segment.blockSize != blockSize) {
+                throw new RuntimeException("段容量不一致: " + segment.path);
+            }
+            long count = Math.min(segment.committed(), capacity);
+            opened.put(index, segment);
+            total += count;
+            if (count < capacity) {
+                segment.truncate((int) count);
+                break;
+            }
+            index++;
+            Path path = segmentPath(dir, index);
+            segment = Files.exists(path) ? Segment.open(path, (long) index * capacity) : null;
+        }
+        deleteSegmentsAfter(dir, index);
+
+        TemplateLog log = new TemplateLog(templateId, dir, capacity, blockSize, templateField, total);
+        log.segments.putAll(opened);
+        log.current = opened.get(index);
+        return log;
+    }
+
+    private static Path segmentPath(Path dir, int index) {
+        return dir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static void deleteSegmentsAfter(Path dir, int index) {
+        for (int i = index + 1; Files.exists(segmentPath(dir, i)); i++) {
+            try {
+                Files.delete(segmentPath(dir, i));
+            } catch (IOException e) {
+                throw new RuntimeException("无法删除未提交的段: " + segmentPath(dir, i), e);
+            }
+        }
+    }
+
+    /**
+     * 追加一条记录（无锁，可多线程并发调用）
+     *
+     * @return 记录序号
+     */
+    long append(long timestampMillis, MeasurementResult result) {
+        checkFailure();
+        long sequence;
+        Segment segment;
+        do {
+            sequence = next.get();
+            segment = segmentFor(sequence);
+        } while (!next.compareAndSet(sequence, sequence + 1));
+        try {
+            segment.write((int) (sequence - segment.baseSequence), timestampMillis, result, templateField);
+        } catch (RuntimeException | InternalError e) {
+            // 序号已占用却无法发布，提交永远越不过它
+            failure = new RuntimeException("写入记录失败: " + templateId + " #" + sequence, e);
+            throw e;
+        }
+        return sequence;
+    }
+
+    private void checkFailure() {
+        RuntimeException f = failure;
+        if (f != null) {
+            throw f;
+        }
+    }
+
+    private Segment segmentFor(long sequence) {
+        Segment c = current;
+        if (c != null && sequence >= c.baseSequence && sequence < c.baseSequence + capacity) {
+            return c;
+        }
+        int index = (int) (sequence / capacity);
+        Segment segment = segments.computeIfAbsent(index,
+            i -> Segment.create(segmentPath(dir, i), capacity, blockSize, (long) i * capacity));
+        c = current;
+        if (c == null || segment.baseSequence > c.baseSequence) {
+            current = segment;
+        }
+        return segment;
+    }
+
+    /**
+     * 推进提交位置（组提交：一次落盘覆盖期间所有写入）
+     *
+     * @param force 是否强制落盘
+     * @return 本次新提交的记录数
+     * @throws RuntimeException 如果日志已因写入失败进入失败状态（失败点之前的记录仍会提交）
+     */
+    synchronized long commit(boolean force) {
+        long reserved = next.get();
+        long start = committed;
+        long c = start;
+        while (c < reserved) {
+            Segment segment = segments.get((int) (c / capacity));
+            if (segment == null) {
+                break;
+            }
+            int index = (int) (c - segment.baseSequence);
+            if (!segment.isPublished(index)) {
+                break;
+            }
+            segment.indexRecord(index, segment.timestamp(index));
+            c++;
+        }
+        if (c == start) {
+            checkFailure();
+            return 0;
+        }
+
+        for (int s = (int) (start / capacity); s <= (int) ((c - 1) / capacity); s++) {
+            Segment segment = segments.get(s);
+            if (force) {
+                segment.force();
+            }
+            segment.setCommitted(Math.min(capacity, c - segment.baseSequence));
+            if (force) {
+                segment.force();
+            }
+        }
+        committed = c;
+        checkFailure();
+        return c - start;
+    }
+
+    /**
+     * 已分配的序号数（含尚未提交的）
+     */
+    long reserved() {
+        return next.get();
+    }
+
+    /**
+     * 已提交的记录数
+     */
+    long committed() {
+        return committed;
+    }
+
+    /**
+     * 扫描已提交记录中时间戳位于 [from, to) 的记录
+     *
+     * @return 访问的记录数
+     */
+    long scan(long fromMillis, long toMillis, RecordVisitor visitor) {
+        long limit = committed;
+        long visited = 0;
+        int segmentCount = (int) ((limit + capacity - 1) / capacity);
+        for (int s = 0; s < segmentCount; s++) {
+            Segment segment = segments.get(s);
+            int count = (int) Math.min(capacity, limit - segment.baseSequence);
+            ByteBuffer view = segment.view();
+            int blocks = (count + blockSize - 1) / blockSize;
+            for (int b = 0; b < blocks; b++) {
+                if (segment.blockMax(b) < fromMillis || segment.blockMin(b) >= toMillis) {
+                    continue;
+                }
+                int end = Math.min(count, (b + 1) * blockSize);
+                for (int i = b * blockSize; i < end; i++) {
+                    int offset = segment.recordOffset(i);
+                    long timestamp = view.getLong(offset);
+                    if (timestamp >= fromMillis && timestamp < toMillis) {
+                        visitor.visit(timestamp, view, offset + 8);
+                        visited++;
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+}
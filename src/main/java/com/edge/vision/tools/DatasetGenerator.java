@@ -0,0 +1,305 @@
+package com.edge.vision.tools;
+
+import com.edge.vision.platform.ThreadingPolicy;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合成数据集生成器
+ *
+ * 用 {@link SyntheticNeedleGenerator} 批量生成图像语料，输出目录结构:
+ * <pre>
+ * outDir/
+ *   template.png, template.meta   与语料外观一致的模板
+ *   dataset.properties            生成参数（用于复现）
+ *   manifest.csv                  真值清单，按序号排列
+ *   images/000/000000.jpg         每个子目录 1000 张
+ * </pre>
+ *
+ * 命令行:
+ * <pre>
+ * java -cp app.jar com.edge.vision.tools.DatasetGenerator /data/synthetic 100000 \
+ *     --width 8192 --height 6000 --seed 7 --threads 8 --format jpg
+ * </pre>
+ * @author Coder建设
+ */
+public class DatasetGenerator {
+
+    public static final String MANIFEST_HEADER = "index,file,width,height,tip1_x,tip1_y,tip2_x,tip2_y,"
+        + "length_px,length_mm,scale,rotation_deg,blur_sigma,noise_sigma,gradient,clutter";
+
+    private static final int FILES_PER_DIR = 1000;
+
+    private final SyntheticNeedleGenerator generator;
+    private final Path outputDir;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String format = "jpg";
+    private int jpegQuality = 95;
+
+    /**
+     * 创建数据集生成器
+     *
+     * @param generator 图像生成器
+     * @param outputDir 输出目录
+     */
+    public DatasetGenerator(SyntheticNeedleGenerator generator, Path outputDir) {
+        this.generator = generator;
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * 设置并行线程数
+     *
+     * @param threads 线程数
+     * @return this
+     */
+    public DatasetGenerator setThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("线程数必须大于0");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * 设置图像格式
+     *
+     * @param format jpg 或 png
+     * @return this
+     */
+    public DatasetGenerator setFormat(String format) {
+        String f = format.toLowerCase(Locale.ROOT);
+        if (!f.equals("jpg") && !f.equals("png")) {
+            throw new IllegalArgumentException("不支持的图像格式: " + format);
+        }
+        this.format = f;
+        return this;
+    }
+
+    /**
+     * 设置JPEG质量
+     *
+     * @param quality 质量（1-100）
+     * @return this
+     */
+    public DatasetGenerator setJpegQuality(int quality) {
+        if (quality < 1 || quality > 100) {
+            throw new IllegalArgumentException("JPEG质量必须在1-100之间");
+        }
+        this.jpegQuality = quality;
+        return this;
+    }
+
+    /**
+     * 生成 count 张图像（序号 0 到 count-1）
+     *
+     * @param count 图像数量
+     * @return manifest 文件路径
+     */
+    public Path generate(long count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("图像数量必须大于0");
+        }
+        try {
+            Files.createDirectories(outputDir.resolve("images"));
+            generator.buildTemplate(outputDir.resolve("template").toString());
+            writeProperties(count);
+        } catch (IOException e) {
+            throw new RuntimeException("无法创建数据集目录: " + outputDir, e);
+        }
+
+        Path manifest = outputDir.resolve("manifest.csv");
+        ExecutorService executor = ThreadingPolicy.builder()
+            .setName("dataset")
+            .setWorkerThreads(threads)
+            .setOpenCVThreads(1)
+            .setThreadNamePrefix("dataset-gen")
+            .build()
+            .newWorkerExecutor();
+        long start = System.currentTimeMillis();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8)) {
+            writer.write(MANIFEST_HEADER);
+            writer.newLine();
+            ManifestSink sink = new ManifestSink(writer);
+            AtomicLong next = new AtomicLong();
+            AtomicLong done = new AtomicLong();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    long index;
+                    while ((index = next.getAndIncrement()) < count) {
+                        sink.accept(index, generateOne(index));
+                        long n = done.incrementAndGet();
+                        if (n % FILES_PER_DIR == 0 || n == count) {
+                            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+                            System.out.printf("已生成 %d/%d 张, %.1f 张/秒%n", n, count, n * 1000.0 / elapsed);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("数据集生成失败: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("数据集生成被中断", e);
+        } catch (IOException e) {
+            throw new RuntimeException("写入清单失败: " + manifest, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return manifest;
+    }
+
+    private String generateOne(long index) throws IOException {
+        String relative = String.format("images/%03d/%06d.%s", index / FILES_PER_DIR, index, format);
+        Path file = outputDir.resolve(relative);
+        Files.createDirectories(file.getParent());
+
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(index)) {
+            IntPointer params = format.equals("jpg")
+                ? new IntPointer(opencv_imgcodecs.IMWRITE_JPEG_QUALITY, jpegQuality)
+                : new IntPointer(opencv_imgcodecs.IMWRITE_PNG_COMPRESSION, 1);
+            try {
+                if (!opencv_imgcodecs.imwrite(file.toString(), sample.getImage(), params)) {
+                    throw new IOException("无法写入图像: " + file);
+                }
+            } finally {
+                params.close();
+            }
+            return manifestRow(sample.getScene(), relative);
+        }
+    }
+
+    /**
+     * 生成一行清单记录
+     */
+    static String manifestRow(SyntheticNeedleGenerator.Scene s, String file) {
+        return String.format(Locale.ROOT, "%d,%s,%d,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.5f,%.4f,%.3f,%.3f,%.4f,%d",
+            s.getIndex(), file, s.getWidth(), s.getHeight(),
+            s.getTip1X(), s.getTip1Y(), s.getTip2X(), s.getTip2Y(),
+            s.getLengthPx(), s.getLengthMm(), s.getScale(), s.getRotationDeg(),
+            s.getBlurSigma(), s.getNoiseSigma(), s.getGradient(), s.getClutter());
+    }
+
+    private void writeProperties(long count) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("count", String.valueOf(count));
+        props.setProperty("format", format);
+        props.setProperty("generator", generator.toString());
+        props.setProperty("seed", String.valueOf(generator.getSeed()));
+        props.setProperty("width", String.valueOf(generator.getWidth()));
+        props.setProperty("height", String.valueOf(generator.getHeight()));
+        props.setProperty("template", "template.png");
+        try (Writer writer = Files.newBufferedWriter(outputDir.resolve("dataset.properties"), StandardCharsets.UTF_8)) {
+            props.store(writer, "合成针图像数据集");
+        }
+    }
+
+    /**
+     * 按序号顺序写出清单（工作线程乱序完成，缓存尚未轮到的行）
+     */
+    private static final class ManifestSink {
+        private final Writer writer;
+        private final Map<Long, String> pending = new TreeMap<>();
+        private long nextIndex = 0;
+
+        ManifestSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        synchronized void accept(long index, String row) throws IOException {
+            pending.put(index, row);
+            String ready;
+            while ((ready = pending.remove(nextIndex)) != null) {
+                writer.write(ready);
+                writer.write('\n');
+                nextIndex++;
+            }
+        }
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 输出目录 数量 [--width W] [--height H] [--seed S] [--threads N] [--format jpg|png]
+     *             [--quality Q] [--scale MIN,MAX] [--rotation DEG] [--blur SIGMA] [--noise SIGMA]
+     *             [--gradient G] [--clutter N] [--needle LENGTH,WIDTH] [--length-mm MM]
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length % 2 != 0) {
+            System.err.println("用法: DatasetGenerator <输出目录> <数量> [--width W] [--height H] [--seed S] "
+                + "[--threads N] [--format jpg|png] [--quality Q] [--scale MIN,MAX] [--rotation DEG] "
+                + "[--blur SIGMA] [--noise SIGMA] [--gradient G] [--clutter N] [--needle LENGTH,WIDTH] "
+                + "[--length-mm MM]");
+            System.exit(2);
+        }
+
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator();
+        DatasetGenerator dataset = new DatasetGenerator(generator, Paths.get(args[0]));
+        long count = Long.parseLong(args[1]);
+        int width = generator.getWidth();
+        int height = generator.getHeight();
+
+        for (int i = 2; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--width": width = Integer.parseInt(value); break;
+                case "--height": height = Integer.parseInt(value); break;
+                case "--seed": generator.setSeed(Long.parseLong(value)); break;
+                case "--threads": dataset.setThreads(Integer.parseInt(value)); break;
+                case "--format": dataset.setFormat(value); break;
+                case "--quality": dataset.setJpegQuality(Integer.parseInt(value)); break;
+                case "--scale": {
+                    String[] range = value.split(",");
+                    generator.setScaleRange(Double.parseDouble(range[0]), Double.parseDouble(range[1]));
+                    break;
+                }
+                case "--rotation": generator.setMaxRotation(Double.parseDouble(value)); break;
+                case "--blur": generator.setMaxBlur(Double.parseDouble(value)); break;
+                case "--noise": generator.setMaxNoise(Double.parseDouble(value)); break;
+                case "--gradient": generator.setMaxGradient(Double.parseDouble(value)); break;
+                case "--clutter": generator.setMaxClutter(Integer.parseInt(value)); break;
+                case "--needle": {
+                    String[] size = value.split(",");
+                    generator.setNeedleSize(Double.parseDouble(size[0]), Double.parseDouble(size[1]));
+                    break;
+                }
+                case "--length-mm": generator.setReferenceLength(Double.parseDouble(value)); break;
+                default:
+                    System.err.println("未知参数: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        generator.setResolution(width, height);
+
+        System.out.println(generator);
+        long start = System.currentTimeMillis();
+        Path manifest = dataset.generate(count);
+        System.out.printf("完成: %d 张, 耗时 %.1f 秒, 清单: %s%n",
+            count, (System.currentTimeMillis() - start) / 1000.0, manifest);
+    }
+}
@@ -0,0 +1,113 @@
+package com.edge.vision.tools;
+
+/**
+ * 对数-线性延迟直方图（微秒精度）
+ *
+ * 小于128µs的值逐个计数；更大的值按2的幂分段，每段再线性分为64个桶，
+ * 相对误差不超过 1/64（约1.6%）。内存固定，记录为O(1)，不做同步，
+ * 多线程使用时每个线程一个实例，结束后用 {@link #add(LatencyHistogram)} 合并。
+ * @author Coder建设
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR_LIMIT = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+
+    // 覆盖到 2^40 µs（约12天）
+    private static final int MAX_SHIFT = 34;
+    private static final int BUCKET_COUNT = SUB_BUCKETS * MAX_SHIFT + LINEAR_LIMIT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long maxMicros = 0;
+    private long minMicros = Long.MAX_VALUE;
+    private double sumMicros = 0;
+
+    /**
+     * 记录一次延迟
+     *
+     * @param nanos 延迟（纳秒）
+     */
+    public void recordNanos(long nanos) {
+        record(Math.max(0, nanos) / 1000);
+    }
+
+    /**
+     * 记录一次延迟
+     *
+     * @param micros 延迟（微秒）
+     */
+    public void record(long micros) {
+        counts[bucketIndex(micros)]++;
+        totalCount++;
+        sumMicros += micros;
+        if (micros > maxMicros) {
+            maxMicros = micros;
+        }
+        if (micros < minMicros) {
+            minMicros = micros;
+        }
+    }
+
+    /**
+     * 合并另一个直方图
+     *
+     * @param other 直方图
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sumMicros += other.sumMicros;
+        maxMicros = Math.max(maxMicros, other.maxMicros);
+        minMicros = Math.min(minMicros, other.minMicros);
+    }
+
+    /**
+     * 计算百分位（返回所在桶的上界，即不低估延迟）
+     *
+     * @param percentile 百分位（0-100）
+     * @return 延迟（微秒），无数据时返回0
+     */
+    public long percentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(totalCount * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(maxMicros, bucketUpperBound(i));
+            }
+        }
+        return maxMicros;
+    }
+
+    public long getCount() { return totalCount; }
+    public long getMaxMicros() { return maxMicros; }
+    public long getMinMicros() { return totalCount == 0 ? 0 : minMicros; }
+    public double getMeanMicros() { return totalCount == 0 ? 0 : sumMicros / totalCount; }
+
+    static int bucketIndex(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) Math.max(0, micros);
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return BUCKET_COUNT - 1;
+        }
+        return SUB_BUCKETS * shift + (int) (micros >>> shift);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index - (long) SUB_BUCKETS * shift;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,524 @@
+package com.edge.vision.tools;
+
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.platform.OpenCVInitializer;
+import com.edge.vision.platform.ThreadingPolicy;
+import com.edge.vision.utils.ImageUtils;
+import org.bytedeco.javacpp.Pointer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 压力测试工具
+ *
+ * 将目录中的图像或合成语料以固定到达率或最大速率重放给 {@link NeedleLengthAnalyzer}，
+ * 报告吞吐量、延迟百分位、CPU利用率和原生内存峰值，用于产线硬件选型。
+ *
+ * 固定到达率模式下，第 i 个请求的计划开始时间为 start + i/rate，延迟从计划时间算起，
+ * 因此工作线程全忙时排队等待的时间也计入延迟（协调遗漏校正）；
+ * 同时单独报告不含排队的服务时间。最大速率模式为闭环测试，两者相同。
+ *
+ * 每个工作线程持有独立的分析器，图像以编码字节形式预先载入内存，
+ * 每次请求都包含解码，与从相机或网络接收图像的生产路径一致。
+ *
+ * 命令行（通过 loadTestJar 打包）:
+ * <pre>
+ * java -jar needle-measure-sdk-1.0.0-loadtest.jar --template t.png --dir /data/images --workers 4 --rate 20 --duration 60
+ * java -jar needle-measure-sdk-1.0.0-loadtest.jar --synthetic 4096x3000 --workers 8 --duration 30
+ * </pre>
+ * @author Coder建设
+ */
+public class LoadTest {
+
+    // 资源采样间隔
+    private static final long SAMPLE_INTERVAL_MS = 100;
+
+    private final String templatePath;
+    private final List<byte[]> images;
+    private int workers = 1;
+    private int openCVThreads = ThreadingPolicy.OPENCV_DEFAULT;
+    private double rate = 0;
+    private Duration duration = Duration.ofSeconds(30);
+    private long requests = 0;
+    private int warmupIterations = 3;
+
+    /**
+     * 创建压力测试
+     *
+     * @param templatePath 模板路径
+     * @param images 编码后的图像（按顺序循环重放）
+     */
+    public LoadTest(String templatePath, List<byte[]> images) {
+        if (images.isEmpty()) {
+            throw new IllegalArgumentException("没有可用的测试图像");
+        }
+        this.templatePath = templatePath;
+        this.images = images;
+    }
+
+    /**
+     * 设置工作线程数（每个线程一个分析器）
+     */
+    public LoadTest setWorkers(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("工作线程数必须大于0");
+        }
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * 设置 OpenCV 内部线程数，默认不修改
+     */
+    public LoadTest setOpenCVThreads(int threads) {
+        this.openCVThreads = threads;
+        return this;
+    }
+
+    /**
+     * 设置固定到达率
+     *
+     * @param imagesPerSecond 每秒请求数，0表示以最大速率运行
+     */
+    public LoadTest setRate(double imagesPerSecond) {
+        if (imagesPerSecond < 0) {
+            throw new IllegalArgumentException("到达率不能为负数");
+        }
+        this.rate = imagesPerSecond;
+        return this;
+    }
+
+    /**
+     * 设置测试时长（设置请求数时以请求数为准）
+     */
+    public LoadTest setDuration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * 设置总请求数，0表示按时长运行
+     */
+    public LoadTest setRequests(long requests) {
+        this.requests = Math.max(0, requests);
+        return this;
+    }
+
+    /**
+     * 设置每个分析器的预热次数（不计入统计）
+     */
+    public LoadTest setWarmupIterations(int iterations) {
+        this.warmupIterations = Math.max(0, iterations);
+        return this;
+    }
+
+    /**
+     * 执行压力测试
+     *
+     * @return 测试报告
+     */
+    public Report run() {
+        OpenCVInitializer.initializePreloaded(null);
+        ThreadingPolicy policy = ThreadingPolicy.builder()
+            .setName("loadtest")
+            .setWorkerThreads(workers)
+            .setOpenCVThreads(openCVThreads)
+            .setThreadNamePrefix("loadtest")
+            .build();
+        OpenCVInitializer.applyThreadingPolicy(policy);
+
+        List<NeedleLengthAnalyzer> analyzers = new ArrayList<>();
+        ExecutorService executor = policy.newWorkerExecutor();
+        ResourceMonitor monitor = new ResourceMonitor();
+        try {
+            for (int i = 0; i < workers; i++) {
+                NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath);
+                for (int w = 0; w < warmupIterations; w++) {
+                    analyzeQuietly(analyzer, images.get(w % images.size()));
+                }
+                analyzers.add(analyzer);
+            }
+
+            long limit = requests > 0 ? requests
+                : rate > 0 ? (long) Math.ceil(rate * duration.toNanos() / 1e9) : Long.MAX_VALUE;
+            long periodNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+            AtomicLong next = new AtomicLong();
+
+            monitor.start();
+            long startNanos = System.nanoTime();
+            long deadline = requests > 0 || rate > 0 ? Long.MAX_VALUE : startNanos + duration.toNanos();
+
+            List<Future<WorkerStats>> futures = new ArrayList<>();
+            for (NeedleLengthAnalyzer analyzer : analyzers) {
+                futures.add(executor.submit(() ->
+                    runWorker(analyzer, next, limit, startNanos, periodNanos, deadline)));
+            }
+
+            WorkerStats total = new WorkerStats();
+            for (Future<WorkerStats> future : futures) {
+                total.add(future.get());
+            }
+            long elapsedNanos = Math.max(1, total.lastEndNanos - startNanos);
+            monitor.stop();
+
+            return new Report(workers, rate, total, elapsedNanos, monitor);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("压力测试失败: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("压力测试被中断", e);
+        } finally {
+            monitor.stop();
+            executor.shutdownNow();
+            analyzers.forEach(NeedleLengthAnalyzer::close);
+        }
+    }
+
+    private WorkerStats runWorker(NeedleLengthAnalyzer analyzer, AtomicLong next, long limit,
+                                  long startNanos, long periodNanos, long deadline) {
+        WorkerStats stats = new WorkerStats();
+        long i;
+        while ((i = next.getAndIncrement()) < limit) {
+            long intended;
+            if (periodNanos > 0) {
+                intended = startNanos + i * periodNanos;
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+                if (intended >= deadline) {
+                    break;
+                }
+            }
+
+            long begin = System.nanoTime();
+            boolean ok = analyzeQuietly(analyzer, images.get((int) (i % images.size())));
+            long end = System.nanoTime();
+
+            stats.service.recordNanos(end - begin);
+            stats.latency.recordNanos(end - intended);
+            if (ok) {
+                stats.completed++;
+            } else {
+                stats.errors++;
+            }
+            stats.lastEndNanos = Math.max(stats.lastEndNanos, end);
+        }
+        return stats;
+    }
+
+    private static boolean analyzeQuietly(NeedleLengthAnalyzer analyzer, byte[] image) {
+        try {
+            analyzer.analyze(image);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 单个工作线程的统计（线程内独占，结束后合并）
+     */
+    private static final class WorkerStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        long completed;
+        long errors;
+        long lastEndNanos;
+
+        void add(WorkerStats other) {
+            latency.add(other.latency);
+            service.add(other.service);
+            completed += other.completed;
+            errors += other.errors;
+            lastEndNanos = Math.max(lastEndNanos, other.lastEndNanos);
+        }
+    }
+
+    /**
+     * CPU 和原生内存采样
+     */
+    private static final class ResourceMonitor {
+        private final java.lang.management.OperatingSystemMXBean os =
+            ManagementFactory.getOperatingSystemMXBean();
+        private volatile boolean running;
+        private Thread thread;
+        private long startCpuNanos;
+        private long startWallNanos;
+        private long cpuNanos;
+        private long wallNanos;
+        private volatile long maxPhysicalBytes;
+        private volatile long maxTrackedBytes;
+        private volatile double maxSystemLoad;
+
+        void start() {
+            startCpuNanos = processCpuNanos();
+            startWallNanos = System.nanoTime();
+            running = true;
+            thread = new Thread(() -> {
+                while (running) {
+                    sample();
+                    try {
+                        Thread.sleep(SAMPLE_INTERVAL_MS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "loadtest-monitor");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        synchronized void stop() {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread.interrupt();
+            sample();
+            cpuNanos = processCpuNanos() - startCpuNanos;
+            wallNanos = System.nanoTime() - startWallNanos;
+        }
+
+        private void sample() {
+            maxPhysicalBytes = Math.max(maxPhysicalBytes, Pointer.physicalBytes());
+            maxTrackedBytes = Math.max(maxTrackedBytes, Pointer.totalBytes());
+            if (os instanceof com.sun.management.OperatingSystemMXBean) {
+                @SuppressWarnings("deprecation")
+                double load = ((com.sun.management.OperatingSystemMXBean) os).getSystemCpuLoad();
+                maxSystemLoad = Math.max(maxSystemLoad, load);
+            }
+        }
+
+        private long processCpuNanos() {
+            if (os instanceof com.sun.management.OperatingSystemMXBean) {
+                return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+            }
+            return -1;
+        }
+
+        /**
+         * 进程CPU利用率（占全部核心的比例）
+         */
+        double processCpuUtilization() {
+            if (cpuNanos < 0 || wallNanos <= 0) {
+                return -1;
+            }
+            return (double) cpuNanos / wallNanos / Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * 读取 Linux 进程常驻内存峰值（VmHWM，进程生命周期内）
+     *
+     * @return 字节数，非Linux平台返回-1
+     */
+    static long readVmHwmBytes() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(l -> l.startsWith("VmHWM:"))
+                .map(l -> Long.parseLong(l.replaceAll("[^0-9]", "")) * 1024)
+                .findFirst().orElse(-1L);
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 压力测试报告
+     */
+    public static final class Report {
+        private final int workers;
+        private final double targetRate;
+        private final long completed;
+        private final long errors;
+        private final double elapsedSeconds;
+        private final LatencyHistogram latency;
+        private final LatencyHistogram service;
+        private final double cpuUtilization;
+        private final double maxSystemCpuLoad;
+        private final long maxPhysicalBytes;
+        private final long maxTrackedNativeBytes;
+        private final long vmHwmBytes;
+
+        Report(int workers, double targetRate, WorkerStats stats, long elapsedNanos, ResourceMonitor monitor) {
+            this.workers = workers;
+            this.targetRate = targetRate;
+            this.completed = stats.completed;
+            this.errors = stats.errors;
+            this.elapsedSeconds = elapsedNanos / 1e9;
+            this.latency = stats.latency;
+            this.service = stats.service;
+            this.cpuUtilization = monitor.processCpuUtilization();
+            this.maxSystemCpuLoad = monitor.maxSystemLoad;
+            this.maxPhysicalBytes = monitor.maxPhysicalBytes;
+            this.maxTrackedNativeBytes = monitor.maxTrackedBytes;
+            this.vmHwmBytes = readVmHwmBytes();
+        }
+
+        /** 吞吐量（张/秒，含失败请求） */
+        public double getThroughput() { return (completed + errors) / elapsedSeconds; }
+        public long getCompleted() { return completed; }
+        public long getErrors() { return errors; }
+        /** 含排队时间的延迟（固定到达率下已做协调遗漏校正） */
+        public LatencyHistogram getLatency() { return latency; }
+        /** 不含排队的服务时间 */
+        public LatencyHistogram getServiceTime() { return service; }
+        /** 进程CPU利用率（0-1，占全部核心） */
+        public double getCpuUtilization() { return cpuUtilization; }
+        /** 采样到的最大常驻内存（字节） */
+        public long getMaxPhysicalBytes() { return maxPhysicalBytes; }
+        /** 采样到的 JavaCPP 跟踪的最大原生分配（字节） */
+        public long getMaxTrackedNativeBytes() { return maxTrackedNativeBytes; }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "workers=%d, mode=%s, elapsed=%.1fs%n", workers,
+                targetRate > 0 ? String.format(Locale.ROOT, "fixed %.1f/s", targetRate) : "max-rate",
+                elapsedSeconds));
+            sb.append(String.format(Locale.ROOT, "throughput: %.2f images/s (completed=%d, errors=%d)%n",
+                getThroughput(), completed, errors));
+            appendLatency(sb, targetRate > 0 ? "latency (CO-corrected)" : "latency", latency);
+            if (targetRate > 0) {
+                appendLatency(sb, "service time", service);
+            }
+            sb.append(String.format(Locale.ROOT, "cpu: process=%.1f%% of %d cores, system peak=%.1f%%%n",
+                cpuUtilization * 100, Runtime.getRuntime().availableProcessors(), maxSystemCpuLoad * 100));
+            sb.append(String.format(Locale.ROOT, "memory: rss peak=%s, javacpp tracked peak=%s, VmHWM=%s",
+                mb(maxPhysicalBytes), mb(maxTrackedNativeBytes), vmHwmBytes >= 0 ? mb(vmHwmBytes) : "n/a"));
+            return sb.toString();
+        }
+
+        private static void appendLatency(StringBuilder sb, String name, LatencyHistogram h) {
+            sb.append(String.format(Locale.ROOT, "%s: p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms mean=%.1fms%n",
+                name, h.percentile(50) / 1000.0, h.percentile(95) / 1000.0, h.percentile(99) / 1000.0,
+                h.getMaxMicros() / 1000.0, h.getMeanMicros() / 1000.0));
+        }
+
+        private static String mb(long bytes) {
+            return String.format(Locale.ROOT, "%.1fMB", bytes / (1024.0 * 1024.0));
+        }
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 参数，见用法说明
+     */
+    public static void main(String[] args) throws IOException {
+        String template = null;
+        String dir = null;
+        String synthetic = null;
+        int syntheticCount = 20;
+        LoadTestOptions options = new LoadTestOptions();
+
+        if (args.length == 0 || args.length % 2 != 0) {
+            usage();
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--template": template = value; break;
+                case "--dir": dir = value; break;
+                case "--synthetic": synthetic = value; break;
+                case "--synthetic-count": syntheticCount = Integer.parseInt(value); break;
+                case "--workers": options.workers = Integer.parseInt(value); break;
+                case "--opencv-threads": options.openCVThreads = Integer.parseInt(value); break;
+                case "--rate": options.rate = Double.parseDouble(value); break;
+                case "--duration": options.durationSeconds = Long.parseLong(value); break;
+                case "--requests": options.requests = Long.parseLong(value); break;
+                case "--warmup": options.warmup = Integer.parseInt(value); break;
+                default: usage();
+            }
+        }
+
+        List<byte[]> images;
+        if (dir != null) {
+            if (template == null) {
+                usage();
+            }
+            images = loadDirectory(Paths.get(dir));
+        } else if (synthetic != null) {
+            String[] size = synthetic.toLowerCase(Locale.ROOT).split("x");
+            SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+                .setResolution(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            if (template == null) {
+                Path templateDir = Files.createTempDirectory("needle-loadtest");
+                template = templateDir.resolve("template").toString() + ".png";
+                generator.buildTemplate(templateDir.resolve("template").toString());
+            }
+            images = new ArrayList<>();
+            for (int i = 0; i < syntheticCount; i++) {
+                try (SyntheticNeedleGenerator.Sample sample = generator.render(i)) {
+                    images.add(ImageUtils.toJpegBytes(sample.getImage()));
+                }
+            }
+        } else {
+            usage();
+            return;
+        }
+
+        System.out.println("Loaded " + images.size() + " images, template " + template);
+        Report report = new LoadTest(template, images)
+            .setWorkers(options.workers)
+            .setOpenCVThreads(options.openCVThreads)
+            .setRate(options.rate)
+            .setDuration(Duration.ofSeconds(options.durationSeconds))
+            .setRequests(options.requests)
+            .setWarmupIterations(options.warmup)
+            .run();
+        System.out.println(report);
+    }
+
+    private static List<byte[]> loadDirectory(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile)
+                .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).matches(".*\\.(jpe?g|png|bmp)$"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        List<byte[]> images = new ArrayList<>(files.size());
+        for (Path file : files) {
+            images.add(Files.readAllBytes(file));
+        }
+        return images;
+    }
+
+    private static void usage() {
+        System.err.println("用法: LoadTest (--dir <图像目录> --template <模板> | --synthetic <宽>x<高> [--template <模板>]"
+            + " [--synthetic-count N]) [--workers N] [--opencv-threads N] [--rate 每秒张数，0为最大速率]"
+            + " [--duration 秒] [--requests N] [--warmup N]");
+        System.exit(2);
+    }
+
+    private static final class LoadTestOptions {
+        int workers = 1;
+        int openCVThreads = ThreadingPolicy.OPENCV_DEFAULT;
+        double rate = 0;
+        long durationSeconds = 30;
+        long requests = 0;
+        int warmup = 3;
+    }
+}
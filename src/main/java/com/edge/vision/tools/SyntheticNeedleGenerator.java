@@ -0,0 +1,578 @@
+package com.edge.vision.tools;
+
+import com.edge.vision.template.TemplateBuilder;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.RNG;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * 合成针图像生成器
+ *
+ * 按参数渲染带已知针尖坐标的灰度针图像（输出为BGR），用于吞吐量基准测试和精度边界分析。
+ * 针的一端为尖头（针尖1），另一端为平头针座（针尖2，取端面中点），与模板匹配的两个特征一一对应。
+ *
+ * 每张图像的随机参数只由 (seed, index) 决定，与生成顺序和线程数无关，
+ * 因此任意一张图像都可以单独复现。
+ *
+ * 渲染顺序：背景 → 干扰物 → 针 → 光照梯度 → 模糊（光学） → 噪声（传感器）
+ *
+ * 使用示例:
+ * <pre>
+ * SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+ *     .setResolution(4096, 3000)
+ *     .setScaleRange(0.8, 1.2)
+ *     .setMaxRotation(5)
+ *     .setSeed(7);
+ *
+ * generator.buildTemplate("/data/synthetic/template");
+ * try (SyntheticNeedleGenerator.Sample sample = generator.render(0)) {
+ *     imwrite("sample.png", sample.getImage());
+ * }
+ * </pre>
+ * @author Coder建设
+ */
+public class SyntheticNeedleGenerator {
+
+    /**
+     * 支持的最大像素数（50MP）
+     */
+    public static final long MAX_PIXELS = 50_000_000L;
+
+    // 亚像素绘制精度（坐标小数位数，2^4 = 1/16 像素）
+    private static final int SHIFT = 4;
+    private static final double SHIFT_SCALE = 1 << SHIFT;
+
+    // 模板图像中针周围的留白
+    private static final int TEMPLATE_PADDING = 80;
+
+    private int width = 2000;
+    private int height = 1500;
+    private double needleLengthPx = 960;
+    private double needleWidthPx = 8;
+    private double referenceLengthMm = 50.0;
+    private int backgroundLevel = 40;
+    private int needleLevel = 220;
+
+    private double minScale = 0.9;
+    private double maxScale = 1.1;
+    private double maxRotationDeg = 3.0;
+    private double maxBlurSigma = 1.5;
+    private double maxNoiseSigma = 6.0;
+    private double maxGradient = 0.4;
+    private int maxClutter = 8;
+    private long seed = 42;
+
+    /**
+     * 设置输出分辨率
+     *
+     * @param width 宽度
+     * @param height 高度
+     * @return this
+     */
+    public SyntheticNeedleGenerator setResolution(int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * height > MAX_PIXELS) {
+            throw new IllegalArgumentException("分辨率无效或超过50MP: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    /**
+     * 设置针在比例1.0时的像素长度和粗细（模板即按此渲染）
+     *
+     * @param lengthPx 针尖距离（像素）
+     * @param widthPx 针身粗细（像素）
+     * @return this
+     */
+    public SyntheticNeedleGenerator setNeedleSize(double lengthPx, double widthPx) {
+        if (lengthPx <= 0 || widthPx <= 0) {
+            throw new IllegalArgumentException("针尺寸必须大于0");
+        }
+        this.needleLengthPx = lengthPx;
+        this.needleWidthPx = widthPx;
+        return this;
+    }
+
+    /**
+     * 设置比例1.0时针的实际长度（毫米），决定真值中的毫米长度
+     *
+     * @param lengthMm 实际长度
+     * @return this
+     */
+    public SyntheticNeedleGenerator setReferenceLength(double lengthMm) {
+        if (lengthMm <= 0) {
+            throw new IllegalArgumentException("长度必须大于0");
+        }
+        this.referenceLengthMm = lengthMm;
+        return this;
+    }
+
+    /**
+     * 设置背景和针的灰度
+     *
+     * @param background 背景灰度（0-255）
+     * @param needle 针灰度（0-255）
+     * @return this
+     */
+    public SyntheticNeedleGenerator setLevels(int background, int needle) {
+        if (background < 0 || background > 255 || needle < 0 || needle > 255) {
+            throw new IllegalArgumentException("灰度必须在0-255之间");
+        }
+        this.backgroundLevel = background;
+        this.needleLevel = needle;
+        return this;
+    }
+
+    /**
+     * 设置针相对模板的比例范围（均匀分布）
+     *
+     * @param min 最小比例
+     * @param max 最大比例
+     * @return this
+     */
+    public SyntheticNeedleGenerator setScaleRange(double min, double max) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("比例范围无效: " + min + " - " + max);
+        }
+        this.minScale = min;
+        this.maxScale = max;
+        return this;
+    }
+
+    /**
+     * 设置最大旋转角度（度，在 ±max 内均匀分布）
+     *
+     * @param degrees 最大角度
+     * @return this
+     */
+    public SyntheticNeedleGenerator setMaxRotation(double degrees) {
+        this.maxRotationDeg = Math.abs(degrees);
+        return this;
+    }
+
+    /**
+     * 设置最大高斯模糊sigma（在 [0, max] 内均匀分布，0表示不模糊）
+     *
+     * @param sigma 最大sigma（像素）
+     * @return this
+     */
+    public SyntheticNeedleGenerator setMaxBlur(double sigma) {
+        this.maxBlurSigma = Math.max(0, sigma);
+        return this;
+    }
+
+    /**
+     * 设置最大高斯噪声标准差（灰度级，在 [0, max] 内均匀分布）
+     *
+     * @param sigma 最大标准差
+     * @return this
+     */
+    public SyntheticNeedleGenerator setMaxNoise(double sigma) {
+        this.maxNoiseSigma = Math.max(0, sigma);
+        return this;
+    }
+
+    /**
+     * 设置最大光照梯度（图像两端亮度增益之差，0.4表示 0.8x - 1.2x）
+     *
+     * @param gradient 最大梯度
+     * @return this
+     */
+    public SyntheticNeedleGenerator setMaxGradient(double gradient) {
+        if (gradient < 0 || gradient >= 2) {
+            throw new IllegalArgumentException("光照梯度必须在 [0, 2) 之间");
+        }
+        this.maxGradient = gradient;
+        return this;
+    }
+
+    /**
+     * 设置每张图像的最大干扰物数量（在 [0, max] 内均匀分布）
+     *
+     * @param count 最大数量
+     * @return this
+     */
+    public SyntheticNeedleGenerator setMaxClutter(int count) {
+        this.maxClutter = Math.max(0, count);
+        return this;
+    }
+
+    /**
+     * 设置随机种子
+     *
+     * @param seed 种子
+     * @return this
+     */
+    public SyntheticNeedleGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * 生成与本生成器外观一致的模板（比例1.0、无旋转、无退化）
+     *
+     * @param outputPath 输出路径（不含扩展名）
+     * @return 保存的元数据文件路径
+     */
+    public String buildTemplate(String outputPath) {
+        int tipY = (int) Math.ceil(needleWidthPx * 1.5) + TEMPLATE_PADDING;
+        int tip1X = TEMPLATE_PADDING;
+        int tip2X = TEMPLATE_PADDING + (int) Math.round(needleLengthPx);
+        Mat image = new Mat(tipY * 2, tip2X + TEMPLATE_PADDING, opencv_core.CV_8UC1, new Scalar(backgroundLevel));
+        Mat bgr = new Mat();
+        TemplateBuilder builder = new TemplateBuilder();
+        try {
+            drawNeedle(image, tip1X, tipY, tip2X, tipY, 1.0);
+            opencv_imgproc.cvtColor(image, bgr, opencv_imgproc.COLOR_GRAY2BGR);
+            return builder.setImage(bgr)
+                .setReferenceLength(referenceLengthMm)
+                .setTip1(tip1X, tipY)
+                .setTip2(tip2X, tipY)
+                .setTemplateId(String.format("synthetic_%dpx", Math.round(needleLengthPx)))
+                .buildAndSave(outputPath);
+        } finally {
+            builder.release();
+            bgr.close();
+            image.close();
+        }
+    }
+
+    /**
+     * 抽取第 index 张图像的随机参数（不渲染）
+     *
+     * @param index 图像序号
+     * @return 场景参数和真值
+     */
+    public Scene scene(long index) {
+        SplittableRandom random = new SplittableRandom(mix(seed, index));
+
+        double scale = uniform(random, minScale, maxScale);
+        double rotation = uniform(random, -maxRotationDeg, maxRotationDeg);
+        double length = needleLengthPx * scale;
+        double angle = Math.toRadians(rotation);
+        double dx = Math.cos(angle) * length;
+        double dy = Math.sin(angle) * length;
+
+        // 针尖距图像边缘至少保留一个特征块和针座的空间
+        double margin = 40 + needleWidthPx * 2 * scale;
+        double spanX = width - Math.abs(dx) - 2 * margin;
+        double spanY = height - Math.abs(dy) - 2 * margin;
+        if (spanX < 0 || spanY < 0) {
+            throw new IllegalStateException(String.format(
+                "针（%.0fpx, 比例%.2f）无法放入 %dx%d 的图像", length, scale, width, height));
+        }
+        double x1 = margin + Math.max(0, -dx) + random.nextDouble() * spanX;
+        double y1 = margin + Math.max(0, -dy) + random.nextDouble() * spanY;
+
+        return new Scene(index, width, height, x1, y1, x1 + dx, y1 + dy, scale, rotation,
+            referenceLengthMm * scale,
+            random.nextDouble() * maxBlurSigma,
+            random.nextDouble() * maxNoiseSigma,
+            random.nextDouble() * maxGradient,
+            random.nextDouble() * 2 * Math.PI,
+            maxClutter > 0 ? random.nextInt(maxClutter + 1) : 0,
+            random.nextLong());
+    }
+
+    /**
+     * 渲染第 index 张图像
+     *
+     * @param index 图像序号
+     * @return 图像和真值，使用后需关闭
+     */
+    public Sample render(long index) {
+        Scene scene = scene(index);
+        Mat gray = new Mat(height, width, opencv_core.CV_8UC1, new Scalar(backgroundLevel));
+        Mat image = new Mat();
+        try {
+            SplittableRandom random = new SplittableRandom(scene.detailSeed);
+            drawClutter(gray, scene, random);
+            drawNeedle(gray, scene.tip1X, scene.tip1Y, scene.tip2X, scene.tip2Y, scene.scale);
+            applyGradient(gray, scene.gradient, scene.gradientAngle);
+            if (scene.blurSigma > 0.05) {
+                opencv_imgproc.GaussianBlur(gray, gray, new Size(0, 0), scene.blurSigma);
+            }
+            if (scene.noiseSigma > 0.05) {
+                addNoise(gray, scene.noiseSigma, random.nextLong());
+            }
+            opencv_imgproc.cvtColor(gray, image, opencv_imgproc.COLOR_GRAY2BGR);
+            return new Sample(image, scene);
+        } catch (RuntimeException e) {
+            image.close();
+            throw e;
+        } finally {
+            gray.close();
+        }
+    }
+
+    /**
+     * 绘制针：针尖1为尖头，针尖2为平头针座的端面中点
+     */
+    private void drawNeedle(Mat gray, double x1, double y1, double x2, double y2, double scale) {
+        double length = Math.hypot(x2 - x1, y2 - y1);
+        double ux = (x2 - x1) / length;
+        double uy = (y2 - y1) / length;
+        double nx = -uy;
+        double ny = ux;
+
+        double half = needleWidthPx * scale / 2;
+        double taper = needleWidthPx * scale * 3;
+        double hubHalf = needleWidthPx * scale * 1.1;
+        double hubLength = needleWidthPx * scale * 6;
+        Scalar color = new Scalar(needleLevel);
+
+        // 针身（含尖头）
+        double sx = x1 + ux * taper;
+        double sy = y1 + uy * taper;
+        double hx = x2 - ux * hubLength;
+        double hy = y2 - uy * hubLength;
+        fillPolygon(gray, color,
+            x1, y1,
+            sx + nx * half, sy + ny * half,
+            hx + nx * half, hy + ny * half,
+            hx - nx * half, hy - ny * half,
+            sx - nx * half, sy - ny * half);
+
+        // 针座
+        fillPolygon(gray, color,
+            hx + nx * hubHalf, hy + ny * hubHalf,
+            x2 + nx * hubHalf, y2 + ny * hubHalf,
+            x2 - nx * hubHalf, y2 - ny * hubHalf,
+            hx - nx * hubHalf, hy - ny * hubHalf);
+    }
+
+    private static void fillPolygon(Mat image, Scalar color, double... xy) {
+        int count = xy.length / 2;
+        Point points = new Point(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                points.position(i)
+                    .x((int) Math.round(xy[2 * i] * SHIFT_SCALE))
+                    .y((int) Math.round(xy[2 * i + 1] * SHIFT_SCALE));
+            }
+            points.position(0);
+            opencv_imgproc.fillConvexPoly(image, points, count, color, opencv_imgproc.LINE_AA, SHIFT);
+        } finally {
+            points.close();
+        }
+    }
+
+    /**
+     * 绘制干扰物（短线段、圆、矩形），避开针及其针尖特征块所在区域
+     */
+    private void drawClutter(Mat gray, Scene scene, SplittableRandom random) {
+        double pad = 40 + needleWidthPx * 2 * scene.scale;
+        double minX = Math.min(scene.tip1X, scene.tip2X) - pad;
+        double maxX = Math.max(scene.tip1X, scene.tip2X) + pad;
+        double minY = Math.min(scene.tip1Y, scene.tip2Y) - pad;
+        double maxY = Math.max(scene.tip1Y, scene.tip2Y) + pad;
+        double maxSize = Math.max(20, Math.min(width, height) / 8.0);
+
+        for (int i = 0; i < scene.clutter; i++) {
+            for (int attempt = 0; attempt < 20; attempt++) {
+                double size = uniform(random, 8, maxSize);
+                double cx = uniform(random, 0, width);
+                double cy = uniform(random, 0, height);
+                if (cx + size > minX && cx - size < maxX && cy + size > minY && cy - size < maxY) {
+                    continue;
+                }
+                Scalar color = new Scalar(uniform(random, 60, 200));
+                int thickness = 1 + random.nextInt(4);
+                switch (random.nextInt(3)) {
+                    case 0: {
+                        double a = random.nextDouble() * Math.PI;
+                        double ex = Math.cos(a) * size;
+                        double ey = Math.sin(a) * size;
+                        opencv_imgproc.line(gray,
+                            new Point((int) (cx - ex), (int) (cy - ey)),
+                            new Point((int) (cx + ex), (int) (cy + ey)),
+                            color, thickness, opencv_imgproc.LINE_AA, 0);
+                        break;
+                    }
+                    case 1:
+                        opencv_imgproc.circle(gray, new Point((int) cx, (int) cy), (int) (size / 2),
+                            color, random.nextBoolean() ? -1 : thickness, opencv_imgproc.LINE_AA, 0);
+                        break;
+                    default:
+                        opencv_imgproc.rectangle(gray,
+                            new Point((int) (cx - size / 2), (int) (cy - size / 3)),
+                            new Point((int) (cx + size / 2), (int) (cy + size / 3)),
+                            color, random.nextBoolean() ? -1 : thickness, opencv_imgproc.LINE_8, 0);
+                        break;
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * 叠加线性光照梯度：增益沿 angle 方向从 1-g/2 变化到 1+g/2
+     */
+    private static void applyGradient(Mat gray, double gradient, double angle) {
+        if (gradient <= 0.001) {
+            return;
+        }
+        int w = gray.cols();
+        int h = gray.rows();
+        double ca = Math.cos(angle);
+        double sa = Math.sin(angle);
+        double extent = Math.abs(ca) * w + Math.abs(sa) * h;
+        double gx = gradient * ca / extent;
+        double gy = gradient * sa / extent;
+        double g0 = 1.0 - gx * w / 2 - gy * h / 2;
+
+        ByteBuffer buf = gray.createBuffer();
+        long step = gray.step();
+        byte[] row = new byte[w];
+        for (int y = 0; y < h; y++) {
+            int offset = (int) (y * step);
+            buf.position(offset);
+            buf.get(row);
+            double gain = g0 + gy * y;
+            for (int x = 0; x < w; x++) {
+                int v = (int) ((row[x] & 0xFF) * gain + 0.5);
+                row[x] = (byte) (v > 255 ? 255 : v);
+                gain += gx;
+            }
+            buf.position(offset);
+            buf.put(row);
+        }
+    }
+
+    private static void addNoise(Mat gray, double sigma, long noiseSeed) {
+        Mat noise = new Mat(gray.rows(), gray.cols(), opencv_core.CV_16SC1);
+        Mat widened = new Mat();
+        Mat mean = new Mat(1, 1, opencv_core.CV_64FC1, new Scalar(0));
+        Mat stddev = new Mat(1, 1, opencv_core.CV_64FC1, new Scalar(sigma));
+        RNG rng = new RNG(noiseSeed);
+        try {
+            rng._fill(noise, RNG.NORMAL, mean, stddev);
+            gray.convertTo(widened, opencv_core.CV_16SC1);
+            opencv_core.add(widened, noise, widened);
+            widened.convertTo(gray, opencv_core.CV_8UC1);
+        } finally {
+            rng.close();
+            stddev.close();
+            mean.close();
+            widened.close();
+            noise.close();
+        }
+    }
+
+    private static double uniform(SplittableRandom random, double min, double max) {
+        return min + random.nextDouble() * (max - min);
+    }
+
+    // SplitMix64 终结函数，把 (seed, index) 映射为相互独立的种子
+    private static long mix(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public long getSeed() { return seed; }
+    public double getNeedleLengthPx() { return needleLengthPx; }
+    public double getReferenceLengthMm() { return referenceLengthMm; }
+
+    @Override
+    public String toString() {
+        return String.format("SyntheticNeedleGenerator{%dx%d, needle=%.0fx%.0fpx, scale=[%.2f, %.2f], "
+                + "rotation=±%.1f°, blur<=%.2f, noise<=%.1f, gradient<=%.2f, clutter<=%d, seed=%d}",
+            width, height, needleLengthPx, needleWidthPx, minScale, maxScale, maxRotationDeg,
+            maxBlurSigma, maxNoiseSigma, maxGradient, maxClutter, seed);
+    }
+
+    /**
+     * 单张图像的场景参数和真值
+     */
+    public static final class Scene {
+        private final long index;
+        private final int width;
+        private final int height;
+        private final double tip1X;
+        private final double tip1Y;
+        private final double tip2X;
+        private final double tip2Y;
+        private final double scale;
+        private final double rotationDeg;
+        private final double lengthMm;
+        private final double blurSigma;
+        private final double noiseSigma;
+        private final double gradient;
+        private final double gradientAngle;
+        private final int clutter;
+        private final long detailSeed;
+
+        Scene(long index, int width, int height, double tip1X, double tip1Y, double tip2X, double tip2Y,
+              double scale, double rotationDeg, double lengthMm, double blurSigma, double noiseSigma,
+              double gradient, double gradientAngle, int clutter, long detailSeed) {
+            this.index = index;
+            this.width = width;
+            this.height = height;
+            this.tip1X = tip1X;
+            this.tip1Y = tip1Y;
+            this.tip2X = tip2X;
+            this.tip2Y = tip2Y;
+            this.scale = scale;
+            this.rotationDeg = rotationDeg;
+            this.lengthMm = lengthMm;
+            this.blurSigma = blurSigma;
+            this.noiseSigma = noiseSigma;
+            this.gradient = gradient;
+            this.gradientAngle = gradientAngle;
+            this.clutter = clutter;
+            this.detailSeed = detailSeed;
+        }
+
+        public long getIndex() { return index; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public double getTip1X() { return tip1X; }
+        public double getTip1Y() { return tip1Y; }
+        public double getTip2X() { return tip2X; }
+        public double getTip2Y() { return tip2Y; }
+        public double getScale() { return scale; }
+        public double getRotationDeg() { return rotationDeg; }
+        public double getBlurSigma() { return blurSigma; }
+        public double getNoiseSigma() { return noiseSigma; }
+        public double getGradient() { return gradient; }
+        public int getClutter() { return clutter; }
+
+        /** 真值像素长度 */
+        public double getLengthPx() { return Math.hypot(tip2X - tip1X, tip2Y - tip1Y); }
+        /** 真值毫米长度 */
+        public double getLengthMm() { return lengthMm; }
+    }
+
+    /**
+     * 渲染结果：BGR图像及其场景真值
+     */
+    public static final class Sample implements AutoCloseable {
+        private final Mat image;
+        private final Scene scene;
+
+        Sample(Mat image, Scene scene) {
+            this.image = image;
+            this.scene = scene;
+        }
+
+        public Mat getImage() { return image; }
+        public Scene getScene() { return scene; }
+
+        @Override
+        public void close() {
+            image.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.edge.vision.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 直接缓冲区池（读取输入流用）
+ *
+ * 输入流直接读入池中的直接缓冲区，解码时把缓冲区地址交给 imdecode，
+ * 省去 ByteArrayOutputStream 的扩容复制、toByteArray 和 new Mat(bytes) 三次复制。
+ * 缓冲区按2的幂分配，归还时最多保留 {@value #MAX_POOLED} 个、每个不超过 {@value #MAX_POOLED_CAPACITY} 字节，
+ * 超出的交给 GC 回收。
+ * @author Coder建设
+ */
+final class DirectBufferPool {
+
+    static final int MIN_CAPACITY = 1 << 20;
+    static final int MAX_POOLED = 4;
+    static final int MAX_POOLED_CAPACITY = 64 << 20;
+
+    static final DirectBufferPool INSTANCE = new DirectBufferPool();
+
+    private final ConcurrentLinkedQueue<ByteBuffer> pooled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 取一个容量不小于 minCapacity 的缓冲区（position=0, limit=capacity）
+     */
+    ByteBuffer acquire(int minCapacity) {
+        for (ByteBuffer buffer; (buffer = pooled.poll()) != null; ) {
+            size.decrementAndGet();
+            if (buffer.capacity() >= minCapacity) {
+                buffer.clear();
+                return buffer;
+            }
+            // 容量不够的丢弃，由下面重新分配
+        }
+        return ByteBuffer.allocateDirect(roundUp(minCapacity));
+    }
+
+    /**
+     * 归还缓冲区
+     */
+    void release(ByteBuffer buffer) {
+        if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        if (size.incrementAndGet() > MAX_POOLED) {
+            size.decrementAndGet();
+            return;
+        }
+        pooled.offer(buffer);
+    }
+
+    /**
+     * 把输入流读完
+     *
+     * @return 池中的缓冲区（已 flip，position=0, limit=长度），用完后调用 {@link #release(ByteBuffer)}
+     */
+    ByteBuffer readFully(InputStream is) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(is);
+        ByteBuffer buffer = acquire(Math.max(is.available() + 1, MIN_CAPACITY));
+        try {
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer = grow(buffer);
+                }
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private ByteBuffer grow(ByteBuffer full) {
+        if (full.capacity() > Integer.MAX_VALUE / 2) {
+            throw new IllegalStateException("输入流超过缓冲区上限");
+        }
+        ByteBuffer larger = acquire(full.capacity() * 2);
+        full.flip();
+        larger.put(full);
+        release(full);
+        return larger;
+    }
+
+    private static int roundUp(int capacity) {
+        int rounded = Integer.highestOneBit(Math.max(capacity, MIN_CAPACITY));
+        return rounded < capacity ? rounded << 1 : rounded;
+    }
+}
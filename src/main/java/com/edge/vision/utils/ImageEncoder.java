@@ -0,0 +1,272 @@
+package com.edge.vision.utils;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 图像编码器
+ *
+ * 可配置编码参数（JPEG 质量、PNG 压缩级别/策略、WebP 质量）。imencode 的输出由 OpenCV 分配在本地内存中，
+ * 用完立即释放；写入 {@link OutputStream} 时经每个线程复用的堆内分块复制，
+ * 写入 {@link WritableByteChannel} 时直接写出本地内存，编码结果不经过 Java 堆，也不再整体复制成字节数组。
+ * 配置完成后可在多个线程间共享。
+ *
+ * 使用示例:
+ * <pre>
+ * ImageEncoder encoder = ImageEncoder.jpeg(85);
+ * try (FileChannel out = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+ *     encoder.encode(image, out);
+ * }
+ * </pre>
+ * @author Coder建设
+ */
+public final class ImageEncoder {
+
+    public static final String PNG = ".png";
+    public static final String JPEG = ".jpg";
+    public static final String WEBP = ".webp";
+
+    /** PNG 默认压缩级别：最快（标注图像以大面积平坦背景为主，更高级别几乎不再变小） */
+    public static final int DEFAULT_PNG_COMPRESSION = 1;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /** 写入输出流时每个线程复用的堆内分块 */
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    private final String format;
+    private int[] params = new int[0];
+    private volatile IntPointer nativeParams;
+
+    /**
+     * 创建编码器（使用 OpenCV 默认参数）
+     *
+     * @param format 格式扩展名（如 ".png"、".jpg"、".webp"、".tif"）
+     */
+    public ImageEncoder(String format) {
+        if (format == null || !format.startsWith(".") || format.length() < 2) {
+            throw new IllegalArgumentException("格式扩展名无效: " + format);
+        }
+        this.format = format.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 最快压缩级别的 PNG 编码器
+     */
+    public static ImageEncoder png() {
+        return new ImageEncoder(PNG).setPngCompression(DEFAULT_PNG_COMPRESSION);
+    }
+
+    /**
+     * JPEG 编码器
+     *
+     * @param quality 质量 0-100
+     */
+    public static ImageEncoder jpeg(int quality) {
+        return new ImageEncoder(JPEG).setJpegQuality(quality);
+    }
+
+    /**
+     * WebP 编码器
+     *
+     * @param quality 质量 1-100，大于100时为无损
+     */
+    public static ImageEncoder webp(int quality) {
+        return new ImageEncoder(WEBP).setWebpQuality(quality);
+    }
+
+    /**
+     * 按文件扩展名创建编码器，PNG 使用最快压缩级别，其余格式使用 OpenCV 默认参数
+     *
+     * @param path 文件路径
+     */
+    public static ImageEncoder forPath(String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/') || dot < path.lastIndexOf('\\')) {
+            throw new IllegalArgumentException("文件没有扩展名: " + path);
+        }
+        ImageEncoder encoder = new ImageEncoder(path.substring(dot));
+        return encoder.format.equals(PNG) ? encoder.setPngCompression(DEFAULT_PNG_COMPRESSION) : encoder;
+    }
+
+    public ImageEncoder setJpegQuality(int quality) {
+        checkRange("JPEG质量", quality, 0, 100);
+        return setParameter(opencv_imgcodecs.IMWRITE_JPEG_QUALITY, quality);
+    }
+
+    /**
+     * @param level 压缩级别 0-9，越大越慢
+     */
+    public ImageEncoder setPngCompression(int level) {
+        checkRange("PNG压缩级别", level, 0, 9);
+        return setParameter(opencv_imgcodecs.IMWRITE_PNG_COMPRESSION, level);
+    }
+
+    /**
+     * @param strategy zlib 策略，如 {@link opencv_imgcodecs#IMWRITE_PNG_STRATEGY_RLE}
+     */
+    public ImageEncoder setPngStrategy(int strategy) {
+        checkRange("PNG压缩策略", strategy, opencv_imgcodecs.IMWRITE_PNG_STRATEGY_DEFAULT,
+            opencv_imgcodecs.IMWRITE_PNG_STRATEGY_FIXED);
+        return setParameter(opencv_imgcodecs.IMWRITE_PNG_STRATEGY, strategy);
+    }
+
+    /**
+     * @param quality 质量 1-100，大于100时为无损
+     */
+    public ImageEncoder setWebpQuality(int quality) {
+        if (quality < 1) {
+            throw new IllegalArgumentException("WebP质量必须大于0: " + quality);
+        }
+        return setParameter(opencv_imgcodecs.IMWRITE_WEBP_QUALITY, quality);
+    }
+
+    /**
+     * 设置任意 imencode 参数（IMWRITE_*），同一参数重复设置时覆盖
+     */
+    public synchronized ImageEncoder setParameter(int key, int value) {
+        for (int i = 0; i < params.length; i += 2) {
+            if (params[i] == key) {
+                params[i + 1] = value;
+                nativeParams = null;
+                return this;
+            }
+        }
+        int[] grown = Arrays.copyOf(params, params.length + 2);
+        grown[params.length] = key;
+        grown[params.length + 1] = value;
+        params = grown;
+        nativeParams = null;
+        return this;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * 当前参数（键值对交替）
+     */
+    public synchronized int[] getParameters() {
+        return params.clone();
+    }
+
+    /**
+     * 编码为字节数组（只分配结果数组本身）
+     */
+    public byte[] encode(Mat image) {
+        try (BytePointer data = encodeNative(image)) {
+            byte[] bytes = new byte[(int) data.limit()];
+            data.get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * 编码并写入输出流（不关闭流）
+     *
+     * @return 写入的字节数
+     */
+    public long encode(Mat image, OutputStream out) throws IOException {
+        try (BytePointer data = encodeNative(image)) {
+            byte[] chunk = CHUNK.get();
+            long length = data.limit();
+            for (long offset = 0; offset < length; ) {
+                int n = (int) Math.min(chunk.length, length - offset);
+                data.position(offset).get(chunk, 0, n);
+                out.write(chunk, 0, n);
+                offset += n;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * 编码并写入通道（直接写出本地内存，不经过 Java 堆；不关闭通道）
+     *
+     * @return 写入的字节数
+     */
+    public long encode(Mat image, WritableByteChannel out) throws IOException {
+        try (BytePointer data = encodeNative(image)) {
+            ByteBuffer view = data.asByteBuffer();
+            long length = view.remaining();
+            while (view.hasRemaining()) {
+                out.write(view);
+            }
+            return length;
+        }
+    }
+
+    /**
+     * 编码并写入文件（覆盖已有文件）
+     *
+     * @return 写入的字节数
+     */
+    public long encode(Mat image, Path file) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return encode(image, out);
+        }
+    }
+
+    /**
+     * 编码到本地内存（limit 为编码长度，调用方负责关闭）
+     */
+    private BytePointer encodeNative(Mat image) {
+        if (image == null || image.empty()) {
+            throw new IllegalArgumentException("图像为空");
+        }
+        // 空指针：由 JavaCPP 按编码结果大小分配，不预先复制任何内容
+        BytePointer data = new BytePointer();
+        boolean ok;
+        try {
+            ok = opencv_imgcodecs.imencode(format, image, data, nativeParams());
+        } catch (RuntimeException e) {
+            data.close();
+            throw new RuntimeException("图像编码失败: " + format, e);
+        }
+        if (!ok) {
+            data.close();
+            throw new RuntimeException("图像编码失败: " + format);
+        }
+        return data;
+    }
+
+    private IntPointer nativeParams() {
+        IntPointer p = nativeParams;
+        if (p == null) {
+            synchronized (this) {
+                p = nativeParams;
+                if (p == null) {
+                    p = new IntPointer(params.length == 0 ? new int[] { 0 } : params);
+                    p.limit(params.length);
+                    nativeParams = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    private static void checkRange(String name, int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + "必须在" + min + "到" + max + "之间: " + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ImageEncoder{" + format + ", params=" + Arrays.toString(getParameters()) + "}";
+    }
+}
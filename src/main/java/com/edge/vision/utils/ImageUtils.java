@@ -2,11 +2,16 @@ package com.edge.vision.utils;
 
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.opencv.global.opencv_core;
 import org.bytedeco.opencv.global.opencv_imgcodecs;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * 图像工具类
@@ -17,13 +22,81 @@ public class ImageUtils {
 
     /**
      * 从输入流读取图像
+     * 流读入池化的直接缓冲区后直接解码，不经过堆内字节数组（不关闭输入流）
      *
      * @param is 输入流
      * @return Mat图像
      */
     public static Mat readFromStream(InputStream is) {
-        byte[] bytes = readAllBytes(is);
-        return opencv_imgcodecs.imdecode(new Mat(bytes), opencv_imgcodecs.IMREAD_COLOR);
+        ByteBuffer buffer;
+        try {
+            buffer = DirectBufferPool.INSTANCE.readFully(is);
+        } catch (IOException e) {
+            throw new RuntimeException("读取输入流失败", e);
+        }
+        try {
+            return readFromBuffer(buffer);
+        } finally {
+            DirectBufferPool.INSTANCE.release(buffer);
+        }
+    }
+
+    /**
+     * 从缓冲区读取图像（position 到 limit 之间的编码字节，不改变缓冲区状态）
+     * 直接缓冲区（含内存映射缓冲区）的地址直接交给 imdecode，不复制；堆内缓冲区复制一次到本地内存；
+     * 无法访问底层数组的堆内缓冲区（如只读缓冲区）先复制到池化的直接缓冲区
+     *
+     * @param buffer 编码后的图像
+     * @return Mat图像，无法解码时为空 Mat
+     */
+    public static Mat readFromBuffer(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        if (length == 0) {
+            return new Mat();
+        }
+        if (!buffer.isDirect() && !buffer.hasArray()) {
+            ByteBuffer copy = DirectBufferPool.INSTANCE.acquire(length);
+            try {
+                copy.put(buffer.duplicate()).flip();
+                return readFromBuffer(copy);
+            } finally {
+                DirectBufferPool.INSTANCE.release(copy);
+            }
+        }
+        BytePointer data = new BytePointer(buffer);
+        Mat encoded = new Mat(1, length, opencv_core.CV_8UC1, data);
+        try {
+            return opencv_imgcodecs.imdecode(encoded, opencv_imgcodecs.IMREAD_COLOR);
+        } finally {
+            encoded.close();
+            data.close();
+            // 解码之后再访问一次，保证解码期间缓冲区（及其映射）不被回收（Android 没有 reachabilityFence）
+            buffer.position();
+        }
+    }
+
+    /**
+     * 以只读方式内存映射整个文件
+     *
+     * @param file 文件
+     * @return 映射缓冲区（不再引用后由 GC 解除映射）
+     */
+    public static MappedByteBuffer mapFile(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new RuntimeException("无法读取文件: " + file, e);
+        }
+    }
+
+    /**
+     * 内存映射读取图像文件（编码字节不进入 Java 堆）
+     *
+     * @param file 图像文件
+     * @return Mat图像，无法解码时为空 Mat
+     */
+    public static Mat readFromFile(Path file) {
+        return readFromBuffer(mapFile(file));
     }
 
     /**
@@ -37,19 +110,15 @@ public class ImageUtils {
     }
 
     /**
-     * 将图像编码为字节数组
+     * 将图像编码为字节数组（OpenCV 默认参数）
+     * 需要指定质量或压缩级别、或直接写出到流和通道时使用 {@link ImageEncoder}
      *
      * @param image 图像
      * @param format 格式（如".jpg", ".png"）
      * @return 字节数组
      */
     public static byte[] toBytes(Mat image, String format) {
-        BytePointer buf = new BytePointer();
-        opencv_imgcodecs.imencode(format, image, buf);
-        byte[] bytes = new byte[(int)buf.limit()];
-        buf.get(bytes);
-        buf.close();
-        return bytes;
+        return new ImageEncoder(format).encode(image);
     }
 
     /**
@@ -72,22 +141,6 @@ public class ImageUtils {
         return toBytes(image, ".jpg");
     }
 
-    /**
-     * 读取输入流的所有字节
-     */
-    private static byte[] readAllBytes(InputStream is) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            byte[] buffer = new byte[8192];
-            int read;
-            while ((read = is.read(buffer)) != -1) {
-                baos.write(buffer, 0, read);
-            }
-            return baos.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("读取输入流失败", e);
-        }
-    }
-
     /**
      * 安全释放Mat资源
      *
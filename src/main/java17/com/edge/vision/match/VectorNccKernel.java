@@ -0,0 +1,67 @@
+package com.edge.vision.match;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Vector API 实现（JDK 17+，需要 --add-modules jdk.incubator.vector）
+ *
+ * 对每个模板像素加载一段连续的目标像素与广播的模板值乘加，
+ * 一次得到平台首选宽度个相邻输出位置的互相关，累加器留在寄存器中；
+ * 行尾不足一个向量的部分用标量补齐。
+ * 由 {@link NccKernel#getDefault()} 反射加载，只打包在多版本 JAR 的 META-INF/versions/17 中。
+ * @author Coder建设
+ */
+final class VectorNccKernel extends NccKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    // 小窗口的输出宽度常常不足一个首选宽度向量，再用半宽向量处理一次
+    private static final VectorSpecies<Integer> HALF_SPECIES = SPECIES.vectorBitSize() >= 256
+        ? VectorSpecies.of(int.class, VectorShape.forBitSize(SPECIES.vectorBitSize() / 2))
+        : SPECIES;
+    private static final int LANES = SPECIES.length();
+    private static final int HALF_LANES = HALF_SPECIES.length();
+
+    @Override
+    public String getName() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    protected void correlateRow(int[] image, int rowStart, NccPatch patch, int[] offsets,
+                                int outWidth, int[] acc) {
+        int[] templ = patch.values();
+        int x = 0;
+        for (; x + LANES <= outWidth; x += LANES) {
+            int base = rowStart + x;
+            IntVector sum = IntVector.zero(SPECIES);
+            for (int k = 0; k < templ.length; k++) {
+                sum = sum.add(IntVector.fromArray(SPECIES, image, base + offsets[k]).mul(templ[k]));
+            }
+            sum.intoArray(acc, x);
+        }
+        for (; x + HALF_LANES <= outWidth; x += HALF_LANES) {
+            int base = rowStart + x;
+            IntVector sum = IntVector.zero(HALF_SPECIES);
+            for (int k = 0; k < templ.length; k++) {
+                sum = sum.add(IntVector.fromArray(HALF_SPECIES, image, base + offsets[k]).mul(templ[k]));
+            }
+            sum.intoArray(acc, x);
+        }
+        if (x < outWidth) {
+            // 行尾不足一个向量的位置
+            int tail = x;
+            Arrays.fill(acc, tail, outWidth, 0);
+            for (int k = 0; k < templ.length; k++) {
+                int t = templ[k];
+                int base = rowStart + offsets[k];
+                for (int i = tail; i < outWidth; i++) {
+                    acc[i] += t * image[base + i];
+                }
+            }
+        }
+    }
+}
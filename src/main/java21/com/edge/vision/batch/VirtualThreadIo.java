@@ -0,0 +1,21 @@
+package com.edge.vision.batch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程 I/O 执行器（JDK 21+）
+ *
+ * 每个读取/解码任务一个虚拟线程，阻塞的文件读取只占用虚拟线程，不占用平台线程。
+ * 由 {@link IoExecutors} 反射加载，只打包在多版本 JAR 的 META-INF/versions/21 中。
+ * @author Coder建设
+ */
+final class VirtualThreadIo {
+
+    private VirtualThreadIo() {
+    }
+
+    static ExecutorService newExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-io-", 1).factory());
+    }
+}
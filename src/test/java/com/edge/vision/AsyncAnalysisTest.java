@@ -0,0 +1,131 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.platform.OpenCVInitializer;
+import com.edge.vision.platform.ThreadingPolicy;
+import com.edge.vision.stats.SpcStatistics;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步分析测试
+ * @author Coder建设
+ */
+class AsyncAnalysisTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+        .setResolution(1200, 600)
+        .setNeedleSize(800, 10)
+        .setReferenceLength(50.0)
+        .setScaleRange(1.0, 1.0)
+        .setMaxRotation(0)
+        .setMaxClutter(0);
+
+    private String buildTemplate() {
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+        return template + ".png";
+    }
+
+    private byte[] renderBytes(int index) throws Exception {
+        Path file = tempDir.resolve("sample_" + index + ".png");
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(index)) {
+            opencv_imgcodecs.imwrite(file.toString(), sample.getImage());
+        }
+        return Files.readAllBytes(file);
+    }
+
+    @Test
+    @DisplayName("测试异步分析结果与同步一致，并在指定执行器上运行")
+    void testAsyncMatchesSync() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "async-test"));
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(buildTemplate())) {
+            analyzer.setAsyncExecutor(executor);
+            byte[] bytes = renderBytes(0);
+
+            MeasurementResult expected = analyzer.analyze(bytes);
+            String[] thread = new String[1];
+            MeasurementResult result = analyzer.analyzeAsync(bytes)
+                .whenComplete((r, e) -> thread[0] = Thread.currentThread().getName())
+                .get(60, TimeUnit.SECONDS);
+
+            assertEquals(expected.getLengthMm(), result.getLengthMm(), 1e-9);
+            assertEquals("async-test", thread[0]);
+
+            CompletableFuture<MeasurementResult> failed = analyzer.analyzeAsync(new byte[] { 1, 2, 3 });
+            Exception e = assertThrows(Exception.class, () -> failed.get(60, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof RuntimeException);
+
+            // 默认在线程策略管理的共享工作线程池上运行
+            analyzer.setAsyncExecutor(null);
+            assertSame(OpenCVInitializer.getWorkerExecutor(), analyzer.getAsyncExecutor());
+            analyzer.analyzeAsync(bytes)
+                .whenComplete((r, ex) -> thread[0] = Thread.currentThread().getName())
+                .get(60, TimeUnit.SECONDS);
+            ThreadingPolicy policy = OpenCVInitializer.getThreadingPolicy();
+            String prefix = (policy != null ? policy : ThreadingPolicy.openCVDefault()).getThreadNamePrefix();
+            assertTrue(thread[0].startsWith(prefix), thread[0]);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("测试取消后分析在尺度之间停止")
+    void testCancelStopsWork() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(buildTemplate())) {
+            analyzer.setAsyncExecutor(executor);
+            SpcStatistics statistics = new SpcStatistics();
+            analyzer.setStatistics(statistics);
+
+            // 检测器在匹配开始前阻塞，让测试在分析进行中取消
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch proceed = new CountDownLatch(1);
+            analyzer.setSearchRegionDetector(gray -> {
+                started.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+
+            CompletableFuture<MeasurementResult> running = analyzer.analyzeAsync(renderBytes(1));
+            assertTrue(started.await(60, TimeUnit.SECONDS));
+            assertTrue(running.cancel(true));
+
+            // 排队中的请求取消后不再执行
+            CompletableFuture<MeasurementResult> queued = analyzer.analyzeAsync(renderBytes(2));
+            assertTrue(queued.cancel(false));
+            proceed.countDown();
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+            assertThrows(CancellationException.class, running::join);
+            assertTrue(statistics.snapshots().isEmpty(), "取消的分析不应完成");
+            assertEquals(1, analyzer.getSearchRegionFallbacks());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.edge.vision;
+
+import com.edge.vision.batch.BackfillJob;
+import com.edge.vision.batch.BackfillListener;
+import com.edge.vision.batch.BackfillProgress;
+import com.edge.vision.batch.Checkpoint;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 回填任务测试
+ * @author Coder建设
+ */
+class BackfillJobTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("测试回填与断点续跑")
+    void testBackfillAndResume() throws Exception {
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+            .setResolution(900, 500)
+            .setNeedleSize(500, 8)
+            .setScaleRange(1.0, 1.0)
+            .setMaxRotation(0);
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+
+        Path archive = tempDir.resolve("archive");
+        for (int i = 0; i < 4; i++) {
+            Path dir = archive.resolve("day" + (i % 2));
+            Files.createDirectories(dir);
+            try (SyntheticNeedleGenerator.Sample sample = generator.render(i)) {
+                opencv_imgcodecs.imwrite(dir.resolve("img" + i + ".png").toString(), sample.getImage());
+            }
+        }
+        Files.write(archive.resolve("day0/broken.jpg"), new byte[] { 1, 2, 3 });
+        Files.write(archive.resolve("day0/notes.txt"), "x".getBytes(StandardCharsets.UTF_8));
+
+        Path output = tempDir.resolve("out.jsonl");
+        Path checkpoint = tempDir.resolve("out.jsonl.checkpoint");
+
+        List<Path> failures = new CopyOnWriteArrayList<>();
+        BackfillProgress first = newJob(template, archive, output)
+            .setListener(new BackfillListener() {
+                @Override
+                public void onProgress(BackfillProgress progress) {
+                }
+
+                @Override
+                public void onFailure(Path image, Exception cause) {
+                    failures.add(image);
+                }
+            })
+            .run();
+        assertEquals(4, first.getSucceeded());
+        assertEquals(1, first.getFailed());
+        assertEquals(0, first.getSkipped());
+        assertEquals(List.of(archive.resolve("day0/broken.jpg")), failures);
+
+        List<String> rows = Files.readAllLines(output);
+        assertEquals(4, rows.size());
+        List<String> log = Files.readAllLines(checkpoint);
+        // 有序输出：第0行对应排序后的第一个文件
+        assertTrue(log.contains("fail\t-\tday0/broken.jpg"));
+        assertTrue(log.contains("ok\t0\tday0/img0.png"));
+        assertTrue(log.contains("ok\t3\tday1/img3.png"));
+
+        // 模拟崩溃：输出中有未提交的结果，检查点末尾有未提交的批次
+        Files.write(output, "{\"partial\": true}\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Files.write(checkpoint, "ok\t4\tday1/new.png\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(9)) {
+            opencv_imgcodecs.imwrite(archive.resolve("day1/new.png").toString(), sample.getImage());
+        }
+
+        BackfillProgress second = newJob(template, archive, output).run();
+        assertEquals(5, second.getSkipped());
+        assertEquals(1, second.getSucceeded());
+        assertEquals(0, second.getFailed());
+
+        List<String> resumed = Files.readAllLines(output);
+        assertEquals(5, resumed.size());
+        assertEquals(rows, resumed.subList(0, 4));
+        assertTrue(Files.readAllLines(checkpoint).contains("ok\t4\tday1/new.png"));
+
+        // 失败的文件修复后：默认不重试，--retry-failed 时重新分析
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(11)) {
+            opencv_imgcodecs.imwrite(archive.resolve("day0/broken.jpg").toString(), sample.getImage());
+        }
+        BackfillProgress third = newJob(template, archive, output).run();
+        assertEquals(6, third.getSkipped());
+        assertEquals(0, third.getSucceeded());
+
+        BackfillProgress retried = newJob(template, archive, output).setRetryFailed(true).run();
+        assertEquals(5, retried.getSkipped());
+        assertEquals(1, retried.getSucceeded());
+        assertTrue(Files.readAllLines(checkpoint).contains("ok\t5\tday0/broken.jpg"));
+
+        // 重试成功后不再视为失败
+        try (Checkpoint reloaded = new Checkpoint(checkpoint)) {
+            assertTrue(reloaded.isDone("day0/broken.jpg"));
+            assertFalse(reloaded.isFailed("day0/broken.jpg"));
+        }
+        assertEquals(6, newJob(template, archive, output).setRetryFailed(true).run().getSkipped());
+    }
+
+    @Test
+    @DisplayName("测试检查点以最后提交的记录为准")
+    void testCheckpointLatestStatus() throws Exception {
+        Path path = tempDir.resolve("status.checkpoint");
+        try (Checkpoint checkpoint = new Checkpoint(path)) {
+            for (int i = 0; i < 3000; i++) {
+                checkpoint.recordFailure("f" + i);
+            }
+            checkpoint.commit(0, 0);
+            for (int i = 0; i < 3000; i += 2) {
+                checkpoint.recordSuccess("f" + i, i / 2);
+            }
+            checkpoint.commit(1500, 0);
+        }
+        try (Checkpoint checkpoint = new Checkpoint(path)) {
+            for (int i = 0; i < 3000; i++) {
+                assertTrue(checkpoint.isDone("f" + i));
+                assertEquals(i % 2 == 1, checkpoint.isFailed("f" + i), "f" + i);
+            }
+            assertFalse(checkpoint.isDone("f3000"));
+        }
+    }
+
+    private static BackfillJob newJob(String template, Path archive, Path output) {
+        return new BackfillJob(template + ".png", archive, output)
+            .setWorkers(2)
+            .setOrdered(true)
+            .setCommitInterval(2, Duration.ofSeconds(1));
+    }
+}
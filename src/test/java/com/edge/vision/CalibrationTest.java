@@ -0,0 +1,161 @@
+package com.edge.vision;
+
+import com.edge.vision.calibration.CalibrationBuilder;
+import com.edge.vision.calibration.CameraCalibration;
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 相机标定测试
+ * @author Coder建设
+ */
+class CalibrationTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final double[] INTRINSICS = { 800, 820, 320, 240 };
+    private static final double[] DISTORTION = { -0.25, 0.08, 0.001, -0.0015, 0.0 };
+
+    @Test
+    @DisplayName("测试针尖去畸变与畸变互逆、标定文件读写")
+    void testUndistortRoundTripAndPersistence() {
+        CameraCalibration calibration = new CameraCalibration(INTRINSICS, DISTORTION, null, 640, 480, 0.12);
+        double[][] points = { { 0, 0 }, { 639, 0 }, { 320, 240 }, { 100, 400 }, { 639, 479 } };
+        for (double[] p : points) {
+            double[] u = calibration.undistort(p[0], p[1]);
+            double[] d = calibration.distort(u[0], u[1]);
+            assertEquals(p[0], d[0], 1e-6);
+            assertEquals(p[1], d[1], 1e-6);
+        }
+        // 光心处没有畸变，边缘畸变明显
+        double[] center = calibration.undistort(320, 240);
+        assertEquals(320, center[0], 1e-9);
+        assertEquals(240, center[1], 1e-9);
+        assertTrue(Math.abs(calibration.undistort(0, 0)[0]) > 5);
+
+        double[] homography = { 0.1, 0, 1, 0, 0.1, 2, 0, 0, 1 };
+        CameraCalibration withPlane = calibration.withHomography(homography);
+        String file = tempDir.resolve("station.calib").toString();
+        withPlane.save(file);
+        CameraCalibration loaded = CameraCalibration.load(file);
+        assertArrayEquals(withPlane.getIntrinsics(), loaded.getIntrinsics(), 0);
+        assertArrayEquals(withPlane.getDistortion(), loaded.getDistortion(), 0);
+        assertArrayEquals(homography, loaded.getHomography(), 0);
+        assertEquals(withPlane.getFingerprint(), loaded.getFingerprint());
+        assertNotEquals(calibration.getFingerprint(), withPlane.getFingerprint());
+        assertEquals(0.12, loaded.getReprojectionError(), 0);
+    }
+
+    @Test
+    @DisplayName("测试由棋盘格角点标定测量平面")
+    void testPlaneCalibration() {
+        int columns = 8;
+        int rows = 6;
+        double squareMm = 5.0;
+        CameraCalibration lens = new CameraCalibration(INTRINSICS, DISTORTION, null, 640, 480, Double.NaN);
+
+        // 平面上的角点经过透视（轻微倾斜，约 8 像素/mm）再经过镜头畸变成像
+        float[] corners = new float[columns * rows * 2];
+        for (int i = 0; i < columns * rows; i++) {
+            double[] ideal = tilt((i % columns) * squareMm, (i / columns) * squareMm);
+            double[] imaged = lens.distort(ideal[0], ideal[1]);
+            corners[2 * i] = (float) imaged[0];
+            corners[2 * i + 1] = (float) imaged[1];
+        }
+
+        CalibrationBuilder builder = new CalibrationBuilder(columns, rows, squareMm);
+        builder.setLensCalibration(lens);
+        builder.setPlaneView(corners);
+        CameraCalibration calibration = builder.build();
+        assertTrue(calibration.hasPlaneHomography());
+        assertArrayEquals(lens.getDistortion(), calibration.getDistortion(), 0);
+
+        // 平面上任意两点（包括棋盘格以外）成像后都能还原出毫米距离
+        double[][] segments = { { 0, 0, 35, 0 }, { -10, 20, 50, 5 }, { 12.5, -8, 12.5, 40 } };
+        for (double[] seg : segments) {
+            double[] a = tilt(seg[0], seg[1]);
+            double[] b = tilt(seg[2], seg[3]);
+            double[] ia = lens.distort(a[0], a[1]);
+            double[] ib = lens.distort(b[0], b[1]);
+            double expected = Math.hypot(seg[2] - seg[0], seg[3] - seg[1]);
+            assertEquals(expected, calibration.planeDistanceMm(ia[0], ia[1], ib[0], ib[1]), 0.01);
+        }
+
+        // 只用平面视图、不校正畸变时只有透视校正
+        CalibrationBuilder planeOnly = new CalibrationBuilder(columns, rows, squareMm);
+        float[] undistorted = new float[corners.length];
+        for (int i = 0; i < columns * rows; i++) {
+            double[] ideal = tilt((i % columns) * squareMm, (i / columns) * squareMm);
+            undistorted[2 * i] = (float) ideal[0];
+            undistorted[2 * i + 1] = (float) ideal[1];
+        }
+        planeOnly.setPlaneView(undistorted);
+        double[] a = tilt(0, 0);
+        double[] b = tilt(35, 25);
+        assertEquals(Math.hypot(35, 25), planeOnly.build().planeDistanceMm(a[0], a[1], b[0], b[1]), 0.01);
+
+        assertThrows(RuntimeException.class, () -> {
+            CalibrationBuilder tooFew = new CalibrationBuilder(columns, rows, squareMm);
+            tooFew.setImageSize(640, 480);
+            tooFew.addView(corners);
+            tooFew.build();
+        });
+    }
+
+    /**
+     * 平面毫米坐标 → 理想像素坐标（带透视的倾斜平面）
+     */
+    private static double[] tilt(double x, double y) {
+        double w = 1 + 0.002 * x - 0.001 * y;
+        return new double[] { (150 + 8 * x + 0.5 * y) / w, (120 - 0.3 * x + 8.2 * y) / w };
+    }
+
+    @Test
+    @DisplayName("测试分析器只对针尖应用标定")
+    void testAnalyzerCalibration() {
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+            .setResolution(900, 500)
+            .setNeedleSize(500, 8)
+            .setScaleRange(1.0, 1.0)
+            .setMaxRotation(0);
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(template + ".png");
+             SyntheticNeedleGenerator.Sample sample = generator.render(0)) {
+            MeasurementResult plain = analyzer.analyze(sample.getImage());
+            long fingerprint = analyzer.getParameterFingerprint();
+
+            // 零畸变标定不改变结果
+            CameraCalibration identity = new CameraCalibration(INTRINSICS, new double[5], null, 900, 500, Double.NaN);
+            analyzer.setCalibration(identity);
+            MeasurementResult same = analyzer.analyze(sample.getImage());
+            assertEquals(plain.getLengthMm(), same.getLengthMm(), 1e-9);
+            assertEquals(plain.getConfidence(), same.getConfidence(), 1e-9);
+            assertNotEquals(fingerprint, analyzer.getParameterFingerprint());
+
+            // 平面单应：0.1mm/像素
+            analyzer.setCalibration(identity.withHomography(new double[] { 0.1, 0, 0, 0, 0.1, 0, 0, 0, 1 }));
+            MeasurementResult planar = analyzer.analyze(sample.getImage());
+            assertEquals(plain.getPixelLength() * 0.1, planar.getLengthMm(), 1e-9);
+
+            // 桶形畸变：去畸变后针尖间距变长
+            analyzer.setCalibration(new CameraCalibration(new double[] { 900, 900, 450, 250 },
+                new double[] { -0.3, 0, 0, 0 }, null, 900, 500, Double.NaN));
+            MeasurementResult distorted = analyzer.analyze(sample.getImage());
+            assertTrue(distorted.getPixelLength() > plain.getPixelLength());
+
+            analyzer.setCalibration(null);
+            assertEquals(fingerprint, analyzer.getParameterFingerprint());
+        }
+    }
+}
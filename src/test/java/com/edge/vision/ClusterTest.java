@@ -0,0 +1,187 @@
+package com.edge.vision;
+
+import com.edge.vision.cluster.ConsistentHashRing;
+import com.edge.vision.cluster.ShardedCoordinator;
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多进程分片测试
+ * @author Coder建设
+ */
+class ClusterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("测试一致性哈希的均衡性与节点变化时的迁移量")
+    void testConsistentHashRing() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>();
+        for (int i = 0; i < 4; i++) {
+            ring.add("shard-" + i, "shard-" + i);
+        }
+        assertEquals(4, ring.size());
+
+        int keys = 8000;
+        Map<String, String> before = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        for (int k = 0; k < keys; k++) {
+            String owner = ring.route("template-" + k);
+            before.put("template-" + k, owner);
+            counts.merge(owner, 1, Integer::sum);
+        }
+        for (int count : counts.values()) {
+            assertTrue(count > keys / 4 * 0.7 && count < keys / 4 * 1.3, "分布不均: " + counts);
+        }
+
+        // 移除一个节点：只有它的键迁移
+        ring.remove("shard-2");
+        for (Map.Entry<String, String> e : before.entrySet()) {
+            String owner = ring.route(e.getKey());
+            if (!e.getValue().equals("shard-2")) {
+                assertEquals(e.getValue(), owner);
+            } else {
+                assertNotEquals("shard-2", owner);
+            }
+        }
+
+        // 同名重新加入：键全部回到原节点
+        ring.add("shard-2", "shard-2");
+        for (Map.Entry<String, String> e : before.entrySet()) {
+            assertEquals(e.getValue(), ring.route(e.getKey()));
+        }
+
+        // 排除节点：落到与移除该节点时相同的下一个节点，全部排除时返回null
+        ConsistentHashRing<String> without = new ConsistentHashRing<>();
+        for (int i = 0; i < 4; i++) {
+            if (i != 1) {
+                without.add("shard-" + i, "shard-" + i);
+            }
+        }
+        for (String key : before.keySet()) {
+            assertEquals(without.route(key), ring.route(key, Collections.singleton("shard-1")));
+        }
+        assertNull(ring.route("template-0", Arrays.asList("shard-0", "shard-1", "shard-2", "shard-3")));
+    }
+
+    @Test
+    @DisplayName("测试多进程分析、进程故障重路由与自动重启")
+    void testShardedAnalysisAndRestart() throws Exception {
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+            .setResolution(900, 500)
+            .setNeedleSize(500, 8)
+            .setScaleRange(1.0, 1.0)
+            .setMaxRotation(0);
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+        Path image = tempDir.resolve("sample.png");
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(0)) {
+            opencv_imgcodecs.imwrite(image.toString(), sample.getImage());
+        }
+
+        MeasurementResult expected;
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(template + ".png")) {
+            expected = analyzer.analyze(Files.readAllBytes(image));
+        }
+
+        List<String> events = new CopyOnWriteArrayList<>();
+        try (ShardedCoordinator coordinator = new ShardedCoordinator(2)
+                .setHealthCheckInterval(Duration.ofMillis(100))
+                .setListener(new ShardedCoordinator.Listener() {
+                    @Override
+                    public void onWorkerDown(String worker, Exception cause) {
+                        events.add("down " + worker);
+                    }
+
+                    @Override
+                    public void onWorkerRestarted(String worker, long pid) {
+                        events.add("restarted " + worker);
+                    }
+                })) {
+            coordinator.registerTemplate("needle", template + ".png");
+            // 超出结果格式的模板ID在注册时拒绝
+            assertThrows(IllegalArgumentException.class,
+                () -> coordinator.registerTemplate("needle-template-with-a-very-long-id-0001", template + ".png"));
+            coordinator.start();
+            assertEquals(2, coordinator.getActiveWorkerCount());
+
+            MeasurementResult fromBytes = coordinator.analyze("needle", Files.readAllBytes(image));
+            MeasurementResult fromFile = coordinator.analyzeFile("needle", image);
+            assertEquals(expected.getPixelLength(), fromBytes.getPixelLength(), 1e-9);
+            assertEquals(expected.getPixelLength(), fromFile.getPixelLength(), 1e-9);
+
+            // 分析错误不影响进程
+            assertThrows(RuntimeException.class, () -> coordinator.analyze("needle", new byte[] { 1, 2, 3 }));
+            assertThrows(IllegalArgumentException.class, () -> coordinator.analyzeFile("unknown", image));
+
+            // 杀掉负责该模板的进程：请求重路由到另一个进程
+            String owner = coordinator.ownerOf("needle");
+            long pid = coordinator.getWorkerStatus().stream()
+                .filter(s -> s.getName().equals(owner)).findFirst().get().getPid();
+            ProcessHandle.of(pid).ifPresent(ProcessHandle::destroyForcibly);
+            ProcessHandle.of(pid).ifPresent(p -> p.onExit().join());
+
+            MeasurementResult rerouted = coordinator.analyzeFile("needle", image);
+            assertEquals(expected.getPixelLength(), rerouted.getPixelLength(), 1e-9);
+
+            // 监控线程重启进程，模板回到原进程
+            long deadline = System.currentTimeMillis() + 60_000;
+            while (coordinator.getRestartCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertEquals(1, coordinator.getRestartCount());
+            assertEquals(owner, coordinator.ownerOf("needle"));
+            assertEquals(2, coordinator.getActiveWorkerCount());
+            assertEquals(expected.getPixelLength(),
+                coordinator.analyzeFile("needle", image).getPixelLength(), 1e-9);
+            assertTrue(events.contains("down " + owner));
+            assertTrue(events.contains("restarted " + owner));
+
+            // 重新注册到新路径：工作进程加载新模板
+            String renamed = copyTemplate(template, "v2", "needle-v2");
+            coordinator.registerTemplate("needle", renamed + ".png");
+            assertEquals("needle-v2", coordinator.analyzeFile("needle", image).getTemplateId());
+
+            // 模板文件中的ID超出结果格式：返回分析错误，连接和进程仍可用
+            String oversized = copyTemplate(template, "v3", "needle-template-with-a-very-long-id-0001");
+            coordinator.registerTemplate("needle", oversized + ".png");
+            assertThrows(RuntimeException.class, () -> coordinator.analyzeFile("needle", image));
+            coordinator.registerTemplate("needle", renamed + ".png");
+            assertEquals("needle-v2", coordinator.analyzeFile("needle", image).getTemplateId());
+            assertEquals(1, coordinator.getRestartCount());
+        }
+    }
+
+    /**
+     * 复制模板到子目录并修改模板ID
+     */
+    private String copyTemplate(String template, String dir, String templateId) throws Exception {
+        Path target = Files.createDirectories(tempDir.resolve(dir)).resolve("template");
+        Files.copy(Path.of(template + ".png"), Path.of(target + ".png"));
+        List<String> meta = Files.readAllLines(Path.of(template + ".meta"), StandardCharsets.UTF_8).stream()
+            .map(line -> line.startsWith("template.id=") ? "template.id=" + templateId : line)
+            .collect(Collectors.toList());
+        Files.write(Path.of(target + ".meta"), meta, StandardCharsets.UTF_8);
+        return target.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.stats.SpcStatistics;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 限时分析测试
+ * @author Coder建设
+ */
+class DeadlineAnalysisTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SyntheticNeedleGenerator generator() {
+        return new SyntheticNeedleGenerator()
+            .setResolution(1200, 600)
+            .setNeedleSize(800, 10)
+            .setReferenceLength(50.0)
+            .setScaleRange(1.0, 1.0)
+            .setMaxRotation(0)
+            .setMaxClutter(0);
+    }
+
+    @Test
+    @DisplayName("测试预算充足时与不限时分析结果一致")
+    void testGenerousBudget() {
+        SyntheticNeedleGenerator generator = generator();
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(template + ".png");
+             SyntheticNeedleGenerator.Sample sample = generator.render(0)) {
+            MeasurementResult expected = analyzer.analyze(sample.getImage());
+            MeasurementResult result = analyzer.analyze(sample.getImage(), Duration.ofMinutes(1));
+
+            assertTrue(expected.isComplete());
+            assertTrue(result.isComplete());
+            assertEquals(expected.getLengthMm(), result.getLengthMm(), 1e-9);
+            assertEquals(expected.getTip1X(), result.getTip1X());
+            assertEquals(expected.getTip2Y(), result.getTip2Y());
+        }
+    }
+
+    @Test
+    @DisplayName("测试预算到期时返回目前为止的最佳结果并标记未完成")
+    void testExpiredBudget() {
+        SyntheticNeedleGenerator generator = generator();
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(template + ".png");
+             SyntheticNeedleGenerator.Sample sample = generator.render(1)) {
+            SpcStatistics statistics = new SpcStatistics();
+            analyzer.setStatistics(statistics);
+
+            // 预算为0时每个针尖只匹配优先级最高的尺度（上次完整搜索的尺度，初始为1.0）
+            MeasurementResult result = analyzer.analyze(sample.getImage(), Duration.ZERO);
+            assertFalse(result.isComplete());
+            assertTrue(result.toString().contains("incomplete"));
+            assertEquals(sample.getScene().getLengthMm(), result.getLengthMm(), 0.2);
+            assertTrue(statistics.snapshots().isEmpty(), "未完成的结果不应计入统计");
+
+            assertThrows(IllegalArgumentException.class,
+                () -> analyzer.analyze(sample.getImage(), Duration.ofMillis(-1)));
+        }
+    }
+}
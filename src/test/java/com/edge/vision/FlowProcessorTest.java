@@ -0,0 +1,225 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.flow.AnalyzerProcessor;
+import com.edge.vision.flow.FrameInput;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Flow 处理器测试
+ * @author Coder建设
+ */
+class FlowProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+        .setResolution(800, 400)
+        .setNeedleSize(500, 8)
+        .setReferenceLength(50.0)
+        .setScaleRange(0.8, 1.2)
+        .setMaxRotation(0)
+        .setMaxClutter(0);
+
+    private NeedleLengthAnalyzer createAnalyzer() {
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+        return new NeedleLengthAnalyzer(template + ".png");
+    }
+
+    private List<byte[]> renderFrames(int count) throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path file = tempDir.resolve("frame_" + i + ".png");
+            try (SyntheticNeedleGenerator.Sample sample = generator.render(i)) {
+                opencv_imgcodecs.imwrite(file.toString(), sample.getImage());
+            }
+            frames.add(Files.readAllBytes(file));
+        }
+        return frames;
+    }
+
+    /**
+     * 按请求数发帧并统计请求总数的上游
+     */
+    private static final class FramePublisher implements Flow.Publisher<FrameInput> {
+        final List<byte[]> frames;
+        final AtomicLong requested = new AtomicLong();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        FramePublisher(List<byte[]> frames) {
+            this.frames = frames;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super FrameInput> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                int next;
+
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet(n);
+                    for (long i = 0; i < n && next < frames.size() && !cancelled.get(); i++) {
+                        subscriber.onNext(FrameInput.ofBytes(frames.get(next++)));
+                    }
+                    if (next == frames.size() && !cancelled.get()) {
+                        next++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+        }
+    }
+
+    /**
+     * 逐个请求结果的下游
+     */
+    private static final class CollectingSubscriber implements Flow.Subscriber<MeasurementResult> {
+        final List<MeasurementResult> results = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final long initialRequest;
+        volatile Throwable error;
+        Flow.Subscription subscription;
+
+        CollectingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(MeasurementResult item) {
+            synchronized (results) {
+                results.add(item);
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试并发分析时结果保持帧顺序")
+    void testOrderedConcurrentProcessing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try (NeedleLengthAnalyzer analyzer = createAnalyzer()) {
+            analyzer.setAsyncExecutor(executor);
+            List<byte[]> frames = renderFrames(8);
+            List<MeasurementResult> expected = new ArrayList<>();
+            for (byte[] frame : frames) {
+                expected.add(analyzer.analyze(frame));
+            }
+
+            AnalyzerProcessor processor = new AnalyzerProcessor(analyzer, 3);
+            FramePublisher publisher = new FramePublisher(frames);
+            CollectingSubscriber subscriber = new CollectingSubscriber(1);
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+
+            assertTrue(subscriber.done.await(120, TimeUnit.SECONDS));
+            assertNull(subscriber.error);
+            assertEquals(frames.size(), subscriber.results.size());
+            for (int i = 0; i < frames.size(); i++) {
+                assertEquals(expected.get(i).getLengthMm(), subscriber.results.get(i).getLengthMm(), 1e-9,
+                    "第 " + i + " 帧顺序错误");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("测试下游不请求时背压传递到上游")
+    void testBackpressure() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (NeedleLengthAnalyzer analyzer = createAnalyzer()) {
+            analyzer.setAsyncExecutor(executor);
+            List<byte[]> frames = renderFrames(6);
+
+            AnalyzerProcessor processor = new AnalyzerProcessor(analyzer, 2);
+            FramePublisher publisher = new FramePublisher(frames);
+            CollectingSubscriber subscriber = new CollectingSubscriber(0);
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+
+            // 下游没有请求：最多拉取 maxConcurrency 帧
+            Thread.sleep(1500);
+            assertEquals(2, publisher.requested.get());
+            assertTrue(subscriber.results.isEmpty());
+
+            // 开始请求后全部完成
+            subscriber.subscription.request(1);
+            assertTrue(subscriber.done.await(120, TimeUnit.SECONDS));
+            assertNull(subscriber.error);
+            assertEquals(frames.size(), subscriber.results.size());
+
+            // 第二个订阅者被拒绝
+            CollectingSubscriber second = new CollectingSubscriber(1);
+            processor.subscribe(second);
+            assertTrue(second.error instanceof IllegalStateException);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("测试分析失败时向下游发出错误并取消上游")
+    void testErrorCancelsUpstream() throws Exception {
+        try (NeedleLengthAnalyzer analyzer = createAnalyzer()) {
+            List<byte[]> frames = new ArrayList<>(renderFrames(1));
+            frames.add(new byte[] { 1, 2, 3 });
+            frames.addAll(renderFrames(2));
+
+            AnalyzerProcessor processor = new AnalyzerProcessor(analyzer, 2);
+            FramePublisher publisher = new FramePublisher(frames);
+            CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+
+            assertTrue(subscriber.done.await(120, TimeUnit.SECONDS));
+            assertNotNull(subscriber.error);
+            assertEquals(1, subscriber.results.size());
+            assertTrue(publisher.cancelled.get());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.edge.vision;
+
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import com.edge.vision.utils.ImageEncoder;
+import com.edge.vision.utils.ImageUtils;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图像编码器测试
+ * @author Coder建设
+ */
+class ImageEncoderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+        .setResolution(1200, 600)
+        .setNeedleSize(800, 10)
+        .setReferenceLength(50.0);
+
+    private static void assertSameImage(Mat expected, byte[] encoded) {
+        Mat decoded = ImageUtils.readFromBytes(encoded);
+        Mat diff = new Mat();
+        try {
+            assertEquals(expected.cols(), decoded.cols());
+            assertEquals(expected.rows(), decoded.rows());
+            opencv_core.absdiff(expected, decoded, diff);
+            assertEquals(0, opencv_core.countNonZero(diff.reshape(1)));
+        } finally {
+            diff.close();
+            decoded.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试字节数组、输出流、通道和文件输出一致且无损")
+    void testOutputsMatch() throws Exception {
+        ImageEncoder encoder = ImageEncoder.png();
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(0)) {
+            Mat image = sample.getImage();
+            byte[] bytes = encoder.encode(image);
+            assertSameImage(image, bytes);
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            assertEquals(bytes.length, encoder.encode(image, stream));
+            assertArrayEquals(bytes, stream.toByteArray());
+
+            ByteArrayOutputStream channelTarget = new ByteArrayOutputStream();
+            assertEquals(bytes.length, encoder.encode(image, Channels.newChannel(channelTarget)));
+            assertArrayEquals(bytes, channelTarget.toByteArray());
+
+            Path file = tempDir.resolve("out.png");
+            encoder.encode(image, file);
+            assertArrayEquals(bytes, Files.readAllBytes(file));
+
+            // 连续编码不同尺寸的图像，结果互不影响
+            try (Mat roi = new Mat(image, new Rect(0, 0, 64, 32)).clone()) {
+                assertSameImage(roi, encoder.encode(roi));
+            }
+            assertArrayEquals(bytes, encoder.encode(image));
+        }
+    }
+
+    @Test
+    @DisplayName("测试编码参数生效")
+    void testParameters() {
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(1)) {
+            Mat image = sample.getImage();
+            int low = ImageEncoder.jpeg(30).encode(image).length;
+            int high = ImageEncoder.jpeg(95).encode(image).length;
+            assertTrue(low < high, low + " < " + high);
+
+            int fast = ImageEncoder.png().encode(image).length;
+            int small = new ImageEncoder(ImageEncoder.PNG).setPngCompression(9).encode(image).length;
+            assertTrue(small <= fast, small + " <= " + fast);
+
+            assertArrayEquals(ImageEncoder.png().encode(image), ImageEncoder.forPath("/tmp/a.PNG").encode(image));
+            assertArrayEquals(new int[] { opencv_imgcodecs.IMWRITE_JPEG_QUALITY, 80 },
+                ImageEncoder.jpeg(95).setJpegQuality(80).getParameters());
+        }
+    }
+
+    @Test
+    @DisplayName("测试无效参数")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ImageEncoder.jpeg(101));
+        assertThrows(IllegalArgumentException.class, () -> ImageEncoder.png().setPngCompression(10));
+        assertThrows(IllegalArgumentException.class, () -> new ImageEncoder("png"));
+        assertThrows(IllegalArgumentException.class, () -> ImageEncoder.forPath("/tmp.d/noext"));
+        try (Mat empty = new Mat()) {
+            assertThrows(IllegalArgumentException.class, () -> ImageEncoder.png().encode(empty));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.edge.vision;
+
+import com.edge.vision.cache.ResultCache;
+import com.edge.vision.core.AnalysisTemplate;
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import com.edge.vision.utils.ImageUtils;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 零复制图像输入测试（内存映射、直接缓冲区、池化流读取）
+ * @author Coder建设
+ */
+class ImageInputTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+        .setResolution(1200, 600)
+        .setNeedleSize(800, 10)
+        .setReferenceLength(50.0)
+        .setScaleRange(1.0, 1.0)
+        .setMaxRotation(0)
+        .setMaxClutter(0);
+
+    private String buildTemplate() {
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+        return template + ".png";
+    }
+
+    private Path render(int index, String extension) {
+        Path file = tempDir.resolve("sample_" + index + extension);
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(index)) {
+            opencv_imgcodecs.imwrite(file.toString(), sample.getImage());
+        }
+        return file;
+    }
+
+    private static void assertSameImage(Mat expected, Mat actual) {
+        assertFalse(actual.empty());
+        assertEquals(expected.cols(), actual.cols());
+        assertEquals(expected.rows(), actual.rows());
+        assertEquals(expected.type(), actual.type());
+        Mat diff = new Mat();
+        try {
+            opencv_core.absdiff(expected, actual, diff);
+            assertEquals(0, opencv_core.countNonZero(diff.reshape(1)));
+        } finally {
+            diff.close();
+        }
+    }
+
+    /**
+     * 不报告可用长度的流，强制读取时扩容
+     */
+    private static InputStream unsized(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int available() {
+                return 0;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("测试映射文件、直接缓冲区和流的解码结果与 imread 一致")
+    void testDecodePathsMatch() throws Exception {
+        // BMP 未压缩（约 2 MB），超过池的初始容量
+        Path file = render(0, ".bmp");
+        byte[] bytes = Files.readAllBytes(file);
+        Mat expected = opencv_imgcodecs.imread(file.toString());
+        try {
+            try (Mat mapped = ImageUtils.readFromFile(file)) {
+                assertSameImage(expected, mapped);
+            }
+
+            // 非零 position 的直接缓冲区：只解码 position 到 limit，且不改变缓冲区状态
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 32);
+            direct.position(17);
+            direct.put(bytes);
+            direct.position(17).limit(17 + bytes.length);
+            try (Mat decoded = ImageUtils.readFromBuffer(direct)) {
+                assertSameImage(expected, decoded);
+            }
+            assertEquals(17, direct.position());
+            assertEquals(17 + bytes.length, direct.limit());
+
+            ByteBuffer heap = ByteBuffer.wrap(bytes);
+            try (Mat decoded = ImageUtils.readFromBuffer(heap)) {
+                assertSameImage(expected, decoded);
+            }
+
+            // 只读堆内缓冲区没有可访问的数组
+            ByteBuffer readOnly = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+            assertFalse(readOnly.hasArray());
+            try (Mat decoded = ImageUtils.readFromBuffer(readOnly)) {
+                assertSameImage(expected, decoded);
+            }
+            assertEquals(0, readOnly.position());
+
+            for (int i = 0; i < 3; i++) {
+                try (Mat decoded = ImageUtils.readFromStream(unsized(new ByteArrayInputStream(bytes)))) {
+                    assertSameImage(expected, decoded);
+                }
+            }
+
+            try (Mat empty = ImageUtils.readFromBuffer(ByteBuffer.allocateDirect(0))) {
+                assertTrue(empty.empty());
+            }
+        } finally {
+            expected.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试缓冲区与文件分析结果与字节数组一致，并共用缓存键")
+    void testAnalyzeBufferAndFile() throws Exception {
+        Path file = render(1, ".png");
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(buildTemplate())) {
+            MeasurementResult expected = analyzer.analyze(bytes);
+            assertEquals(expected.getLengthMm(), analyzer.analyze(direct).getLengthMm(), 1e-9);
+            assertEquals(expected.getLengthMm(), analyzer.analyze(file).getLengthMm(), 1e-9);
+            assertEquals(0, direct.position());
+
+            assertEquals(ResultCache.Key.of(bytes, 42), ResultCache.Key.of(direct, 42));
+
+            ResultCache cache = new ResultCache(16);
+            analyzer.setResultCache(cache);
+            analyzer.analyze(direct);
+            analyzer.analyze(file);
+            analyzer.analyze(bytes);
+            assertEquals(1, cache.size());
+
+            RuntimeException e = assertThrows(RuntimeException.class,
+                () -> analyzer.analyze(tempDir.resolve("missing.png")));
+            assertTrue(e.getMessage().contains("missing.png"));
+        }
+    }
+
+    @Test
+    @DisplayName("测试从输入流加载模板")
+    void testTemplateFromStream() throws Exception {
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+        Path image = Paths.get(template + ".png");
+        Path meta = Paths.get(template + ".meta");
+        assertTrue(Files.exists(meta), "模板元数据文件");
+
+        AnalysisTemplate fromFile = new AnalysisTemplate(image.toString());
+        try (InputStream imageIn = unsized(Files.newInputStream(image));
+             InputStream metaIn = Files.newInputStream(meta)) {
+            AnalysisTemplate fromStream = new AnalysisTemplate(imageIn, metaIn);
+            try (Mat expected = fromFile.getTemplateImage(); Mat actual = fromStream.getTemplateImage()) {
+                assertSameImage(expected, actual);
+                assertEquals(fromFile.getTemplateId(), fromStream.getTemplateId());
+            } finally {
+                fromStream.close();
+            }
+        } finally {
+            fromFile.close();
+        }
+    }
+}
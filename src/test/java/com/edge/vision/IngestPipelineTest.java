@@ -0,0 +1,98 @@
+package com.edge.vision;
+
+import com.edge.vision.batch.IngestPipeline;
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 两阶段批量导入测试
+ * @author Coder建设
+ */
+class IngestPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("测试导入结果与逐张分析一致，失败的文件单独回调")
+    void testIngest() throws Exception {
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+            .setResolution(800, 400)
+            .setNeedleSize(500, 8)
+            .setReferenceLength(50.0)
+            .setScaleRange(0.9, 1.1)
+            .setMaxRotation(0)
+            .setMaxClutter(0);
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+
+        List<Path> images = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Path file = tempDir.resolve("image_" + i + ".png");
+            try (SyntheticNeedleGenerator.Sample sample = generator.render(i)) {
+                opencv_imgcodecs.imwrite(file.toString(), sample.getImage());
+            }
+            images.add(file);
+        }
+        Path broken = tempDir.resolve("broken.png");
+        Files.write(broken, new byte[] { 1, 2, 3 });
+        images.add(broken);
+        images.add(tempDir.resolve("missing.png"));
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(template + ".png")) {
+            Map<Path, MeasurementResult> results = new HashMap<>();
+            List<Path> failed = new ArrayList<>();
+            IngestPipeline pipeline = new IngestPipeline(analyzer)
+                .setCpuThreads(2)
+                .setIoThreads(2)
+                .setMaxInFlight(3);
+            assertEquals(Runtime.version().feature() >= 21 && isMultiReleaseLayerPresent(),
+                pipeline.isUsingVirtualThreads());
+
+            long ok = pipeline.run(images, new IngestPipeline.Listener() {
+                @Override
+                public void onResult(Path image, MeasurementResult result) {
+                    results.put(image, result);
+                }
+
+                @Override
+                public void onError(Path image, Exception error) {
+                    failed.add(image);
+                }
+            });
+
+            assertEquals(6, ok);
+            assertEquals(6, results.size());
+            assertEquals(2, failed.size());
+            assertTrue(failed.contains(broken));
+            for (int i = 0; i < 6; i++) {
+                Path image = images.get(i);
+                MeasurementResult expected = analyzer.analyze(Files.readAllBytes(image));
+                assertEquals(expected.getLengthMm(), results.get(image).getLengthMm(), 1e-9);
+            }
+        }
+    }
+
+    private static boolean isMultiReleaseLayerPresent() {
+        try {
+            Class.forName("com.edge.vision.batch.VirtualThreadIo");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
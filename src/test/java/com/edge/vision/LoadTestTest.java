@@ -0,0 +1,81 @@
+package com.edge.vision;
+
+import com.edge.vision.tools.LatencyHistogram;
+import com.edge.vision.tools.LoadTest;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import com.edge.vision.utils.ImageUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 压力测试工具测试
+ * @author Coder建设
+ */
+class LoadTestTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("测试延迟直方图")
+    void testHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            h.record(i);
+        }
+
+        assertEquals(10000, h.getCount());
+        assertEquals(10000, h.getMaxMicros());
+        assertEquals(5000.5, h.getMeanMicros(), 1e-9);
+        assertEquals(5000, h.percentile(50), 5000 / 64.0);
+        assertEquals(9900, h.percentile(99), 9900 / 64.0);
+        assertTrue(h.percentile(50) >= 5000);
+        assertEquals(10000, h.percentile(100));
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(1_000_000);
+        h.add(other);
+        assertEquals(10001, h.getCount());
+        assertEquals(1_000_000, h.percentile(100));
+    }
+
+    @Test
+    @DisplayName("测试固定到达率压测")
+    void testFixedRate() {
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+            .setResolution(1000, 600)
+            .setNeedleSize(500, 8)
+            .setScaleRange(1.0, 1.0)
+            .setMaxRotation(0);
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+
+        List<byte[]> images = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            try (SyntheticNeedleGenerator.Sample sample = generator.render(i)) {
+                images.add(ImageUtils.toJpegBytes(sample.getImage()));
+            }
+        }
+
+        LoadTest.Report report = new LoadTest(template + ".png", images)
+            .setWorkers(2)
+            .setRate(20)
+            .setRequests(6)
+            .setWarmupIterations(1)
+            .run();
+        System.out.println(report);
+
+        assertEquals(6, report.getCompleted() + report.getErrors());
+        assertEquals(6, report.getLatency().getCount());
+        // 含排队的延迟不小于服务时间
+        assertTrue(report.getLatency().getMaxMicros() >= report.getServiceTime().getMinMicros());
+        assertTrue(report.getMaxPhysicalBytes() > 0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementColumns;
+import com.edge.vision.core.MeasurementColumns.Column;
+import com.edge.vision.core.MeasurementResult;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式结果容器测试
+ *
+ * @author Coder建设
+ */
+public class MeasurementColumnsTest {
+
+    @Test
+    @DisplayName("测试追加与扩容")
+    void testAppendAndGrow() {
+        MeasurementColumns columns = new MeasurementColumns(2);
+        for (int i = 0; i < 100; i++) {
+            columns.append(i, i * 8, i, 0, i + 400, 0, 0.9, i, i % 2 == 0 ? "even" : "odd");
+        }
+        assertEquals(100, columns.size());
+        assertEquals(42.0, columns.getLengthMm(42), 0.0);
+        assertEquals("odd", columns.getTemplateId(43));
+        assertEquals(2, columns.getTemplateIds().size());
+
+        MeasurementResult row = columns.toResult(10);
+        assertEquals(80.0, row.getPixelLength(), 0.0);
+        assertEquals(410.0, row.getTip2X(), 0.0);
+        assertEquals("even", row.getTemplateId());
+        assertTrue(row.isComplete());
+
+        int incomplete = columns.append(new MeasurementResult(1, 8, 0, 0, 8, 0, 0.5, 1, "even", false));
+        assertFalse(columns.isComplete(incomplete));
+        assertFalse(columns.toResult(incomplete).isComplete());
+        columns.clear();
+        columns.append(1, 8, 0, 0, 8, 0, 0.5, 1, "even");
+        assertTrue(columns.isComplete(0));
+    }
+
+    @Test
+    @DisplayName("测试统计")
+    void testAggregations() {
+        MeasurementColumns columns = new MeasurementColumns();
+        for (int i = 1; i <= 5; i++) {
+            columns.append(i, 0, 0, 0, 0, 0, 0.5, i * 10L, "a");
+        }
+        columns.append(100, 0, 0, 0, 0, 0, 0.5, 1000, "b");
+
+        assertEquals(6, columns.count(null));
+        assertEquals(5, columns.count("a"));
+        assertEquals(0, columns.count("missing"));
+
+        assertEquals(3.0, columns.mean(Column.LENGTH_MM, "a"), 1e-12);
+        assertEquals(Math.sqrt(2.5), columns.stddev(Column.LENGTH_MM, "a"), 1e-12);
+        assertEquals(1.0, columns.min(Column.LENGTH_MM), 0.0);
+        assertEquals(100.0, columns.max(Column.LENGTH_MM), 0.0);
+        assertEquals(30.0, columns.mean(Column.PROCESSING_TIME_MS, "a"), 1e-12);
+
+        double[] p = columns.percentiles(Column.LENGTH_MM, "a", 0, 50, 75, 100);
+        assertArrayEquals(new double[] {1, 3, 4, 5}, p, 1e-12);
+
+        assertTrue(Double.isNaN(columns.mean(Column.LENGTH_MM, "missing")));
+    }
+}
@@ -0,0 +1,162 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.io.MeasurementRecord;
+import com.edge.vision.store.MeasurementStore;
+import com.edge.vision.store.StoreAggregate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 测量历史存储测试
+ * @author Coder建设
+ */
+class MeasurementStoreTest {
+
+    private static final long BASE = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private static MeasurementResult result(String templateId, double lengthMm) {
+        return new MeasurementResult(lengthMm, lengthMm * 10, 1, 2, 3, 4, 0.9, 5, templateId);
+    }
+
+    @Test
+    @DisplayName("测试并发追加、跨段范围扫描与聚合")
+    void testConcurrentAppendAndScan() throws Exception {
+        Path root = tempDir.resolve("history");
+        int threads = 4;
+        int perThread = 250;
+        try (MeasurementStore store = new MeasurementStore(root)
+                .setSegmentCapacity(100)
+                .setBlockSize(16)
+                .setCommitInterval(Duration.ofMillis(5))) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                writers.add(new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        // 时间戳 = BASE + 序号，长度 = 序号 / 1000
+                        int n = thread * perThread + i;
+                        store.append(BASE + n, result("needle-50", n / 1000.0));
+                        store.append(BASE + n, result("needle/中文", 1.0));
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            store.flush();
+
+            int total = threads * perThread;
+            assertEquals(total, store.count("needle-50"));
+            assertEquals(total, store.count("needle/中文"));
+            assertEquals(0, store.count("unknown"));
+            assertEquals(Arrays.asList("needle-50", "needle/中文"), store.getTemplateIds());
+
+            StoreAggregate all = store.aggregate("needle-50", 0, Long.MAX_VALUE);
+            assertEquals(total, all.getCount());
+            assertEquals((total - 1) / 2000.0, all.getMeanLengthMm(), 1e-9);
+            assertEquals(0.0, all.getMinLengthMm(), 1e-12);
+            assertEquals((total - 1) / 1000.0, all.getMaxLengthMm(), 1e-12);
+            assertEquals(0.9, all.getMeanConfidence(), 1e-12);
+
+            StoreAggregate range = store.aggregate("needle-50", BASE + 150, BASE + 450);
+            assertEquals(300, range.getCount());
+            assertEquals(BASE + 150, range.getFirstTimestamp());
+            assertEquals(BASE + 449, range.getLastTimestamp());
+
+            List<MeasurementResult> rows = store.query("needle/中文", BASE + 10, BASE + 13);
+            assertEquals(3, rows.size());
+            assertEquals("needle/中文", rows.get(0).getTemplateId());
+
+            long[] visited = new long[1];
+            store.scan("needle-50", BASE + 999, BASE + 2000, (ts, buf, off) -> {
+                assertEquals(0.999, MeasurementRecord.lengthMm(buf, off), 1e-12);
+                visited[0]++;
+            });
+            assertEquals(1, visited[0]);
+        }
+
+        // 重新打开后数据仍在，追加从已提交位置继续
+        try (MeasurementStore store = new MeasurementStore(root)) {
+            assertEquals(threads * perThread, store.count("needle-50"));
+            store.append(BASE + 5000, result("needle-50", 9.0));
+            store.flush();
+            assertEquals(threads * perThread + 1, store.count("needle-50"));
+            assertEquals(9.0, store.aggregate("needle-50", BASE + 5000, BASE + 5001).getMeanLengthMm(), 1e-12);
+
+            // 限时分析未完成的标记随记录保存
+            store.append(BASE + 5001, new MeasurementResult(8.0, 80, 1, 2, 3, 4, 0.5, 5, "needle-50", false));
+            store.flush();
+            List<MeasurementResult> last = store.query("needle-50", BASE + 5000, BASE + 5002);
+            assertEquals(2, last.size());
+            assertTrue(last.get(0).isComplete());
+            assertFalse(last.get(1).isComplete());
+        }
+    }
+
+    @Test
+    @DisplayName("测试未提交记录在重新打开时被丢弃")
+    void testUncommittedRecordsDiscarded() {
+        Path root = tempDir.resolve("crash");
+        MeasurementStore crashed = new MeasurementStore(root)
+            .setSegmentCapacity(8)
+            .setBlockSize(4)
+            .setCommitInterval(Duration.ofHours(1));
+        for (int i = 0; i < 10; i++) {
+            crashed.append(BASE + i, result("t", i));
+        }
+        crashed.flush();
+        // 以下记录写入了映射内存但没有提交（模拟进程崩溃，不关闭）
+        for (int i = 10; i < 20; i++) {
+            crashed.append(BASE + i, result("t", i));
+        }
+
+        try (MeasurementStore reopened = new MeasurementStore(root)) {
+            assertEquals(10, reopened.count("t"));
+            assertEquals(10, reopened.aggregate("t", 0, Long.MAX_VALUE).getCount());
+            reopened.append(BASE + 100, result("t", 100));
+            reopened.flush();
+            StoreAggregate aggregate = reopened.aggregate("t", 0, Long.MAX_VALUE);
+            assertEquals(11, aggregate.getCount());
+            assertEquals(100.0, aggregate.getMaxLengthMm(), 1e-12);
+        }
+    }
+
+    @Test
+    @DisplayName("测试建段失败不占用序号，之后的记录仍能提交")
+    void testSegmentCreationFailureLeavesNoGap() throws Exception {
+        Path root = tempDir.resolve("gap");
+        try (MeasurementStore store = new MeasurementStore(root)
+                .setSegmentCapacity(4)
+                .setBlockSize(2)
+                .setCommitInterval(Duration.ofHours(1))) {
+            for (int i = 0; i < 4; i++) {
+                store.append(BASE + i, result("t", i));
+            }
+            // 第二段的文件名被目录占用，建段失败
+            Path blocker = root.resolve("t").resolve("segment-00000001.seg");
+            Files.createDirectories(blocker);
+            assertThrows(RuntimeException.class, () -> store.append(BASE + 4, result("t", 4)));
+
+            Files.delete(blocker);
+            assertEquals(4, store.append(BASE + 5, result("t", 5)));
+            store.flush();
+            assertEquals(5, store.count("t"));
+            assertEquals(5.0, store.aggregate("t", 0, Long.MAX_VALUE).getMaxLengthMm(), 1e-12);
+        }
+    }
+}
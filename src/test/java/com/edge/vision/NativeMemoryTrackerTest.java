@@ -0,0 +1,155 @@
+package com.edge.vision;
+
+import com.edge.vision.core.AnalysisTemplate;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.platform.NativeMemoryTracker;
+import com.edge.vision.preprocess.ThresholdRegionDetector;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地内存统计与泄漏检测测试
+ * @author Coder建设
+ */
+class NativeMemoryTrackerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final NativeMemoryTracker tracker = NativeMemoryTracker.getDefault();
+
+    @AfterEach
+    void tearDown() {
+        tracker.setDebug(false);
+        tracker.setLeakListener(null);
+        tracker.clearLeaks();
+    }
+
+    private String buildTemplate() {
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+            .setResolution(800, 400)
+            .setNeedleSize(500, 8)
+            .setMaxClutter(0);
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+        return template + ".png";
+    }
+
+    @Test
+    @DisplayName("测试模板内存登记与分析峰值统计")
+    void testTemplateAndAnalysisAccounting() {
+        String templatePath = buildTemplate();
+        long baseline = tracker.getLiveBytes();
+        long leaksBefore = tracker.getLeakCount();
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath)) {
+            String templateId = analyzer.getTemplate().getTemplateId();
+            long templateBytes = tracker.getTemplateUsage().get(templateId);
+            // 模板图像 BGR + 灰度图 + 两个特征块
+            assertTrue(templateBytes > 0);
+            assertEquals(baseline + templateBytes, tracker.getLiveBytes());
+
+            tracker.resetPeak();
+            Mat target = new Mat(400, 800, opencv_core.CV_8UC3);
+            try {
+                target.put(new Scalar(40, 40, 40, 0));
+                analyzer.analyze(target);
+            } catch (RuntimeException e) {
+                // 空白图像允许匹配失败，只关心内存统计
+            } finally {
+                target.close();
+            }
+            // 输入、灰度图和 matchTemplate 响应图都计入峰值
+            assertTrue(tracker.getPeakBytes() >= baseline + templateBytes + 400L * 800 * 4,
+                "峰值: " + tracker.getPeakBytes());
+            assertTrue(tracker.getActiveAnalyses().isEmpty());
+            assertEquals(baseline + templateBytes, tracker.getLiveBytes());
+        }
+
+        assertEquals(baseline, tracker.getLiveBytes());
+        assertEquals(leaksBefore, tracker.getLeakCount(), "分析器内部不应有未关闭的 Mat");
+    }
+
+    @Test
+    @DisplayName("测试调试模式下检测未关闭的 Mat 并记录分配栈")
+    void testUnclosedMatInScope() {
+        tracker.setDebug(true);
+        tracker.clearLeaks();
+        List<NativeMemoryTracker.Leak> reported = new ArrayList<>();
+        tracker.setLeakListener(reported::add);
+        Mat forgotten;
+        try (NativeMemoryTracker.AnalysisScope scope = tracker.openAnalysis("leak-test", 0)) {
+            forgotten = new Mat(100, 100, opencv_core.CV_8UC1);
+            Mat closed = new Mat(50, 50, opencv_core.CV_8UC1);
+            closed.close();
+            NativeMemoryTracker.sample();
+            assertEquals(10000, scope.getPeakBytes());
+            assertEquals(1, tracker.getActiveAnalyses().size());
+        }
+
+        // 作用域结束时确定性释放
+        assertTrue(forgotten.isNull());
+        List<NativeMemoryTracker.Leak> leaks = tracker.getLeaks();
+        assertEquals(1, leaks.size());
+        assertEquals(10000, leaks.get(0).getBytes());
+        assertNotNull(leaks.get(0).getOrigin());
+        assertTrue(leaks.get(0).toString().contains("NativeMemoryTrackerTest"));
+        assertEquals(leaks, reported);
+    }
+
+    @Test
+    @DisplayName("测试搜索区域检测在作用域内不留下未关闭的 Mat")
+    void testRegionDetectorHasNoLeaks() {
+        tracker.setDebug(true);
+        tracker.clearLeaks();
+        Mat gray = new Mat(400, 800, opencv_core.CV_8UC1, new Scalar(40));
+        try (NativeMemoryTracker.AnalysisScope scope = tracker.openAnalysis("detector-test", 0)) {
+            // 一根针加几处反光，产生多个轮廓
+            opencv_imgproc.line(gray, new Point(100, 200), new Point(600, 200), new Scalar(220), 4, 0, 0);
+            for (int i = 0; i < 4; i++) {
+                opencv_imgproc.circle(gray, new Point(120 + i * 150, 320), 6, new Scalar(200), -1, 0, 0);
+            }
+            assertNotNull(new ThresholdRegionDetector().detect(gray));
+        } finally {
+            gray.close();
+        }
+        assertEquals(0, tracker.getLeakCount(), String.valueOf(tracker.getLeaks()));
+    }
+
+    @Test
+    @DisplayName("测试未关闭就被回收的模板记为泄漏")
+    void testCollectedTemplate() throws Exception {
+        String templatePath = buildTemplate();
+        tracker.setDebug(true);
+        long baseline = tracker.getLiveBytes();
+        long leaksBefore = tracker.getLeakCount();
+
+        createAndDropTemplate(templatePath);
+        assertTrue(tracker.getLiveBytes() > baseline);
+
+        for (int i = 0; i < 50 && tracker.getLeakCount() == leaksBefore; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(leaksBefore + 1, tracker.getLeakCount());
+        assertEquals(baseline, tracker.getLiveBytes());
+    }
+
+    private static void createAndDropTemplate(String templatePath) {
+        new AnalysisTemplate(templatePath);
+    }
+}
@@ -0,0 +1,197 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.match.NccKernel;
+import com.edge.vision.match.NccPatch;
+import com.edge.vision.template.TemplateBuilder;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.RNG;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 纯 Java NCC 测试
+ * @author Coder建设
+ */
+class NccKernelTest {
+
+    private static final double TOLERANCE = 1e-4;
+
+    @TempDir
+    Path tempDir;
+
+    private static List<NccKernel> kernels() {
+        Set<NccKernel> kernels = new LinkedHashSet<>(Arrays.asList(NccKernel.scalar(), NccKernel.getDefault()));
+        return List.copyOf(kernels);
+    }
+
+    /**
+     * 平滑噪声纹理，右下角留一块常数区域（覆盖分母为0的分支）
+     */
+    private static Mat texture(int width, int height, long seed) {
+        Mat image = new Mat(height, width, opencv_core.CV_8UC1);
+        Mat low = new Mat(1, 1, opencv_core.CV_64FC1, new Scalar(0));
+        Mat high = new Mat(1, 1, opencv_core.CV_64FC1, new Scalar(256));
+        RNG rng = new RNG(seed);
+        try {
+            rng._fill(image, RNG.UNIFORM, low, high);
+        } finally {
+            low.close();
+            high.close();
+            rng.close();
+        }
+        opencv_imgproc.GaussianBlur(image, image, new Size(5, 5), 1.2);
+        Mat flat = new Mat(image, new Rect(width - 30, height - 30, 30, 30));
+        flat.put(new Scalar(128));
+        flat.close();
+        return image;
+    }
+
+    private static float[] openCvResponse(Mat image, Mat patch) {
+        Mat result = new Mat();
+        try {
+            opencv_imgproc.matchTemplate(image, patch, result, opencv_imgproc.TM_CCOEFF_NORMED);
+            float[] values = new float[result.rows() * result.cols()];
+            FloatBuffer buffer = result.createBuffer();
+            buffer.get(values);
+            return values;
+        } finally {
+            result.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试与OpenCV TM_CCOEFF_NORMED一致")
+    void testMatchesOpenCV() {
+        Mat image = texture(97, 83, 42);
+        try {
+            byte[] pixels = NccPatch.toBytes(image);
+            for (int size : new int[] { 7, 18, 33 }) {
+                Mat patch = new Mat(image, new Rect(31, 22, size, size)).clone();
+                try {
+                    float[] expected = openCvResponse(image, patch);
+                    NccPatch nccPatch = NccPatch.of(patch);
+
+                    for (NccKernel kernel : kernels()) {
+                        float[] actual = new float[expected.length];
+                        kernel.match(pixels, image.cols(), image.rows(), nccPatch, actual);
+                        for (int i = 0; i < expected.length; i++) {
+                            assertEquals(expected[i], actual[i], TOLERANCE,
+                                kernel.getName() + " size=" + size + " index=" + i);
+                        }
+
+                        NccKernel.Match best = kernel.findBest(pixels, image.cols(), image.rows(), nccPatch);
+                        assertEquals(31, best.getX(), kernel.getName());
+                        assertEquals(22, best.getY(), kernel.getName());
+                        assertEquals(1.0, best.getScore(), TOLERANCE);
+                    }
+                } finally {
+                    patch.close();
+                }
+            }
+        } finally {
+            image.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试子区域和常数模板")
+    void testRoiAndConstantPatch() {
+        Mat image = texture(120, 90, 7);
+        Mat roi = new Mat(image, new Rect(10, 5, 61, 47));
+        Mat patch = new Mat(15, 15, opencv_core.CV_8UC1, new Scalar(200));
+        try {
+            // 非连续子区域按行复制
+            assertFalse(roi.isContinuous());
+            byte[] pixels = NccPatch.toBytes(roi);
+            assertEquals(image.ptr(5).get(10), pixels[0]);
+
+            float[] expected = openCvResponse(roi, patch);
+            for (NccKernel kernel : kernels()) {
+                float[] actual = new float[expected.length];
+                kernel.match(pixels, roi.cols(), roi.rows(), NccPatch.of(patch), actual);
+                assertArrayEquals(expected, actual, (float) TOLERANCE, kernel.getName());
+            }
+
+            assertThrows(IllegalArgumentException.class,
+                () -> NccKernel.scalar().findBest(new byte[100], 10, 10, NccPatch.of(patch)));
+        } finally {
+            patch.close();
+            roi.close();
+            image.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试分析器纯Java路径（含降分辨率后的原图细化）与OpenCV结果一致")
+    void testAnalyzerSmallWindow() {
+        Mat templateImage = Mat.zeros(400, 600, opencv_core.CV_8UC3).asMat();
+        opencv_imgproc.line(templateImage, new Point(100, 200), new Point(500, 200),
+            new Scalar(255, 255, 255, 0), 3, 0, 0);
+        String templatePath = tempDir.resolve("ncc_template").toString();
+        TemplateBuilder builder = new TemplateBuilder()
+            .setImage(templateImage)
+            .setReferenceLength(50.0)
+            .setTip1(100, 200)
+            .setTip2(500, 200)
+            .setTemplateId("ncc_template");
+        builder.buildAndSave(templatePath);
+        builder.release();
+        templateImage.close();
+
+        Mat target = Mat.zeros(64, 320, opencv_core.CV_8UC3).asMat();
+        opencv_imgproc.line(target, new Point(30, 32), new Point(290, 32),
+            new Scalar(255, 255, 255, 0), 3, 0, 0);
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            assertEquals(NeedleLengthAnalyzer.DEFAULT_SMALL_WINDOW_THRESHOLD, analyzer.getSmallWindowThreshold());
+            // 所有尺度都走纯 Java 路径
+            analyzer.setSmallWindowThreshold(Integer.MAX_VALUE);
+            MeasurementResult java = analyzer.analyze(target);
+
+            analyzer.setSmallWindowThreshold(0);
+            MeasurementResult opencv = analyzer.analyze(target);
+
+            assertEquals(opencv.getTip1X(), java.getTip1X(), 1.0);
+            assertEquals(opencv.getTip1Y(), java.getTip1Y(), 1.0);
+            assertEquals(opencv.getTip2X(), java.getTip2X(), 1.0);
+            assertEquals(opencv.getTip2Y(), java.getTip2Y(), 1.0);
+            assertEquals(opencv.getLengthMm(), java.getLengthMm(), 0.1);
+
+            // 降低工作分辨率：原图上的细化窗口只有 7x7 个位置，默认阈值下自动走纯 Java 路径
+            analyzer.setTargetTolerance(1.0);
+            assertTrue(analyzer.getWorkingScale() < 1.0);
+            analyzer.setSmallWindowThreshold(NeedleLengthAnalyzer.DEFAULT_SMALL_WINDOW_THRESHOLD);
+            MeasurementResult refinedJava = analyzer.analyze(target);
+            analyzer.setSmallWindowThreshold(0);
+            MeasurementResult refinedOpenCV = analyzer.analyze(target);
+
+            assertEquals(refinedOpenCV.getTip1X(), refinedJava.getTip1X(), 1.0);
+            assertEquals(refinedOpenCV.getTip2X(), refinedJava.getTip2X(), 1.0);
+            // 细化后回到原分辨率的定位精度
+            assertEquals(opencv.getTip1X(), refinedJava.getTip1X(), 1.0);
+            assertEquals(opencv.getTip1Y(), refinedJava.getTip1Y(), 1.0);
+            assertEquals(opencv.getTip2X(), refinedJava.getTip2X(), 1.0);
+            assertEquals(opencv.getTip2Y(), refinedJava.getTip2Y(), 1.0);
+        } finally {
+            target.close();
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.edge.vision;
 
+import com.edge.vision.cache.ResultCache;
 import com.edge.vision.core.AnalysisTemplate;
+import com.edge.vision.core.AnalyzerWarmup;
+import com.edge.vision.core.MeasurementColumns;
 import com.edge.vision.core.MeasurementResult;
 import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.preprocess.ThresholdRegionDetector;
+import com.edge.vision.stats.SpcStatistics;
 import com.edge.vision.template.TemplateBuilder;
+import com.edge.vision.utils.ImageUtils;
 import org.junit.jupiter.api.*;
 
 import org.bytedeco.opencv.opencv_core.Mat;
@@ -11,11 +17,18 @@ import org.bytedeco.opencv.opencv_core.Point;
 import org.bytedeco.opencv.opencv_core.Scalar;
 import org.bytedeco.opencv.opencv_core.Size;
 import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
 import org.bytedeco.opencv.global.opencv_imgproc;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -149,6 +162,198 @@ public class NeedleLengthAnalyzerTest {
         }
     }
 
+    @Test
+    @DisplayName("测试结果直接追加到列式容器")
+    void testAnalyzeInto() {
+        Mat target = Mat.zeros(400, 600, opencv_core.CV_8UC3).asMat();
+        opencv_imgproc.line(target, new Point(100, 200), new Point(500, 200),
+            new Scalar(255, 255, 255, 0), 3, 0, 0);
+
+        MeasurementColumns columns = new MeasurementColumns();
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            MeasurementResult expected = analyzer.analyze(target);
+            int row = analyzer.analyzeInto(target, columns);
+
+            assertEquals(0, row);
+            assertEquals(expected.getLengthMm(), columns.getLengthMm(row), 1e-9);
+            assertEquals("test_template", columns.getTemplateId(row));
+        } finally {
+            target.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试批量分析把失败的图像报告给调用方")
+    void testAnalyzeBatchReportsFailures() {
+        Mat target = Mat.zeros(400, 600, opencv_core.CV_8UC3).asMat();
+        opencv_imgproc.line(target, new Point(100, 200), new Point(500, 200),
+            new Scalar(255, 255, 255, 0), 3, 0, 0);
+        String good = tempDir.resolve("batch_good.png").toString();
+        String missing = tempDir.resolve("batch_missing.png").toString();
+        opencv_imgcodecs.imwrite(good, target);
+        target.close();
+
+        MeasurementColumns columns = new MeasurementColumns();
+        List<String> failed = new ArrayList<>();
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            int appended = analyzer.analyzeBatch(Arrays.asList(good, missing, good), columns,
+                (path, error) -> {
+                    assertTrue(error.getMessage().contains(path));
+                    failed.add(path);
+                });
+            assertEquals(2, appended);
+            assertEquals(2, columns.size());
+            assertEquals(Collections.singletonList(missing), failed);
+        }
+    }
+
+    @Test
+    @DisplayName("测试重复图像命中结果缓存")
+    void testResultCache() {
+        Mat target = Mat.zeros(400, 600, opencv_core.CV_8UC3).asMat();
+        opencv_imgproc.line(target, new Point(100, 200), new Point(500, 200),
+            new Scalar(255, 255, 255, 0), 3, 0, 0);
+        byte[] bytes = ImageUtils.toPngBytes(target);
+        target.close();
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            ResultCache cache = new ResultCache(16);
+            analyzer.setResultCache(cache);
+
+            MeasurementResult first = analyzer.analyze(bytes);
+            MeasurementResult second = analyzer.analyze(bytes.clone());
+
+            assertSame(first, second);
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+        }
+    }
+
+    @Test
+    @DisplayName("测试搜索区域设置参与参数指纹")
+    void testFingerprintIncludesSearchRegion() {
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            long plain = analyzer.getParameterFingerprint();
+
+            ThresholdRegionDetector detector = new ThresholdRegionDetector();
+            analyzer.setSearchRegionDetector(detector, 32);
+            long withDetector = analyzer.getParameterFingerprint();
+            assertNotEquals(plain, withDetector);
+
+            analyzer.setSearchRegionDetector(detector, 64);
+            long padded = analyzer.getParameterFingerprint();
+            assertNotEquals(withDetector, padded);
+
+            detector.setBackgroundKernel(51);
+            assertNotEquals(padded, analyzer.getParameterFingerprint());
+
+            // 同样参数的另一个实例得到相同指纹，多个分析器可以共用缓存
+            analyzer.setSearchRegionDetector(new ThresholdRegionDetector().setBackgroundKernel(51), 64);
+            assertEquals(detector.getFingerprint(), new ThresholdRegionDetector().setBackgroundKernel(51).getFingerprint());
+
+            analyzer.setSearchRegionDetector(null);
+            assertEquals(plain, analyzer.getParameterFingerprint());
+        }
+    }
+
+    @Test
+    @DisplayName("测试搜索区域裁剪")
+    void testSearchRegion() {
+        // 大画幅中的小针
+        Mat target = Mat.zeros(1200, 1600, opencv_core.CV_8UC3).asMat();
+        opencv_imgproc.line(target, new Point(900, 700), new Point(1300, 700),
+            new Scalar(255, 255, 255, 0), 3, 0, 0);
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            MeasurementResult full = analyzer.analyze(target);
+
+            analyzer.setSearchRegionDetector(new ThresholdRegionDetector());
+            MeasurementResult cropped = analyzer.analyze(target);
+
+            assertEquals(1, analyzer.getSearchRegionHits());
+            assertEquals(0, analyzer.getSearchRegionFallbacks());
+            assertEquals(full.getTip1X(), cropped.getTip1X(), 1.0);
+            assertEquals(full.getTip2X(), cropped.getTip2X(), 1.0);
+            assertEquals(full.getLengthMm(), cropped.getLengthMm(), 0.2);
+        } finally {
+            target.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试一张图像测量多根针")
+    void testAnalyzeAll() {
+        Mat tray = Mat.zeros(900, 1100, opencv_core.CV_8UC3).asMat();
+        int[][] needles = { {100, 150}, {550, 400}, {200, 700} };
+        for (int[] n : needles) {
+            opencv_imgproc.line(tray, new Point(n[0], n[1]), new Point(n[0] + 400, n[1]),
+                new Scalar(255, 255, 255, 0), 3, 0, 0);
+        }
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            List<MeasurementResult> results = analyzer.analyzeAll(tray);
+
+            assertEquals(needles.length, results.size());
+            for (int i = 0; i < needles.length; i++) {
+                MeasurementResult r = results.get(i);
+                assertEquals(needles[i][1], r.getTip1Y(), 3.0);
+                assertEquals(needles[i][0], r.getTip1X(), 10.0);
+                assertEquals(50.0, r.getLengthMm(), 2.0);
+            }
+        } finally {
+            tray.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试预热")
+    void testWarmUp() {
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            AnalyzerWarmup warmup = new AnalyzerWarmup()
+                .addAnalyzer(analyzer)
+                .addImageSize(800, 600)
+                .setIterations(2);
+
+            assertFalse(warmup.isComplete());
+            AnalyzerWarmup.Report report = warmup.start().join();
+
+            assertTrue(warmup.isComplete());
+            assertEquals(1, report.getEntries().size());
+            assertEquals("test_template", report.getEntries().get(0).getTemplateId());
+
+            // 调用方提前完成返回的 future 不影响预热本身；再次预热有新的完成信号
+            CompletableFuture<AnalyzerWarmup.Report> second = warmup.start();
+            second.complete(null);
+            AnalyzerWarmup.Report again = warmup.awaitCompletion(60, TimeUnit.SECONDS);
+            assertNotNull(again);
+            assertNotSame(report, again);
+        }
+    }
+
+    @Test
+    @DisplayName("测试预热不计入 SPC 统计")
+    void testWarmUpSkipsStatistics() {
+        Mat target = Mat.zeros(400, 600, opencv_core.CV_8UC3).asMat();
+        opencv_imgproc.line(target, new Point(100, 200), new Point(500, 200),
+            new Scalar(255, 255, 255, 0), 3, 0, 0);
+
+        SpcStatistics statistics = new SpcStatistics();
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(templatePath + ".png")) {
+            analyzer.setStatistics(statistics);
+            analyzer.setSearchRegionDetector(new ThresholdRegionDetector());
+            analyzer.warmUp(800, 600);
+            assertTrue(statistics.snapshots().isEmpty());
+            assertEquals(0, analyzer.getSearchRegionHits() + analyzer.getSearchRegionFallbacks());
+            assertEquals(0, statistics.snapshot("test_template").getCount());
+
+            analyzer.analyze(target);
+            assertEquals(1, statistics.snapshot("test_template").getCount());
+            assertEquals(1, analyzer.getSearchRegionHits() + analyzer.getSearchRegionFallbacks());
+        } finally {
+            target.close();
+        }
+    }
+
     @Test
     @DisplayName("测试TemplateBuilder")
     void testTemplateBuilder() {
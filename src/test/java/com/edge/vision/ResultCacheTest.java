@@ -0,0 +1,104 @@
+package com.edge.vision;
+
+import com.edge.vision.cache.ContentHash;
+import com.edge.vision.cache.ResultCache;
+import com.edge.vision.core.MeasurementResult;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 结果缓存测试
+ *
+ * @author Coder建设
+ */
+public class ResultCacheTest {
+
+    @Test
+    @DisplayName("测试xxHash64标准向量")
+    void testContentHashVectors() {
+        assertEquals(0xEF46DB3751D8E999L, ContentHash.hash64(new byte[0]));
+        assertEquals(0x44BC2CF5AD770999L, ContentHash.hash64("abc".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(0xFBCEA83C8A378BF1L, ContentHash.hash64(
+            "Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    @DisplayName("测试LRU淘汰")
+    void testEviction() {
+        ResultCache cache = new ResultCache(2);
+        ResultCache.Key k1 = ResultCache.Key.of(new byte[] {1}, 7);
+        ResultCache.Key k2 = ResultCache.Key.of(new byte[] {2}, 7);
+        ResultCache.Key k3 = ResultCache.Key.of(new byte[] {3}, 7);
+
+        cache.put(k1, result(1));
+        cache.put(k2, result(2));
+        assertNotNull(cache.get(k1));  // k1 变为最近使用
+        cache.put(k3, result(3));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(k1));
+        assertNull(cache.get(k2));
+        assertNull(cache.get(ResultCache.Key.of(new byte[] {1}, 8)));  // 参数指纹不同
+    }
+
+    @Test
+    @DisplayName("测试磁盘持久化")
+    void testPersistentTier() throws Exception {
+        Path dir = Files.createTempDirectory("result_cache");
+        try {
+            ResultCache.Key key = ResultCache.Key.of(new byte[] {9, 9, 9}, 42);
+            new ResultCache(10, dir).put(key, result(5));
+
+            ResultCache reopened = new ResultCache(10, dir);
+            MeasurementResult cached = reopened.get(key);
+            assertNotNull(cached);
+            assertEquals(5.0, cached.getLengthMm(), 0.0);
+            assertEquals("cache_test", cached.getTemplateId());
+            assertEquals(1, reopened.getDiskHits());
+        } finally {
+            Files.walk(dir).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    @DisplayName("测试磁盘层上限淘汰与写入失败计数")
+    void testPersistentTierBounded() throws Exception {
+        Path dir = Files.createTempDirectory("result_cache");
+        try {
+            ResultCache cache = new ResultCache(10, dir, 3);
+            ResultCache.Key[] keys = new ResultCache.Key[5];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = ResultCache.Key.of(new byte[] {(byte) i}, 42);
+                cache.put(keys[i], result(i));
+            }
+            assertEquals(3, cache.diskSize());
+            assertEquals(2, cache.getDiskEvictions());
+
+            // 重新打开：只剩最近写入的3条
+            ResultCache reopened = new ResultCache(10, dir, 3);
+            assertEquals(3, reopened.diskSize());
+            assertNull(reopened.get(keys[0]));
+            assertNull(reopened.get(keys[1]));
+            assertNotNull(reopened.get(keys[4]));
+
+            // 磁盘层不可写：结果只保留在内存中，失败计数
+            ResultCache.Key blocked = ResultCache.Key.of(new byte[] {7}, 43);
+            Files.write(dir.resolve(Long.toHexString(43)), new byte[0]);
+            reopened.put(blocked, result(7));
+            assertEquals(1, reopened.getDiskWriteFailures());
+            assertEquals(7.0, reopened.get(blocked).getLengthMm(), 0.0);
+        } finally {
+            Files.walk(dir).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static MeasurementResult result(double mm) {
+        return new MeasurementResult(mm, mm * 8, 0, 0, mm * 8, 0, 0.9, 10, "cache_test");
+    }
+}
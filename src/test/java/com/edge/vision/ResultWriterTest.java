@@ -0,0 +1,114 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.io.BinaryResultReader;
+import com.edge.vision.io.BinaryResultWriter;
+import com.edge.vision.io.CsvResultWriter;
+import com.edge.vision.io.JsonLinesResultWriter;
+import com.edge.vision.io.MeasurementRecord;
+import com.edge.vision.io.ResultWriter;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式结果输出测试
+ *
+ * @author Coder建设
+ */
+public class ResultWriterTest {
+
+    private static MeasurementResult sample(int i) {
+        // 每7条一条限时分析未完成的结果
+        return new MeasurementResult(50.0 + i * 0.01234, 400.0 + i * 0.5,
+            100 + i, 200, 500 - i, 201, 0.8425, 12 + i, "needle_50mm", i % 7 != 3);
+    }
+
+    @Test
+    @DisplayName("测试JSON Lines输出与toJsonString一致")
+    void testJsonLinesMatchesToJsonString() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // 使用小缓冲区以覆盖多次刷新的路径
+        try (ResultWriter writer = new JsonLinesResultWriter(
+                Channels.newChannel(out), 1024)) {
+            for (int i = 0; i < 100; i++) {
+                writer.write(sample(i));
+            }
+            assertEquals(100, writer.getCount());
+        }
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(100, lines.length);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(sample(i).toJsonString(), lines[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("测试负数和特殊模板ID")
+    void testNegativeValuesAndEscaping() {
+        MeasurementResult result = new MeasurementResult(-0.00001, -3.5, -1, 0, 0, 0,
+            0.5, 0, "a\"b");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultWriter writer = new JsonLinesResultWriter(out)) {
+            writer.write(result);
+        }
+        String line = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(line.startsWith("{\"lengthMm\":-0.0000,\"pixelLength\":-3.500,"));
+        assertTrue(line.endsWith("\"templateId\":\"a\\\"b\",\"complete\":true}\n"));
+    }
+
+    @Test
+    @DisplayName("测试CSV输出")
+    void testCsv() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultWriter writer = new CsvResultWriter(out)) {
+            writer.write(sample(1));
+            writer.write(new MeasurementResult(1, 2, 3, 4, 5, 6, 0.9, 7, "a,b"));
+            writer.write(sample(3));
+        }
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(CsvResultWriter.HEADER, lines[0]);
+        assertEquals("50.0123,400.500,101.00,200.00,499.00,201.00,0.843,13,needle_50mm,true", lines[1]);
+        assertEquals("1.0000,2.000,3.00,4.00,5.00,6.00,0.900,7,\"a,b\",true", lines[2]);
+        assertTrue(lines[3].endsWith(",needle_50mm,false"));
+    }
+
+    @Test
+    @DisplayName("测试二进制记录读写")
+    void testBinaryRoundTrip() throws Exception {
+        Path file = Files.createTempFile("results", ".bin");
+        try {
+            int count = 5000;
+            try (ResultWriter writer = new BinaryResultWriter(file)) {
+                for (int i = 0; i < count; i++) {
+                    writer.write(sample(i));
+                }
+            }
+            assertEquals((long) count * MeasurementRecord.RECORD_SIZE, Files.size(file));
+
+            try (BinaryResultReader reader = new BinaryResultReader(file)) {
+                for (int i = 0; i < count; i++) {
+                    MeasurementResult expected = sample(i);
+                    MeasurementResult actual = reader.next();
+                    assertNotNull(actual);
+                    assertEquals(expected.getLengthMm(), actual.getLengthMm(), 0.0);
+                    assertEquals(expected.getTip2X(), actual.getTip2X(), 0.0);
+                    assertEquals(expected.getProcessingTimeMs(), actual.getProcessingTimeMs());
+                    assertEquals(expected.getTemplateId(), actual.getTemplateId());
+                    assertEquals(expected.isComplete(), actual.isComplete());
+                }
+                assertNull(reader.next());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
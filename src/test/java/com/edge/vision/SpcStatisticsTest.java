@@ -0,0 +1,170 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.stats.SpcSnapshot;
+import com.edge.vision.stats.SpcStatistics;
+import com.edge.vision.stats.StreamingStatistics;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在线 SPC 统计测试
+ * @author Coder建设
+ */
+class SpcStatisticsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("测试多线程写入的均值、标准差、分位数与 Cp/Cpk")
+    void testConcurrentStatistics() throws Exception {
+        int threads = 4;
+        int perThread = 50_000;
+        double[][] samples = new double[threads][perThread];
+        Random random = new Random(7);
+        for (double[] row : samples) {
+            for (int i = 0; i < perThread; i++) {
+                row[i] = 50.0 + 0.05 * random.nextGaussian();
+            }
+        }
+
+        SpcStatistics spc = new SpcStatistics();
+        spc.setSpecLimits("needle-50", 49.8, 50.2);
+        List<Thread> writers = new ArrayList<>();
+        for (double[] row : samples) {
+            writers.add(new Thread(() -> {
+                for (double v : row) {
+                    spc.record("needle-50", v);
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        // 写入期间读取快照不应出错，样本数单调
+        long lastCount = 0;
+        for (int i = 0; i < 20; i++) {
+            long count = spc.snapshot("needle-50").getCount();
+            assertTrue(count >= lastCount);
+            lastCount = count;
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        double[] all = Arrays.stream(samples).flatMapToDouble(Arrays::stream).sorted().toArray();
+        double mean = Arrays.stream(all).average().getAsDouble();
+        double variance = Arrays.stream(all).map(v -> (v - mean) * (v - mean)).sum() / (all.length - 1);
+
+        SpcSnapshot snapshot = spc.snapshot("needle-50");
+        assertEquals(all.length, snapshot.getCount());
+        assertEquals(mean, snapshot.getMean(), 1e-9);
+        assertEquals(Math.sqrt(variance), snapshot.getStdDev(), 1e-9);
+        assertEquals(all[0], snapshot.getMin(), 0);
+        assertEquals(all[all.length - 1], snapshot.getMax(), 0);
+        for (double q : new double[] { 0.01, 0.5, 0.99 }) {
+            double exact = all[(int) Math.floor(q * (all.length - 1))];
+            assertEquals(exact, snapshot.quantile(q), exact * 0.0005 + 1e-9);
+        }
+        double sigma = Math.sqrt(variance);
+        assertEquals(0.4 / (6 * sigma), snapshot.getCp(), 1e-9);
+        assertEquals(Math.min(50.2 - mean, mean - 49.8) / (3 * sigma), snapshot.getCpk(), 1e-9);
+        assertTrue(Double.isNaN(spc.snapshot("other").getCp()));
+    }
+
+    @Test
+    @DisplayName("测试快照相减得到窗口统计与快照合并")
+    void testWindowAndMerge() {
+        SpcStatistics spc = new SpcStatistics();
+        for (int i = 0; i < 1000; i++) {
+            spc.record("a", 10.0 + (i % 10) * 0.01);
+        }
+        SpcSnapshot before = spc.snapshot("a");
+        // 漂移：均值上移 1mm
+        for (int i = 0; i < 500; i++) {
+            spc.record("a", 11.0 + (i % 10) * 0.01);
+        }
+        SpcSnapshot window = spc.snapshot("a").minus(before);
+        assertEquals(500, window.getCount());
+        assertEquals(11.045, window.getMean(), 1e-9);
+        double[] drifted = new double[500];
+        for (int i = 0; i < 500; i++) {
+            drifted[i] = 11.0 + (i % 10) * 0.01;
+        }
+        double variance = Arrays.stream(drifted).map(v -> (v - 11.045) * (v - 11.045)).sum() / 499;
+        assertEquals(Math.sqrt(variance), window.getStdDev(), 1e-6);
+        assertEquals(11.045, window.quantile(0.5), 11.045 * 0.001);
+        assertTrue(window.getMin() >= 11.0 * (1 - 0.001));
+
+        spc.record("b", 20.0);
+        spc.record("b", 22.0);
+        SpcSnapshot merged = spc.snapshot("a").merge(spc.snapshot("b"));
+        assertEquals(1502, merged.getCount());
+        assertEquals(22.0, merged.getMax(), 0);
+        assertEquals(2, spc.snapshots().size());
+    }
+
+    @Test
+    @DisplayName("测试短生命周期线程写入时条带数固定")
+    void testShortLivedWriters() throws Exception {
+        StreamingStatistics stats = new StreamingStatistics();
+        int cells = stats.getCellCount();
+        for (int round = 0; round < 50; round++) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                writers.add(new Thread(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        stats.add(1.0 + i * 0.01);
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        assertEquals(cells, stats.getCellCount());
+        SpcSnapshot snapshot = stats.snapshot();
+        assertEquals(20_000, snapshot.getCount());
+        assertEquals(1.495, snapshot.getMean(), 1e-9);
+        assertEquals(1.0, snapshot.getMin(), 0);
+        assertEquals(1.99, snapshot.getMax(), 1e-12);
+    }
+
+    @Test
+    @DisplayName("测试挂在分析器上自动计入测量结果")
+    void testAnalyzerIntegration() {
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+            .setResolution(900, 500)
+            .setNeedleSize(500, 8)
+            .setScaleRange(1.0, 1.0)
+            .setMaxRotation(0);
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+
+        SpcStatistics spc = new SpcStatistics();
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(template + ".png")) {
+            analyzer.setStatistics(spc);
+            double sum = 0;
+            for (int i = 0; i < 3; i++) {
+                try (SyntheticNeedleGenerator.Sample sample = generator.render(i)) {
+                    MeasurementResult result = analyzer.analyze(sample.getImage());
+                    sum += result.getLengthMm();
+                }
+            }
+            SpcSnapshot snapshot = spc.snapshot(analyzer.getTemplate().getTemplateId());
+            assertEquals(3, snapshot.getCount());
+            assertEquals(sum / 3, snapshot.getMean(), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.edge.vision;
+
+import com.edge.vision.platform.AppCdsSupport;
+import com.edge.vision.platform.DesktopOpenCVLoader;
+import com.edge.vision.platform.StartupTiming;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 快速启动测试
+ * @author Coder建设
+ */
+class StartupTest {
+
+    @Test
+    @DisplayName("测试AppCDS参数")
+    void testAppCdsArgs() {
+        Path archive = Path.of("build", "cds", "needle-sdk.jsa");
+
+        assertEquals(Path.of("build", "cds", "needle-sdk.classlist"), AppCdsSupport.classListFile(archive));
+        assertEquals(List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto"),
+            AppCdsSupport.runtimeArgs(archive));
+
+        List<String> training = AppCdsSupport.trainingArgs(archive);
+        assertTrue(training.contains("-XX:DumpLoadedClassList=" + AppCdsSupport.classListFile(archive)));
+        assertTrue(training.contains("-D" + AppCdsSupport.ARCHIVE_PROPERTY + "=" + archive));
+        if (AppCdsSupport.supportsDynamicArchive()) {
+            assertTrue(training.contains("-XX:ArchiveClassesAtExit=" + archive));
+            assertTrue(AppCdsSupport.dumpArgs(archive).isEmpty());
+        } else {
+            assertTrue(AppCdsSupport.dumpArgs(archive).contains("-Xshare:dump"));
+        }
+        // 测试JVM未使用归档启动
+        assertNull(AppCdsSupport.getActiveArchive());
+    }
+
+    @Test
+    @DisplayName("测试归档校验")
+    void testArchiveValidation(@TempDir Path dir) throws Exception {
+        Path archive = dir.resolve("needle-sdk.jsa");
+        assertFalse(AppCdsSupport.isArchiveUsable(archive));
+
+        // 归档存在但没有信息文件（来源不明）
+        Files.write(archive, new byte[16]);
+        assertFalse(AppCdsSupport.isArchiveUsable(archive));
+        assertTrue(AppCdsSupport.usableRuntimeArgs(archive).isEmpty());
+
+        AppCdsSupport.writeArchiveInfo(archive);
+        assertTrue(Files.isRegularFile(AppCdsSupport.infoFile(archive)));
+        assertTrue(AppCdsSupport.isArchiveUsable(archive));
+        assertEquals(AppCdsSupport.runtimeArgs(archive), AppCdsSupport.usableRuntimeArgs(archive));
+
+        // classpath 变化后归档失效
+        Path info = AppCdsSupport.infoFile(archive);
+        List<String> lines = Files.readAllLines(info, StandardCharsets.UTF_8).stream()
+            .map(line -> line.startsWith("classpath=") ? "classpath=0" : line)
+            .collect(Collectors.toList());
+        Files.write(info, lines, StandardCharsets.UTF_8);
+        assertFalse(AppCdsSupport.isArchiveUsable(archive));
+    }
+
+    @Test
+    @DisplayName("测试按类列表预加载")
+    void testPreloadClassList(@TempDir Path dir) throws Exception {
+        Path classList = dir.resolve("needle-sdk.classlist");
+        Files.write(classList, List.of(
+            "# NOTE: Do not modify this file.",
+            "java/lang/Object id: 0",
+            "com/edge/vision/core/MeasurementResult",
+            "com/edge/vision/core/NoSuchClass",
+            "@lambda-proxy java/lang/Object run ()V"), StandardCharsets.UTF_8);
+
+        assertEquals(2, AppCdsSupport.preloadClasses(classList, getClass().getClassLoader()));
+    }
+
+    @Test
+    @DisplayName("测试预加载模式")
+    void testPreload(@TempDir Path dir) throws Exception {
+        Path classList = dir.resolve("needle-sdk.classlist");
+        Files.write(classList, List.of(
+            "com/edge/vision/core/NeedleLengthAnalyzer",
+            "org/bytedeco/opencv/opencv_core/Mat"), StandardCharsets.UTF_8);
+        // 同一JVM中其他测试可能已加载原生库（此时不再统计耗时），在新JVM中验证
+        List<String> command = List.of(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"),
+            "-D" + DesktopOpenCVLoader.CLASS_LIST_PROPERTY + "=" + classList,
+            PreloadProbe.class.getName());
+        Process process = new ProcessBuilder(command)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        Map<String, String> values = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(PreloadProbe.PREFIX)) {
+                    String[] kv = line.substring(PreloadProbe.PREFIX.length()).split("=", 2);
+                    values.put(kv[0], kv[1]);
+                }
+            }
+        }
+        assertTrue(process.waitFor(120, TimeUnit.SECONDS), "子进程超时");
+        assertEquals(0, process.exitValue());
+
+        assertEquals("true", values.get("loaded"));
+        assertEquals("PRELOAD", values.get("mode"));
+        assertEquals("core,imgproc,imgcodecs", values.get("modules"));
+        for (String ms : values.get("moduleMs").split(",")) {
+            assertTrue(Long.parseLong(ms) >= 0);
+        }
+        assertTrue(Long.parseLong(values.get("totalMs")) >= 0);
+        assertEquals("2", values.get("classes"));
+        assertEquals(classList.toString(), values.get("classList"));
+    }
+
+    /**
+     * 在新JVM中以预加载模式加载并输出耗时统计
+     */
+    static final class PreloadProbe {
+        static final String PREFIX = "PRELOAD-PROBE ";
+
+        public static void main(String[] args) {
+            DesktopOpenCVLoader loader = new DesktopOpenCVLoader(DesktopOpenCVLoader.LoadMode.PRELOAD, null);
+            loader.load();
+            StartupTiming timing = loader.getStartupTiming();
+            System.out.println(PREFIX + "loaded=" + loader.isLoaded());
+            if (timing != null) {
+                System.out.println(PREFIX + "mode=" + timing.getMode());
+                System.out.println(PREFIX + "modules=" + String.join(",", timing.getModuleLoadMs().keySet()));
+                System.out.println(PREFIX + "moduleMs=" + timing.getModuleLoadMs().values().stream()
+                    .map(String::valueOf).collect(Collectors.joining(",")));
+                System.out.println(PREFIX + "totalMs=" + timing.getTotalMs());
+                System.out.println(PREFIX + "classes=" + timing.getPreloadedClasses());
+                System.out.println(PREFIX + "classList=" + timing.getClassList());
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.tools.DatasetGenerator;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 合成数据集生成器测试
+ * @author Coder建设
+ */
+class SyntheticDatasetTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SyntheticNeedleGenerator newGenerator() {
+        return new SyntheticNeedleGenerator()
+            .setResolution(1200, 800)
+            .setNeedleSize(600, 8)
+            .setScaleRange(0.95, 1.05)
+            .setMaxRotation(0)
+            .setSeed(7);
+    }
+
+    @Test
+    @DisplayName("测试参数可复现")
+    void testReproducible() {
+        SyntheticNeedleGenerator.Scene a = newGenerator().scene(12);
+        SyntheticNeedleGenerator.Scene b = newGenerator().scene(12);
+        SyntheticNeedleGenerator.Scene c = newGenerator().scene(13);
+
+        assertEquals(a.getTip1X(), b.getTip1X());
+        assertEquals(a.getScale(), b.getScale());
+        assertEquals(a.getNoiseSigma(), b.getNoiseSigma());
+        assertNotEquals(a.getTip1X(), c.getTip1X());
+        assertEquals(600 * a.getScale(), a.getLengthPx(), 1e-6);
+        assertEquals(50.0 * a.getScale(), a.getLengthMm(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("测试生成数据集并测量")
+    void testGenerateAndMeasure() throws Exception {
+        SyntheticNeedleGenerator generator = newGenerator();
+        Path manifest = new DatasetGenerator(generator, tempDir)
+            .setThreads(2)
+            .setFormat("png")
+            .generate(4);
+
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        assertEquals(DatasetGenerator.MANIFEST_HEADER, lines.get(0));
+        assertEquals(5, lines.size());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(lines.get(i + 1).startsWith(i + ","));
+        }
+        assertTrue(Files.exists(tempDir.resolve("images/000/000003.png")));
+        assertTrue(Files.exists(tempDir.resolve("dataset.properties")));
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(tempDir.resolve("template.png").toString())) {
+            String[] row = lines.get(1).split(",");
+            MeasurementResult result = analyzer.analyze(tempDir.resolve(row[1]).toString());
+            System.out.println("合成图像测量: " + result + ", 真值: " + row[9] + "mm");
+            assertEquals(Double.parseDouble(row[9]), result.getLengthMm(), 2.0);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementOverlay;
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.MeasurementVisualizer;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可视化模式测试
+ * @author Coder建设
+ */
+class VisualizationTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+        .setResolution(1200, 600)
+        .setNeedleSize(800, 10)
+        .setReferenceLength(50.0)
+        .setScaleRange(1.0, 1.0)
+        .setMaxRotation(0)
+        .setMaxClutter(0);
+
+    private static MeasurementVisualizer visualizer(MeasurementVisualizer.Mode mode) {
+        return new MeasurementVisualizer().setMode(mode);
+    }
+
+    /**
+     * 针尖圆点为红色（BGR 0,0,255），取圆心正下方5像素避开连线
+     */
+    private static void assertTipMarked(Mat out, double x, double y) {
+        try (UByteIndexer idx = out.createIndexer()) {
+            int px = (int) Math.round(x);
+            int py = (int) Math.round(y) + 5;
+            assertEquals(0, idx.get(py, px, 0), "B@" + px + "," + py);
+            assertEquals(0, idx.get(py, px, 1), "G@" + px + "," + py);
+            assertEquals(255, idx.get(py, px, 2), "R@" + px + "," + py);
+        }
+    }
+
+    @Test
+    @DisplayName("测试完整、缩略图和裁剪模式的尺寸与标注位置")
+    void testRenderModes() {
+        MeasurementOverlay overlay = new MeasurementOverlay(200, 300, 1000, 320, 50.0);
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(0)) {
+            Mat image = sample.getImage();
+
+            try (Mat full = visualizer(MeasurementVisualizer.Mode.FULL).render(image, overlay)) {
+                assertEquals(1200, full.cols());
+                assertEquals(600, full.rows());
+                assertTipMarked(full, 200, 300);
+                assertTipMarked(full, 1000, 320);
+            }
+
+            try (Mat thumb = visualizer(MeasurementVisualizer.Mode.THUMBNAIL).setThumbnailSize(300)
+                    .render(image, overlay)) {
+                assertEquals(300, thumb.cols());
+                assertEquals(150, thumb.rows());
+                assertTipMarked(thumb, 50, 75);
+                assertTipMarked(thumb, 250, 80);
+            }
+
+            try (Mat roi = visualizer(MeasurementVisualizer.Mode.ROI_CROP).setRoiMargin(40)
+                    .render(image, overlay)) {
+                assertEquals(800 + 2 * 40 + 1, roi.cols());
+                assertEquals(20 + 2 * 40 + 1, roi.rows());
+                assertTipMarked(roi, 40, 40);
+                assertTipMarked(roi, 840, 60);
+            }
+
+            // 裁剪区域在图像边缘截断
+            MeasurementOverlay edge = new MeasurementOverlay(10, 5, 300, 5, 20.0);
+            try (Mat roi = visualizer(MeasurementVisualizer.Mode.ROI_CROP).render(image, edge)) {
+                assertEquals(300 + MeasurementVisualizer.DEFAULT_ROI_MARGIN + 1, roi.cols());
+                assertTipMarked(roi, 10, 5);
+            }
+
+            assertThrows(IllegalStateException.class,
+                () -> visualizer(MeasurementVisualizer.Mode.OVERLAY_ONLY).render(image, overlay));
+        }
+    }
+
+    @Test
+    @DisplayName("测试分析器按模式保存标注图像，仅矢量模式不写文件")
+    void testAnalyzerVisualization() throws Exception {
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+        Path target = tempDir.resolve("target.png");
+        Path output = tempDir.resolve("target_analyzed.png");
+        try (SyntheticNeedleGenerator.Sample sample = generator.render(1)) {
+            opencv_imgcodecs.imwrite(target.toString(), sample.getImage());
+        }
+
+        try (NeedleLengthAnalyzer analyzer = new NeedleLengthAnalyzer(template + ".png")) {
+            analyzer.setVisualizer(visualizer(MeasurementVisualizer.Mode.THUMBNAIL).setThumbnailSize(320));
+            MeasurementResult result = analyzer.analyze(target.toString());
+            try (Mat saved = opencv_imgcodecs.imread(output.toString())) {
+                assertEquals(320, saved.cols());
+                assertEquals(160, saved.rows());
+            }
+
+            // 标注图像无法写入时分析报错，不静默丢弃
+            Files.delete(output);
+            Files.createDirectory(output);
+            RuntimeException error = assertThrows(RuntimeException.class, () -> analyzer.analyze(target.toString()));
+            assertTrue(error.getMessage().contains("保存可视化结果失败"));
+            Files.delete(output);
+
+            analyzer.setVisualizer(visualizer(MeasurementVisualizer.Mode.OVERLAY_ONLY));
+            analyzer.analyze(target.toString());
+            assertFalse(Files.exists(output));
+
+            MeasurementOverlay overlay = MeasurementOverlay.of(result);
+            assertEquals(result.getTip1X(), overlay.getTip1X());
+            assertEquals(String.format("%.3f mm", result.getLengthMm()), overlay.getLabel());
+            assertTrue(overlay.toJsonString().contains("\"label\":\"" + overlay.getLabel() + "\""));
+
+            analyzer.setVisualizer(visualizer(MeasurementVisualizer.Mode.ROI_CROP));
+            try (Mat image = opencv_imgcodecs.imread(target.toString());
+                 Mat roi = analyzer.generateVisualization(image, result)) {
+                assertTrue(roi.cols() < image.cols() || roi.rows() < image.rows());
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.edge.vision;
+
+import com.edge.vision.core.MeasurementResult;
+import com.edge.vision.core.NeedleLengthAnalyzer;
+import com.edge.vision.tools.SyntheticNeedleGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按精度选择工作分辨率测试
+ * @author Coder建设
+ */
+class WorkingResolutionTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("测试降低工作分辨率后测量误差仍在目标精度内")
+    void testToleranceDrivenScale() {
+        SyntheticNeedleGenerator generator = new SyntheticNeedleGenerator()
+            .setResolution(1800, 900)
+            .setNeedleSize(1200, 12)
+            .setReferenceLength(50.0)
+            .setScaleRange(1.0, 1.0)
+            .setMaxRotation(0)
+            .setMaxClutter(0);
+        String template = tempDir.resolve("template").toString();
+        generator.buildTemplate(template);
+
+        try (NeedleLengthAnalyzer full = new NeedleLengthAnalyzer(template + ".png");
+             NeedleLengthAnalyzer reduced = new NeedleLengthAnalyzer(template + ".png")) {
+            double mmPerPixel = full.getTemplate().getMmPerPixel();
+            double tolerance = 0.1;
+            reduced.setTargetTolerance(tolerance);
+            double scale = reduced.getWorkingScale();
+            assertTrue(scale < 0.6, "工作比例应明显低于原分辨率: " + scale);
+            assertNotEquals(full.getParameterFingerprint(), reduced.getParameterFingerprint());
+
+            for (int i = 0; i < 6; i++) {
+                try (SyntheticNeedleGenerator.Sample sample = generator.render(i)) {
+                    MeasurementResult result = reduced.analyze(sample.getImage());
+                    assertEquals(sample.getScene().getLengthMm(), result.getLengthMm(), tolerance,
+                        "样本 " + i + " 超出目标精度");
+                }
+            }
+
+            // 精度要求高于原分辨率能力时保持原分辨率
+            reduced.setTargetTolerance(mmPerPixel);
+            assertEquals(1.0, reduced.getWorkingScale());
+            reduced.setTargetTolerance(Double.NaN);
+            assertEquals(1.0, reduced.getWorkingScale());
+            assertEquals(full.getParameterFingerprint(), reduced.getParameterFingerprint());
+        }
+    }
+}